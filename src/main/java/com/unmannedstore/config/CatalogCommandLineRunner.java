@@ -0,0 +1,111 @@
+package com.unmannedstore.config;
+
+import com.unmannedstore.features.shopping_management.domain.model.CatalogImportResult;
+import com.unmannedstore.features.shopping_management.domain.service.CatalogFormat;
+import com.unmannedstore.features.shopping_management.domain.service.CatalogImportService;
+import com.unmannedstore.features.shopping_management.infrastructure.persistence.RfidTagIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Command-line mode for bulk catalog import and export.
+ * Start the application with --catalog.import=&lt;file&gt; to load a catalog, or --catalog.export=&lt;file&gt; to dump it.
+ * The format follows the file extension (.csv, .jsonl or .ndjson) unless --catalog.format is given.
+ * --rfid-index.build builds the RFID tag index file from the products table; an import that changes the
+ * catalog builds it as well.
+ * The application exits once the files are processed, unless --catalog.keep-running is given.
+ * Runs before the sample data initializer, so an imported catalog replaces the sample products.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CatalogCommandLineRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogCommandLineRunner.class);
+
+    private final CatalogImportService catalogImportService;
+    private final RfidTagIndex rfidTagIndex;
+    private final ConfigurableApplicationContext applicationContext;
+
+    /**
+     * Constructor for CatalogCommandLineRunner.
+     *
+     * @param catalogImportService The catalog import service
+     * @param rfidTagIndex The RFID tag index, built on request
+     * @param applicationContext The application context, closed when the command-line run is done
+     */
+    public CatalogCommandLineRunner(CatalogImportService catalogImportService, RfidTagIndex rfidTagIndex,
+                                    ConfigurableApplicationContext applicationContext) {
+        this.catalogImportService = catalogImportService;
+        this.rfidTagIndex = rfidTagIndex;
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<String> imports = args.getOptionValues("catalog.import");
+        List<String> exports = args.getOptionValues("catalog.export");
+        boolean buildRfidIndex = args.containsOption("rfid-index.build");
+        if (imports == null && exports == null && !buildRfidIndex) {
+            return;
+        }
+        List<String> formats = args.getOptionValues("catalog.format");
+        String format = formats != null && !formats.isEmpty() ? formats.get(0) : null;
+
+        boolean failed = false;
+        long imported = 0;
+        if (imports != null) {
+            for (String file : imports) {
+                Path path = Paths.get(file);
+                try (InputStream input = Files.newInputStream(path)) {
+                    CatalogImportResult result = catalogImportService.importCatalog(input, formatOf(format, file));
+                    logger.info("Catalog import of {}: {} rows read, {} imported, {} rejected in {} ms ({} rows/s)",
+                            path, result.getRowsRead(), result.getImported(), result.getRejected(),
+                            result.getElapsedMillis(), result.getRowsPerSecond());
+                    result.getErrors().forEach(error -> logger.warn("Rejected: {}", error));
+                    failed |= result.getRejected() > 0;
+                    imported += result.getImported();
+                }
+            }
+        }
+        // An import that changed the catalog has built the index already
+        if (buildRfidIndex && imported == 0) {
+            long start = System.nanoTime();
+            int tags = rfidTagIndex.rebuild();
+            logger.info("RFID tag index build: {} tags in {} ms", tags, (System.nanoTime() - start) / 1_000_000);
+        }
+        if (exports != null) {
+            for (String file : exports) {
+                Path path = Paths.get(file);
+                long start = System.nanoTime();
+                try (OutputStream output = Files.newOutputStream(path)) {
+                    long rows = catalogImportService.exportCatalog(output, formatOf(format, file));
+                    logger.info("Catalog export to {}: {} products in {} ms", path, rows, (System.nanoTime() - start) / 1_000_000);
+                }
+            }
+        }
+
+        if (!args.containsOption("catalog.keep-running")) {
+            int status = failed ? 1 : 0;
+            int exitCode = SpringApplication.exit(applicationContext, () -> status);
+            System.exit(exitCode);
+        }
+    }
+
+    private static CatalogFormat formatOf(String format, String file) {
+        return format != null ? CatalogFormat.fromName(format) : CatalogFormat.fromFileName(file);
+    }
+}
@@ -2,6 +2,7 @@ package com.unmannedstore.config;
 
 import com.unmannedstore.features.shopping_management.domain.model.Product;
 import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
+import com.unmannedstore.features.shopping_management.domain.repository.ProductBulkRepository;
 import com.unmannedstore.features.shopping_management.domain.repository.ProductRepository;
 import com.unmannedstore.features.shopping_management.domain.repository.ShoppingSessionRepository;
 import org.slf4j.Logger;
@@ -28,10 +29,12 @@ public class DataInitializer {
      * and loads them if they're not.
      *
      * @param productRepository The repository for Product entities
+     * @param productBulkRepository The repository sample products are written through in one batch
      * @return A CommandLineRunner that initializes the database with sample products
      */
     @Bean
-    public CommandLineRunner initDatabase(ProductRepository productRepository, ShoppingSessionRepository shoppingSessionRepository) {
+    public CommandLineRunner initDatabase(ProductRepository productRepository, ProductBulkRepository productBulkRepository,
+                                          ShoppingSessionRepository shoppingSessionRepository) {
         return args -> {
             // Check if products are already loaded
             List<Product> existingProducts = productRepository.findAll();
@@ -41,10 +44,8 @@ public class DataInitializer {
                 // Create sample products
                 List<Product> sampleProducts = createSampleProducts();
 
-                // Save all products individually
-                for (Product product : sampleProducts) {
-                    productRepository.save(product);
-                }
+                // Save all products in one batch
+                productBulkRepository.upsert(sampleProducts);
 
                 logger.info("Sample products initialized successfully. {} products loaded.", sampleProducts.size());
             } else {
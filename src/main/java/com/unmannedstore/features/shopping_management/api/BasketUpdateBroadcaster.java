@@ -0,0 +1,316 @@
+package com.unmannedstore.features.shopping_management.api;
+
+import com.unmannedstore.features.shopping_management.events.ItemAddedEvent;
+import com.unmannedstore.features.shopping_management.events.ItemRemovedEvent;
+import com.unmannedstore.features.shopping_management.events.ItemsAddedEvent;
+import com.unmannedstore.features.shopping_management.events.TotalUpdatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams basket events to subscribed basket displays as server-sent events.
+ * Events are picked up from the application event bus, so every event published through the
+ * EventPublisher reaches the subscribers of its basket without the displays having to poll.
+ * <p>
+ * Each subscriber has a bounded buffer drained by a small pool of sender threads, so a slow client
+ * never holds up the thread that published the event. When a subscriber's buffer overflows, its
+ * buffered events are dropped and a single resync event is sent in their place; the client is
+ * expected to fetch the basket contents again and carry on from the events that follow.
+ */
+@Component
+public class BasketUpdateBroadcaster {
+
+    static final String EVENT_ITEM_ADDED = "item_added";
+    static final String EVENT_ITEMS_ADDED = "items_added";
+    static final String EVENT_ITEM_REMOVED = "item_removed";
+    static final String EVENT_TOTAL_UPDATED = "total_updated";
+    static final String EVENT_RESYNC = "resync";
+
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final ExecutorService senders;
+    private final Map<String, Set<Subscriber>> subscribersByBasket = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final Counter deliveredEvents;
+    private final Counter droppedEvents;
+    private final Counter resyncs;
+
+    /**
+     * Constructor for BasketUpdateBroadcaster.
+     *
+     * @param meterRegistry The meter registry for stream metrics
+     * @param bufferSize The maximum number of events buffered per subscriber
+     * @param maxSubscribers The maximum number of open streams across all baskets
+     * @param timeoutMillis How long a stream stays open before the client has to reconnect, or 0 for no limit
+     * @param senderCount The number of threads that write events to subscribers
+     */
+    public BasketUpdateBroadcaster(MeterRegistry meterRegistry,
+                                   @Value("${app.baskets.stream.buffer-size:64}") int bufferSize,
+                                   @Value("${app.baskets.stream.max-subscribers:10000}") int maxSubscribers,
+                                   @Value("${app.baskets.stream.timeout-ms:1800000}") long timeoutMillis,
+                                   @Value("${app.baskets.stream.senders:2}") int senderCount) {
+        this.bufferSize = Math.max(1, bufferSize);
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeoutMillis;
+
+        int sendersToStart = Math.max(1, senderCount);
+        AtomicInteger threadNumber = new AtomicInteger();
+        // At most one drain task per subscriber is ever queued
+        this.senders = new ThreadPoolExecutor(sendersToStart, sendersToStart, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "basket-stream-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.deliveredEvents = Counter.builder("basket.stream.events")
+                .tag("result", "delivered")
+                .description("Basket events written to subscribers")
+                .register(meterRegistry);
+        this.droppedEvents = Counter.builder("basket.stream.events")
+                .tag("result", "dropped")
+                .description("Basket events dropped because a subscriber's buffer was full")
+                .register(meterRegistry);
+        this.resyncs = Counter.builder("basket.stream.resyncs")
+                .description("Resync events sent to subscribers that fell behind")
+                .register(meterRegistry);
+        Gauge.builder("basket.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open basket update streams")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Open a stream of a basket's events.
+     *
+     * @param basketId The basket ID
+     * @return The emitter the basket's events are written to
+     * @throws RejectedExecutionException if the maximum number of streams is open
+     */
+    public SseEmitter subscribe(String basketId) {
+        return subscribe(basketId, new SseEmitter(timeoutMillis));
+    }
+
+    /**
+     * Register an emitter for a basket's events.
+     *
+     * @param basketId The basket ID
+     * @param emitter The emitter the basket's events are written to
+     * @return The emitter
+     * @throws RejectedExecutionException if the maximum number of streams is open
+     */
+    SseEmitter subscribe(String basketId, SseEmitter emitter) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new RejectedExecutionException("Too many basket update streams are open");
+        }
+        Subscriber subscriber = new Subscriber(basketId, emitter, bufferSize);
+        subscribersByBasket.compute(basketId, (id, subscribers) -> {
+            Set<Subscriber> basketSubscribers = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            basketSubscribers.add(subscriber);
+            return basketSubscribers;
+        });
+
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        return emitter;
+    }
+
+    /**
+     * Get the number of open streams for a basket.
+     *
+     * @param basketId The basket ID
+     * @return The number of subscribers
+     */
+    public int getSubscriberCount(String basketId) {
+        Set<Subscriber> subscribers = subscribersByBasket.get(basketId);
+        return subscribers != null ? subscribers.size() : 0;
+    }
+
+    /**
+     * Forward to the basket's subscribers that an item was added.
+     *
+     * @param event The event
+     */
+    @EventListener
+    public void onItemAdded(ItemAddedEvent event) {
+        broadcast(event.getBasketId(), EVENT_ITEM_ADDED, event);
+    }
+
+    /**
+     * Forward to the basket's subscribers that a batch of items was added.
+     *
+     * @param event The event
+     */
+    @EventListener
+    public void onItemsAdded(ItemsAddedEvent event) {
+        broadcast(event.getBasketId(), EVENT_ITEMS_ADDED, event);
+    }
+
+    /**
+     * Forward to the basket's subscribers that an item was removed.
+     *
+     * @param event The event
+     */
+    @EventListener
+    public void onItemRemoved(ItemRemovedEvent event) {
+        broadcast(event.getBasketId(), EVENT_ITEM_REMOVED, event);
+    }
+
+    /**
+     * Forward to the basket's subscribers that the running total changed.
+     *
+     * @param event The event
+     */
+    @EventListener
+    public void onTotalUpdated(TotalUpdatedEvent event) {
+        broadcast(event.getBasketId(), EVENT_TOTAL_UPDATED, event);
+    }
+
+    /**
+     * Stop the sender threads and close all open streams.
+     */
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        subscribersByBasket.values().forEach(subscribers -> subscribers.forEach(s -> s.emitter.complete()));
+        subscribersByBasket.clear();
+        subscriberCount.set(0);
+    }
+
+    /**
+     * Buffer an event for every subscriber of its basket. Runs on the publishing thread,
+     * so it only queues and never writes to a client.
+     *
+     * @param basketId The basket ID
+     * @param name The event name sent to the client
+     * @param event The event
+     */
+    private void broadcast(String basketId, String name, Object event) {
+        Set<Subscriber> subscribers = subscribersByBasket.get(basketId);
+        if (subscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.buffer.offer(new StreamEvent(name, event))) {
+                // The client has fallen behind: drop what it has not seen and tell it to start over
+                droppedEvents.increment(subscriber.buffer.size() + 1);
+                subscriber.buffer.clear();
+                subscriber.resyncRequired.set(true);
+            }
+            schedule(subscriber);
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.scheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Write a subscriber's buffered events to its client, then either stop or reschedule
+     * if more events arrived in the meantime.
+     *
+     * @param subscriber The subscriber to drain
+     */
+    private void drain(Subscriber subscriber) {
+        try {
+            while (true) {
+                // The resync goes out before any event that was buffered after the overflow
+                if (subscriber.resyncRequired.getAndSet(false)) {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .name(EVENT_RESYNC)
+                            .data(Map.of("basketId", subscriber.basketId)));
+                    resyncs.increment();
+                }
+                StreamEvent next = subscriber.buffer.poll();
+                if (next == null) {
+                    break;
+                }
+                subscriber.emitter.send(SseEmitter.event().name(next.name).data(next.payload));
+                deliveredEvents.increment();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; the emitter callbacks do the rest of the clean-up
+            unsubscribe(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return;
+        }
+
+        subscriber.scheduled.set(false);
+        if (!subscriber.buffer.isEmpty() || subscriber.resyncRequired.get()) {
+            schedule(subscriber);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        boolean[] removed = new boolean[1];
+        subscribersByBasket.computeIfPresent(subscriber.basketId, (id, subscribers) -> {
+            removed[0] = subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        if (removed[0]) {
+            subscriberCount.decrementAndGet();
+            subscriber.buffer.clear();
+        }
+    }
+
+    /**
+     * An open stream and the events buffered for it.
+     */
+    private static class Subscriber {
+
+        private final String basketId;
+        private final SseEmitter emitter;
+        private final Queue<StreamEvent> buffer;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean resyncRequired = new AtomicBoolean();
+
+        private Subscriber(String basketId, SseEmitter emitter, int bufferSize) {
+            this.basketId = basketId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+
+    /**
+     * A buffered event and the name it is sent under.
+     */
+    private static class StreamEvent {
+
+        private final String name;
+        private final Object payload;
+
+        private StreamEvent(String name, Object payload) {
+            this.name = name;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.unmannedstore.features.shopping_management.api;
+
+import com.unmannedstore.features.shopping_management.api.dto.CatalogImportResponse;
+import com.unmannedstore.features.shopping_management.api.dto.CatalogVersionResponse;
+import com.unmannedstore.features.shopping_management.domain.model.CatalogImportResult;
+import com.unmannedstore.features.shopping_management.domain.model.CatalogSnapshot;
+import com.unmannedstore.features.shopping_management.domain.service.CatalogFormat;
+import com.unmannedstore.features.shopping_management.domain.service.CatalogImportService;
+import com.unmannedstore.features.shopping_management.domain.service.CatalogIndexService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * REST controller for bulk catalog import and export, and for the published catalog version.
+ */
+@RestController
+@RequestMapping("/api/products")
+public class CatalogController {
+
+    private final CatalogImportService catalogImportService;
+    private final CatalogIndexService catalogIndexService;
+
+    /**
+     * Constructor for CatalogController.
+     * 
+     * @param catalogImportService The catalog import service
+     * @param catalogIndexService The service that publishes catalog snapshots
+     */
+    public CatalogController(CatalogImportService catalogImportService, CatalogIndexService catalogIndexService) {
+        this.catalogImportService = catalogImportService;
+        this.catalogIndexService = catalogIndexService;
+    }
+
+    /**
+     * Import products from the request body, inserting new products and updating existing ones by ID.
+     * The body is parsed as it arrives, so it may hold the whole catalog.
+     * 
+     * @param format The format of the body: csv, or jsonl for JSON lines
+     * @param body The request body
+     * @return The outcome of the import, with the first rejected rows
+     * @throws IOException if the body cannot be read
+     */
+    @PostMapping("/import")
+    public ResponseEntity<CatalogImportResponse> importCatalog(
+            @RequestParam(defaultValue = "csv") String format,
+            InputStream body) throws IOException {
+        CatalogImportResult result;
+        try {
+            result = catalogImportService.importCatalog(body, CatalogFormat.fromName(format));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        CatalogImportResponse response = new CatalogImportResponse(
+                result.getRowsRead(),
+                result.getImported(),
+                result.getRejected(),
+                result.getErrors(),
+                result.getElapsedMillis(),
+                result.getRowsPerSecond()
+        );
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Export the whole catalog in product ID order.
+     * Products are written as they are read from a database cursor.
+     * 
+     * @param format The format to export: csv, or jsonl for JSON lines
+     * @return The streamed catalog
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCatalog(@RequestParam(defaultValue = "csv") String format) {
+        CatalogFormat catalogFormat;
+        try {
+            catalogFormat = CatalogFormat.fromName(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = outputStream -> catalogImportService.exportCatalog(outputStream, catalogFormat);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(catalogFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"catalog." + catalogFormat.name().toLowerCase() + "\"")
+                .body(body);
+    }
+
+    /**
+     * Get the version of the published catalog snapshot.
+     * 
+     * @return The published version
+     */
+    @GetMapping("/catalog-version")
+    public ResponseEntity<CatalogVersionResponse> getCatalogVersion() {
+        return ResponseEntity.ok(toResponse(catalogIndexService.getSnapshot()));
+    }
+
+    /**
+     * Reload the whole catalog from the database and publish it as the next version, without a restart.
+     * Readers keep the previous version until the new one is published.
+     * 
+     * @return The published version
+     */
+    @PostMapping("/reload")
+    public ResponseEntity<CatalogVersionResponse> reloadCatalog() {
+        catalogIndexService.rebuild();
+        return ResponseEntity.ok(toResponse(catalogIndexService.getSnapshot()));
+    }
+
+    private CatalogVersionResponse toResponse(CatalogSnapshot snapshot) {
+        return new CatalogVersionResponse(snapshot.getVersion(), snapshot.size(), snapshot.getPublishedAt());
+    }
+}
@@ -1,13 +1,29 @@
 package com.unmannedstore.features.shopping_management.api;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.unmannedstore.features.shopping_management.api.dto.ProductDto;
+import com.unmannedstore.features.shopping_management.api.dto.ProductPageResponse;
+import com.unmannedstore.features.shopping_management.api.dto.ProductResolveRequest;
+import com.unmannedstore.features.shopping_management.domain.model.CatalogSnapshot;
 import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.domain.model.ProductSummary;
 import com.unmannedstore.features.shopping_management.domain.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -19,40 +35,173 @@ import java.util.stream.Collectors;
 public class ProductController {
 
     private final ProductService productService;
+    private final ObjectMapper objectMapper;
+    private final ProductJsonCache productJsonCache;
+    private final int maxPageSize;
+    private final int maxResolveKeys;
 
     /**
      * Constructor for ProductController.
      * 
      * @param productService The product service
+     * @param objectMapper The object mapper the catalog stream and product responses are written with
+     * @param meterRegistry The meter registry for response cache metrics
+     * @param maxPageSize The maximum number of products returned per page
+     * @param maxResolveKeys The maximum number of RFID tags and product IDs resolved in one request
      */
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.products.listing.max-page-size:500}") int maxPageSize,
+                             @Value("${app.products.resolve.max-keys:1000}") int maxResolveKeys) {
         this.productService = productService;
+        this.objectMapper = objectMapper;
+        this.productJsonCache = new ProductJsonCache(objectMapper, this::convertToDto, meterRegistry);
+        this.maxPageSize = maxPageSize;
+        this.maxResolveKeys = maxResolveKeys;
     }
 
     /**
      * Get all products.
+     * Served as pre-encoded JSON of the published catalog, in product ID order.
      * 
      * @return A list of all products
      */
-    @GetMapping
-    public ResponseEntity<List<ProductDto>> getAllProducts() {
-        List<Product> products = productService.findAll();
-        List<ProductDto> productDtos = products.stream()
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getAllProducts() {
+        Optional<CatalogSnapshot> catalog = productService.getPublishedCatalog();
+        byte[] json = catalog.isPresent()
+                ? productJsonCache.catalog(catalog.get())
+                : productJsonCache.array(productService.findAll());
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+    }
+
+    /**
+     * Get one page of products in product ID order.
+     * Pass the returned cursor as "after" to get the next page; the last page has no cursor.
+     * 
+     * @param category The category to list, or all categories if omitted
+     * @param after The cursor returned with the previous page, or omitted for the first page
+     * @param limit The page size, capped at the configured maximum
+     * @return The page of products
+     */
+    @GetMapping("/page")
+    public ResponseEntity<ProductPageResponse> getProductPage(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        int pageSize = Math.min(limit, maxPageSize);
+
+        // One extra row tells whether there is a next page without a count query
+        List<ProductSummary> products = productService.findPage(category, after, pageSize + 1);
+        boolean hasMore = products.size() > pageSize;
+        List<ProductDto> items = new ArrayList<>(Math.min(products.size(), pageSize));
+        for (int i = 0; i < products.size() && i < pageSize; i++) {
+            items.add(convertToDto(products.get(i)));
+        }
+        String nextCursor = hasMore ? items.get(items.size() - 1).getProductId() : null;
+        return ResponseEntity.ok(new ProductPageResponse(items, nextCursor, pageSize));
+    }
+
+    /**
+     * Search products by name, category and description.
+     * Every word of the query must match a word of the product, in full, as a prefix or with a typo.
+     * 
+     * @param q The query
+     * @param limit The maximum number of products to return
+     * @return The matching products, best match first
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductDto>> searchProducts(@RequestParam String q,
+                                                           @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<ProductDto> productDtos = productService.search(q, limit).stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(productDtos);
     }
 
+    /**
+     * Resolve many RFID tags and product IDs to products in one round trip, such as a whole antenna sweep.
+     * RFID tags are resolved the way scanned reads are. Each kind is answered from the catalog snapshot and
+     * cache, with at most one query for the keys they do not hold.
+     * The response maps every distinct tag under "rfidTags" and every distinct ID under "productIds" to its
+     * product, or to null if there is none, and counts the keys that resolved and missed.
+     * 
+     * @param request The RFID tags and product IDs to resolve
+     * @return The products by key, with null for misses
+     */
+    @PostMapping(value = "/resolve", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> resolveProducts(@RequestBody ProductResolveRequest request) {
+        List<String> rfidTags = request.getRfidTags() != null ? request.getRfidTags() : List.of();
+        List<String> productIds = request.getProductIds() != null ? request.getProductIds() : List.of();
+        int keys = rfidTags.size() + productIds.size();
+        if (keys == 0 || keys > maxResolveKeys) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Map<String, Product> byRfidTag = rfidTags.isEmpty() ? Map.of() : productService.resolveRfidTags(rfidTags);
+        Map<String, Product> byProductId = productIds.isEmpty() ? Map.of() : productService.resolveProductIds(productIds);
+        int resolved = 0;
+        for (Product product : byRfidTag.values()) {
+            resolved += product != null ? 1 : 0;
+        }
+        for (Product product : byProductId.values()) {
+            resolved += product != null ? 1 : 0;
+        }
+        int missed = byRfidTag.size() + byProductId.size() - resolved;
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes("{\"rfidTags\":".getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(productJsonCache.object(byRfidTag));
+        body.writeBytes(",\"productIds\":".getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(productJsonCache.object(byProductId));
+        body.writeBytes((",\"resolved\":" + resolved + ",\"missed\":" + missed + "}").getBytes(StandardCharsets.UTF_8));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body.toByteArray());
+    }
+
+    /**
+     * Stream every product as one JSON array in product ID order.
+     * Products are written as they are read from a database cursor, so the whole catalog is never held in memory.
+     * 
+     * @param category The category to list, or all categories if omitted
+     * @return The streamed JSON array of products
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProducts(@RequestParam(required = false) String category) {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                productService.forEachProduct(category, product -> {
+                    try {
+                        generator.writeObject(convertToDto(product));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
     /**
      * Get a product by its ID.
      * 
      * @param id The product ID
      * @return The product with the specified ID
      */
-    @GetMapping("/{id}")
-    public ResponseEntity<ProductDto> getProductById(@PathVariable String id) {
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getProductById(@PathVariable String id) {
         Optional<Product> productOpt = productService.findById(id);
-        return productOpt.map(product -> ResponseEntity.ok(convertToDto(product)))
+        return productOpt.map(product -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(productJsonCache.product(product)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -78,15 +227,16 @@ public class ProductController {
      */
     @PutMapping("/{id}")
     public ResponseEntity<ProductDto> updateProduct(@PathVariable String id, @RequestBody ProductDto productDto) {
-        Optional<Product> existingProductOpt = productService.findById(id);
-        if (existingProductOpt.isEmpty()) {
+        if (productService.findById(id).isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
-        Product existingProduct = existingProductOpt.get();
-        updateProductFromDto(existingProduct, productDto);
+        // The product that was found may be shared with other readers, so the update is made on a new instance
+        Product product = new Product();
+        product.setId(id);
+        updateProductFromDto(product, productDto);
 
-        Product updatedProduct = productService.save(existingProduct);
+        Product updatedProduct = productService.save(product);
         return ResponseEntity.ok(convertToDto(updatedProduct));
     }
 
@@ -108,13 +258,20 @@ public class ProductController {
      * @param category The product category
      * @return A list of products in the specified category
      */
-    @GetMapping("/category/{category}")
-    public ResponseEntity<List<ProductDto>> getProductsByCategory(@PathVariable String category) {
+    @GetMapping(value = "/category/{category}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getProductsByCategory(@PathVariable String category) {
         List<Product> products = productService.findByCategory(category);
-        List<ProductDto> productDtos = products.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(productDtos);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(productJsonCache.array(products));
+    }
+
+    /**
+     * Get the number of products in each category, for category facets.
+     * 
+     * @return The product count per category, ordered by category
+     */
+    @GetMapping("/categories")
+    public ResponseEntity<Map<String, Integer>> getCategoryCounts() {
+        return ResponseEntity.ok(productService.getCategoryCounts());
     }
 
     /**
@@ -130,12 +287,23 @@ public class ProductController {
         dto.setProductName(product.getName());
         dto.setPrice(product.getPrice());
         dto.setRfidTag(product.getRfidTag());
+        dto.setGtin(product.getGtin());
         dto.setImageUrl(product.getImageUrl());
         dto.setDescription(product.getDescription());
         dto.setCategory(product.getCategory());
         return dto;
     }
 
+    /**
+     * Convert a ProductSummary projection to a ProductDto, mapped as the product it was read from.
+     * 
+     * @param product The product projection
+     * @return The product DTO
+     */
+    private ProductDto convertToDto(ProductSummary product) {
+        return convertToDto(product.toProduct());
+    }
+
     /**
      * Convert a ProductDto to a Product entity.
      * 
@@ -148,6 +316,7 @@ public class ProductController {
         product.setName(dto.getProductName());
         product.setPrice(dto.getPrice());
         product.setRfidTag(dto.getRfidTag());
+        product.setGtin(dto.getGtin());
         product.setDescription(dto.getDescription());
         product.setCategory(dto.getCategory());
         product.setImageUrl(dto.getImageUrl());
@@ -164,6 +333,7 @@ public class ProductController {
         product.setName(dto.getProductName());
         product.setPrice(dto.getPrice());
         product.setRfidTag(dto.getRfidTag());
+        product.setGtin(dto.getGtin());
         product.setDescription(dto.getDescription());
         product.setCategory(dto.getCategory());
         product.setImageUrl(dto.getImageUrl());
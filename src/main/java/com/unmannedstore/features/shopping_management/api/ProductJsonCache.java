@@ -0,0 +1,191 @@
+package com.unmannedstore.features.shopping_management.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unmannedstore.features.shopping_management.api.dto.ProductDto;
+import com.unmannedstore.features.shopping_management.domain.model.CatalogSnapshot;
+import com.unmannedstore.features.shopping_management.domain.model.Product;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Cache of product responses as pre-encoded UTF-8 JSON, so unchanged products are not converted and
+ * serialized again on every request.
+ * <p>
+ * Entries are keyed by the catalog version each product was last changed in, which stays the same
+ * for as long as the product does, so an entry is only encoded again once its product changes.
+ * The full catalog is cached per snapshot version and assembled from the product entries.
+ * Products loaded outside a snapshot have no version and are encoded on every request.
+ */
+class ProductJsonCache {
+
+    private static final byte[] EMPTY_ARRAY = {'[', ']'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    private final ObjectMapper objectMapper;
+    private final Function<Product, ProductDto> converter;
+    private final Map<String, Entry> products = new ConcurrentHashMap<>();
+    private volatile Entry catalog;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * Constructor for ProductJsonCache.
+     *
+     * @param objectMapper The object mapper the products are serialized with
+     * @param converter Converts a product to the DTO that is serialized
+     * @param meterRegistry The meter registry for cache metrics
+     */
+    ProductJsonCache(ObjectMapper objectMapper, Function<Product, ProductDto> converter, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.converter = converter;
+        this.hits = Counter.builder("product.json.cache.gets")
+                .tag("result", "hit")
+                .description("Product responses served from pre-encoded JSON")
+                .register(meterRegistry);
+        this.misses = Counter.builder("product.json.cache.gets")
+                .tag("result", "miss")
+                .description("Product responses that had to be serialized")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get the JSON of a product.
+     *
+     * @param product The product
+     * @return The UTF-8 JSON object, which must not be modified
+     */
+    byte[] product(Product product) {
+        long version = product.getCatalogVersion();
+        if (version == 0) {
+            misses.increment();
+            return encode(product);
+        }
+        Entry cached = products.get(product.getId());
+        if (cached != null && cached.version == version) {
+            hits.increment();
+            return cached.json;
+        }
+        misses.increment();
+        byte[] json = encode(product);
+        // A reader that still holds an older snapshot must not replace the entry of a newer version
+        products.merge(product.getId(), new Entry(version, json),
+                (previous, next) -> previous.version > next.version ? previous : next);
+        return json;
+    }
+
+    /**
+     * Get the JSON array of some products, assembled from their cached JSON.
+     *
+     * @param products The products, in the order they are returned
+     * @return The UTF-8 JSON array
+     */
+    byte[] array(Collection<Product> products) {
+        if (products.isEmpty()) {
+            return EMPTY_ARRAY;
+        }
+        List<byte[]> parts = new ArrayList<>(products.size());
+        int length = products.size() + 1;
+        for (Product product : products) {
+            byte[] json = product(product);
+            parts.add(json);
+            length += json.length;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length);
+        out.write('[');
+        for (int i = 0; i < parts.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.writeBytes(parts.get(i));
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+
+    /**
+     * Get the JSON object mapping keys to products, with null for the keys that have no product.
+     * The products are written from their cached JSON.
+     *
+     * @param products The products by key, in the order they are written
+     * @return The UTF-8 JSON object
+     */
+    byte[] object(Map<String, Product> products) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * products.size() + 2);
+        out.write('{');
+        boolean first = true;
+        try {
+            for (Map.Entry<String, Product> entry : products.entrySet()) {
+                if (!first) {
+                    out.write(',');
+                }
+                first = false;
+                out.writeBytes(objectMapper.writeValueAsBytes(entry.getKey()));
+                out.write(':');
+                out.writeBytes(entry.getValue() != null ? product(entry.getValue()) : NULL);
+            }
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        out.write('}');
+        return out.toByteArray();
+    }
+
+    /**
+     * Get the JSON array of the whole catalog in product ID order. It is assembled once per snapshot version;
+     * entries of products that are no longer in the catalog are dropped when it is.
+     *
+     * @param snapshot The published snapshot
+     * @return The UTF-8 JSON array, which must not be modified
+     */
+    byte[] catalog(CatalogSnapshot snapshot) {
+        Entry cached = catalog;
+        if (cached != null && cached.version == snapshot.getVersion()) {
+            return cached.json;
+        }
+        synchronized (this) {
+            cached = catalog;
+            if (cached != null && cached.version == snapshot.getVersion()) {
+                return cached.json;
+            }
+            List<Product> ordered = new ArrayList<>(snapshot.getProducts());
+            ordered.sort(Comparator.comparing(Product::getId));
+            byte[] json = array(ordered);
+            products.keySet().removeIf(id -> snapshot.findById(id) == null);
+            if (cached == null || cached.version < snapshot.getVersion()) {
+                catalog = new Entry(snapshot.getVersion(), json);
+            }
+            return json;
+        }
+    }
+
+    private byte[] encode(Product product) {
+        try {
+            return objectMapper.writeValueAsBytes(converter.apply(product));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Entry {
+
+        private final long version;
+        private final byte[] json;
+
+        private Entry(long version, byte[] json) {
+            this.version = version;
+            this.json = json;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.unmannedstore.features.shopping_management.api;
+
+import com.unmannedstore.features.shopping_management.api.dto.PromotionDto;
+import com.unmannedstore.features.shopping_management.domain.model.Money;
+import com.unmannedstore.features.shopping_management.domain.model.Promotion;
+import com.unmannedstore.features.shopping_management.domain.model.PromotionType;
+import com.unmannedstore.features.shopping_management.domain.service.PromotionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * REST controller for the active promotions baskets are priced with.
+ */
+@RestController
+@RequestMapping("/api/promotions")
+public class PromotionController {
+
+    private final PromotionService promotionService;
+    private final int maxBatchSize;
+
+    /**
+     * Constructor for PromotionController.
+     * 
+     * @param promotionService The promotion service
+     * @param maxBatchSize The maximum number of promotions accepted in one request
+     */
+    public PromotionController(PromotionService promotionService,
+                               @Value("${app.promotions.max-batch-size:10000}") int maxBatchSize) {
+        this.promotionService = promotionService;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Get all active promotions.
+     * 
+     * @return The promotions, ordered by ID
+     */
+    @GetMapping
+    public ResponseEntity<List<PromotionDto>> getPromotions() {
+        List<PromotionDto> promotions = promotionService.findAll().stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(promotions);
+    }
+
+    /**
+     * Add or replace promotions by ID. The promotions are compiled for pricing once for the whole request,
+     * and baskets are priced with them from their next change.
+     * 
+     * @param promotions The promotions
+     * @return The saved promotions, or 400 if the request is empty, too large or has an invalid promotion
+     */
+    @PostMapping
+    public ResponseEntity<List<PromotionDto>> savePromotions(@RequestBody List<PromotionDto> promotions) {
+        if (promotions == null || promotions.isEmpty() || promotions.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<Promotion> converted = new ArrayList<>(promotions.size());
+        try {
+            for (PromotionDto promotion : promotions) {
+                converted.add(convertToPromotion(promotion));
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        promotionService.saveAll(converted);
+        return ResponseEntity.ok(converted.stream().map(this::convertToDto).collect(Collectors.toList()));
+    }
+
+    /**
+     * Delete a promotion.
+     * 
+     * @param promotionId The promotion ID
+     * @return 204 if the promotion was deleted, or 404 if it does not exist
+     */
+    @DeleteMapping("/{promotionId}")
+    public ResponseEntity<Void> deletePromotion(@PathVariable String promotionId) {
+        if (!promotionService.delete(promotionId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private Promotion convertToPromotion(PromotionDto dto) {
+        if (dto.getType() == null) {
+            throw new IllegalArgumentException("Promotion type is required: " + dto.getPromotionId());
+        }
+        return new Promotion(
+                dto.getPromotionId(),
+                dto.getName(),
+                PromotionType.valueOf(dto.getType().toUpperCase(Locale.ROOT)),
+                dto.getProductIds(),
+                dto.getCategory(),
+                dto.getQuantity(),
+                Money.of(dto.getPrice()),
+                dto.getPercentage(),
+                Money.of(dto.getThreshold()),
+                Money.of(dto.getAmount())
+        );
+    }
+
+    private PromotionDto convertToDto(Promotion promotion) {
+        return new PromotionDto(
+                promotion.getId(),
+                promotion.getName(),
+                promotion.getType().name(),
+                promotion.getProductIds(),
+                promotion.getCategory(),
+                promotion.getQuantity(),
+                toDecimal(promotion.getPrice()),
+                promotion.getPercentage(),
+                toDecimal(promotion.getThreshold()),
+                toDecimal(promotion.getAmount())
+        );
+    }
+
+    private static BigDecimal toDecimal(Money amount) {
+        return amount != null ? amount.toBigDecimal() : null;
+    }
+}
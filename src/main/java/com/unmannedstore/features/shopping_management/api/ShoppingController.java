@@ -1,20 +1,38 @@
 package com.unmannedstore.features.shopping_management.api;
 
+import com.unmannedstore.features.shopping_management.api.dto.BasketChangesResponse;
 import com.unmannedstore.features.shopping_management.api.dto.BasketContentsResponse;
 import com.unmannedstore.features.shopping_management.api.dto.BasketUpdateResponse;
+import com.unmannedstore.features.shopping_management.api.dto.BatchItemAddRequest;
+import com.unmannedstore.features.shopping_management.api.dto.BatchItemAddResponse;
 import com.unmannedstore.features.shopping_management.api.dto.ItemAddRequest;
+import com.unmannedstore.features.shopping_management.api.dto.ItemOutcomeDto;
 import com.unmannedstore.features.shopping_management.api.dto.ProductDto;
+import com.unmannedstore.features.shopping_management.domain.model.BasketBatchMutation;
+import com.unmannedstore.features.shopping_management.domain.model.BasketChanges;
 import com.unmannedstore.features.shopping_management.domain.model.BasketItem;
+import com.unmannedstore.features.shopping_management.domain.model.BasketMutation;
 import com.unmannedstore.features.shopping_management.domain.model.Product;
 import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
 import com.unmannedstore.features.shopping_management.domain.service.ShoppingService;
+import com.unmannedstore.features.shopping_management.handlers.BasketMutationDispatcher;
+import com.unmannedstore.features.shopping_management.handlers.RfidReadDeduplicator;
+import com.unmannedstore.features.shopping_management.handlers.commands.AddBasketItemCommand;
+import com.unmannedstore.features.shopping_management.handlers.commands.AddBasketItemsCommand;
+import com.unmannedstore.features.shopping_management.handlers.commands.RemoveBasketItemCommand;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 /**
@@ -25,54 +43,138 @@ import java.util.stream.Collectors;
 public class ShoppingController {
 
     private final ShoppingService shoppingService;
+    private final BasketMutationDispatcher basketMutationDispatcher;
+    private final BasketUpdateBroadcaster basketUpdateBroadcaster;
+    private final RfidReadDeduplicator rfidReadDeduplicator;
+    private final int maxBatchReads;
 
     /**
      * Constructor for ShoppingController.
      * 
      * @param shoppingService The shopping service
+     * @param basketMutationDispatcher The dispatcher that serializes mutations per basket
+     * @param basketUpdateBroadcaster The broadcaster that streams basket events to displays
+     * @param rfidReadDeduplicator The filter that suppresses repeated reads of the same tag
+     * @param maxBatchReads The maximum number of reads accepted in one batch
      */
-    public ShoppingController(ShoppingService shoppingService) {
+    public ShoppingController(ShoppingService shoppingService,
+                              BasketMutationDispatcher basketMutationDispatcher,
+                              BasketUpdateBroadcaster basketUpdateBroadcaster,
+                              RfidReadDeduplicator rfidReadDeduplicator,
+                              @Value("${app.baskets.batch.max-reads:500}") int maxBatchReads) {
         this.shoppingService = shoppingService;
+        this.basketMutationDispatcher = basketMutationDispatcher;
+        this.basketUpdateBroadcaster = basketUpdateBroadcaster;
+        this.rfidReadDeduplicator = rfidReadDeduplicator;
+        this.maxBatchReads = maxBatchReads;
     }
 
     /**
      * Get the contents of a shopping basket.
+     * The response carries the session version as its ETag; a request whose If-None-Match names
+     * the current version is answered with 304 after a version lookup, without loading the basket.
      * 
      * @param storeId The store ID
      * @param basketId The basket ID
+     * @param ifNoneMatch The ETags the client already has, if any
      * @return The basket contents
      */
     @GetMapping
     public ResponseEntity<BasketContentsResponse> getBasketContents(
             @PathVariable String storeId,
-            @PathVariable String basketId) {
-
-        Optional<ShoppingSession> sessionOpt = shoppingService.findSessionByBasketId(basketId);
+            @PathVariable String basketId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
-        // If no session exists for this basketId, create a new one
-        if (sessionOpt.isEmpty()) {
-            // Use a default customer ID since we don't have authentication yet
-            String customerId = "default-customer";
-            ShoppingSession newSession = shoppingService.createSession(customerId, storeId, basketId);
-            sessionOpt = Optional.of(newSession);
+        Optional<Long> currentVersion = findVersionIfNotModified(basketId, ifNoneMatch);
+        if (currentVersion.isPresent()) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(toETag(currentVersion.get())).build();
         }
 
-        ShoppingSession session = sessionOpt.get();
+        ShoppingSession session = findOrCreateSession(storeId, basketId);
+        BasketChanges contents = session.getChangesSince(-1);
 
         // Convert basket items to DTOs
-        List<ProductDto> productDtos = session.getItems().stream()
-                .map(this::convertToProductDto)
+        List<ProductDto> productDtos = contents.getChanges().stream()
+                .map(change -> convertToProductDto(change.getItem(), change.getQuantity()))
                 .collect(Collectors.toList());
 
         BasketContentsResponse response = new BasketContentsResponse(
                 basketId,
                 productDtos,
-                session.getRunningTotal().getTotal(),
-                session.getItemCount(),
+                contents.getTotal().toBigDecimal(),
+                contents.getItemCount(),
                 session.getLastUpdatedAt()
         );
+        response.setVersion(contents.getVersion());
 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(toETag(contents.getVersion())).body(response);
+    }
+
+    /**
+     * Get the lines of a shopping basket that changed since a version.
+     * Lines that were added or changed are returned with their current quantity and removed lines by ID.
+     * If the changes since the version are not known, for example after a restart, every line is returned
+     * and the response is marked full. If-None-Match is honoured as for the full contents.
+     * 
+     * @param storeId The store ID
+     * @param basketId The basket ID
+     * @param sinceVersion The version the client already has
+     * @param ifNoneMatch The ETags the client already has, if any
+     * @return The basket changes
+     */
+    @GetMapping(params = "sinceVersion")
+    public ResponseEntity<BasketChangesResponse> getBasketChanges(
+            @PathVariable String storeId,
+            @PathVariable String basketId,
+            @RequestParam long sinceVersion,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        Optional<Long> currentVersion = findVersionIfNotModified(basketId, ifNoneMatch);
+        if (currentVersion.isPresent()) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(toETag(currentVersion.get())).build();
+        }
+
+        ShoppingSession session = findOrCreateSession(storeId, basketId);
+        BasketChanges changes = session.getChangesSince(sinceVersion);
+
+        List<ProductDto> productDtos = changes.getChanges().stream()
+                .map(change -> convertToProductDto(change.getItem(), change.getQuantity()))
+                .collect(Collectors.toList());
+
+        BasketChangesResponse response = new BasketChangesResponse(
+                basketId,
+                sinceVersion,
+                changes.getVersion(),
+                changes.isFull(),
+                productDtos,
+                changes.getRemovedItemIds(),
+                changes.getTotal().toBigDecimal(),
+                changes.getItemCount(),
+                session.getLastUpdatedAt()
+        );
+
+        return ResponseEntity.ok().eTag(toETag(changes.getVersion())).body(response);
+    }
+
+    /**
+     * Stream the updates of a shopping basket as server-sent events.
+     * Clients should open the stream before fetching the basket contents, and fetch them again
+     * whenever a resync event arrives.
+     * 
+     * @param storeId The store ID
+     * @param basketId The basket ID
+     * @return The event stream, or 503 if too many streams are open
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamBasketUpdates(
+            @PathVariable String storeId,
+            @PathVariable String basketId) {
+
+        try {
+            return ResponseEntity.ok(basketUpdateBroadcaster.subscribe(basketId));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
     }
 
     /**
@@ -89,53 +191,158 @@ public class ShoppingController {
             @PathVariable String basketId,
             @RequestBody ItemAddRequest request) {
 
-        Optional<ShoppingSession> sessionOpt = shoppingService.findSessionByBasketId(basketId);
+        boolean hasRfidTag = request.getRfidTag() != null && !request.getRfidTag().isEmpty();
+        boolean hasProductId = request.getProductId() != null && !request.getProductId().isEmpty();
+        if (!hasRfidTag && !hasProductId) {
+            return ResponseEntity.badRequest().build();
+        }
 
-        // If no session exists for this basketId, create a new one
-        if (sessionOpt.isEmpty()) {
-            // Use a default customer ID since we don't have authentication yet
-            String customerId = "default-customer";
-            ShoppingSession newSession = shoppingService.createSession(customerId, storeId, basketId);
-            sessionOpt = Optional.of(newSession);
+        // A tag that is still in the reader's field is reported again and again; only its first read counts
+        if (hasRfidTag && rfidReadDeduplicator.isDuplicate(basketId, request.getRfidTag())) {
+            Optional<ShoppingSession> sessionOpt = shoppingService.findSessionByBasketId(basketId);
+            BasketUpdateResponse response = new BasketUpdateResponse(
+                    basketId,
+                    "read_suppressed",
+                    null,
+                    sessionOpt.map(session -> session.getRunningTotal().getTotal().toBigDecimal()).orElse(BigDecimal.ZERO),
+                    sessionOpt.map(ShoppingSession::getItemCount).orElse(0),
+                    "Duplicate read ignored"
+            );
+            return ResponseEntity.ok(response);
         }
 
         try {
-            ShoppingSession updatedSession;
-
             // Add item by RFID tag if provided, otherwise by product ID
-            if (request.getRfidTag() != null && !request.getRfidTag().isEmpty()) {
-                updatedSession = shoppingService.addItemToSessionByRfidTag(
-                        sessionOpt.get().getId(),
-                        request.getRfidTag()
-                );
-            } else if (request.getProductId() != null && !request.getProductId().isEmpty()) {
-                updatedSession = shoppingService.addItemToSession(
-                        sessionOpt.get().getId(),
-                        request.getProductId()
-                );
-            } else {
-                return ResponseEntity.badRequest().build();
+            BasketMutation mutation = basketMutationDispatcher.addItem(new AddBasketItemCommand(
+                    storeId,
+                    basketId,
+                    request.getProductId(),
+                    hasRfidTag ? request.getRfidTag() : null
+            ));
+
+            // A serialized unit that is already in the basket is another read of the same unit
+            if (mutation.isUnchanged()) {
+                return ResponseEntity.ok(new BasketUpdateResponse(
+                        basketId,
+                        "read_suppressed",
+                        convertToProductDto(mutation.getItem(), mutation.getQuantity()),
+                        mutation.getTotal().toBigDecimal(),
+                        mutation.getItemCount(),
+                        "Unit already in basket"
+                ));
             }
 
-            // Get the last added item
-            BasketItem lastAddedItem = updatedSession.getItems().get(updatedSession.getItems().size() - 1);
-
             BasketUpdateResponse response = new BasketUpdateResponse(
                     basketId,
                     "item_added",
-                    convertToProductDto(lastAddedItem),
-                    updatedSession.getRunningTotal().getTotal(),
-                    updatedSession.getItemCount(),
+                    convertToProductDto(mutation.getItem(), mutation.getQuantity()),
+                    mutation.getTotal().toBigDecimal(),
+                    mutation.getItemCount(),
                     "Item added to basket"
             );
 
             return ResponseEntity.ok(response);
 
         } catch (IllegalArgumentException e) {
+            if (hasRfidTag) {
+                // The read never reached the basket, so the reader's retry must not be suppressed
+                rfidReadDeduplicator.forget(basketId, request.getRfidTag());
+            }
             return ResponseEntity.badRequest().build();
+        } catch (RejectedExecutionException e) {
+            if (hasRfidTag) {
+                rfidReadDeduplicator.forget(basketId, request.getRfidTag());
+            }
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
     }
 
+    /**
+     * Add a batch of reads to a shopping basket.
+     * All reads are applied in one step and the outcome of every read is reported.
+     * 
+     * @param storeId The store ID
+     * @param basketId The basket ID
+     * @param request The batch item add request
+     * @return The batch update response
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchItemAddResponse> addItemsToBasket(
+            @PathVariable String storeId,
+            @PathVariable String basketId,
+            @RequestBody BatchItemAddRequest request) {
+
+        List<String> rfidTags = request.getRfidTags() != null ? request.getRfidTags() : List.of();
+        List<String> productIds = request.getProductIds() != null ? request.getProductIds() : List.of();
+        int reads = rfidTags.size() + productIds.size();
+        if (reads == 0 || reads > maxBatchReads) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Drop repeated reads of tags before they reach the basket, remembering where each one was
+        boolean[] suppressed = new boolean[rfidTags.size()];
+        List<String> acceptedTags = new ArrayList<>(rfidTags.size());
+        for (int i = 0; i < rfidTags.size(); i++) {
+            suppressed[i] = rfidReadDeduplicator.isDuplicate(basketId, rfidTags.get(i));
+            if (!suppressed[i]) {
+                acceptedTags.add(rfidTags.get(i));
+            }
+        }
+
+        List<ItemOutcomeDto> results = new ArrayList<>(reads);
+        int addedCount;
+        BigDecimal total;
+        int itemCount;
+        if (acceptedTags.isEmpty() && productIds.isEmpty()) {
+            // Every read was a duplicate, so there is nothing to apply
+            Optional<ShoppingSession> sessionOpt = shoppingService.findSessionByBasketId(basketId);
+            for (String rfidTag : rfidTags) {
+                results.add(new ItemOutcomeDto(rfidTag, null, BasketBatchMutation.OUTCOME_DUPLICATE_READ, null));
+            }
+            addedCount = 0;
+            total = sessionOpt.map(session -> session.getRunningTotal().getTotal().toBigDecimal()).orElse(BigDecimal.ZERO);
+            itemCount = sessionOpt.map(ShoppingSession::getItemCount).orElse(0);
+        } else {
+            BasketBatchMutation mutation;
+            try {
+                mutation = basketMutationDispatcher.addItems(new AddBasketItemsCommand(storeId, basketId, acceptedTags, productIds));
+            } catch (RejectedExecutionException e) {
+                // None of the accepted reads reached the basket; let the reader's retry through
+                for (String rfidTag : acceptedTags) {
+                    rfidReadDeduplicator.forget(basketId, rfidTag);
+                }
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+
+            // Outcomes come back in request order for the accepted reads; put the suppressed ones back in place
+            int next = 0;
+            List<BasketBatchMutation.Outcome> outcomes = mutation.getOutcomes();
+            for (int i = 0; i < rfidTags.size(); i++) {
+                results.add(suppressed[i]
+                        ? new ItemOutcomeDto(rfidTags.get(i), null, BasketBatchMutation.OUTCOME_DUPLICATE_READ, null)
+                        : convertToOutcomeDto(outcomes.get(next++)));
+            }
+            while (next < outcomes.size()) {
+                results.add(convertToOutcomeDto(outcomes.get(next++)));
+            }
+            addedCount = mutation.getAddedCount();
+            total = mutation.getTotal().toBigDecimal();
+            itemCount = mutation.getItemCount();
+        }
+
+        BatchItemAddResponse response = new BatchItemAddResponse(
+                basketId,
+                "items_added",
+                results,
+                addedCount,
+                total,
+                itemCount,
+                addedCount + " of " + reads + " items added to basket"
+        );
+
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Remove an item from a shopping basket.
      * 
@@ -150,75 +357,119 @@ public class ShoppingController {
             @PathVariable String basketId,
             @PathVariable String itemId) {
 
+        Optional<BasketMutation> mutationOpt;
+        try {
+            mutationOpt = basketMutationDispatcher.removeItem(new RemoveBasketItemCommand(storeId, basketId, itemId));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        // The basket has no active session or the item is not in it
+        if (mutationOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        BasketMutation mutation = mutationOpt.get();
+
+        BasketUpdateResponse response = new BasketUpdateResponse(
+                basketId,
+                "item_removed",
+                convertToProductDto(mutation.getItem(), mutation.getQuantity()),
+                mutation.getTotal().toBigDecimal(),
+                mutation.getItemCount(),
+                "Item removed from basket"
+        );
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Find the basket's session, creating one if the basket has none yet.
+     * 
+     * @param storeId The store ID
+     * @param basketId The basket ID
+     * @return The shopping session
+     */
+    private ShoppingSession findOrCreateSession(String storeId, String basketId) {
         Optional<ShoppingSession> sessionOpt = shoppingService.findSessionByBasketId(basketId);
 
         // If no session exists for this basketId, create a new one
         if (sessionOpt.isEmpty()) {
             // Use a default customer ID since we don't have authentication yet
             String customerId = "default-customer";
-            ShoppingSession newSession = shoppingService.createSession(customerId, storeId, basketId);
-            sessionOpt = Optional.of(newSession);
-
-            // If we just created a new session, there won't be any items to remove
-            return ResponseEntity.notFound().build();
+            return shoppingService.createSession(customerId, storeId, basketId);
         }
+        return sessionOpt.get();
+    }
 
-        // Find the item before removing it
-        BasketItem itemToRemove = null;
-        for (BasketItem item : sessionOpt.get().getItems()) {
-            if (item.getId().equals(itemId)) {
-                itemToRemove = item;
-                break;
-            }
+    /**
+     * Look up the basket's session version if the client sent ETags and one of them is current.
+     * 
+     * @param basketId The basket ID
+     * @param ifNoneMatch The If-None-Match header, or null if it was not sent
+     * @return An Optional containing the current version if the client's copy is current, or empty otherwise
+     */
+    private Optional<Long> findVersionIfNotModified(String basketId, String ifNoneMatch) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return Optional.empty();
         }
+        return shoppingService.findSessionVersionByBasketId(basketId)
+                .filter(version -> matchesETag(ifNoneMatch, toETag(version)));
+    }
 
-        if (itemToRemove == null) {
-            return ResponseEntity.notFound().build();
+    private static boolean matchesETag(String ifNoneMatch, String eTag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
         }
+        return false;
+    }
 
-        // Convert to DTO before removing
-        ProductDto removedItemDto = convertToProductDto(itemToRemove);
-
-        try {
-            ShoppingSession updatedSession = shoppingService.removeItemFromSession(
-                    sessionOpt.get().getId(),
-                    itemId
-            );
-
-            BasketUpdateResponse response = new BasketUpdateResponse(
-                    basketId,
-                    "item_removed",
-                    removedItemDto,
-                    updatedSession.getRunningTotal().getTotal(),
-                    updatedSession.getItemCount(),
-                    "Item removed from basket"
-            );
-
-            return ResponseEntity.ok(response);
+    private static String toETag(long version) {
+        return "\"" + version + "\"";
+    }
 
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().build();
-        }
+    /**
+     * Convert the outcome of a batch read to an ItemOutcomeDto.
+     * 
+     * @param outcome The outcome of the read
+     * @return The item outcome DTO
+     */
+    private ItemOutcomeDto convertToOutcomeDto(BasketBatchMutation.Outcome outcome) {
+        return new ItemOutcomeDto(
+                outcome.getRfidTag(),
+                outcome.getProductId(),
+                outcome.getOutcome(),
+                outcome.isAdded() ? convertToProductDto(outcome.getItem(), outcome.getQuantity()) : null);
     }
 
     /**
-     * Convert a BasketItem to a ProductDto.
+     * Convert a BasketItem to a ProductDto with the given quantity.
      * 
      * @param basketItem The basket item
+     * @param quantity The quantity to report for the item
      * @return The product DTO
      */
-    private ProductDto convertToProductDto(BasketItem basketItem) {
+    private ProductDto convertToProductDto(BasketItem basketItem, int quantity) {
         Product product = basketItem.getProduct();
 
-        return new ProductDto(
+        ProductDto dto = new ProductDto(
                 basketItem.getId(),
                 product.getId(),
                 product.getName(),
-                basketItem.getPrice(),
-                basketItem.getQuantity(),
+                basketItem.getPrice().toBigDecimal(),
+                quantity,
                 basketItem.getAddedAt(),
                 product.getRfidTag(),
                 product.getImageUrl()
         );
+        dto.setGtin(product.getGtin());
+        dto.setSerial(basketItem.getSerial());
+        return dto;
     }
 }
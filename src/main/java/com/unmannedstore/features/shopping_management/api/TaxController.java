@@ -0,0 +1,83 @@
+package com.unmannedstore.features.shopping_management.api;
+
+import com.unmannedstore.features.shopping_management.api.dto.TaxRateDto;
+import com.unmannedstore.features.shopping_management.api.dto.TaxTableResponse;
+import com.unmannedstore.features.shopping_management.domain.model.TaxRate;
+import com.unmannedstore.features.shopping_management.domain.model.TaxTable;
+import com.unmannedstore.features.shopping_management.domain.service.TaxService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * REST controller for the tax rates baskets are taxed with.
+ */
+@RestController
+@RequestMapping("/api/tax-rates")
+public class TaxController {
+
+    private final TaxService taxService;
+    private final int maxBatchSize;
+
+    /**
+     * Constructor for TaxController.
+     *
+     * @param taxService The tax service
+     * @param maxBatchSize The maximum number of tax rates accepted in one request
+     */
+    public TaxController(TaxService taxService,
+                         @Value("${app.tax.max-batch-size:10000}") int maxBatchSize) {
+        this.taxService = taxService;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Get the tax rates.
+     *
+     * @return The current tax table
+     */
+    @GetMapping
+    public ResponseEntity<TaxTableResponse> getTaxRates() {
+        return ResponseEntity.ok(convertToResponse(taxService.getTable(), 0));
+    }
+
+    /**
+     * Replace all tax rates. The active sessions of the stores whose rates changed are taxed again
+     * before the response is returned.
+     *
+     * @param rates The new rates
+     * @return The new tax table and the number of sessions repriced, or 400 if the request is too large
+     *         or has an invalid rate
+     */
+    @PutMapping
+    public ResponseEntity<TaxTableResponse> replaceTaxRates(@RequestBody List<TaxRateDto> rates) {
+        if (rates == null || rates.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<TaxRate> converted = new ArrayList<>(rates.size());
+        try {
+            for (TaxRateDto rate : rates) {
+                converted.add(new TaxRate(rate.getStoreId(), rate.getCategory(), rate.getRate()));
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        int repriced = taxService.replaceRates(converted);
+        return ResponseEntity.ok(convertToResponse(taxService.getTable(), repriced));
+    }
+
+    private TaxTableResponse convertToResponse(TaxTable table, int repricedSessions) {
+        List<TaxRateDto> rates = table.getRates().stream()
+                .map(rate -> new TaxRateDto(rate.getStoreId(), rate.getCategory(), rate.getRate()))
+                .collect(Collectors.toList());
+        return new TaxTableResponse(table.getVersion(), table.getDefaultRate(), rates, repricedSessions);
+    }
+}
@@ -0,0 +1,125 @@
+package com.unmannedstore.features.shopping_management.api.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO for returning the lines of a shopping basket that changed since a version.
+ * If full is set, the changes could not be determined and items holds every line in the basket.
+ */
+public class BasketChangesResponse {
+
+    private String basketId;
+    private long sinceVersion;
+    private long version;
+    private boolean full;
+    private List<ProductDto> items;
+    private List<String> removedItemIds;
+    private BigDecimal runningTotal;
+    private int itemCount;
+    private LocalDateTime lastUpdated;
+
+    // Default constructor
+    public BasketChangesResponse() {
+    }
+
+    /**
+     * Constructor with all fields.
+     * 
+     * @param basketId The basket ID
+     * @param sinceVersion The version the changes are relative to
+     * @param version The current version
+     * @param full Whether items holds every line instead of only the changed ones
+     * @param items The lines added or changed since the version, with their current quantity
+     * @param removedItemIds The IDs of lines removed since the version
+     * @param runningTotal The running total
+     * @param itemCount The number of items in the basket
+     * @param lastUpdated The last updated timestamp
+     */
+    public BasketChangesResponse(String basketId, long sinceVersion, long version, boolean full, List<ProductDto> items,
+                                 List<String> removedItemIds, BigDecimal runningTotal, int itemCount, LocalDateTime lastUpdated) {
+        this.basketId = basketId;
+        this.sinceVersion = sinceVersion;
+        this.version = version;
+        this.full = full;
+        this.items = items;
+        this.removedItemIds = removedItemIds;
+        this.runningTotal = runningTotal;
+        this.itemCount = itemCount;
+        this.lastUpdated = lastUpdated;
+    }
+
+    // Getters and setters
+    public String getBasketId() {
+        return basketId;
+    }
+
+    public void setBasketId(String basketId) {
+        this.basketId = basketId;
+    }
+
+    public long getSinceVersion() {
+        return sinceVersion;
+    }
+
+    public void setSinceVersion(long sinceVersion) {
+        this.sinceVersion = sinceVersion;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public void setFull(boolean full) {
+        this.full = full;
+    }
+
+    public List<ProductDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ProductDto> items) {
+        this.items = items;
+    }
+
+    public List<String> getRemovedItemIds() {
+        return removedItemIds;
+    }
+
+    public void setRemovedItemIds(List<String> removedItemIds) {
+        this.removedItemIds = removedItemIds;
+    }
+
+    public BigDecimal getRunningTotal() {
+        return runningTotal;
+    }
+
+    public void setRunningTotal(BigDecimal runningTotal) {
+        this.runningTotal = runningTotal;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(int itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    public LocalDateTime getLastUpdated() {
+        return lastUpdated;
+    }
+
+    public void setLastUpdated(LocalDateTime lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+}
@@ -14,6 +14,7 @@ public class BasketContentsResponse {
     private BigDecimal runningTotal;
     private int itemCount;
     private LocalDateTime lastUpdated;
+    private long version;
 
     // Default constructor
     public BasketContentsResponse() {
@@ -76,4 +77,12 @@ public class BasketContentsResponse {
     public void setLastUpdated(LocalDateTime lastUpdated) {
         this.lastUpdated = lastUpdated;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
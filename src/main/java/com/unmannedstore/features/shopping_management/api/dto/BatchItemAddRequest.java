@@ -0,0 +1,57 @@
+package com.unmannedstore.features.shopping_management.api.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO for adding a batch of reads to a shopping basket, as flushed by an RFID reader gateway.
+ */
+public class BatchItemAddRequest {
+    
+    private List<String> rfidTags = new ArrayList<>();
+    private List<String> productIds = new ArrayList<>();
+    private LocalDateTime detectedAt;
+    
+    // Default constructor
+    public BatchItemAddRequest() {
+    }
+    
+    /**
+     * Constructor with all fields.
+     * 
+     * @param rfidTags The RFID tags that were read, one entry per read
+     * @param productIds The product IDs that were read, one entry per read
+     * @param detectedAt The timestamp when the reads were flushed by the gateway
+     */
+    public BatchItemAddRequest(List<String> rfidTags, List<String> productIds, LocalDateTime detectedAt) {
+        this.rfidTags = rfidTags;
+        this.productIds = productIds;
+        this.detectedAt = detectedAt;
+    }
+    
+    // Getters and setters
+    public List<String> getRfidTags() {
+        return rfidTags;
+    }
+    
+    public void setRfidTags(List<String> rfidTags) {
+        this.rfidTags = rfidTags;
+    }
+    
+    public List<String> getProductIds() {
+        return productIds;
+    }
+    
+    public void setProductIds(List<String> productIds) {
+        this.productIds = productIds;
+    }
+    
+    public LocalDateTime getDetectedAt() {
+        return detectedAt;
+    }
+    
+    public void setDetectedAt(LocalDateTime detectedAt) {
+        this.detectedAt = detectedAt;
+    }
+}
@@ -0,0 +1,100 @@
+package com.unmannedstore.features.shopping_management.api.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * DTO for returning the result of adding a batch of reads to a shopping basket.
+ */
+public class BatchItemAddResponse {
+    
+    private String basketId;
+    private String action;  // "items_added"
+    private List<ItemOutcomeDto> results;
+    private int addedCount;
+    private BigDecimal newTotal;
+    private int itemCount;
+    private String notification;
+    
+    // Default constructor
+    public BatchItemAddResponse() {
+    }
+    
+    /**
+     * Constructor with all fields.
+     * 
+     * @param basketId The basket ID
+     * @param action The action performed ("items_added")
+     * @param results The outcome of every read, in request order
+     * @param addedCount The number of reads that added an item
+     * @param newTotal The new total after the batch
+     * @param itemCount The new item count after the batch
+     * @param notification A notification message
+     */
+    public BatchItemAddResponse(String basketId, String action, List<ItemOutcomeDto> results, int addedCount, BigDecimal newTotal, int itemCount, String notification) {
+        this.basketId = basketId;
+        this.action = action;
+        this.results = results;
+        this.addedCount = addedCount;
+        this.newTotal = newTotal;
+        this.itemCount = itemCount;
+        this.notification = notification;
+    }
+    
+    // Getters and setters
+    public String getBasketId() {
+        return basketId;
+    }
+    
+    public void setBasketId(String basketId) {
+        this.basketId = basketId;
+    }
+    
+    public String getAction() {
+        return action;
+    }
+    
+    public void setAction(String action) {
+        this.action = action;
+    }
+    
+    public List<ItemOutcomeDto> getResults() {
+        return results;
+    }
+    
+    public void setResults(List<ItemOutcomeDto> results) {
+        this.results = results;
+    }
+    
+    public int getAddedCount() {
+        return addedCount;
+    }
+    
+    public void setAddedCount(int addedCount) {
+        this.addedCount = addedCount;
+    }
+    
+    public BigDecimal getNewTotal() {
+        return newTotal;
+    }
+    
+    public void setNewTotal(BigDecimal newTotal) {
+        this.newTotal = newTotal;
+    }
+    
+    public int getItemCount() {
+        return itemCount;
+    }
+    
+    public void setItemCount(int itemCount) {
+        this.itemCount = itemCount;
+    }
+    
+    public String getNotification() {
+        return notification;
+    }
+    
+    public void setNotification(String notification) {
+        this.notification = notification;
+    }
+}
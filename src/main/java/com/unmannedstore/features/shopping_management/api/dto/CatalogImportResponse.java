@@ -0,0 +1,88 @@
+package com.unmannedstore.features.shopping_management.api.dto;
+
+import java.util.List;
+
+/**
+ * DTO for returning the outcome of a bulk catalog import.
+ */
+public class CatalogImportResponse {
+    
+    private long rowsRead;
+    private long imported;
+    private long rejected;
+    private List<String> errors;
+    private long elapsedMillis;
+    private long rowsPerSecond;
+    
+    // Default constructor
+    public CatalogImportResponse() {
+    }
+    
+    /**
+     * Constructor with all fields.
+     * 
+     * @param rowsRead The number of data rows read
+     * @param imported The number of products inserted or updated
+     * @param rejected The number of rows that were not imported
+     * @param errors Descriptions of the first rejected rows
+     * @param elapsedMillis How long the import took
+     * @param rowsPerSecond The number of rows read per second
+     */
+    public CatalogImportResponse(long rowsRead, long imported, long rejected, List<String> errors, long elapsedMillis, long rowsPerSecond) {
+        this.rowsRead = rowsRead;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.errors = errors;
+        this.elapsedMillis = elapsedMillis;
+        this.rowsPerSecond = rowsPerSecond;
+    }
+    
+    // Getters and setters
+    public long getRowsRead() {
+        return rowsRead;
+    }
+    
+    public void setRowsRead(long rowsRead) {
+        this.rowsRead = rowsRead;
+    }
+    
+    public long getImported() {
+        return imported;
+    }
+    
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+    
+    public long getRejected() {
+        return rejected;
+    }
+    
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+    
+    public List<String> getErrors() {
+        return errors;
+    }
+    
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+    
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+    
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+    
+    public void setRowsPerSecond(long rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+}
@@ -0,0 +1,55 @@
+package com.unmannedstore.features.shopping_management.api.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for returning the published catalog version.
+ */
+public class CatalogVersionResponse {
+    
+    private long version;
+    private int products;
+    private LocalDateTime publishedAt;
+    
+    // Default constructor
+    public CatalogVersionResponse() {
+    }
+    
+    /**
+     * Constructor with all fields.
+     * 
+     * @param version The version of the published catalog snapshot
+     * @param products The number of products in it
+     * @param publishedAt When it was published, or null before the catalog is loaded
+     */
+    public CatalogVersionResponse(long version, int products, LocalDateTime publishedAt) {
+        this.version = version;
+        this.products = products;
+        this.publishedAt = publishedAt;
+    }
+    
+    // Getters and setters
+    public long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(long version) {
+        this.version = version;
+    }
+    
+    public int getProducts() {
+        return products;
+    }
+    
+    public void setProducts(int products) {
+        this.products = products;
+    }
+    
+    public LocalDateTime getPublishedAt() {
+        return publishedAt;
+    }
+    
+    public void setPublishedAt(LocalDateTime publishedAt) {
+        this.publishedAt = publishedAt;
+    }
+}
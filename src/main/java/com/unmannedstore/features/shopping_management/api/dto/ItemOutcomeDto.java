@@ -0,0 +1,64 @@
+package com.unmannedstore.features.shopping_management.api.dto;
+
+/**
+ * DTO for the outcome of a single read in a batch added to a shopping basket.
+ */
+public class ItemOutcomeDto {
+    
+    private String rfidTag;
+    private String productId;
+    private String outcome;  // "added", "unknown_tag" or "unknown_product"
+    private ProductDto item;
+    
+    // Default constructor
+    public ItemOutcomeDto() {
+    }
+    
+    /**
+     * Constructor with all fields.
+     * 
+     * @param rfidTag The RFID tag that was read, or null if the read was a product ID
+     * @param productId The product ID that was read, or null if the read was an RFID tag
+     * @param outcome What happened to the read ("added", "unknown_tag" or "unknown_product")
+     * @param item The basket line the read was added to, or null if it was not added
+     */
+    public ItemOutcomeDto(String rfidTag, String productId, String outcome, ProductDto item) {
+        this.rfidTag = rfidTag;
+        this.productId = productId;
+        this.outcome = outcome;
+        this.item = item;
+    }
+    
+    // Getters and setters
+    public String getRfidTag() {
+        return rfidTag;
+    }
+    
+    public void setRfidTag(String rfidTag) {
+        this.rfidTag = rfidTag;
+    }
+    
+    public String getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+    
+    public String getOutcome() {
+        return outcome;
+    }
+    
+    public void setOutcome(String outcome) {
+        this.outcome = outcome;
+    }
+    
+    public ProductDto getItem() {
+        return item;
+    }
+    
+    public void setItem(ProductDto item) {
+        this.item = item;
+    }
+}
@@ -15,6 +15,8 @@ public class ProductDto {
     private int quantity;
     private LocalDateTime addedAt;
     private String rfidTag;
+    private String gtin;
+    private String serial;
     private String imageUrl;
     private String description;
     private String category;
@@ -123,6 +125,22 @@ public class ProductDto {
         this.rfidTag = rfidTag;
     }
 
+    public String getGtin() {
+        return gtin;
+    }
+
+    public void setGtin(String gtin) {
+        this.gtin = gtin;
+    }
+
+    public String getSerial() {
+        return serial;
+    }
+
+    public void setSerial(String serial) {
+        this.serial = serial;
+    }
+
     public String getImageUrl() {
         return imageUrl;
     }
@@ -0,0 +1,55 @@
+package com.unmannedstore.features.shopping_management.api.dto;
+
+import java.util.List;
+
+/**
+ * DTO for returning one page of the product catalog.
+ */
+public class ProductPageResponse {
+    
+    private List<ProductDto> items;
+    private String nextCursor;  // null on the last page
+    private int limit;
+    
+    // Default constructor
+    public ProductPageResponse() {
+    }
+    
+    /**
+     * Constructor with all fields.
+     * 
+     * @param items The products on this page, ordered by product ID
+     * @param nextCursor The cursor to pass as "after" for the next page, or null if this is the last page
+     * @param limit The page size that was applied
+     */
+    public ProductPageResponse(List<ProductDto> items, String nextCursor, int limit) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.limit = limit;
+    }
+    
+    // Getters and setters
+    public List<ProductDto> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<ProductDto> items) {
+        this.items = items;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+    
+    public int getLimit() {
+        return limit;
+    }
+    
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
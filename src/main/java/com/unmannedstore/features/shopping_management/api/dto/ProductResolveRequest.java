@@ -0,0 +1,45 @@
+package com.unmannedstore.features.shopping_management.api.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO for resolving many RFID tags and product IDs to products in one request, as sent by reader gateways and kiosks.
+ */
+public class ProductResolveRequest {
+    
+    private List<String> rfidTags = new ArrayList<>();
+    private List<String> productIds = new ArrayList<>();
+    
+    // Default constructor
+    public ProductResolveRequest() {
+    }
+    
+    /**
+     * Constructor with all fields.
+     * 
+     * @param rfidTags The RFID tags to resolve
+     * @param productIds The product IDs to resolve
+     */
+    public ProductResolveRequest(List<String> rfidTags, List<String> productIds) {
+        this.rfidTags = rfidTags;
+        this.productIds = productIds;
+    }
+    
+    // Getters and setters
+    public List<String> getRfidTags() {
+        return rfidTags;
+    }
+    
+    public void setRfidTags(List<String> rfidTags) {
+        this.rfidTags = rfidTags;
+    }
+    
+    public List<String> getProductIds() {
+        return productIds;
+    }
+    
+    public void setProductIds(List<String> productIds) {
+        this.productIds = productIds;
+    }
+}
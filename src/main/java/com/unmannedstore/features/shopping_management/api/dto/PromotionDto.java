@@ -0,0 +1,137 @@
+package com.unmannedstore.features.shopping_management.api.dto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO for a promotion rule. Which fields apply depends on the type:
+ * MULTI_BUY and BUNDLE use productIds and price (MULTI_BUY also quantity), CATEGORY_PERCENTAGE uses
+ * category and percentage, and THRESHOLD uses threshold and amount.
+ */
+public class PromotionDto {
+    
+    private String promotionId;
+    private String name;
+    private String type;
+    private List<String> productIds = new ArrayList<>();
+    private String category;
+    private int quantity;
+    private BigDecimal price;
+    private BigDecimal percentage;
+    private BigDecimal threshold;
+    private BigDecimal amount;
+    
+    // Default constructor
+    public PromotionDto() {
+    }
+    
+    /**
+     * Constructor with all fields.
+     * 
+     * @param promotionId The promotion ID
+     * @param name The name shown on the discount line
+     * @param type The type of promotion
+     * @param productIds The products a multi-buy or bundle applies to
+     * @param category The category a category percentage applies to
+     * @param quantity The number of units a multi-buy needs
+     * @param price The price of a multi-buy or bundle
+     * @param percentage The percentage off for a category percentage
+     * @param threshold The subtotal a threshold promotion needs
+     * @param amount The amount a threshold promotion takes off
+     */
+    public PromotionDto(String promotionId, String name, String type, List<String> productIds, String category, int quantity,
+                        BigDecimal price, BigDecimal percentage, BigDecimal threshold, BigDecimal amount) {
+        this.promotionId = promotionId;
+        this.name = name;
+        this.type = type;
+        this.productIds = productIds;
+        this.category = category;
+        this.quantity = quantity;
+        this.price = price;
+        this.percentage = percentage;
+        this.threshold = threshold;
+        this.amount = amount;
+    }
+    
+    // Getters and setters
+    public String getPromotionId() {
+        return promotionId;
+    }
+    
+    public void setPromotionId(String promotionId) {
+        this.promotionId = promotionId;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public String getType() {
+        return type;
+    }
+    
+    public void setType(String type) {
+        this.type = type;
+    }
+    
+    public List<String> getProductIds() {
+        return productIds;
+    }
+    
+    public void setProductIds(List<String> productIds) {
+        this.productIds = productIds;
+    }
+    
+    public String getCategory() {
+        return category;
+    }
+    
+    public void setCategory(String category) {
+        this.category = category;
+    }
+    
+    public int getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+    
+    public BigDecimal getPrice() {
+        return price;
+    }
+    
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+    
+    public BigDecimal getPercentage() {
+        return percentage;
+    }
+    
+    public void setPercentage(BigDecimal percentage) {
+        this.percentage = percentage;
+    }
+    
+    public BigDecimal getThreshold() {
+        return threshold;
+    }
+    
+    public void setThreshold(BigDecimal threshold) {
+        this.threshold = threshold;
+    }
+    
+    public BigDecimal getAmount() {
+        return amount;
+    }
+    
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+}
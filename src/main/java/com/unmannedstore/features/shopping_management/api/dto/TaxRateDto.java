@@ -0,0 +1,56 @@
+package com.unmannedstore.features.shopping_management.api.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO for a tax rate. A rate without a store applies in every store, and a rate without a category
+ * applies to every category; a rate with neither is the default rate.
+ */
+public class TaxRateDto {
+
+    private String storeId;
+    private String category;
+    private BigDecimal rate;
+
+    // Default constructor
+    public TaxRateDto() {
+    }
+
+    /**
+     * Constructor with all fields.
+     *
+     * @param storeId The store the rate applies in, or null for every store
+     * @param category The category the rate applies to, or null for every category
+     * @param rate The rate as a fraction, such as 0.0825 for 8.25%
+     */
+    public TaxRateDto(String storeId, String category, BigDecimal rate) {
+        this.storeId = storeId;
+        this.category = category;
+        this.rate = rate;
+    }
+
+    // Getters and setters
+    public String getStoreId() {
+        return storeId;
+    }
+
+    public void setStoreId(String storeId) {
+        this.storeId = storeId;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public BigDecimal getRate() {
+        return rate;
+    }
+
+    public void setRate(BigDecimal rate) {
+        this.rate = rate;
+    }
+}
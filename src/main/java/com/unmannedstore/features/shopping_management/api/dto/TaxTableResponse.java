@@ -0,0 +1,68 @@
+package com.unmannedstore.features.shopping_management.api.dto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO for the tax rates baskets are taxed with.
+ */
+public class TaxTableResponse {
+
+    private long version;
+    private BigDecimal defaultRate;
+    private List<TaxRateDto> rates = new ArrayList<>();
+    private int repricedSessions;
+
+    // Default constructor
+    public TaxTableResponse() {
+    }
+
+    /**
+     * Constructor with all fields.
+     *
+     * @param version The version of the compiled tax table
+     * @param defaultRate The rate of categories and stores without a rate of their own
+     * @param rates The rates the table was compiled from
+     * @param repricedSessions The number of active sessions whose total changed with the rates
+     */
+    public TaxTableResponse(long version, BigDecimal defaultRate, List<TaxRateDto> rates, int repricedSessions) {
+        this.version = version;
+        this.defaultRate = defaultRate;
+        this.rates = rates;
+        this.repricedSessions = repricedSessions;
+    }
+
+    // Getters and setters
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public BigDecimal getDefaultRate() {
+        return defaultRate;
+    }
+
+    public void setDefaultRate(BigDecimal defaultRate) {
+        this.defaultRate = defaultRate;
+    }
+
+    public List<TaxRateDto> getRates() {
+        return rates;
+    }
+
+    public void setRates(List<TaxRateDto> rates) {
+        this.rates = rates;
+    }
+
+    public int getRepricedSessions() {
+        return repricedSessions;
+    }
+
+    public void setRepricedSessions(int repricedSessions) {
+        this.repricedSessions = repricedSessions;
+    }
+}
@@ -0,0 +1,113 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+import java.util.List;
+
+/**
+ * The outcome of adding a batch of reads to a shopping basket.
+ * Holds the outcome of every read in request order and the basket totals right after the batch.
+ */
+public class BasketBatchMutation {
+
+    public static final String OUTCOME_ADDED = "added";
+    public static final String OUTCOME_UNKNOWN_TAG = "unknown_tag";
+    public static final String OUTCOME_UNKNOWN_PRODUCT = "unknown_product";
+    public static final String OUTCOME_DUPLICATE_READ = "duplicate_read";
+
+    private final ShoppingSession session;
+    private final List<Outcome> outcomes;
+    private final int addedCount;
+    private final Money total;
+    private final int itemCount;
+
+    /**
+     * Constructor for BasketBatchMutation.
+     *
+     * @param session The shopping session that was changed
+     * @param outcomes The outcome of every read, in request order
+     * @param addedCount The number of reads that added an item
+     * @param total The running total after the batch
+     * @param itemCount The number of items in the basket after the batch
+     */
+    public BasketBatchMutation(ShoppingSession session, List<Outcome> outcomes, int addedCount, Money total, int itemCount) {
+        this.session = session;
+        this.outcomes = outcomes;
+        this.addedCount = addedCount;
+        this.total = total;
+        this.itemCount = itemCount;
+    }
+
+    // Getters
+    public ShoppingSession getSession() {
+        return session;
+    }
+
+    public List<Outcome> getOutcomes() {
+        return outcomes;
+    }
+
+    public int getAddedCount() {
+        return addedCount;
+    }
+
+    public Money getTotal() {
+        return total;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * The outcome of a single read in the batch.
+     */
+    public static class Outcome {
+
+        private final String rfidTag;
+        private final String productId;
+        private final String outcome;
+        private final BasketItem item;
+        private final int quantity;
+
+        /**
+         * Constructor for Outcome.
+         *
+         * @param rfidTag The RFID tag that was read, or null if the read was a product ID
+         * @param productId The product ID that was read, or null if the read was an RFID tag
+         * @param outcome What happened to the read
+         * @param item The basket line the read was added to, or null if it was not added
+         * @param quantity The quantity of the line after the batch
+         */
+        public Outcome(String rfidTag, String productId, String outcome, BasketItem item, int quantity) {
+            this.rfidTag = rfidTag;
+            this.productId = productId;
+            this.outcome = outcome;
+            this.item = item;
+            this.quantity = quantity;
+        }
+
+        // Getters
+        public String getRfidTag() {
+            return rfidTag;
+        }
+
+        public String getProductId() {
+            return productId;
+        }
+
+        public String getOutcome() {
+            return outcome;
+        }
+
+        public BasketItem getItem() {
+            return item;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public boolean isAdded() {
+            return item != null;
+        }
+    }
+}
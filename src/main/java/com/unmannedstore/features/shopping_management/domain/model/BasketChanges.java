@@ -0,0 +1,84 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+import java.util.List;
+
+/**
+ * The basket lines that changed after a given session version, with the basket totals at the current version.
+ * When the changes since that version are not known the result is full and holds every line.
+ */
+public class BasketChanges {
+
+    private final long version;
+    private final boolean full;
+    private final List<Change> changes;
+    private final List<String> removedItemIds;
+    private final Money total;
+    private final int itemCount;
+
+    /**
+     * Constructor for BasketChanges.
+     *
+     * @param version The current session version
+     * @param full Whether every line is included because the changes are not known
+     * @param changes The lines added or changed after the version, with their current quantity
+     * @param removedItemIds The IDs of lines removed after the version
+     * @param total The running total at the current version
+     * @param itemCount The number of items in the basket at the current version
+     */
+    public BasketChanges(long version, boolean full, List<Change> changes, List<String> removedItemIds, Money total, int itemCount) {
+        this.version = version;
+        this.full = full;
+        this.changes = changes;
+        this.removedItemIds = removedItemIds;
+        this.total = total;
+        this.itemCount = itemCount;
+    }
+
+    // Getters
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    public List<String> getRemovedItemIds() {
+        return removedItemIds;
+    }
+
+    public Money getTotal() {
+        return total;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * A changed basket line and its quantity at the current version.
+     */
+    public static class Change {
+
+        private final BasketItem item;
+        private final int quantity;
+
+        public Change(BasketItem item, int quantity) {
+            this.item = item;
+            this.quantity = quantity;
+        }
+
+        // Getters
+        public BasketItem getItem() {
+            return item;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+    }
+}
@@ -3,18 +3,21 @@ package com.unmannedstore.features.shopping_management.domain.model;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Index;
 import jakarta.persistence.Column;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.FetchType;
-import java.math.BigDecimal;
+import jakarta.persistence.Transient;
 import java.time.LocalDateTime;
 
 /**
  * Represents an item in a customer's shopping basket.
  */
 @Entity
-@Table(name = "basket_items")
+@Table(name = "basket_items", indexes = {
+        @Index(name = "idx_basket_items_product_id", columnList = "product_id")
+})
 public class BasketItem {
     @Id
     private String id;
@@ -27,7 +30,7 @@ public class BasketItem {
     private Integer quantity;
     
     @Column(nullable = false)
-    private BigDecimal price;
+    private Money price;
     
     @Column(name = "added_at", nullable = false)
     private LocalDateTime addedAt;
@@ -35,6 +38,22 @@ public class BasketItem {
     @Column(name = "shopping_session_id", nullable = false)
     private String shoppingSessionId;
     
+    // The session version at which this line was added or its quantity last changed
+    @Column(name = "changed_version", nullable = false)
+    private long changedVersion;
+    
+    // Serial number of the unit for lines of a serialized (SGTIN-96 tagged) unit, null otherwise
+    @Column(name = "serial")
+    private String serial;
+
+    // Version of the catalog snapshot the price was taken from, 0 if the product was loaded outside a snapshot
+    @Column(name = "catalog_version", nullable = false)
+    private long catalogVersion;
+    
+    // Tax rate the line is taxed at, in millionths; not stored, the session sets it when it taxes its lines
+    @Transient
+    private long taxRate;
+    
     // Default constructor required by JPA
     public BasketItem() {
     }
@@ -43,7 +62,8 @@ public class BasketItem {
         this.id = id;
         this.product = product;
         this.quantity = quantity;
-        this.price = product.getPrice();
+        this.price = Money.of(product.getPrice());
+        this.catalogVersion = product.getCatalogVersion();
         this.addedAt = LocalDateTime.now();
         this.shoppingSessionId = shoppingSessionId;
     }
@@ -63,7 +83,8 @@ public class BasketItem {
     
     public void setProduct(Product product) {
         this.product = product;
-        this.price = product.getPrice();
+        this.price = Money.of(product.getPrice());
+        this.catalogVersion = product.getCatalogVersion();
     }
     
     public Integer getQuantity() {
@@ -74,11 +95,11 @@ public class BasketItem {
         this.quantity = quantity;
     }
     
-    public BigDecimal getPrice() {
+    public Money getPrice() {
         return price;
     }
     
-    public void setPrice(BigDecimal price) {
+    public void setPrice(Money price) {
         this.price = price;
     }
     
@@ -98,13 +119,45 @@ public class BasketItem {
         this.shoppingSessionId = shoppingSessionId;
     }
     
+    public long getChangedVersion() {
+        return changedVersion;
+    }
+    
+    public void setChangedVersion(long changedVersion) {
+        this.changedVersion = changedVersion;
+    }
+    
+    public String getSerial() {
+        return serial;
+    }
+    
+    public void setSerial(String serial) {
+        this.serial = serial;
+    }
+
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public void setCatalogVersion(long catalogVersion) {
+        this.catalogVersion = catalogVersion;
+    }
+    
+    public long getTaxRate() {
+        return taxRate;
+    }
+    
+    public void setTaxRate(long taxRate) {
+        this.taxRate = taxRate;
+    }
+    
     /**
      * Calculate the total price for this basket item (price * quantity).
      * 
      * @return The total price for this item
      */
-    public BigDecimal getTotalPrice() {
-        return price.multiply(BigDecimal.valueOf(quantity));
+    public Money getTotalPrice() {
+        return price.times(quantity);
     }
     
     /**
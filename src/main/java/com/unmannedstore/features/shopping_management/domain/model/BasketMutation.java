@@ -0,0 +1,122 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+
+/**
+ * The outcome of adding or removing an item in a shopping basket.
+ * Holds the exact basket line that changed and the basket totals as they were right after the change.
+ */
+public class BasketMutation {
+
+    private final ShoppingSession session;
+    private final BasketItem item;
+    private final int quantity;
+    private final boolean lineRemoved;
+    private final Money total;
+    private final int itemCount;
+    private final boolean unchanged;
+
+    /**
+     * Constructor for BasketMutation.
+     *
+     * @param session The shopping session that was changed
+     * @param item The basket line that was added, incremented, decremented or removed
+     * @param quantity The quantity of the line after the change
+     * @param lineRemoved Whether the line was removed from the basket
+     * @param total The running total after the change
+     * @param itemCount The number of items in the basket after the change
+     */
+    public BasketMutation(ShoppingSession session, BasketItem item, int quantity, boolean lineRemoved, Money total, int itemCount) {
+        this(session, item, quantity, lineRemoved, total, itemCount, false);
+    }
+
+    /**
+     * Constructor for BasketMutation.
+     *
+     * @param session The shopping session
+     * @param item The basket line the mutation concerns
+     * @param quantity The quantity of the line after the change
+     * @param lineRemoved Whether the line was removed from the basket
+     * @param total The running total after the change
+     * @param itemCount The number of items in the basket after the change
+     * @param unchanged Whether the basket was left as it was
+     */
+    public BasketMutation(ShoppingSession session, BasketItem item, int quantity, boolean lineRemoved, Money total,
+                          int itemCount, boolean unchanged) {
+        this.session = session;
+        this.item = item;
+        this.quantity = quantity;
+        this.lineRemoved = lineRemoved;
+        this.total = total;
+        this.itemCount = itemCount;
+        this.unchanged = unchanged;
+    }
+
+    /**
+     * Capture a change to a basket line.
+     * The caller must hold the session's monitor so the totals match the change.
+     *
+     * @param session The shopping session that was changed
+     * @param item The basket line that changed
+     * @return The basket mutation
+     */
+    public static BasketMutation of(ShoppingSession session, BasketItem item) {
+        int quantity = item.getQuantity();
+        return new BasketMutation(
+                session,
+                item,
+                quantity,
+                quantity <= 0,
+                session.getRunningTotal().getTotal(),
+                session.getItemCount()
+        );
+    }
+
+    /**
+     * Capture a basket line that a request left alone, such as a serialized unit that was already in the basket.
+     * The caller must hold the session's monitor so the totals match the line.
+     *
+     * @param session The shopping session
+     * @param item The basket line
+     * @return The basket mutation
+     */
+    public static BasketMutation unchanged(ShoppingSession session, BasketItem item) {
+        return new BasketMutation(
+                session,
+                item,
+                item.getQuantity(),
+                false,
+                session.getRunningTotal().getTotal(),
+                session.getItemCount(),
+                true
+        );
+    }
+
+    // Getters
+    public ShoppingSession getSession() {
+        return session;
+    }
+
+    public BasketItem getItem() {
+        return item;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public boolean isLineRemoved() {
+        return lineRemoved;
+    }
+
+    public Money getTotal() {
+        return total;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public boolean isUnchanged() {
+        return unchanged;
+    }
+}
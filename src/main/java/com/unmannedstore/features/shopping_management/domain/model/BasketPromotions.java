@@ -0,0 +1,195 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The promotions applied to one basket, evaluated against one {@link PromotionIndex}.
+ * Each line change only re-evaluates the promotions of the product that changed, its category's
+ * percentages and the threshold reached, so a scan is repriced without walking the basket or the
+ * promotions. A basket is evaluated in full when the index it was priced with is replaced.
+ * <p>
+ * Amounts are kept in cents in mutable tallies, so a scan is long arithmetic without allocating.
+ * The unit price of a product with units added at different prices is their average, and a group's
+ * or bundle's regular price is rounded half-up to cents.
+ * <p>
+ * Not thread-safe; the owning session synchronizes access.
+ */
+final class BasketPromotions {
+
+    private static final long HUNDRED_PERCENT = 10_000; // in hundredths of a percent
+
+    private final PromotionIndex index;
+    // Quantity and amount of every product in the basket, across its lines
+    private final Map<String, Tally> tallies = new HashMap<>();
+    // Amount in the basket eligible for each category percentage, by promotion ID
+    private final Map<String, Cents> categoryAmounts = new HashMap<>();
+    // Discount of every promotion other than the threshold that takes anything off
+    private final Map<Promotion, Cents> discounts = new LinkedHashMap<>();
+    private long promotionDiscount;
+    private long subtotal;
+    private Promotion threshold;
+
+    private BasketPromotions(PromotionIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Evaluate the promotions of an index against every line of a basket.
+     *
+     * @param index The compiled promotions
+     * @param items The basket lines
+     * @return The applied promotions
+     */
+    static BasketPromotions evaluate(PromotionIndex index, List<BasketItem> items) {
+        BasketPromotions promotions = new BasketPromotions(index);
+        for (BasketItem item : items) {
+            promotions.apply(item.getProduct(), item.getPrice(), item.getQuantity());
+        }
+        return promotions;
+    }
+
+    /**
+     * Re-evaluate the promotions touched by a change of a product's quantity in the basket.
+     *
+     * @param product The product whose quantity changed
+     * @param price The unit price the units were added or removed at
+     * @param quantityDelta The number of units added, or removed if negative
+     */
+    void apply(Product product, Money price, int quantityDelta) {
+        long amountDelta = Math.multiplyExact(price.getMinorUnits(), (long) quantityDelta);
+        subtotal += amountDelta;
+
+        Tally tally = tallies.get(product.getId());
+        if (tally == null) {
+            tally = new Tally();
+            tallies.put(product.getId(), tally);
+        }
+        int quantityBefore = tally.quantity;
+        long amountBefore = tally.amount;
+        tally.quantity += quantityDelta;
+        tally.amount += amountDelta;
+
+        for (Promotion promotion : index.findByProductId(product.getId())) {
+            if (promotion.getType() == PromotionType.MULTI_BUY) {
+                long change = multiBuySaving(promotion, tally.quantity, tally.amount)
+                        - multiBuySaving(promotion, quantityBefore, amountBefore);
+                Cents discount = discounts.get(promotion);
+                setDiscount(promotion, (discount != null ? discount.value : 0) + change);
+            } else {
+                setDiscount(promotion, bundleSaving(promotion));
+            }
+        }
+        if (tally.quantity <= 0) {
+            tallies.remove(product.getId());
+        }
+        for (Promotion promotion : index.findByCategory(product.getCategory())) {
+            Cents eligible = categoryAmounts.get(promotion.getId());
+            if (eligible == null) {
+                eligible = new Cents();
+                categoryAmounts.put(promotion.getId(), eligible);
+            }
+            eligible.value += amountDelta;
+            setDiscount(promotion, Money.multiplyDivide(eligible.value, promotion.getPercentageHundredths(), HUNDRED_PERCENT));
+        }
+        threshold = index.findBestThreshold(Money.ofMinor(subtotal));
+    }
+
+    /**
+     * Get the amount the promotions take off the basket, which is never more than its subtotal.
+     *
+     * @return The total discount
+     */
+    Money getDiscount() {
+        long discount = threshold != null ? promotionDiscount + threshold.getAmount().getMinorUnits() : promotionDiscount;
+        return Money.ofMinor(Math.max(Math.min(discount, subtotal), 0));
+    }
+
+    /**
+     * Get a discount line for every promotion that takes anything off, the threshold last.
+     *
+     * @return The discount lines
+     */
+    List<DiscountLine> getLines() {
+        List<DiscountLine> lines = new ArrayList<>(discounts.size() + 1);
+        discounts.forEach((promotion, amount) -> lines.add(new DiscountLine(promotion, Money.ofMinor(amount.value))));
+        if (threshold != null) {
+            lines.add(new DiscountLine(threshold, threshold.getAmount()));
+        }
+        return lines;
+    }
+
+    PromotionIndex getIndex() {
+        return index;
+    }
+
+    private void setDiscount(Promotion promotion, long amount) {
+        Cents discount = discounts.get(promotion);
+        long previous = discount != null ? discount.value : 0;
+        if (amount > 0) {
+            if (discount == null) {
+                discount = new Cents();
+                discounts.put(promotion, discount);
+            }
+            discount.value = amount;
+        } else if (discount != null) {
+            discounts.remove(promotion);
+        }
+        promotionDiscount += Math.max(amount, 0) - previous;
+    }
+
+    /**
+     * Saving of a multi-buy on one product: every full group of units costs the promotion price
+     * instead of the units' own price.
+     */
+    private static long multiBuySaving(Promotion promotion, int quantity, long amount) {
+        int groups = quantity / promotion.getQuantity();
+        if (groups == 0) {
+            return 0;
+        }
+        long groupPrice = Money.multiplyDivide(amount, promotion.getQuantity(), quantity);
+        return saving(groupPrice, promotion.getPrice(), groups);
+    }
+
+    /**
+     * Saving of a bundle: every complete set of its products costs the bundle price instead.
+     */
+    private long bundleSaving(Promotion promotion) {
+        int bundles = Integer.MAX_VALUE;
+        long bundlePrice = 0;
+        for (String productId : promotion.getProductIds()) {
+            Tally tally = tallies.get(productId);
+            bundles = Math.min(bundles, tally != null ? tally.quantity : 0);
+            if (bundles <= 0) {
+                return 0;
+            }
+            bundlePrice += Money.divideHalfUp(tally.amount, tally.quantity);
+        }
+        return saving(bundlePrice, promotion.getPrice(), bundles);
+    }
+
+    private static long saving(long regularPrice, Money promotionPrice, int times) {
+        long saving = regularPrice - promotionPrice.getMinorUnits();
+        return saving > 0 ? Math.multiplyExact(saving, (long) times) : 0;
+    }
+
+    /**
+     * Units of a product in the basket and the cents they were added at.
+     */
+    private static final class Tally {
+
+        private int quantity;
+        private long amount;
+    }
+
+    /**
+     * A running amount in cents, updated in place.
+     */
+    private static final class Cents {
+
+        private long value;
+    }
+}
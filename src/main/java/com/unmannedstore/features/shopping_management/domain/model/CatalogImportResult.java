@@ -0,0 +1,62 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+import java.util.List;
+
+/**
+ * The outcome of a bulk catalog import.
+ */
+public class CatalogImportResult {
+
+    private final long rowsRead;
+    private final long imported;
+    private final long rejected;
+    private final List<String> errors;
+    private final long elapsedMillis;
+
+    /**
+     * Constructor for CatalogImportResult.
+     *
+     * @param rowsRead The number of data rows read
+     * @param imported The number of products inserted or updated
+     * @param rejected The number of rows that were not imported
+     * @param errors Descriptions of the first rejected rows
+     * @param elapsedMillis How long the import took
+     */
+    public CatalogImportResult(long rowsRead, long imported, long rejected, List<String> errors, long elapsedMillis) {
+        this.rowsRead = rowsRead;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.errors = errors;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    // Getters
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Get the import rate.
+     *
+     * @return The number of rows read per second
+     */
+    public long getRowsPerSecond() {
+        return rowsRead * 1000 / Math.max(1, elapsedMillis);
+    }
+}
@@ -0,0 +1,222 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable, versioned view of the whole catalog.
+ * A snapshot is never changed once it is built: changes produce the next version, which shares the
+ * product instances and category lists that did not change, and is published by swapping one reference.
+ * Readers that hold a snapshot therefore see one consistent catalog without locking, however many
+ * changes are published meanwhile.
+ * <p>
+ * Every product is stamped with the version it was published in, so a basket line records which
+ * catalog version its price came from. Products in a snapshot are shared and must not be modified.
+ */
+public final class CatalogSnapshot {
+
+    /**
+     * The snapshot before the catalog has been loaded.
+     */
+    public static final CatalogSnapshot EMPTY = new CatalogSnapshot(0, null, Map.of(), Map.of(), Map.of(), Map.of());
+
+    private static final Comparator<Product> BY_ID = Comparator.comparing(Product::getId);
+
+    private final long version;
+    private final LocalDateTime publishedAt;
+    private final Map<String, Product> productsById;
+    private final Map<String, Product> productsByRfidTag;
+    private final Map<String, Product> productsByGtin;
+    private final Map<String, List<Product>> productsByCategory;
+    private final Map<String, Integer> categoryCounts;
+
+    private CatalogSnapshot(long version, LocalDateTime publishedAt, Map<String, Product> productsById,
+                            Map<String, Product> productsByRfidTag, Map<String, Product> productsByGtin,
+                            Map<String, List<Product>> productsByCategory) {
+        this.version = version;
+        this.publishedAt = publishedAt;
+        this.productsById = productsById;
+        this.productsByRfidTag = productsByRfidTag;
+        this.productsByGtin = productsByGtin;
+        this.productsByCategory = productsByCategory;
+        Map<String, Integer> counts = new TreeMap<>();
+        productsByCategory.forEach((category, products) -> counts.put(category, products.size()));
+        this.categoryCounts = Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * Build a snapshot of a whole catalog, as when the catalog is loaded or reloaded.
+     *
+     * @param version The version of the snapshot
+     * @param products The products, which are stamped with the version
+     * @return The snapshot
+     */
+    public static CatalogSnapshot of(long version, Collection<Product> products) {
+        return EMPTY.withChanges(version, products, List.of());
+    }
+
+    /**
+     * Build the next version of this snapshot. Only the entries of changed products are replaced;
+     * the rest of the catalog is carried over.
+     *
+     * @param changed The added and updated products, which are stamped with the new version
+     * @param removedIds The IDs of the deleted products
+     * @return The snapshot with the next version
+     */
+    public CatalogSnapshot withChanges(Collection<Product> changed, Collection<String> removedIds) {
+        return withChanges(version + 1, changed, removedIds);
+    }
+
+    private CatalogSnapshot withChanges(long nextVersion, Collection<Product> changed, Collection<String> removedIds) {
+        Map<String, Product> byId = new HashMap<>(productsById);
+        Map<String, Product> byRfidTag = new HashMap<>(productsByRfidTag);
+        Map<String, Product> byGtin = new HashMap<>(productsByGtin);
+        Set<String> changedCategories = new HashSet<>();
+
+        for (String id : removedIds) {
+            unindex(byId.remove(id), byRfidTag, byGtin, changedCategories);
+        }
+        for (Product product : changed) {
+            unindex(byId.put(product.getId(), product), byRfidTag, byGtin, changedCategories);
+            product.setCatalogVersion(nextVersion);
+        }
+        // Indexed once every old entry is gone, so a tag or GTIN that moved between products ends up with its new owner
+        for (Product product : changed) {
+            if (byId.get(product.getId()) != product) {
+                continue;
+            }
+            byRfidTag.put(product.getRfidTag(), product);
+            if (product.getGtin() != null) {
+                byGtin.put(product.getGtin(), product);
+            }
+            if (product.getCategory() != null) {
+                changedCategories.add(product.getCategory());
+            }
+        }
+
+        // Only the lists of categories a change touched are rebuilt
+        Map<String, List<Product>> byCategory = new HashMap<>(productsByCategory);
+        for (String category : changedCategories) {
+            List<Product> products = new ArrayList<>();
+            for (Product product : productsByCategory.getOrDefault(category, List.of())) {
+                if (byId.get(product.getId()) == product) {
+                    products.add(product);
+                }
+            }
+            for (Product product : changed) {
+                if (category.equals(product.getCategory()) && byId.get(product.getId()) == product) {
+                    products.add(product);
+                }
+            }
+            if (products.isEmpty()) {
+                byCategory.remove(category);
+            } else {
+                products.sort(BY_ID);
+                byCategory.put(category, Collections.unmodifiableList(products));
+            }
+        }
+
+        return new CatalogSnapshot(nextVersion, LocalDateTime.now(), Collections.unmodifiableMap(byId),
+                Collections.unmodifiableMap(byRfidTag), Collections.unmodifiableMap(byGtin),
+                Collections.unmodifiableMap(byCategory));
+    }
+
+    private static void unindex(Product previous, Map<String, Product> byRfidTag, Map<String, Product> byGtin,
+                                Set<String> changedCategories) {
+        if (previous == null) {
+            return;
+        }
+        byRfidTag.remove(previous.getRfidTag(), previous);
+        if (previous.getGtin() != null) {
+            byGtin.remove(previous.getGtin(), previous);
+        }
+        if (previous.getCategory() != null) {
+            changedCategories.add(previous.getCategory());
+        }
+    }
+
+    /**
+     * Find a product by its ID.
+     *
+     * @param id The product ID
+     * @return The product, or null if it is not in this snapshot
+     */
+    public Product findById(String id) {
+        return productsById.get(id);
+    }
+
+    /**
+     * Find a product by its RFID tag.
+     *
+     * @param rfidTag The RFID tag
+     * @return The product, or null if it is not in this snapshot
+     */
+    public Product findByRfidTag(String rfidTag) {
+        return productsByRfidTag.get(rfidTag);
+    }
+
+    /**
+     * Find a product by its GTIN-14.
+     *
+     * @param gtin The GTIN-14
+     * @return The product, or null if it is not in this snapshot
+     */
+    public Product findByGtin(String gtin) {
+        return productsByGtin.get(gtin);
+    }
+
+    /**
+     * Find the products in a category.
+     *
+     * @param category The category, matched exactly
+     * @return The products, ordered by ID
+     */
+    public List<Product> findByCategory(String category) {
+        return productsByCategory.getOrDefault(category, List.of());
+    }
+
+    /**
+     * Get the number of products in every category that has any.
+     *
+     * @return The product count per category, ordered by category
+     */
+    public Map<String, Integer> getCategoryCounts() {
+        return categoryCounts;
+    }
+
+    /**
+     * Get every product in this snapshot.
+     *
+     * @return The products, in no particular order
+     */
+    public Collection<Product> getProducts() {
+        return productsById.values();
+    }
+
+    /**
+     * Get the number of products in this snapshot.
+     *
+     * @return The number of products
+     */
+    public int size() {
+        return productsById.size();
+    }
+
+    // Getters
+    public long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getPublishedAt() {
+        return publishedAt;
+    }
+}
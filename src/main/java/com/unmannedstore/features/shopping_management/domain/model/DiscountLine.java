@@ -0,0 +1,50 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+/**
+ * The amount a promotion takes off a basket.
+ */
+public class DiscountLine {
+
+    private final String promotionId;
+    private final String name;
+    private final PromotionType type;
+    private final Money amount;
+
+    /**
+     * Constructor for DiscountLine.
+     *
+     * @param promotion The promotion
+     * @param amount The amount it takes off
+     */
+    public DiscountLine(Promotion promotion, Money amount) {
+        this.promotionId = promotion.getId();
+        this.name = promotion.getName();
+        this.type = promotion.getType();
+        this.amount = amount;
+    }
+
+    // Getters
+    public String getPromotionId() {
+        return promotionId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public PromotionType getType() {
+        return type;
+    }
+
+    public Money getAmount() {
+        return amount;
+    }
+
+    @Override
+    public String toString() {
+        return "DiscountLine{" +
+                "promotionId='" + promotionId + '\'' +
+                ", amount=" + amount +
+                '}';
+    }
+}
@@ -0,0 +1,55 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+/**
+ * A change to a running total: what a change of basket lines adds to or takes off the subtotal,
+ * the tax of the lines and the discount. Every basket change posts one entry to the session's
+ * {@link RunningTotal}, which applies it in constant time however many lines the basket has.
+ * <p>
+ * Subtotal and discount deltas are in cents; the tax delta is the exact tax of the units at their
+ * line's rate, in millionths of a cent.
+ */
+public final class LedgerEntry {
+
+    private final long subtotalDelta;
+    private final long lineTaxDelta;
+    private final long discountDelta;
+
+    private LedgerEntry(long subtotalDelta, long lineTaxDelta, long discountDelta) {
+        this.subtotalDelta = subtotalDelta;
+        this.lineTaxDelta = lineTaxDelta;
+        this.discountDelta = discountDelta;
+    }
+
+    /**
+     * Create an entry from its deltas.
+     *
+     * @param subtotalDelta The change of the subtotal, in cents
+     * @param lineTaxDelta The change of the tax of the lines, in millionths of a cent
+     * @param discountDelta The change of the discount, in cents
+     * @return The entry
+     */
+    public static LedgerEntry of(long subtotalDelta, long lineTaxDelta, long discountDelta) {
+        return new LedgerEntry(subtotalDelta, lineTaxDelta, discountDelta);
+    }
+
+    public long getSubtotalDelta() {
+        return subtotalDelta;
+    }
+
+    public long getLineTaxDelta() {
+        return lineTaxDelta;
+    }
+
+    public long getDiscountDelta() {
+        return discountDelta;
+    }
+
+    @Override
+    public String toString() {
+        return "LedgerEntry{" +
+                "subtotalDelta=" + subtotalDelta +
+                ", lineTaxDelta=" + lineTaxDelta +
+                ", discountDelta=" + discountDelta +
+                '}';
+    }
+}
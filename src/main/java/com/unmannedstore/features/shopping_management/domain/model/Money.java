@@ -0,0 +1,220 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * An amount of money held as a whole number of minor units (cents), so pricing a scan is plain
+ * {@code long} arithmetic instead of {@link BigDecimal} allocations and rescaling.
+ * <p>
+ * Rounding rules:
+ * <ul>
+ *   <li>Amounts converted from a {@link BigDecimal} are rounded half-up to cents.</li>
+ *   <li>Adding, subtracting and multiplying by a quantity are exact.</li>
+ *   <li>Multiplying by a fraction ({@link #multiplyDivide}) is exact until the final division,
+ *       which rounds half-up, away from zero, as {@link RoundingMode#HALF_UP} does.</li>
+ *   <li>Tax rates are held in millionths ({@link #RATE_SCALE}), so the exact tax of an amount is
+ *       cents times the rate in millionths of a cent, and is rounded to cents only once.</li>
+ * </ul>
+ * Money is immutable. Operations that overflow a {@code long} throw {@link ArithmeticException}.
+ */
+public final class Money implements Comparable<Money> {
+
+    /**
+     * Number of decimal places of a minor unit.
+     */
+    public static final int SCALE = 2;
+
+    /**
+     * Tax rates and other fractions are held as this many parts: 1,000,000 is a rate of 1.
+     */
+    public static final long RATE_SCALE = 1_000_000L;
+
+    public static final Money ZERO = new Money(0);
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    /**
+     * Create an amount from minor units.
+     *
+     * @param minorUnits The amount in cents
+     * @return The amount
+     */
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    /**
+     * Create an amount from a decimal, rounded half-up to cents.
+     *
+     * @param amount The amount
+     * @return The amount, or null if the decimal is null
+     * @throws ArithmeticException if the amount does not fit in a {@code long} of cents
+     */
+    public static Money of(BigDecimal amount) {
+        if (amount == null) {
+            return null;
+        }
+        return ofMinor(amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Create an amount from its decimal text, rounded half-up to cents.
+     *
+     * @param amount The amount, such as "2.49"
+     * @return The amount
+     */
+    public static Money of(String amount) {
+        return of(new BigDecimal(amount));
+    }
+
+    /**
+     * Convert a rate, such as 0.0825 for 8.25%, to millionths, rounded half-up.
+     *
+     * @param rate The rate
+     * @return The rate in millionths
+     */
+    public static long toRateMillionths(BigDecimal rate) {
+        return rate.movePointRight(6).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * Convert a rate in millionths back to a decimal.
+     *
+     * @param rateMillionths The rate in millionths
+     * @return The rate
+     */
+    public static BigDecimal fromRateMillionths(long rateMillionths) {
+        return BigDecimal.valueOf(rateMillionths, 6).stripTrailingZeros();
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money times(long quantity) {
+        return ofMinor(Math.multiplyExact(minorUnits, quantity));
+    }
+
+    /**
+     * Multiply by a fraction, rounding the result half-up to cents.
+     *
+     * @param numerator The numerator of the fraction
+     * @param denominator The denominator of the fraction
+     * @return The amount times numerator over denominator
+     */
+    public Money multiplyDivide(long numerator, long denominator) {
+        return ofMinor(multiplyDivide(minorUnits, numerator, denominator));
+    }
+
+    /**
+     * Get the exact tax of this amount at a rate, in millionths of a cent.
+     *
+     * @param rateMillionths The rate in millionths
+     * @return The exact tax
+     */
+    public long taxAt(long rateMillionths) {
+        return Math.multiplyExact(minorUnits, rateMillionths);
+    }
+
+    public Money max(Money other) {
+        return minorUnits >= other.minorUnits ? this : other;
+    }
+
+    public Money min(Money other) {
+        return minorUnits <= other.minorUnits ? this : other;
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    /**
+     * Convert to a decimal with two decimal places, for the API, events and storage.
+     *
+     * @return The amount
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    /**
+     * Compute value times numerator over denominator, rounding half-up, away from zero.
+     * The product is exact; it only falls back to big integers if it does not fit in a {@code long}.
+     *
+     * @param value The value
+     * @param numerator The numerator
+     * @param denominator The denominator, which must not be zero
+     * @return The rounded result
+     * @throws ArithmeticException if the denominator is zero or the result does not fit in a {@code long}
+     */
+    public static long multiplyDivide(long value, long numerator, long denominator) {
+        long high = Math.multiplyHigh(value, numerator);
+        long low = value * numerator;
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            return divideHalfUp(low, denominator);
+        }
+        return new BigDecimal(BigInteger.valueOf(value).multiply(BigInteger.valueOf(numerator)))
+                .divide(BigDecimal.valueOf(denominator), 0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+
+    /**
+     * Divide, rounding half-up, away from zero.
+     *
+     * @param dividend The dividend
+     * @param divisor The divisor, which must not be zero
+     * @return The rounded quotient
+     */
+    public static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        if (remainder >= Math.abs(divisor) - remainder) {
+            quotient += (dividend < 0) == (divisor < 0) ? 1 : -1;
+        }
+        return quotient;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return minorUnits == ((Money) o).minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
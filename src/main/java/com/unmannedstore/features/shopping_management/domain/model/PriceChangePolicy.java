@@ -0,0 +1,18 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+/**
+ * What a change of a product's price does to the baskets that already hold the product.
+ */
+public enum PriceChangePolicy {
+
+    /**
+     * Lines keep the price the product had when they were added, units added to them later included.
+     * Only new lines are priced at the new price.
+     */
+    HONOUR_OLD_PRICE,
+
+    /**
+     * The lines of the product in active baskets are repriced at the new price right away.
+     */
+    TAKE_NEW_PRICE
+}
@@ -3,14 +3,18 @@ package com.unmannedstore.features.shopping_management.domain.model;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import jakarta.persistence.Column;
+import jakarta.persistence.Index;
 import java.math.BigDecimal;
 
 /**
  * Represents a product in the store inventory that can be added to a shopping basket.
  */
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_category_id", columnList = "category, id")
+})
 public class Product {
     @Id
     private String id;
@@ -24,6 +28,10 @@ public class Product {
     @Column(name = "RFIDTAG", nullable = false, unique = true)
     private String rfidTag;
 
+    // GTIN-14 of the product, which serialized SGTIN-96 tags of its units resolve to
+    @Column(unique = true, length = 14)
+    private String gtin;
+
     @Column
     private String description;
 
@@ -33,6 +41,10 @@ public class Product {
     @Column(name = "IMAGEURL")
     private String imageUrl;
 
+    // Version of the catalog snapshot this instance was published in, 0 if it was loaded outside a snapshot
+    @Transient
+    private long catalogVersion;
+
     // Default constructor required by JPA
     public Product() {
     }
@@ -77,6 +89,14 @@ public class Product {
         this.rfidTag = rfidTag;
     }
 
+    public String getGtin() {
+        return gtin;
+    }
+
+    public void setGtin(String gtin) {
+        this.gtin = gtin;
+    }
+
     public String getDescription() {
         return description;
     }
@@ -100,4 +120,12 @@ public class Product {
     public void setImageUrl(String imageUrl) {
         this.imageUrl = imageUrl;
     }
+
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public void setCatalogVersion(long catalogVersion) {
+        this.catalogVersion = catalogVersion;
+    }
 }
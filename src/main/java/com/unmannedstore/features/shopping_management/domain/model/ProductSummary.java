@@ -0,0 +1,91 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only projection of a product row for catalog listings.
+ * Listings are read straight from the products table into this projection, so a full catalog can be
+ * paged or streamed without loading managed entities into the persistence context.
+ */
+public class ProductSummary {
+
+    private final String id;
+    private final String name;
+    private final BigDecimal price;
+    private final String rfidTag;
+    private final String gtin;
+    private final String description;
+    private final String category;
+    private final String imageUrl;
+
+    /**
+     * Constructor for ProductSummary.
+     *
+     * @param id The product ID
+     * @param name The product name
+     * @param price The product price
+     * @param rfidTag The RFID tag
+     * @param gtin The GTIN-14, or null
+     * @param description The description, or null
+     * @param category The category, or null
+     * @param imageUrl The image URL, or null
+     */
+    public ProductSummary(String id, String name, BigDecimal price, String rfidTag, String gtin,
+                          String description, String category, String imageUrl) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.rfidTag = rfidTag;
+        this.gtin = gtin;
+        this.description = description;
+        this.category = category;
+        this.imageUrl = imageUrl;
+    }
+
+    /**
+     * Copy this projection into a new, detached product.
+     *
+     * @return The product
+     */
+    public Product toProduct() {
+        Product product = new Product(id, name, price, rfidTag);
+        product.setGtin(gtin);
+        product.setDescription(description);
+        product.setCategory(category);
+        product.setImageUrl(imageUrl);
+        return product;
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public String getRfidTag() {
+        return rfidTag;
+    }
+
+    public String getGtin() {
+        return gtin;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+}
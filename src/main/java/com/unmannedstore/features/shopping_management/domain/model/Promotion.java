@@ -0,0 +1,218 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A promotion rule. Which fields apply depends on the type:
+ * <ul>
+ *   <li>{@link PromotionType#MULTI_BUY}: quantity units of any of the products for price, counted per product</li>
+ *   <li>{@link PromotionType#BUNDLE}: one unit of each of the products for price</li>
+ *   <li>{@link PromotionType#CATEGORY_PERCENTAGE}: percentage off every product in the category</li>
+ *   <li>{@link PromotionType#THRESHOLD}: amount off a basket whose subtotal reaches the threshold</li>
+ * </ul>
+ * Promotions are immutable, so a compiled {@link PromotionIndex} can share them between baskets.
+ * Percentages are applied to the nearest hundredth of a percent.
+ */
+public final class Promotion {
+
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+
+    private final String id;
+    private final String name;
+    private final PromotionType type;
+    private final List<String> productIds;
+    private final String category;
+    private final int quantity;
+    private final Money price;
+    private final BigDecimal percentage;
+    // The percentage in hundredths of a percent, so a category discount is long arithmetic
+    private final long percentageHundredths;
+    private final Money threshold;
+    private final Money amount;
+
+    /**
+     * Create a promotion, checking that the fields its type needs are set.
+     *
+     * @param id The promotion ID
+     * @param name The name shown on the discount line
+     * @param type The type of promotion
+     * @param productIds The products a multi-buy or bundle applies to
+     * @param category The category a category percentage applies to
+     * @param quantity The number of units a multi-buy needs
+     * @param price The price of a multi-buy or bundle
+     * @param percentage The percentage off for a category percentage, between 0 and 100
+     * @param threshold The subtotal a threshold promotion needs
+     * @param amount The amount a threshold promotion takes off
+     * @throws IllegalArgumentException if a field the type needs is missing or out of range
+     */
+    public Promotion(String id, String name, PromotionType type, List<String> productIds, String category,
+                     int quantity, Money price, BigDecimal percentage, Money threshold, Money amount) {
+        if (id == null || id.isBlank()) {
+            throw new IllegalArgumentException("Promotion ID is required");
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("Promotion type is required: " + id);
+        }
+        boolean needsProducts = type == PromotionType.MULTI_BUY || type == PromotionType.BUNDLE;
+        if (needsProducts && (productIds == null || productIds.isEmpty())) {
+            throw new IllegalArgumentException("Promotion needs products: " + id);
+        }
+        if (needsProducts && (price == null || price.signum() < 0)) {
+            throw new IllegalArgumentException("Promotion needs a price of zero or more: " + id);
+        }
+        if (type == PromotionType.MULTI_BUY && quantity < 2) {
+            throw new IllegalArgumentException("Multi-buy needs a quantity of at least 2: " + id);
+        }
+        if (type == PromotionType.CATEGORY_PERCENTAGE && (category == null || percentage == null
+                || percentage.signum() <= 0 || percentage.compareTo(HUNDRED) > 0)) {
+            throw new IllegalArgumentException("Category percentage needs a category and a percentage up to 100: " + id);
+        }
+        if (type == PromotionType.THRESHOLD && (threshold == null || threshold.signum() < 0
+                || amount == null || amount.signum() <= 0)) {
+            throw new IllegalArgumentException("Threshold promotion needs a threshold and an amount: " + id);
+        }
+        this.id = id;
+        this.name = name != null ? name : id;
+        this.type = type;
+        this.productIds = needsProducts ? List.copyOf(productIds) : List.of();
+        this.category = type == PromotionType.CATEGORY_PERCENTAGE ? category : null;
+        this.quantity = type == PromotionType.MULTI_BUY ? quantity : 0;
+        this.price = needsProducts ? price : null;
+        this.percentage = type == PromotionType.CATEGORY_PERCENTAGE ? percentage : null;
+        this.percentageHundredths = this.percentage != null
+                ? this.percentage.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact() : 0;
+        this.threshold = type == PromotionType.THRESHOLD ? threshold : null;
+        this.amount = type == PromotionType.THRESHOLD ? amount : null;
+    }
+
+    /**
+     * Create a multi-buy: quantity units of any of the products for a price, counted per product.
+     *
+     * @param id The promotion ID
+     * @param name The name shown on the discount line
+     * @param productIds The products
+     * @param quantity The number of units
+     * @param price The price of that many units
+     * @return The promotion
+     */
+    public static Promotion multiBuy(String id, String name, List<String> productIds, int quantity, Money price) {
+        return new Promotion(id, name, PromotionType.MULTI_BUY, productIds, null, quantity, price, null, null, null);
+    }
+
+    /**
+     * Create a bundle: one unit of each of the products for a price.
+     *
+     * @param id The promotion ID
+     * @param name The name shown on the discount line
+     * @param productIds The products in the bundle
+     * @param price The price of the bundle
+     * @return The promotion
+     */
+    public static Promotion bundle(String id, String name, List<String> productIds, Money price) {
+        return new Promotion(id, name, PromotionType.BUNDLE, productIds, null, 0, price, null, null, null);
+    }
+
+    /**
+     * Create a category percentage: a percentage off every product in a category.
+     *
+     * @param id The promotion ID
+     * @param name The name shown on the discount line
+     * @param category The category
+     * @param percentage The percentage off
+     * @return The promotion
+     */
+    public static Promotion categoryPercentage(String id, String name, String category, BigDecimal percentage) {
+        return new Promotion(id, name, PromotionType.CATEGORY_PERCENTAGE, null, category, 0, null, percentage, null, null);
+    }
+
+    /**
+     * Create a threshold promotion: an amount off a basket whose subtotal reaches a threshold.
+     *
+     * @param id The promotion ID
+     * @param name The name shown on the discount line
+     * @param threshold The subtotal needed
+     * @param amount The amount off
+     * @return The promotion
+     */
+    public static Promotion threshold(String id, String name, Money threshold, Money amount) {
+        return new Promotion(id, name, PromotionType.THRESHOLD, null, null, 0, null, null, threshold, amount);
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public PromotionType getType() {
+        return type;
+    }
+
+    public List<String> getProductIds() {
+        return productIds;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public Money getPrice() {
+        return price;
+    }
+
+    public BigDecimal getPercentage() {
+        return percentage;
+    }
+
+    /**
+     * Get the percentage off of a category percentage in hundredths of a percent.
+     *
+     * @return The percentage, such as 1250 for 12.5%, or 0 for other types
+     */
+    public long getPercentageHundredths() {
+        return percentageHundredths;
+    }
+
+    public Money getThreshold() {
+        return threshold;
+    }
+
+    public Money getAmount() {
+        return amount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return id.equals(((Promotion) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "Promotion{" +
+                "id='" + id + '\'' +
+                ", type=" + type +
+                ", name='" + name + '\'' +
+                '}';
+    }
+}
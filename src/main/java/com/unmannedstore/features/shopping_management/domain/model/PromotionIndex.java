@@ -0,0 +1,144 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The active promotions compiled for pricing baskets: multi-buys and bundles indexed by product ID,
+ * category percentages by category, and thresholds sorted by the subtotal they need.
+ * A basket change only looks up the promotions of the product that changed and searches the thresholds,
+ * so repricing does not depend on how many promotions are active.
+ * <p>
+ * An index is immutable; changing the promotions compiles a new one with the next version.
+ */
+public final class PromotionIndex {
+
+    /**
+     * The index without promotions.
+     */
+    public static final PromotionIndex EMPTY = new PromotionIndex(0, List.of());
+
+    private static final Promotion[] NONE = new Promotion[0];
+
+    private final long version;
+    private final int size;
+    private final Map<String, Promotion[]> byProductId;
+    private final Map<String, Promotion[]> byCategory;
+    // Thresholds in ascending order, with the best promotion among each one and those below it
+    private final long[] thresholds;
+    private final Promotion[] bestAtThreshold;
+
+    private PromotionIndex(long version, Collection<Promotion> promotions) {
+        Map<String, List<Promotion>> products = new HashMap<>();
+        Map<String, List<Promotion>> categories = new HashMap<>();
+        List<Promotion> sortedThresholds = new ArrayList<>();
+        for (Promotion promotion : promotions) {
+            if (promotion.getType() == PromotionType.CATEGORY_PERCENTAGE) {
+                categories.computeIfAbsent(promotion.getCategory(), category -> new ArrayList<>()).add(promotion);
+            } else if (promotion.getType() == PromotionType.THRESHOLD) {
+                sortedThresholds.add(promotion);
+            } else {
+                for (String productId : promotion.getProductIds()) {
+                    List<Promotion> forProduct = products.computeIfAbsent(productId, id -> new ArrayList<>());
+                    if (!forProduct.contains(promotion)) {
+                        forProduct.add(promotion);
+                    }
+                }
+            }
+        }
+        sortedThresholds.sort(Comparator.comparing(Promotion::getThreshold));
+
+        this.version = version;
+        this.size = promotions.size();
+        this.byProductId = compact(products);
+        this.byCategory = compact(categories);
+        this.thresholds = new long[sortedThresholds.size()];
+        this.bestAtThreshold = new Promotion[sortedThresholds.size()];
+        Promotion best = null;
+        for (int i = 0; i < sortedThresholds.size(); i++) {
+            Promotion promotion = sortedThresholds.get(i);
+            if (best == null || promotion.getAmount().compareTo(best.getAmount()) > 0) {
+                best = promotion;
+            }
+            thresholds[i] = promotion.getThreshold().getMinorUnits();
+            bestAtThreshold[i] = best;
+        }
+    }
+
+    /**
+     * Compile promotions into an index.
+     *
+     * @param version The version of the index
+     * @param promotions The active promotions
+     * @return The index
+     */
+    public static PromotionIndex of(long version, Collection<Promotion> promotions) {
+        return new PromotionIndex(version, promotions);
+    }
+
+    /**
+     * Find the multi-buys and bundles a product is part of.
+     *
+     * @param productId The product ID
+     * @return The promotions, which are shared and must not be modified
+     */
+    public Promotion[] findByProductId(String productId) {
+        return byProductId.getOrDefault(productId, NONE);
+    }
+
+    /**
+     * Find the category percentages of a category.
+     *
+     * @param category The category, or null
+     * @return The promotions, which are shared and must not be modified
+     */
+    public Promotion[] findByCategory(String category) {
+        return category != null ? byCategory.getOrDefault(category, NONE) : NONE;
+    }
+
+    /**
+     * Find the threshold promotion that takes the most off a subtotal.
+     *
+     * @param subtotal The subtotal
+     * @return The best threshold promotion the subtotal reaches, or null if it reaches none
+     */
+    public Promotion findBestThreshold(Money subtotal) {
+        long cents = subtotal.getMinorUnits();
+        int low = 0;
+        int high = thresholds.length - 1;
+        int reached = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (thresholds[middle] <= cents) {
+                reached = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return reached >= 0 ? bestAtThreshold[reached] : null;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the number of promotions in the index.
+     *
+     * @return The number of promotions
+     */
+    public int size() {
+        return size;
+    }
+
+    private static Map<String, Promotion[]> compact(Map<String, List<Promotion>> lists) {
+        Map<String, Promotion[]> arrays = new HashMap<>(lists.size() * 4 / 3 + 1);
+        lists.forEach((key, promotions) -> arrays.put(key, promotions.toArray(NONE)));
+        return arrays;
+    }
+}
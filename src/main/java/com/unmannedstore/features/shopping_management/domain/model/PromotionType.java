@@ -0,0 +1,27 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+/**
+ * The kinds of promotion the basket can be priced with.
+ */
+public enum PromotionType {
+
+    /**
+     * A number of units of one product for a fixed price, such as 3 for $5, applied per product.
+     */
+    MULTI_BUY,
+
+    /**
+     * One unit of each of a set of products for a fixed price.
+     */
+    BUNDLE,
+
+    /**
+     * A percentage off every product in a category.
+     */
+    CATEGORY_PERCENTAGE,
+
+    /**
+     * An amount off a basket whose subtotal reaches a threshold. Only the best threshold reached applies.
+     */
+    THRESHOLD
+}
@@ -2,74 +2,105 @@ package com.unmannedstore.features.shopping_management.domain.model;
 
 import jakarta.persistence.Embeddable;
 import jakarta.persistence.Column;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import jakarta.persistence.Transient;
 
 /**
- * Represents the running total of a shopping session, including subtotal, tax, and total.
+ * Represents the running total of a shopping session, including subtotal, discount, tax, and total.
  * This is an embeddable class that will be part of the ShoppingSession entity.
+ * <p>
+ * Tax is kept per basket line: every change posts a {@link LedgerEntry} holding the subtotal, tax
+ * and discount of the units it touches, at their line's rate, so the total never needs the lines
+ * to be walked again. The discount is taken off the taxable amount at the basket's overall rate.
+ * <p>
+ * Amounts are {@link Money}, so a change is long arithmetic. The tax of the lines is kept exactly,
+ * in millionths of a cent, and rounded half-up to cents only when the tax is recalculated.
  */
 @Embeddable
 public class RunningTotal {
     
     @Column(name = "subtotal", nullable = false)
-    private BigDecimal subtotal;
+    private Money subtotal;
+    
+    @Column(name = "discount", nullable = false)
+    private Money discount;
     
     @Column(name = "tax", nullable = false)
-    private BigDecimal tax;
+    private Money tax;
     
     @Column(name = "total", nullable = false)
-    private BigDecimal total;
+    private Money total;
     
-    // Default tax rate (can be configured based on location)
-    private static final BigDecimal DEFAULT_TAX_RATE = new BigDecimal("0.0825"); // 8.25%
+    // Exact tax of the basket lines before the discount, in millionths of a cent; not stored,
+    // the session rebuilds it from its lines
+    @Transient
+    private long lineTax;
     
     // Default constructor required by JPA
     public RunningTotal() {
-        this.subtotal = BigDecimal.ZERO;
-        this.tax = BigDecimal.ZERO;
-        this.total = BigDecimal.ZERO;
+        this.subtotal = Money.ZERO;
+        this.discount = Money.ZERO;
+        this.tax = Money.ZERO;
+        this.total = Money.ZERO;
     }
     
     /**
-     * Create a new running total with the specified subtotal.
+     * Create a new running total with the specified subtotal, taxed at the default rate.
      * Tax and total are calculated automatically.
      * 
      * @param subtotal The subtotal amount
      */
-    public RunningTotal(BigDecimal subtotal) {
+    public RunningTotal(Money subtotal) {
         this.subtotal = subtotal;
+        this.discount = Money.ZERO;
+        this.lineTax = subtotal.taxAt(TaxTable.DEFAULT_RATE_MILLIONTHS);
         recalculate();
     }
     
     /**
-     * Recalculate tax and total based on the current subtotal.
+     * Create a running total as it was stored. Until the session taxes its lines again, the stored
+     * tax stands in for the tax of the lines.
+     * 
+     * @param subtotal The subtotal amount
+     * @param discount The amount taken off the subtotal by promotions
+     * @param tax The tax amount
      */
-    public void recalculate() {
-        this.tax = this.subtotal.multiply(DEFAULT_TAX_RATE).setScale(2, RoundingMode.HALF_UP);
-        this.total = this.subtotal.add(this.tax).setScale(2, RoundingMode.HALF_UP);
+    public RunningTotal(Money subtotal, Money discount, Money tax) {
+        this.subtotal = subtotal;
+        this.discount = discount;
+        this.tax = tax;
+        this.lineTax = tax.taxAt(Money.RATE_SCALE);
+        this.total = taxable().plus(tax);
     }
     
     /**
-     * Add an amount to the subtotal and recalculate tax and total.
-     * 
-     * @param amount The amount to add
+     * Recalculate tax and total based on the current subtotal, discount and tax of the lines.
+     * The discounted amount never drops below zero.
      */
-    public void addToSubtotal(BigDecimal amount) {
-        this.subtotal = this.subtotal.add(amount).setScale(2, RoundingMode.HALF_UP);
-        recalculate();
+    public void recalculate() {
+        Money taxable = taxable();
+        long taxCents;
+        if (this.discount.signum() > 0 && this.subtotal.signum() > 0) {
+            // Take the discount off the tax at the basket's overall rate, rounding once
+            taxCents = Money.multiplyDivide(this.lineTax, taxable.getMinorUnits(),
+                    Math.multiplyExact(this.subtotal.getMinorUnits(), Money.RATE_SCALE));
+        } else {
+            taxCents = Money.divideHalfUp(this.lineTax, Money.RATE_SCALE);
+        }
+        this.tax = Money.ofMinor(taxCents);
+        this.total = taxable.plus(this.tax);
     }
     
     /**
-     * Subtract an amount from the subtotal and recalculate tax and total.
+     * Post a change of the basket lines and recalculate tax and total, in constant time.
+     * Subtotal, tax of the lines and discount never drop below zero.
      * 
-     * @param amount The amount to subtract
+     * @param entry The subtotal, tax and discount the change adds or takes off
      */
-    public void subtractFromSubtotal(BigDecimal amount) {
-        this.subtotal = this.subtotal.subtract(amount).setScale(2, RoundingMode.HALF_UP);
-        // Ensure subtotal doesn't go below zero
-        if (this.subtotal.compareTo(BigDecimal.ZERO) < 0) {
-            this.subtotal = BigDecimal.ZERO;
+    public void post(LedgerEntry entry) {
+        this.subtotal = Money.ofMinor(Math.max(Math.addExact(this.subtotal.getMinorUnits(), entry.getSubtotalDelta()), 0));
+        this.lineTax = Math.max(Math.addExact(this.lineTax, entry.getLineTaxDelta()), 0);
+        if (entry.getDiscountDelta() != 0) {
+            this.discount = Money.ofMinor(Math.max(Math.addExact(this.discount.getMinorUnits(), entry.getDiscountDelta()), 0));
         }
         recalculate();
     }
@@ -78,26 +109,55 @@ public class RunningTotal {
      * Reset the running total to zero.
      */
     public void reset() {
-        this.subtotal = BigDecimal.ZERO;
-        this.tax = BigDecimal.ZERO;
-        this.total = BigDecimal.ZERO;
+        this.subtotal = Money.ZERO;
+        this.discount = Money.ZERO;
+        this.tax = Money.ZERO;
+        this.total = Money.ZERO;
+        this.lineTax = 0;
+    }
+    
+    private Money taxable() {
+        return this.subtotal.minus(this.discount).max(Money.ZERO);
     }
     
     // Getters and setters
-    public BigDecimal getSubtotal() {
+    public Money getSubtotal() {
         return subtotal;
     }
     
-    public void setSubtotal(BigDecimal subtotal) {
-        this.subtotal = subtotal;
+    public Money getDiscount() {
+        return discount;
+    }
+    
+    /**
+     * Set the amount promotions take off the subtotal and recalculate tax and total.
+     * 
+     * @param discount The discount, which is never stored below zero
+     */
+    public void setDiscount(Money discount) {
+        this.discount = discount.max(Money.ZERO);
+        recalculate();
+    }
+    
+    public long getLineTax() {
+        return lineTax;
+    }
+    
+    /**
+     * Set the tax of all basket lines, after they were taxed again, and recalculate tax and total.
+     * 
+     * @param lineTax The exact tax of the lines before the discount, in millionths of a cent
+     */
+    public void setLineTax(long lineTax) {
+        this.lineTax = lineTax;
         recalculate();
     }
     
-    public BigDecimal getTax() {
+    public Money getTax() {
         return tax;
     }
     
-    public BigDecimal getTotal() {
+    public Money getTotal() {
         return total;
     }
     
@@ -105,6 +165,7 @@ public class RunningTotal {
     public String toString() {
         return "RunningTotal{" +
                 "subtotal=" + subtotal +
+                ", discount=" + discount +
                 ", tax=" + tax +
                 ", total=" + total +
                 '}';
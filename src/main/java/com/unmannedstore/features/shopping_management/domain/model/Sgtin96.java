@@ -0,0 +1,192 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+/**
+ * Decoder for SGTIN-96 EPCs, the 96-bit tag encoding of a GS1 trade item plus a unit serial number.
+ * An EPC is split into the GTIN-14 of the product and the serial of the unit, so one product serves
+ * every serialized unit of it. Decoding works on the 24 hex digits or the 12 bytes of the EPC and
+ * does not allocate; the GTIN is returned as a number and only formatted on request.
+ */
+public final class Sgtin96 {
+
+    /**
+     * Returned by the decode methods for an EPC that is not a valid SGTIN-96.
+     */
+    public static final long NOT_SGTIN = -1;
+
+    private static final int HEADER = 0x30;
+    private static final int HEX_LENGTH = 24;
+    private static final int BYTE_LENGTH = 12;
+    private static final long SERIAL_MASK = (1L << 38) - 1;
+    private static final long PARTITION_VALUE_MASK = (1L << 44) - 1;
+
+    // Bits and decimal digits of the item reference per partition value; the company prefix takes the rest
+    private static final int[] ITEM_REFERENCE_BITS = {4, 7, 10, 14, 17, 20, 24};
+    private static final int[] ITEM_REFERENCE_DIGITS = {1, 2, 3, 4, 5, 6, 7};
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+            1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L
+    };
+
+    private Sgtin96() {
+    }
+
+    /**
+     * Check whether a tag is a hex-encoded SGTIN-96 EPC.
+     *
+     * @param epc The tag
+     * @return true if the tag decodes as an SGTIN-96
+     */
+    public static boolean isSgtin96(CharSequence epc) {
+        return decodeGtin(epc) != NOT_SGTIN;
+    }
+
+    /**
+     * Decode the GTIN-14 of a hex-encoded EPC.
+     *
+     * @param epc The 24 hex digits of the EPC, in either case
+     * @return The GTIN-14 as a number, or {@link #NOT_SGTIN}
+     */
+    public static long decodeGtin(CharSequence epc) {
+        if (epc == null || epc.length() != HEX_LENGTH) {
+            return NOT_SGTIN;
+        }
+        long high = parseHex(epc, 0, 16);
+        long low = parseHex(epc, 16, 24);
+        if (high == NOT_SGTIN || low == NOT_SGTIN) {
+            return NOT_SGTIN;
+        }
+        return gtin(high);
+    }
+
+    /**
+     * Decode the GTIN-14 of a binary EPC.
+     *
+     * @param epc The 12 bytes of the EPC
+     * @return The GTIN-14 as a number, or {@link #NOT_SGTIN}
+     */
+    public static long decodeGtin(byte[] epc) {
+        if (epc == null || epc.length != BYTE_LENGTH) {
+            return NOT_SGTIN;
+        }
+        return gtin(readLong(epc, 0, 8));
+    }
+
+    /**
+     * Decode the serial number of a hex-encoded EPC.
+     *
+     * @param epc The 24 hex digits of the EPC, in either case
+     * @return The serial number, or {@link #NOT_SGTIN}
+     */
+    public static long decodeSerial(CharSequence epc) {
+        if (decodeGtin(epc) == NOT_SGTIN) {
+            return NOT_SGTIN;
+        }
+        return serial(parseHex(epc, 0, 16), parseHex(epc, 16, 24));
+    }
+
+    /**
+     * Decode the serial number of a binary EPC.
+     *
+     * @param epc The 12 bytes of the EPC
+     * @return The serial number, or {@link #NOT_SGTIN}
+     */
+    public static long decodeSerial(byte[] epc) {
+        if (decodeGtin(epc) == NOT_SGTIN) {
+            return NOT_SGTIN;
+        }
+        return serial(readLong(epc, 0, 8), readLong(epc, 8, 12));
+    }
+
+    /**
+     * Format a GTIN-14 the way it is stored on a product: 14 digits with leading zeros.
+     *
+     * @param gtin The GTIN-14 as a number
+     * @return The GTIN-14
+     */
+    public static String formatGtin(long gtin) {
+        String digits = Long.toString(gtin);
+        return "0".repeat(Math.max(0, 14 - digits.length())) + digits;
+    }
+
+    /**
+     * Compute the GS1 check digit for the first 13 digits of a GTIN-14.
+     *
+     * @param gtin13 The GTIN-14 without its check digit
+     * @return The check digit
+     */
+    static int checkDigit(long gtin13) {
+        int sum = 0;
+        boolean tripled = true;
+        for (long rest = gtin13; rest > 0; rest /= 10) {
+            int digit = (int) (rest % 10);
+            sum += tripled ? digit * 3 : digit;
+            tripled = !tripled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    /**
+     * Extract the GTIN-14 from the upper 64 bits of an EPC: header, filter, partition, company prefix,
+     * item reference and the top of the serial.
+     */
+    private static long gtin(long high) {
+        if ((int) (high >>> 56) != HEADER) {
+            return NOT_SGTIN;
+        }
+        int partition = (int) (high >>> 50) & 0x7;
+        if (partition >= ITEM_REFERENCE_BITS.length) {
+            return NOT_SGTIN;
+        }
+        int itemReferenceDigits = ITEM_REFERENCE_DIGITS[partition];
+        int companyPrefixDigits = 13 - itemReferenceDigits;
+        long value = (high >>> 6) & PARTITION_VALUE_MASK;
+        long companyPrefix = value >>> ITEM_REFERENCE_BITS[partition];
+        long itemReference = value & ((1L << ITEM_REFERENCE_BITS[partition]) - 1);
+        if (companyPrefix >= POWERS_OF_TEN[companyPrefixDigits] || itemReference >= POWERS_OF_TEN[itemReferenceDigits]) {
+            return NOT_SGTIN;
+        }
+
+        // The first digit of the item reference is the GTIN's indicator digit and moves to the front
+        long itemReferenceRest = POWERS_OF_TEN[itemReferenceDigits - 1];
+        long indicator = itemReference / itemReferenceRest;
+        long gtin13 = indicator * POWERS_OF_TEN[12] + companyPrefix * itemReferenceRest + itemReference % itemReferenceRest;
+        return gtin13 * 10 + checkDigit(gtin13);
+    }
+
+    private static long serial(long high, long low) {
+        return ((high << 32) | low) & SERIAL_MASK;
+    }
+
+    private static long parseHex(CharSequence epc, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = hexDigit(epc.charAt(i));
+            if (digit < 0) {
+                return NOT_SGTIN;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    private static long readLong(byte[] bytes, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+}
@@ -8,16 +8,41 @@ import jakarta.persistence.OneToMany;
 import jakarta.persistence.Embedded;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.Transient;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
  * Represents a customer's shopping session, including basket items and running total.
+ * Active sessions are shared between requests, so basket mutations synchronize on the session.
+ * Every change increments the session's version, and each basket line records the version it last
+ * changed at, so readers can tell whether the basket changed and fetch only the lines that did.
+ * <p>
+ * Serialized units, read from SGTIN-96 tags, get a line of their own holding the unit's serial number.
+ * A unit that is already in the basket is recognised by its serial, so repeated reads of its tag do
+ * not add it again.
+ * <p>
+ * Once promotions are applied, every line change re-evaluates only the promotions it touches and
+ * updates the discount in the running total; the discount lines are kept next to it in memory.
+ * <p>
+ * Every line is taxed at the rate the session's {@link TaxTable} gives its product's category in the
+ * session's store. Each change posts the subtotal, tax and discount of the units it touches to the
+ * running total as one {@link LedgerEntry}, so pricing a change never walks the basket; the basket
+ * is priced in full only to check the running total. A unit added to a line that is already in the
+ * basket is priced at the line's price. The lines are taxed again when a new table is applied, and
+ * at the default rates if none has been by the time the basket first changes after load.
  */
 @Entity
-@Table(name = "shopping_sessions")
+@Table(name = "shopping_sessions", indexes = {
+        @Index(name = "idx_shopping_sessions_basket_id", columnList = "basket_id"),
+        @Index(name = "idx_shopping_sessions_status_updated", columnList = "status, last_updated_at")
+})
 public class ShoppingSession {
     
     @Id
@@ -39,7 +64,10 @@ public class ShoppingSession {
     private LocalDateTime lastUpdatedAt;
     
     @Column(name = "status", nullable = false)
-    private String status; // ACTIVE, COMPLETED, CANCELLED
+    private String status; // ACTIVE, COMPLETED, CANCELLED, EXPIRED
+    
+    @Column(name = "version", nullable = false)
+    private long version;
     
     @Embedded
     private RunningTotal runningTotal;
@@ -47,6 +75,39 @@ public class ShoppingSession {
     @OneToMany(mappedBy = "shoppingSessionId", cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
     private List<BasketItem> items;
     
+    // In-memory indexes over items, kept in sync by addItem/removeItem and rebuilt lazily after load
+    @Transient
+    private Map<String, BasketItem> itemsByProductId;
+    
+    @Transient
+    private Map<String, BasketItem> itemsById;
+    
+    // Position of each line in the items list, so a line is removed without searching the list
+    @Transient
+    private Map<String, Integer> itemPositions;
+    
+    // Lines of serialized units, keyed by product ID and then by serial
+    @Transient
+    private Map<String, Map<String, BasketItem>> itemsBySerial;
+    
+    @Transient
+    private int itemCount = -1;
+    
+    // Change history since the session was created or loaded; older versions can only be answered in full
+    @Transient
+    private long historyBaseVersion;
+    
+    @Transient
+    private Map<String, Long> removedItemVersions;
+    
+    // Promotions applied to the basket, evaluated again in full after load or when the promotions change
+    @Transient
+    private BasketPromotions promotions;
+    
+    // Tax rates the lines are taxed at, applied again after load or when the rates change
+    @Transient
+    private TaxTable taxTable;
+    
     // Default constructor required by JPA
     public ShoppingSession() {
         this.items = new ArrayList<>();
@@ -79,17 +140,113 @@ public class ShoppingSession {
      * @param product The product to add
      * @return The basket item that was added or updated
      */
-    public BasketItem addItem(Product product) {
-        // Check if the product is already in the basket
-        for (BasketItem item : items) {
-            if (item.getProduct().getId().equals(product.getId())) {
-                // Increment quantity
-                item.incrementQuantity();
-                // Update running total
-                runningTotal.addToSubtotal(product.getPrice());
-                updateLastUpdated();
-                return item;
+    public synchronized BasketItem addItem(Product product) {
+        ensureTaxed();
+        version++;
+        BasketItem item = addLine(product);
+        
+        // Update running total
+        post(item.getPrice().getMinorUnits(), item.getPrice().taxAt(item.getTaxRate()));
+        updateLastUpdated();
+        
+        return item;
+    }
+    
+    /**
+     * Add several items to the shopping session in one step.
+     * Lines are added or incremented in order and the running total is recalculated once.
+     * 
+     * @param products The products to add, one entry per unit
+     * @return The basket item that was added or updated for each product, in the same order
+     */
+    public synchronized List<BasketItem> addItems(List<Product> products) {
+        return addItems(products, null);
+    }
+    
+    /**
+     * Add several items to the shopping session in one step, some of which may be serialized units.
+     * Lines are added or incremented in order and the running total is recalculated once.
+     * Serialized units that are already in the basket are left alone.
+     * 
+     * @param products The products to add, one entry per unit
+     * @param serials The serial number of each unit, with null entries for units that are not serialized,
+     *                or null if none are
+     * @return The basket item that was added or updated for each product, in the same order,
+     *         with null entries for serialized units that were already in the basket
+     */
+    public synchronized List<BasketItem> addItems(List<Product> products, List<String> serials) {
+        ensureIndexed();
+        ensureTaxed();
+        int before = itemCount;
+        long nextVersion = version + 1;
+        List<BasketItem> addedItems = new ArrayList<>(products.size());
+        long added = 0;
+        long addedTax = 0;
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            String serial = serials != null ? serials.get(i) : null;
+            if (serial != null && serializedLine(product.getId(), serial) != null) {
+                addedItems.add(null);
+                continue;
             }
+            version = nextVersion;
+            BasketItem item = serial != null ? addSerializedLine(product, serial) : addLine(product);
+            addedItems.add(item);
+            added += item.getPrice().getMinorUnits();
+            addedTax += item.getPrice().taxAt(item.getTaxRate());
+        }
+        
+        if (itemCount != before) {
+            // Update running total
+            post(added, addedTax);
+            updateLastUpdated();
+        }
+        
+        return addedItems;
+    }
+    
+    /**
+     * Add a serialized unit of a product to the shopping session.
+     * The unit gets a line of its own, unless it is already in the basket.
+     * 
+     * @param product The product to add
+     * @param serial The serial number of the unit
+     * @return The basket item that was added, or null if the unit is already in the basket
+     */
+    public synchronized BasketItem addSerializedItem(Product product, String serial) {
+        ensureIndexed();
+        if (serializedLine(product.getId(), serial) != null) {
+            return null;
+        }
+        ensureTaxed();
+        version++;
+        BasketItem item = addSerializedLine(product, serial);
+        
+        // Update running total
+        post(item.getPrice().getMinorUnits(), item.getPrice().taxAt(item.getTaxRate()));
+        updateLastUpdated();
+        
+        return item;
+    }
+    
+    /**
+     * Add one unit of a product to the basket lines without touching the running total.
+     * 
+     * @param product The product to add
+     * @return The basket item that was added or updated
+     */
+    private BasketItem addLine(Product product) {
+        ensureIndexed();
+        
+        // Check if the product is already in the basket
+        BasketItem existingItem = itemsByProductId.get(product.getId());
+        if (existingItem != null) {
+            // Increment quantity
+            existingItem.incrementQuantity();
+            existingItem.setChangedVersion(version);
+            itemCount++;
+            applyToPromotions(product, existingItem.getPrice(), 1);
+            return existingItem;
         }
         
         // Product not in basket, add new item
@@ -99,11 +256,41 @@ public class ShoppingSession {
             1,
             this.id
         );
+        newItem.setChangedVersion(version);
+        newItem.setTaxRate(taxTable.rateFor(storeId, product.getCategory()));
+        itemPositions.put(newItem.getId(), items.size());
         items.add(newItem);
+        itemsByProductId.put(product.getId(), newItem);
+        itemsById.put(newItem.getId(), newItem);
+        itemCount++;
+        applyToPromotions(product, newItem.getPrice(), 1);
         
-        // Update running total
-        runningTotal.addToSubtotal(product.getPrice());
-        updateLastUpdated();
+        return newItem;
+    }
+    
+    /**
+     * Add a line for a serialized unit without touching the running total.
+     * 
+     * @param product The product to add
+     * @param serial The serial number of the unit
+     * @return The basket item that was added
+     */
+    private BasketItem addSerializedLine(Product product, String serial) {
+        BasketItem newItem = new BasketItem(
+            UUID.randomUUID().toString(),
+            product,
+            1,
+            this.id
+        );
+        newItem.setSerial(serial);
+        newItem.setChangedVersion(version);
+        newItem.setTaxRate(taxTable.rateFor(storeId, product.getCategory()));
+        itemPositions.put(newItem.getId(), items.size());
+        items.add(newItem);
+        itemsBySerial.computeIfAbsent(product.getId(), productId -> new HashMap<>()).put(serial, newItem);
+        itemsById.put(newItem.getId(), newItem);
+        itemCount++;
+        applyToPromotions(product, newItem.getPrice(), 1);
         
         return newItem;
     }
@@ -116,41 +303,264 @@ public class ShoppingSession {
      * @param itemId The ID of the item to remove
      * @return The updated basket item, or null if the item was completely removed
      */
-    public BasketItem removeItem(String itemId) {
-        BasketItem itemToRemove = null;
+    public synchronized BasketItem removeItem(String itemId) {
+        ensureIndexed();
         
         // Find the item
-        for (BasketItem item : items) {
-            if (item.getId().equals(itemId)) {
-                itemToRemove = item;
-                break;
-            }
-        }
+        BasketItem itemToRemove = itemsById.get(itemId);
         
         if (itemToRemove == null) {
             return null; // Item not found
         }
+        ensureTaxed();
         
         // Decrement quantity
+        version++;
         boolean shouldRemove = itemToRemove.decrementQuantity();
+        itemToRemove.setChangedVersion(version);
+        itemCount--;
         
         // Update running total
-        runningTotal.subtractFromSubtotal(itemToRemove.getPrice());
+        Money price = itemToRemove.getPrice();
+        applyToPromotions(itemToRemove.getProduct(), price, -1);
+        post(-price.getMinorUnits(), -price.taxAt(itemToRemove.getTaxRate()));
         updateLastUpdated();
         
         if (shouldRemove) {
-            // Remove the item if quantity is 0
-            items.remove(itemToRemove);
+            // Remove the item if quantity is 0, moving the last line into its place instead of shifting the list
+            int position = itemPositions.remove(itemId);
+            BasketItem last = items.remove(items.size() - 1);
+            if (last != itemToRemove) {
+                items.set(position, last);
+                itemPositions.put(last.getId(), position);
+            }
+            itemsById.remove(itemId);
+            if (itemToRemove.getSerial() != null) {
+                Map<String, BasketItem> units = itemsBySerial.get(itemToRemove.getProduct().getId());
+                units.remove(itemToRemove.getSerial());
+                if (units.isEmpty()) {
+                    itemsBySerial.remove(itemToRemove.getProduct().getId());
+                }
+            } else {
+                itemsByProductId.remove(itemToRemove.getProduct().getId());
+            }
+            if (removedItemVersions == null) {
+                removedItemVersions = new HashMap<>();
+            }
+            removedItemVersions.put(itemId, version);
             return null;
         }
         
         return itemToRemove;
     }
     
+    /**
+     * Reprice every line of a product whose price differs from a new price, the product's
+     * serialized units included. The lines are found through the item indexes and take the
+     * catalog version of the new price. The change of subtotal, tax and discount is posted as one
+     * change of the session.
+     * 
+     * @param productId The ID of the product
+     * @param price The product's new price
+     * @param catalogVersion The catalog version the new price belongs to
+     * @return true if a line was repriced, false if the basket holds no line of the product at another price
+     */
+    public synchronized boolean repriceProduct(String productId, Money price, long catalogVersion) {
+        ensureIndexed();
+        ensureTaxed();
+        List<BasketItem> lines = new ArrayList<>();
+        BasketItem line = itemsByProductId.get(productId);
+        if (line != null) {
+            lines.add(line);
+        }
+        Map<String, BasketItem> units = itemsBySerial.get(productId);
+        if (units != null) {
+            lines.addAll(units.values());
+        }
+        
+        boolean repriced = false;
+        long subtotalDelta = 0;
+        long lineTaxDelta = 0;
+        for (BasketItem item : lines) {
+            if (item.getPrice().equals(price)) {
+                continue;
+            }
+            if (!repriced) {
+                version++;
+                repriced = true;
+            }
+            Money oldPrice = item.getPrice();
+            int quantity = item.getQuantity();
+            applyToPromotions(item.getProduct(), oldPrice, -quantity);
+            item.setPrice(price);
+            item.setCatalogVersion(catalogVersion);
+            item.setChangedVersion(version);
+            applyToPromotions(item.getProduct(), price, quantity);
+            Money difference = price.minus(oldPrice).times(quantity);
+            subtotalDelta = Math.addExact(subtotalDelta, difference.getMinorUnits());
+            lineTaxDelta = Math.addExact(lineTaxDelta, difference.taxAt(item.getTaxRate()));
+        }
+        
+        if (repriced) {
+            // Update running total
+            post(subtotalDelta, lineTaxDelta);
+            updateLastUpdated();
+        }
+        
+        return repriced;
+    }
+    
+    /**
+     * Find an item in the basket by its ID.
+     * 
+     * @param itemId The ID of the basket item
+     * @return The basket item, or null if it is not in the basket
+     */
+    public synchronized BasketItem findItem(String itemId) {
+        ensureIndexed();
+        return itemsById.get(itemId);
+    }
+    
+    /**
+     * Find the basket line holding a product.
+     * 
+     * @param productId The ID of the product
+     * @return The basket item for the product, or null if the product is not in the basket
+     *         or only as serialized units
+     */
+    public synchronized BasketItem findItemByProductId(String productId) {
+        ensureIndexed();
+        return itemsByProductId.get(productId);
+    }
+    
+    /**
+     * Find the basket line holding a serialized unit.
+     * 
+     * @param productId The ID of the product
+     * @param serial The serial number of the unit
+     * @return The basket item for the unit, or null if the unit is not in the basket
+     */
+    public synchronized BasketItem findItemBySerial(String productId, String serial) {
+        ensureIndexed();
+        return serializedLine(productId, serial);
+    }
+    
+    /**
+     * Collect the basket lines that changed after a version.
+     * If the session cannot tell what changed since that version, because the version is older
+     * than the history held in memory or belongs to another session, all lines are returned.
+     * 
+     * @param sinceVersion The version the caller already has
+     * @return The changes since the version
+     */
+    public synchronized BasketChanges getChangesSince(long sinceVersion) {
+        ensureIndexed();
+        boolean full = sinceVersion < historyBaseVersion || sinceVersion > version;
+        List<BasketChanges.Change> changed = new ArrayList<>();
+        for (BasketItem item : items) {
+            if (full || item.getChangedVersion() > sinceVersion) {
+                changed.add(new BasketChanges.Change(item, item.getQuantity()));
+            }
+        }
+        List<String> removedItemIds = new ArrayList<>();
+        if (!full && removedItemVersions != null) {
+            for (Map.Entry<String, Long> removed : removedItemVersions.entrySet()) {
+                if (removed.getValue() > sinceVersion) {
+                    removedItemIds.add(removed.getKey());
+                }
+            }
+        }
+        return new BasketChanges(version, full, changed, removedItemIds, runningTotal.getTotal(), itemCount);
+    }
+    
+    /**
+     * Price the basket with a set of promotions. The basket is evaluated in full only if it was not
+     * priced with these promotions yet; from then on every line change re-evaluates the promotions
+     * it touches. A change of discount counts as a change of the session.
+     * 
+     * @param index The compiled promotions
+     */
+    public synchronized void applyPromotions(PromotionIndex index) {
+        if (promotions != null && promotions.getIndex() == index) {
+            return;
+        }
+        ensureTaxed();
+        promotions = BasketPromotions.evaluate(index, items);
+        Money discount = promotions.getDiscount();
+        if (!discount.equals(runningTotal.getDiscount())) {
+            version++;
+            runningTotal.setDiscount(discount);
+            updateLastUpdated();
+        }
+    }
+    
+    /**
+     * Tax the basket with a set of tax rates. Every line is taxed again only if the basket was not
+     * taxed with these rates yet; a change of total counts as a change of the session.
+     * 
+     * @param table The tax rates
+     */
+    public synchronized void applyTaxTable(TaxTable table) {
+        if (taxTable == table) {
+            return;
+        }
+        Money before = runningTotal.getTotal();
+        taxLines(table);
+        if (!runningTotal.getTotal().equals(before)) {
+            version++;
+            updateLastUpdated();
+        }
+    }
+    
+    /**
+     * Get the tax rates the basket is taxed with.
+     * 
+     * @return The tax table, or null if the lines have not been taxed since the session was loaded
+     */
+    public synchronized TaxTable getTaxTable() {
+        return taxTable;
+    }
+    
+    /**
+     * Get the amount each applied promotion takes off the basket.
+     * 
+     * @return The discount lines, or none if no promotions have been applied since the session was loaded
+     */
+    public synchronized List<DiscountLine> getDiscountLines() {
+        return promotions != null ? promotions.getLines() : List.of();
+    }
+    
+    /**
+     * Price the basket in full from its lines, with the tax rates and promotions it is priced with,
+     * as a check on the running total its changes are posted to. The session is left unchanged.
+     * 
+     * @return The running total recomputed from the lines, or null if the lines have not been taxed
+     *         since the session was loaded, so there is nothing posted to check
+     */
+    public synchronized RunningTotal recomputeRunningTotal() {
+        if (taxTable == null) {
+            return null;
+        }
+        long subtotal = 0;
+        long lineTax = 0;
+        for (BasketItem item : items) {
+            Money linePrice = item.getTotalPrice();
+            subtotal = Math.addExact(subtotal, linePrice.getMinorUnits());
+            lineTax = Math.addExact(lineTax, linePrice.taxAt(taxTable.rateFor(storeId, item.getProduct().getCategory())));
+        }
+        Money discount = promotions != null
+                ? BasketPromotions.evaluate(promotions.getIndex(), items).getDiscount()
+                : runningTotal.getDiscount();
+        RunningTotal recomputed = new RunningTotal();
+        recomputed.post(LedgerEntry.of(subtotal, lineTax, discount.getMinorUnits()));
+        return recomputed;
+    }
+    
     /**
      * Complete the shopping session.
      */
-    public void complete() {
+    public synchronized void complete() {
+        version++;
         this.status = "COMPLETED";
         updateLastUpdated();
     }
@@ -158,11 +568,66 @@ public class ShoppingSession {
     /**
      * Cancel the shopping session.
      */
-    public void cancel() {
+    public synchronized void cancel() {
+        version++;
         this.status = "CANCELLED";
         updateLastUpdated();
     }
     
+    /**
+     * Expire the shopping session after it has been idle for too long.
+     * The last updated time is left alone, so it still shows when the basket was last used.
+     */
+    public synchronized void expire() {
+        version++;
+        this.status = "EXPIRED";
+    }
+    
+    private void applyToPromotions(Product product, Money price, int quantityDelta) {
+        if (promotions != null) {
+            promotions.apply(product, price, quantityDelta);
+        }
+    }
+    
+    /**
+     * Tax the lines at the default rates if no tax table has been applied since construction or load.
+     */
+    private void ensureTaxed() {
+        if (taxTable == null) {
+            taxLines(TaxTable.DEFAULT);
+        }
+    }
+    
+    /**
+     * Set every line's tax rate from a tax table and the tax of the lines from their rates.
+     * 
+     * @param table The tax rates
+     */
+    private void taxLines(TaxTable table) {
+        long lineTax = 0;
+        for (BasketItem item : items) {
+            long rate = table.rateFor(storeId, item.getProduct().getCategory());
+            item.setTaxRate(rate);
+            lineTax += item.getTotalPrice().taxAt(rate);
+        }
+        taxTable = table;
+        runningTotal.setLineTax(lineTax);
+    }
+    
+    /**
+     * Post a change of the basket lines to the running total, with the change of discount the
+     * promotions it touched give.
+     * 
+     * @param subtotalDelta The change of the subtotal, in cents
+     * @param lineTaxDelta The change of the tax of the lines, in millionths of a cent
+     */
+    private void post(long subtotalDelta, long lineTaxDelta) {
+        long discountDelta = promotions != null
+                ? promotions.getDiscount().getMinorUnits() - runningTotal.getDiscount().getMinorUnits()
+                : 0;
+        runningTotal.post(LedgerEntry.of(subtotalDelta, lineTaxDelta, discountDelta));
+    }
+    
     /**
      * Update the last updated timestamp.
      */
@@ -170,6 +635,61 @@ public class ShoppingSession {
         this.lastUpdatedAt = LocalDateTime.now();
     }
     
+    /**
+     * Build the item indexes and item count from the items list if they are not built yet.
+     * The indexes are not persisted, so they are built on first use after construction or load.
+     */
+    private void ensureIndexed() {
+        if (itemsByProductId != null) {
+            return;
+        }
+        Map<String, BasketItem> byProductId = new HashMap<>();
+        Map<String, BasketItem> byId = new HashMap<>();
+        Map<String, Map<String, BasketItem>> bySerial = new HashMap<>();
+        Map<String, Integer> positions = new HashMap<>();
+        int count = 0;
+        for (int i = 0; i < items.size(); i++) {
+            BasketItem item = items.get(i);
+            if (item.getSerial() != null) {
+                bySerial.computeIfAbsent(item.getProduct().getId(), productId -> new HashMap<>())
+                        .put(item.getSerial(), item);
+            } else {
+                byProductId.putIfAbsent(item.getProduct().getId(), item);
+            }
+            byId.put(item.getId(), item);
+            positions.put(item.getId(), i);
+            count += item.getQuantity();
+        }
+        this.itemsByProductId = byProductId;
+        this.itemsById = byId;
+        this.itemPositions = positions;
+        this.itemsBySerial = bySerial;
+        this.itemCount = count;
+    }
+    
+    private BasketItem serializedLine(String productId, String serial) {
+        Map<String, BasketItem> units = itemsBySerial.get(productId);
+        return units != null ? units.get(serial) : null;
+    }
+    
+    /**
+     * Drop the item indexes, the applied promotions and the tax table so they are rebuilt from the
+     * loaded items list.
+     * The change history starts over at the current version, as removed lines are not stored.
+     */
+    @PostLoad
+    private void invalidateIndexes() {
+        this.itemsByProductId = null;
+        this.itemsById = null;
+        this.itemPositions = null;
+        this.itemsBySerial = null;
+        this.itemCount = -1;
+        this.historyBaseVersion = version;
+        this.removedItemVersions = null;
+        this.promotions = null;
+        this.taxTable = null;
+    }
+    
     // Getters and setters
     public String getId() {
         return id;
@@ -227,6 +747,21 @@ public class ShoppingSession {
         this.status = status;
     }
     
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Set the version. The change history starts over at the new version.
+     * 
+     * @param version The version
+     */
+    public synchronized void setVersion(long version) {
+        this.version = version;
+        this.historyBaseVersion = version;
+        this.removedItemVersions = null;
+    }
+    
     public RunningTotal getRunningTotal() {
         return runningTotal;
     }
@@ -239,8 +774,9 @@ public class ShoppingSession {
         return items;
     }
     
-    public void setItems(List<BasketItem> items) {
+    public synchronized void setItems(List<BasketItem> items) {
         this.items = items;
+        invalidateIndexes();
     }
     
     /**
@@ -248,11 +784,8 @@ public class ShoppingSession {
      * 
      * @return The total number of items (sum of quantities)
      */
-    public int getItemCount() {
-        int count = 0;
-        for (BasketItem item : items) {
-            count += item.getQuantity();
-        }
-        return count;
+    public synchronized int getItemCount() {
+        ensureIndexed();
+        return itemCount;
     }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+import java.math.BigDecimal;
+
+/**
+ * A sales tax rate for a store, a category, or a category in one store.
+ * A rate with neither a store nor a category is the default rate.
+ */
+public final class TaxRate {
+
+    private final String storeId;
+    private final String category;
+    private final BigDecimal rate;
+    private final long rateMillionths;
+
+    /**
+     * Constructor for TaxRate.
+     *
+     * @param storeId The store the rate applies in, or null for every store
+     * @param category The category the rate applies to, or null for every category
+     * @param rate The rate as a fraction, such as 0.0825 for 8.25%, taxed to the nearest millionth
+     * @throws IllegalArgumentException if the rate is missing, negative or not below 1
+     */
+    public TaxRate(String storeId, String category, BigDecimal rate) {
+        if (rate == null || rate.signum() < 0 || rate.compareTo(BigDecimal.ONE) >= 0) {
+            throw new IllegalArgumentException("Tax rate must be at least 0 and below 1: " + rate);
+        }
+        this.storeId = storeId;
+        this.category = category;
+        this.rate = rate;
+        this.rateMillionths = Money.toRateMillionths(rate);
+    }
+
+    // Getters
+    public String getStoreId() {
+        return storeId;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public BigDecimal getRate() {
+        return rate;
+    }
+
+    public long getRateMillionths() {
+        return rateMillionths;
+    }
+
+    @Override
+    public String toString() {
+        return "TaxRate{" +
+                "storeId='" + storeId + '\'' +
+                ", category='" + category + '\'' +
+                ", rate=" + rate +
+                '}';
+    }
+}
@@ -0,0 +1,153 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The tax rates baskets are taxed with, compiled for lookup by store and category.
+ * The most specific rate wins: the rate for the category in the store, then the category's rate
+ * in every store, then the store's rate, then the default rate. Rates are looked up in millionths,
+ * so taxing a line is long arithmetic on its {@link Money} price.
+ * <p>
+ * A table is immutable; changing the rates compiles a new one with the next version.
+ */
+public final class TaxTable {
+
+    /**
+     * The rate of baskets that have not been taxed with a table yet, and the default rate
+     * of a table that does not set one.
+     */
+    public static final BigDecimal DEFAULT_RATE = new BigDecimal("0.0825"); // 8.25%
+
+    /**
+     * The default rate in millionths.
+     */
+    public static final long DEFAULT_RATE_MILLIONTHS = Money.toRateMillionths(DEFAULT_RATE);
+
+    /**
+     * The table with only the default rate.
+     */
+    public static final TaxTable DEFAULT = new TaxTable(0, List.of());
+
+    private final long version;
+    private final List<TaxRate> rates;
+    private final long defaultRate;
+    private final Map<String, Long> storeRates = new HashMap<>();
+    private final Map<String, Long> categoryRates = new HashMap<>();
+    private final Map<String, Map<String, Long>> storeCategoryRates = new HashMap<>();
+
+    private TaxTable(long version, Collection<TaxRate> rates) {
+        long tableDefault = DEFAULT_RATE_MILLIONTHS;
+        for (TaxRate rate : rates) {
+            if (rate.getStoreId() == null && rate.getCategory() == null) {
+                tableDefault = rate.getRateMillionths();
+            } else if (rate.getCategory() == null) {
+                storeRates.put(rate.getStoreId(), rate.getRateMillionths());
+            } else if (rate.getStoreId() == null) {
+                categoryRates.put(rate.getCategory(), rate.getRateMillionths());
+            } else {
+                storeCategoryRates.computeIfAbsent(rate.getStoreId(), store -> new HashMap<>())
+                        .put(rate.getCategory(), rate.getRateMillionths());
+            }
+        }
+        this.version = version;
+        this.rates = List.copyOf(rates);
+        this.defaultRate = tableDefault;
+    }
+
+    /**
+     * Compile tax rates into a table.
+     *
+     * @param version The version of the table
+     * @param rates The rates; a later rate for the same store and category replaces an earlier one
+     * @return The table
+     */
+    public static TaxTable of(long version, Collection<TaxRate> rates) {
+        return new TaxTable(version, rates);
+    }
+
+    /**
+     * Look up the rate of a product category in a store.
+     *
+     * @param storeId The store ID
+     * @param category The category, or null
+     * @return The most specific rate that applies, in millionths
+     */
+    public long rateFor(String storeId, String category) {
+        Long rate;
+        if (category != null) {
+            Map<String, Long> storeCategories = storeCategoryRates.get(storeId);
+            if (storeCategories != null && (rate = storeCategories.get(category)) != null) {
+                return rate;
+            }
+            if ((rate = categoryRates.get(category)) != null) {
+                return rate;
+            }
+        }
+        rate = storeRates.get(storeId);
+        return rate != null ? rate : defaultRate;
+    }
+
+    /**
+     * Find the stores in which some rate differs from another table.
+     *
+     * @param other The other table
+     * @return The IDs of the stores, or null if a rate that applies in every store differs
+     */
+    public Set<String> storesChangedFrom(TaxTable other) {
+        if (defaultRate != other.defaultRate || !categoryRates.equals(other.categoryRates)) {
+            return null;
+        }
+        Set<String> stores = new HashSet<>();
+        Set<String> candidates = new HashSet<>(storeRates.keySet());
+        candidates.addAll(other.storeRates.keySet());
+        candidates.addAll(storeCategoryRates.keySet());
+        candidates.addAll(other.storeCategoryRates.keySet());
+        for (String storeId : candidates) {
+            if (!Objects.equals(storeRates.get(storeId), other.storeRates.get(storeId))
+                    || !storeCategoryRates.getOrDefault(storeId, Map.of())
+                            .equals(other.storeCategoryRates.getOrDefault(storeId, Map.of()))) {
+                stores.add(storeId);
+            }
+        }
+        return stores;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the rate of categories and stores without a rate of their own.
+     *
+     * @return The default rate as a fraction
+     */
+    public BigDecimal getDefaultRate() {
+        return Money.fromRateMillionths(defaultRate);
+    }
+
+    /**
+     * Get the rate of categories and stores without a rate of their own.
+     *
+     * @return The default rate in millionths
+     */
+    public long getDefaultRateMillionths() {
+        return defaultRate;
+    }
+
+    /**
+     * Get the rates the table was compiled from.
+     *
+     * @return The rates
+     */
+    public List<TaxRate> getRates() {
+        return new ArrayList<>(rates);
+    }
+}
@@ -0,0 +1,25 @@
+package com.unmannedstore.features.shopping_management.domain.repository;
+
+import com.unmannedstore.features.shopping_management.domain.model.CatalogSnapshot;
+
+/**
+ * Repository interface for the published catalog snapshot.
+ */
+public interface CatalogSnapshotRepository {
+
+    /**
+     * Get the snapshot that is published now. Does not lock, so it is safe on the hottest read paths.
+     *
+     * @return The current snapshot, or {@link CatalogSnapshot#EMPTY} before the catalog is loaded
+     */
+    CatalogSnapshot current();
+
+    /**
+     * Publish a new snapshot in place of the one it was built from.
+     *
+     * @param expected The snapshot the new one was built from
+     * @param next The new snapshot
+     * @return true if it was published, false if another snapshot was published since the expected one
+     */
+    boolean publish(CatalogSnapshot expected, CatalogSnapshot next);
+}
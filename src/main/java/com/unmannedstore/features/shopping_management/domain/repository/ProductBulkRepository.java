@@ -0,0 +1,20 @@
+package com.unmannedstore.features.shopping_management.domain.repository;
+
+import com.unmannedstore.features.shopping_management.domain.model.Product;
+
+import java.util.List;
+
+/**
+ * Repository interface for writing products in bulk.
+ */
+public interface ProductBulkRepository {
+
+    /**
+     * Insert or update a chunk of products by ID in one batch.
+     * Bypasses the persistence context and the product cache, so callers must invalidate cached products afterwards.
+     *
+     * @param products The products to write
+     * @return The number of products written
+     */
+    int upsert(List<Product> products);
+}
@@ -0,0 +1,41 @@
+package com.unmannedstore.features.shopping_management.domain.repository;
+
+import com.unmannedstore.features.shopping_management.domain.model.ProductSummary;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Repository interface for listing the catalog in product ID order.
+ */
+public interface ProductListingRepository {
+
+    /**
+     * Find the next page of products after a product ID. Pages are addressed by the last ID of the
+     * previous page rather than an offset, so every page costs the same however deep it is.
+     *
+     * @param category The category to list, or null for all categories
+     * @param afterId The ID of the last product of the previous page, or null for the first page
+     * @param limit The maximum number of products to return
+     * @return The products, ordered by ID
+     */
+    List<ProductSummary> findPage(String category, String afterId, int limit);
+
+    /**
+     * Read every product in ID order from a database cursor, handing each to the consumer as it is read.
+     * No more than one fetch of rows is held in memory at a time.
+     *
+     * @param category The category to list, or null for all categories
+     * @param consumer Receives each product
+     */
+    void forEach(String category, Consumer<ProductSummary> consumer);
+
+    /**
+     * Read a single product from the products table, bypassing any cache.
+     *
+     * @param id The product ID
+     * @return The product, or empty if there is none with this ID
+     */
+    Optional<ProductSummary> findById(String id);
+}
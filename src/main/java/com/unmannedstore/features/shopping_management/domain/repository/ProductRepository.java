@@ -1,6 +1,7 @@
 package com.unmannedstore.features.shopping_management.domain.repository;
 
 import com.unmannedstore.features.shopping_management.domain.model.Product;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,6 +26,38 @@ public interface ProductRepository {
      */
     Optional<Product> findByRfidTag(String rfidTag);
     
+    /**
+     * Find a product by its GTIN-14.
+     * 
+     * @param gtin The GTIN-14, as 14 digits
+     * @return An Optional containing the product if found, or empty if not found
+     */
+    Optional<Product> findByGtin(String gtin);
+    
+    /**
+     * Find the products with any of the given GTIN-14s in a single query.
+     * 
+     * @param gtins The GTIN-14s
+     * @return The products that were found, in no particular order
+     */
+    List<Product> findByGtinIn(Collection<String> gtins);
+    
+    /**
+     * Find the products with any of the given IDs in a single query.
+     * 
+     * @param ids The product IDs
+     * @return The products that were found, in no particular order
+     */
+    List<Product> findByIdIn(Collection<String> ids);
+    
+    /**
+     * Find the products with any of the given RFID tags in a single query.
+     * 
+     * @param rfidTags The RFID tags
+     * @return The products that were found, in no particular order
+     */
+    List<Product> findByRfidTagIn(Collection<String> rfidTags);
+    
     /**
      * Find all products in a specific category.
      * 
@@ -0,0 +1,43 @@
+package com.unmannedstore.features.shopping_management.domain.repository;
+
+import com.unmannedstore.features.shopping_management.domain.model.Promotion;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for the active promotions.
+ */
+public interface PromotionRepository {
+
+    /**
+     * Find all active promotions.
+     *
+     * @return The promotions, ordered by ID
+     */
+    List<Promotion> findAll();
+
+    /**
+     * Find a promotion by its ID.
+     *
+     * @param id The promotion ID
+     * @return An Optional containing the promotion if found, or empty if not found
+     */
+    Optional<Promotion> findById(String id);
+
+    /**
+     * Save promotions, replacing those with the same ID.
+     *
+     * @param promotions The promotions to save
+     */
+    void saveAll(Collection<Promotion> promotions);
+
+    /**
+     * Delete a promotion by its ID.
+     *
+     * @param id The promotion ID
+     * @return true if the promotion existed
+     */
+    boolean deleteById(String id);
+}
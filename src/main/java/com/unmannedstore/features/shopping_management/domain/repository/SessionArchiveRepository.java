@@ -0,0 +1,19 @@
+package com.unmannedstore.features.shopping_management.domain.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository interface for archiving finished shopping sessions.
+ */
+public interface SessionArchiveRepository {
+
+    /**
+     * Move one batch of finished sessions, with their basket items, from the live tables into the archive.
+     * Sessions are archived oldest first.
+     *
+     * @param finishedBefore The time before which a finished session must have been last updated to be archived
+     * @param batchSize The maximum number of sessions to archive
+     * @return The number of sessions archived
+     */
+    int archiveFinishedSessions(LocalDateTime finishedBefore, int batchSize);
+}
@@ -1,6 +1,7 @@
 package com.unmannedstore.features.shopping_management.domain.repository;
 
 import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,12 +28,38 @@ public interface ShoppingSessionRepository {
     
     /**
      * Find a shopping session by basket ID.
+     * If the basket has had several sessions, the active one is returned, otherwise the most recently updated one.
      * 
      * @param basketId The basket ID
      * @return An Optional containing the shopping session if found, or empty if not found
      */
     Optional<ShoppingSession> findByBasketId(String basketId);
     
+    /**
+     * Find the version of the shopping session of a basket without loading its items.
+     * 
+     * @param basketId The basket ID
+     * @return An Optional containing the session version if the basket has a session, or empty if not
+     */
+    Optional<Long> findVersionByBasketId(String basketId);
+    
+    /**
+     * Find active shopping sessions that have not been updated since a cutoff, least recently updated first.
+     * 
+     * @param cutoff The time before which a session counts as idle
+     * @param limit The maximum number of sessions to return
+     * @return The idle active sessions
+     */
+    List<ShoppingSession> findIdleActiveSessions(LocalDateTime cutoff, int limit);
+    
+    /**
+     * Find the most recently updated active shopping sessions.
+     * 
+     * @param limit The maximum number of sessions to return
+     * @return The active sessions, most recently updated first
+     */
+    List<ShoppingSession> findRecentlyUpdatedActiveSessions(int limit);
+    
     /**
      * Find all shopping sessions for a customer.
      * 
@@ -49,6 +76,22 @@ public interface ShoppingSessionRepository {
      */
     List<ShoppingSession> findByStoreId(String storeId);
     
+    /**
+     * Find active shopping sessions for a store, or for all stores.
+     * 
+     * @param storeId The store ID, or null for every store
+     * @return The active shopping sessions
+     */
+    List<ShoppingSession> findActiveSessionsByStoreId(String storeId);
+    
+    /**
+     * Find the active shopping sessions whose basket holds a product, without scanning every session.
+     * 
+     * @param productId The product ID
+     * @return The active shopping sessions with a line of the product
+     */
+    List<ShoppingSession> findActiveSessionsByProductId(String productId);
+    
     /**
      * Save a shopping session.
      * 
@@ -0,0 +1,26 @@
+package com.unmannedstore.features.shopping_management.domain.repository;
+
+import com.unmannedstore.features.shopping_management.domain.model.TaxRate;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for the tax rates baskets are taxed with.
+ */
+public interface TaxRateRepository {
+
+    /**
+     * Find all tax rates.
+     *
+     * @return The rates, in the order they were saved
+     */
+    List<TaxRate> findAll();
+
+    /**
+     * Replace all tax rates.
+     *
+     * @param rates The new rates
+     */
+    void replaceAll(Collection<TaxRate> rates);
+}
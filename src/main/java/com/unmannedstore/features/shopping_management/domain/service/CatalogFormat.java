@@ -0,0 +1,63 @@
+package com.unmannedstore.features.shopping_management.domain.service;
+
+import java.util.Locale;
+
+/**
+ * File formats a catalog can be imported from and exported to.
+ * Both carry the columns id, name, price, rfidTag, gtin, description, category and imageUrl.
+ */
+public enum CatalogFormat {
+
+    /**
+     * Comma-separated values with a header row naming the columns.
+     */
+    CSV("text/csv"),
+
+    /**
+     * One JSON object per line.
+     */
+    JSONL("application/x-ndjson");
+
+    private final String contentType;
+
+    CatalogFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Look up a format by name, in either case. "ndjson" is accepted for JSON lines.
+     *
+     * @param name The format name
+     * @return The format
+     * @throws IllegalArgumentException if the format is unknown
+     */
+    public static CatalogFormat fromName(String name) {
+        String normalized = name.toLowerCase(Locale.ROOT);
+        if (normalized.equals("csv")) {
+            return CSV;
+        }
+        if (normalized.equals("jsonl") || normalized.equals("ndjson")) {
+            return JSONL;
+        }
+        throw new IllegalArgumentException("Unknown catalog format: " + name);
+    }
+
+    /**
+     * Derive the format from a file name's extension.
+     *
+     * @param fileName The file name
+     * @return The format
+     * @throws IllegalArgumentException if the extension is not a known format
+     */
+    public static CatalogFormat fromFileName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0) {
+            throw new IllegalArgumentException("Cannot tell the catalog format of " + fileName);
+        }
+        return fromName(fileName.substring(dot + 1));
+    }
+}
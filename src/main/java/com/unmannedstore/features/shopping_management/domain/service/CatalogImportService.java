@@ -0,0 +1,422 @@
+package com.unmannedstore.features.shopping_management.domain.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unmannedstore.features.shopping_management.domain.model.CatalogImportResult;
+import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.domain.model.ProductSummary;
+import com.unmannedstore.features.shopping_management.domain.repository.ProductBulkRepository;
+import com.unmannedstore.features.shopping_management.domain.repository.ProductListingRepository;
+import com.unmannedstore.features.shopping_management.events.ProductChangedEvent;
+import com.unmannedstore.shared.events.EventPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk import and export of the product catalog as CSV or JSON lines.
+ * Imports are parsed as a stream and written in chunks through batched upserts, so a catalog of
+ * millions of products loads without holding more than one chunk of products in memory. Rows are
+ * validated before they reach the database: required columns must be present, prices must be
+ * non-negative numbers and product IDs, RFID tags and GTINs must not repeat within the file.
+ * Invalid rows are rejected and reported; the rest are imported.
+ * <p>
+ * Exports stream the catalog from a database cursor in the same formats, so an export can be imported again.
+ */
+@Service
+public class CatalogImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogImportService.class);
+
+    /**
+     * The columns of both formats, in CSV export order.
+     */
+    static final String[] COLUMNS = {"id", "name", "price", "rfidTag", "gtin", "description", "category", "imageUrl"};
+
+    private static final int ID = 0;
+    private static final int NAME = 1;
+    private static final int PRICE = 2;
+    private static final int RFID_TAG = 3;
+    private static final int GTIN = 4;
+    private static final int DESCRIPTION = 5;
+    private static final int CATEGORY = 6;
+    private static final int IMAGE_URL = 7;
+
+    // Only the first errors are reported, so a wholly wrong file does not produce a huge response
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final ProductBulkRepository productBulkRepository;
+    private final ProductListingRepository productListingRepository;
+    private final EventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    private final Counter importedRows;
+    private final Counter rejectedRows;
+
+    /**
+     * Constructor for CatalogImportService.
+     *
+     * @param productBulkRepository The repository products are upserted through
+     * @param productListingRepository The repository the catalog is exported from
+     * @param eventPublisher The event publisher for catalog changes
+     * @param objectMapper The object mapper JSON lines are read and written with
+     * @param meterRegistry The meter registry for import metrics
+     * @param chunkSize The number of products written per batch
+     */
+    public CatalogImportService(ProductBulkRepository productBulkRepository,
+                                ProductListingRepository productListingRepository,
+                                EventPublisher eventPublisher,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.products.import.chunk-size:5000}") int chunkSize) {
+        this.productBulkRepository = productBulkRepository;
+        this.productListingRepository = productListingRepository;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.chunkSize = Math.max(1, chunkSize);
+
+        this.importedRows = Counter.builder("product.import.rows")
+                .tag("result", "imported")
+                .description("Catalog rows inserted or updated by bulk imports")
+                .register(meterRegistry);
+        this.rejectedRows = Counter.builder("product.import.rows")
+                .tag("result", "rejected")
+                .description("Catalog rows rejected by bulk imports")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Import products from a stream, inserting new products and updating existing ones by ID.
+     *
+     * @param input The catalog, in UTF-8
+     * @param format The format of the catalog
+     * @return The outcome of the import
+     * @throws IOException if the input cannot be read
+     * @throws IllegalArgumentException if the input is malformed beyond single rows, such as a CSV file without
+     *                                  the required columns
+     */
+    public CatalogImportResult importCatalog(InputStream input, CatalogFormat format) throws IOException {
+        long start = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Import run = new Import();
+        if (format == CatalogFormat.CSV) {
+            importCsv(reader, run);
+        } else {
+            importJsonLines(reader, run);
+        }
+        run.flush();
+
+        if (run.imported > 0) {
+            // The upserts bypassed the product cache, so every cached product may be stale
+            eventPublisher.publish(new ProductChangedEvent(null, null, null, false));
+        }
+        CatalogImportResult result = new CatalogImportResult(run.rowsRead, run.imported, run.rejected, run.errors,
+                (System.nanoTime() - start) / 1_000_000);
+        logger.info("Imported {} of {} catalog rows in {} ms ({} rows/s, {} rejected)",
+                result.getImported(), result.getRowsRead(), result.getElapsedMillis(), result.getRowsPerSecond(), result.getRejected());
+        return result;
+    }
+
+    /**
+     * Export every product to a stream in product ID order.
+     *
+     * @param output The stream to write the catalog to, in UTF-8
+     * @param format The format to write
+     * @return The number of products written
+     * @throws IOException if the output cannot be written
+     */
+    public long exportCatalog(OutputStream output, CatalogFormat format) throws IOException {
+        long[] rows = new long[1];
+        if (format == CatalogFormat.CSV) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            writeCsvRecord(writer, COLUMNS);
+            String[] values = new String[COLUMNS.length];
+            forEachProduct(product -> {
+                values[ID] = product.getId();
+                values[NAME] = product.getName();
+                values[PRICE] = product.getPrice().toPlainString();
+                values[RFID_TAG] = product.getRfidTag();
+                values[GTIN] = product.getGtin();
+                values[DESCRIPTION] = product.getDescription();
+                values[CATEGORY] = product.getCategory();
+                values[IMAGE_URL] = product.getImageUrl();
+                writeCsvRecord(writer, values);
+                rows[0]++;
+            });
+            writer.flush();
+        } else {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+            generator.setRootValueSeparator(null);
+            forEachProduct(product -> {
+                generator.writeStartObject();
+                generator.writeStringField(COLUMNS[ID], product.getId());
+                generator.writeStringField(COLUMNS[NAME], product.getName());
+                generator.writeNumberField(COLUMNS[PRICE], product.getPrice());
+                generator.writeStringField(COLUMNS[RFID_TAG], product.getRfidTag());
+                writeOptionalField(generator, COLUMNS[GTIN], product.getGtin());
+                writeOptionalField(generator, COLUMNS[DESCRIPTION], product.getDescription());
+                writeOptionalField(generator, COLUMNS[CATEGORY], product.getCategory());
+                writeOptionalField(generator, COLUMNS[IMAGE_URL], product.getImageUrl());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                rows[0]++;
+            });
+            generator.flush();
+        }
+        return rows[0];
+    }
+
+    private void importCsv(BufferedReader reader, Import run) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+        // Columns are matched by name, so they may come in any order and unknown ones are ignored
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            positions.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        int[] columnPositions = new int[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            columnPositions[i] = positions.getOrDefault(COLUMNS[i].toLowerCase(Locale.ROOT), -1);
+        }
+        for (int required : new int[] {ID, NAME, PRICE, RFID_TAG}) {
+            if (columnPositions[required] < 0) {
+                throw new IllegalArgumentException("CSV header has no " + COLUMNS[required] + " column");
+            }
+        }
+
+        String[] values = new String[COLUMNS.length];
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            if (record.size() == 1 && record.get(0).isEmpty()) {
+                continue;
+            }
+            for (int i = 0; i < COLUMNS.length; i++) {
+                int position = columnPositions[i];
+                values[i] = position >= 0 && position < record.size() ? record.get(position) : null;
+            }
+            run.add(values, "line " + csv.getRecordLineNumber());
+        }
+    }
+
+    private void importJsonLines(BufferedReader reader, Import run) throws IOException {
+        String[] values = new String[COLUMNS.length];
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (IOException e) {
+                run.rowsRead++;
+                run.reject("line " + lineNumber, "not valid JSON");
+                continue;
+            }
+            if (!node.isObject()) {
+                run.rowsRead++;
+                run.reject("line " + lineNumber, "not a JSON object");
+                continue;
+            }
+            for (int i = 0; i < COLUMNS.length; i++) {
+                JsonNode value = node.get(COLUMNS[i]);
+                values[i] = value == null || value.isNull() ? null : value.asText();
+            }
+            run.add(values, "line " + lineNumber);
+        }
+    }
+
+    private void forEachProduct(ProductWriter writer) throws IOException {
+        try {
+            productListingRepository.forEach(null, product -> {
+                try {
+                    writer.write(product);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void writeOptionalField(JsonGenerator generator, String name, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(name, value);
+        }
+    }
+
+    private static void writeCsvRecord(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values[i];
+            if (value == null) {
+                continue;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write('\n');
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    /**
+     * Writes one exported product.
+     */
+    private interface ProductWriter {
+        void write(ProductSummary product) throws IOException;
+    }
+
+    /**
+     * The state of one import: the current chunk, the keys seen so far and the counts.
+     */
+    private class Import {
+
+        private final List<Product> chunk = new ArrayList<>(chunkSize);
+        private final Set<String> ids = new HashSet<>();
+        private final Set<String> rfidTags = new HashSet<>();
+        private final Set<String> gtins = new HashSet<>();
+        private final List<String> errors = new ArrayList<>();
+        private long rowsRead;
+        private long imported;
+        private long rejected;
+
+        /**
+         * Validate a row and add it to the current chunk, writing the chunk once it is full.
+         *
+         * @param values The row's values in column order
+         * @param location Where the row is in the input, for error messages
+         */
+        void add(String[] values, String location) {
+            rowsRead++;
+            String id = trimToNull(values[ID]);
+            String name = trimToNull(values[NAME]);
+            String price = trimToNull(values[PRICE]);
+            String rfidTag = trimToNull(values[RFID_TAG]);
+            String gtin = trimToNull(values[GTIN]);
+            if (id == null || name == null || price == null || rfidTag == null) {
+                reject(location, "id, name, price and rfidTag are required");
+                return;
+            }
+            BigDecimal parsedPrice;
+            try {
+                parsedPrice = new BigDecimal(price);
+            } catch (NumberFormatException e) {
+                reject(location, "price is not a number: " + price);
+                return;
+            }
+            if (parsedPrice.signum() < 0) {
+                reject(location, "price is negative: " + price);
+                return;
+            }
+            if (gtin != null && (gtin.length() != 14 || !gtin.chars().allMatch(Character::isDigit))) {
+                reject(location, "gtin is not 14 digits: " + gtin);
+                return;
+            }
+            if (ids.contains(id)) {
+                reject(location, "duplicate id " + id);
+                return;
+            }
+            if (rfidTags.contains(rfidTag)) {
+                reject(location, "duplicate rfidTag " + rfidTag);
+                return;
+            }
+            if (gtin != null && gtins.contains(gtin)) {
+                reject(location, "duplicate gtin " + gtin);
+                return;
+            }
+            ids.add(id);
+            rfidTags.add(rfidTag);
+            if (gtin != null) {
+                gtins.add(gtin);
+            }
+
+            Product product = new Product(id, name, parsedPrice, rfidTag);
+            product.setGtin(gtin);
+            product.setDescription(trimToNull(values[DESCRIPTION]));
+            product.setCategory(trimToNull(values[CATEGORY]));
+            product.setImageUrl(trimToNull(values[IMAGE_URL]));
+            chunk.add(product);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        /**
+         * Write the current chunk. A chunk the database refuses, for example because a tag belongs to another
+         * product that is already stored, is rejected as a whole and the import carries on.
+         */
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                int written = productBulkRepository.upsert(chunk);
+                imported += written;
+                importedRows.increment(written);
+            } catch (DataAccessException e) {
+                rejected += chunk.size();
+                rejectedRows.increment(chunk.size());
+                addError("products " + chunk.get(0).getId() + " to " + chunk.get(chunk.size() - 1).getId()
+                        + " rejected by the database: " + e.getMostSpecificCause().getMessage());
+            }
+            chunk.clear();
+        }
+
+        void reject(String location, String reason) {
+            rejected++;
+            rejectedRows.increment();
+            addError(location + ": " + reason);
+        }
+
+        private void addError(String error) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.unmannedstore.features.shopping_management.domain.service;
+
+import com.unmannedstore.features.shopping_management.domain.model.CatalogSnapshot;
+import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.domain.model.ProductSummary;
+import com.unmannedstore.features.shopping_management.domain.repository.CatalogSnapshotRepository;
+import com.unmannedstore.features.shopping_management.domain.repository.ProductListingRepository;
+import com.unmannedstore.features.shopping_management.events.ProductChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory views of the catalog: the published {@link CatalogSnapshot} for lookups, category
+ * browsing and counts, and the {@link ProductSearchIndex} for product search.
+ * Both are built from the products table in one pass once the application is ready and are then kept
+ * current with every committed product change, so lookups, searching and browsing never touch the database.
+ * <p>
+ * Changed products are staged and published together as the next snapshot version with one atomic swap.
+ * Changes committed while a publish is running are picked up by the next one, so a burst of edits is
+ * published as a few versions rather than one per edit. Products whose row has not changed keep their
+ * published instance and version, so a repeated change event or a reload publishes only real changes.
+ */
+@Service
+public class CatalogIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogIndexService.class);
+
+    private final ProductListingRepository productListingRepository;
+    private final CatalogSnapshotRepository catalogSnapshotRepository;
+    private final int maxResults;
+    private final Timer searchTimer;
+    private final Counter publishes;
+    // IDs of products changed since the last publish
+    private final Queue<String> staged = new ConcurrentLinkedQueue<>();
+
+    private volatile ProductSearchIndex searchIndex = new ProductSearchIndex();
+
+    /**
+     * Constructor for CatalogIndexService.
+     *
+     * @param productListingRepository The repository the snapshots and the search index are built from
+     * @param catalogSnapshotRepository The repository the snapshots are published to
+     * @param meterRegistry The meter registry for search and publish metrics
+     * @param maxResults The maximum number of products a search returns
+     */
+    public CatalogIndexService(ProductListingRepository productListingRepository,
+                               CatalogSnapshotRepository catalogSnapshotRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.products.search.max-results:100}") int maxResults) {
+        this.productListingRepository = productListingRepository;
+        this.catalogSnapshotRepository = catalogSnapshotRepository;
+        this.maxResults = maxResults;
+        this.searchTimer = Timer.builder("product.search.duration")
+                .description("Time taken to answer a product search from the index")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.publishes = Counter.builder("catalog.snapshot.publishes")
+                .description("Catalog snapshot versions published")
+                .register(meterRegistry);
+        Gauge.builder("product.search.indexed", this, service -> service.searchIndex.size())
+                .description("Products in the search index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Find the products matching a query, best match first.
+     *
+     * @param query The query, as free text
+     * @param limit The maximum number of products to return, capped at the configured maximum
+     * @return The matching products
+     */
+    public List<ProductSummary> search(String query, int limit) {
+        long start = System.nanoTime();
+        try {
+            return searchIndex.search(query, Math.min(limit, maxResults));
+        } finally {
+            searchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Find the products in a category in the published snapshot.
+     *
+     * @param category The category, matched exactly
+     * @return The products, ordered by ID, which are shared and must not be modified
+     */
+    public List<Product> findByCategory(String category) {
+        return catalogSnapshotRepository.current().findByCategory(category);
+    }
+
+    /**
+     * Get the number of products in every category that has any in the published snapshot.
+     *
+     * @return The product count per category, ordered by category
+     */
+    public Map<String, Integer> getCategoryCounts() {
+        return catalogSnapshotRepository.current().getCategoryCounts();
+    }
+
+    /**
+     * Get the published snapshot.
+     *
+     * @return The current snapshot
+     */
+    public CatalogSnapshot getSnapshot() {
+        return catalogSnapshotRepository.current();
+    }
+
+    /**
+     * Check whether the catalog has been loaded. Until then the snapshot and the search index are empty,
+     * which happens while the application is starting.
+     *
+     * @return true once a snapshot of the catalog has been published
+     */
+    public boolean isBuilt() {
+        return catalogSnapshotRepository.current().getVersion() > 0;
+    }
+
+    /**
+     * Load the whole catalog from the products table and publish what changed as the next snapshot version.
+     * Readers keep using the previous snapshot and search index while the new ones are built, so the
+     * catalog can be reloaded without a restart.
+     *
+     * @return The number of products loaded
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized int rebuild() {
+        long start = System.nanoTime();
+        // The full load covers every staged change
+        staged.clear();
+        CatalogSnapshot current = catalogSnapshotRepository.current();
+        List<Product> changed = new ArrayList<>();
+        Set<String> removedIds = new HashSet<>(current.getProducts().size());
+        current.getProducts().forEach(product -> removedIds.add(product.getId()));
+        ProductSearchIndex rebuiltSearchIndex = new ProductSearchIndex();
+        productListingRepository.forEach(null, product -> {
+            removedIds.remove(product.getId());
+            if (!isPublished(current, product)) {
+                changed.add(product.toProduct());
+            }
+            rebuiltSearchIndex.put(product);
+        });
+        CatalogSnapshot next = current;
+        if (current.getVersion() == 0 || !changed.isEmpty() || !removedIds.isEmpty()) {
+            next = current.withChanges(changed, removedIds);
+            publish(current, next);
+        }
+        searchIndex = rebuiltSearchIndex;
+        logger.info("Loaded catalog version {} with {} products ({} changed, {} removed), {} terms and {} categories in {} ms",
+                next.getVersion(), next.size(), changed.size(), removedIds.size(), rebuiltSearchIndex.getTermCount(),
+                next.getCategoryCounts().size(), (System.nanoTime() - start) / 1_000_000);
+        return next.size();
+    }
+
+    /**
+     * Stage a product change for the next publish.
+     *
+     * @param productId The ID of the added, updated or deleted product
+     */
+    public void stage(String productId) {
+        staged.add(productId);
+    }
+
+    /**
+     * Publish every staged change as the next snapshot version. Staged products are read again from the
+     * products table rather than the product cache, which may not have dropped their old state yet.
+     *
+     * @return The version that is published afterwards
+     */
+    public synchronized long publishStaged() {
+        Set<String> productIds = new LinkedHashSet<>();
+        for (String productId = staged.poll(); productId != null; productId = staged.poll()) {
+            productIds.add(productId);
+        }
+        CatalogSnapshot current = catalogSnapshotRepository.current();
+        if (productIds.isEmpty()) {
+            return current.getVersion();
+        }
+
+        List<Product> changed = new ArrayList<>();
+        List<ProductSummary> changedSummaries = new ArrayList<>();
+        List<String> removedIds = new ArrayList<>();
+        for (String productId : productIds) {
+            Optional<ProductSummary> product = productListingRepository.findById(productId);
+            if (product.isEmpty()) {
+                if (current.findById(productId) != null) {
+                    removedIds.add(productId);
+                }
+            } else if (!isPublished(current, product.get())) {
+                changed.add(product.get().toProduct());
+                changedSummaries.add(product.get());
+            }
+        }
+        if (changed.isEmpty() && removedIds.isEmpty()) {
+            return current.getVersion();
+        }
+        CatalogSnapshot next = current.withChanges(changed, removedIds);
+        publish(current, next);
+        changedSummaries.forEach(searchIndex::put);
+        removedIds.forEach(searchIndex::remove);
+        return next.getVersion();
+    }
+
+    /**
+     * Stage and publish a product change once it is committed.
+     *
+     * @param event The event, with no product ID if the whole catalog may have changed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getProductId() == null) {
+            rebuild();
+            return;
+        }
+        stage(event.getProductId());
+        publishStaged();
+    }
+
+    private static boolean isPublished(CatalogSnapshot snapshot, ProductSummary product) {
+        Product published = snapshot.findById(product.getId());
+        return published != null
+                && Objects.equals(published.getName(), product.getName())
+                && Objects.equals(published.getPrice(), product.getPrice())
+                && Objects.equals(published.getRfidTag(), product.getRfidTag())
+                && Objects.equals(published.getGtin(), product.getGtin())
+                && Objects.equals(published.getDescription(), product.getDescription())
+                && Objects.equals(published.getCategory(), product.getCategory())
+                && Objects.equals(published.getImageUrl(), product.getImageUrl());
+    }
+
+    private void publish(CatalogSnapshot current, CatalogSnapshot next) {
+        // Snapshots are only published from here, under this service's lock
+        if (!catalogSnapshotRepository.publish(current, next)) {
+            throw new IllegalStateException("Catalog snapshot " + current.getVersion() + " was replaced while publishing");
+        }
+        publishes.increment();
+    }
+}
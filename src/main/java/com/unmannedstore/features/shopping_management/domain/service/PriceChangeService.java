@@ -0,0 +1,116 @@
+package com.unmannedstore.features.shopping_management.domain.service;
+
+import com.unmannedstore.features.shopping_management.domain.model.CatalogSnapshot;
+import com.unmannedstore.features.shopping_management.domain.model.Money;
+import com.unmannedstore.features.shopping_management.domain.model.PriceChangePolicy;
+import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
+import com.unmannedstore.features.shopping_management.domain.repository.CatalogSnapshotRepository;
+import com.unmannedstore.features.shopping_management.domain.repository.ShoppingSessionRepository;
+import com.unmannedstore.features.shopping_management.events.ProductPriceChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies changes of product prices to the active baskets that hold the product.
+ * Under {@link PriceChangePolicy#TAKE_NEW_PRICE} the sessions are found through the index from a
+ * product to the active sessions holding it, never by scanning the sessions, and repriced through the
+ * {@link SessionRepricer}; every other basket is left alone. Under
+ * {@link PriceChangePolicy#HONOUR_OLD_PRICE} a price change leaves baskets unchanged.
+ */
+@Service
+public class PriceChangeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceChangeService.class);
+
+    private final ShoppingSessionRepository shoppingSessionRepository;
+    private final CatalogSnapshotRepository catalogSnapshotRepository;
+    private final SessionRepricer sessionRepricer;
+    private final PriceChangePolicy policy;
+    private final Counter repricedSessions;
+    private final Timer repriceTimer;
+
+    /**
+     * Constructor for PriceChangeService.
+     *
+     * @param shoppingSessionRepository The shopping session repository
+     * @param catalogSnapshotRepository The repository of the published catalog snapshot, for the catalog version of new prices
+     * @param sessionRepricer The repricer the affected sessions are changed and saved with
+     * @param meterRegistry The meter registry for repricing metrics
+     * @param policy What a price change does to active baskets holding the product
+     */
+    public PriceChangeService(ShoppingSessionRepository shoppingSessionRepository,
+                              CatalogSnapshotRepository catalogSnapshotRepository,
+                              SessionRepricer sessionRepricer,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.pricing.price-change.policy:TAKE_NEW_PRICE}") PriceChangePolicy policy) {
+        this.shoppingSessionRepository = shoppingSessionRepository;
+        this.catalogSnapshotRepository = catalogSnapshotRepository;
+        this.sessionRepricer = sessionRepricer;
+        this.policy = policy;
+
+        this.repricedSessions = Counter.builder("pricing.price-change.sessions.repriced")
+                .description("Active sessions whose lines were repriced when a product's price changed")
+                .register(meterRegistry);
+        this.repriceTimer = Timer.builder("pricing.price-change.duration")
+                .description("Time taken to reprice the active sessions holding a product after its price changed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get the policy applied to price changes.
+     *
+     * @return The policy
+     */
+    public PriceChangePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Reprice the active sessions holding a product once the change of its price is committed.
+     * The change of the product itself is published before its price change, so the catalog snapshot
+     * holding the new price is published by now and its version is recorded on the repriced lines.
+     *
+     * @param event The product price changed event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductPriceChanged(ProductPriceChangedEvent event) {
+        if (policy == PriceChangePolicy.HONOUR_OLD_PRICE) {
+            return;
+        }
+        CatalogSnapshot snapshot = catalogSnapshotRepository.current();
+        Product published = snapshot.findById(event.getProductId());
+        long catalogVersion = published != null ? published.getCatalogVersion() : snapshot.getVersion();
+        repriceProduct(event.getProductId(), Money.of(event.getNewPrice()), catalogVersion);
+    }
+
+    /**
+     * Reprice the lines of a product in every active session holding it. Returns once every
+     * affected session is repriced.
+     *
+     * @param productId The product ID
+     * @param price The new price of the product
+     * @param catalogVersion The catalog version the new price belongs to
+     * @return The number of active sessions whose lines were repriced
+     */
+    public int repriceProduct(String productId, Money price, long catalogVersion) {
+        long start = System.nanoTime();
+        List<ShoppingSession> sessions = shoppingSessionRepository.findActiveSessionsByProductId(productId);
+        int repriced = sessionRepricer.reprice(sessions,
+                session -> session.repriceProduct(productId, price, catalogVersion));
+        repriceTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        repricedSessions.increment(repriced);
+        logger.info("Price of product {} changed to {}; repriced {} of {} active sessions holding it in {} ms",
+                productId, price, repriced, sessions.size(), (System.nanoTime() - start) / 1_000_000);
+        return repriced;
+    }
+}
@@ -1,8 +1,8 @@
 package com.unmannedstore.features.shopping_management.domain.service;
 
 import com.unmannedstore.features.shopping_management.domain.model.BasketItem;
+import com.unmannedstore.features.shopping_management.domain.model.Money;
 import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
-import java.math.BigDecimal;
 import java.util.List;
 
 /**
@@ -16,7 +16,7 @@ public interface PricingService {
      * @param items The list of basket items
      * @return The subtotal
      */
-    BigDecimal calculateSubtotal(List<BasketItem> items);
+    Money calculateSubtotal(List<BasketItem> items);
     
     /**
      * Calculate the tax for a subtotal.
@@ -24,7 +24,7 @@ public interface PricingService {
      * @param subtotal The subtotal
      * @return The tax amount
      */
-    BigDecimal calculateTax(BigDecimal subtotal);
+    Money calculateTax(Money subtotal);
     
     /**
      * Calculate the total for a subtotal and tax.
@@ -33,7 +33,7 @@ public interface PricingService {
      * @param tax The tax amount
      * @return The total
      */
-    BigDecimal calculateTotal(BigDecimal subtotal, BigDecimal tax);
+    Money calculateTotal(Money subtotal, Money tax);
     
     /**
      * Apply any applicable discounts to a shopping session.
@@ -1,13 +1,11 @@
 package com.unmannedstore.features.shopping_management.domain.service;
 
 import com.unmannedstore.features.shopping_management.domain.model.BasketItem;
-import com.unmannedstore.features.shopping_management.domain.model.RunningTotal;
+import com.unmannedstore.features.shopping_management.domain.model.Money;
 import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
 import com.unmannedstore.features.shopping_management.domain.repository.ShoppingSessionRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.List;
 
 /**
@@ -17,17 +15,21 @@ import java.util.List;
 public class PricingServiceImpl implements PricingService {
     
     private final ShoppingSessionRepository shoppingSessionRepository;
-    
-    // Default tax rate (can be configured based on location)
-    private static final BigDecimal DEFAULT_TAX_RATE = new BigDecimal("0.0825"); // 8.25%
+    private final PromotionService promotionService;
+    private final TaxService taxService;
     
     /**
      * Constructor for PricingServiceImpl.
      * 
      * @param shoppingSessionRepository The shopping session repository
+     * @param promotionService The service holding the compiled promotions
+     * @param taxService The service holding the tax rates
      */
-    public PricingServiceImpl(ShoppingSessionRepository shoppingSessionRepository) {
+    public PricingServiceImpl(ShoppingSessionRepository shoppingSessionRepository, PromotionService promotionService,
+                              TaxService taxService) {
         this.shoppingSessionRepository = shoppingSessionRepository;
+        this.promotionService = promotionService;
+        this.taxService = taxService;
     }
     
     /**
@@ -37,23 +39,25 @@ public class PricingServiceImpl implements PricingService {
      * @return The subtotal
      */
     @Override
-    public BigDecimal calculateSubtotal(List<BasketItem> items) {
-        BigDecimal subtotal = BigDecimal.ZERO;
+    public Money calculateSubtotal(List<BasketItem> items) {
+        long subtotal = 0;
         for (BasketItem item : items) {
-            subtotal = subtotal.add(item.getTotalPrice());
+            subtotal = Math.addExact(subtotal, item.getTotalPrice().getMinorUnits());
         }
-        return subtotal.setScale(2, RoundingMode.HALF_UP);
+        return Money.ofMinor(subtotal);
     }
     
     /**
-     * Calculate the tax for a subtotal.
+     * Calculate the tax for a subtotal at the default rate of the current tax table.
+     * Baskets are taxed per line at the rate of each line's store and category instead.
      * 
      * @param subtotal The subtotal
-     * @return The tax amount
+     * @return The tax amount, rounded half-up to cents
      */
     @Override
-    public BigDecimal calculateTax(BigDecimal subtotal) {
-        return subtotal.multiply(DEFAULT_TAX_RATE).setScale(2, RoundingMode.HALF_UP);
+    public Money calculateTax(Money subtotal) {
+        long tax = subtotal.taxAt(taxService.getTable().getDefaultRateMillionths());
+        return Money.ofMinor(Money.divideHalfUp(tax, Money.RATE_SCALE));
     }
     
     /**
@@ -64,12 +68,14 @@ public class PricingServiceImpl implements PricingService {
      * @return The total
      */
     @Override
-    public BigDecimal calculateTotal(BigDecimal subtotal, BigDecimal tax) {
-        return subtotal.add(tax).setScale(2, RoundingMode.HALF_UP);
+    public Money calculateTotal(Money subtotal, Money tax) {
+        return subtotal.plus(tax);
     }
     
     /**
      * Apply any applicable discounts to a shopping session.
+     * The basket is evaluated in full against the active promotions unless it is already priced with them,
+     * and the discount is taken off the running total.
      * 
      * @param session The shopping session
      * @return The updated shopping session with discounts applied
@@ -77,13 +83,20 @@ public class PricingServiceImpl implements PricingService {
     @Override
     @Transactional
     public ShoppingSession applyDiscounts(ShoppingSession session) {
-        // In a real implementation, this would apply various discount rules
-        // For now, we'll just return the session unchanged
-        return session;
+        synchronized (session) {
+            long version = session.getVersion();
+            session.applyPromotions(promotionService.getIndex());
+            if (session.getVersion() == version) {
+                return session;
+            }
+        }
+        return shoppingSessionRepository.save(session);
     }
     
     /**
-     * Update the running total for a shopping session.
+     * Update the running total for a shopping session, taxing it with the current tax rates.
+     * Every basket change is already posted to the running total, so the lines are not priced again;
+     * they are taxed again only if the rates changed since the session was last taxed.
      * 
      * @param session The shopping session
      * @return The updated shopping session with recalculated running total
@@ -91,12 +104,13 @@ public class PricingServiceImpl implements PricingService {
     @Override
     @Transactional
     public ShoppingSession updateRunningTotal(ShoppingSession session) {
-        // Calculate subtotal
-        BigDecimal subtotal = calculateSubtotal(session.getItems());
-        
-        // Update the running total
-        RunningTotal runningTotal = session.getRunningTotal();
-        runningTotal.setSubtotal(subtotal);
+        synchronized (session) {
+            long version = session.getVersion();
+            session.applyTaxTable(taxService.getTable());
+            if (session.getVersion() == version) {
+                return session;
+            }
+        }
         
         // Save and return the updated session
         return shoppingSessionRepository.save(session);
@@ -0,0 +1,480 @@
+package com.unmannedstore.features.shopping_management.domain.service;
+
+import com.unmannedstore.features.shopping_management.domain.model.ProductSummary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the name, category and description of the products in the catalog.
+ * Each term maps to the products containing it with a weight for the fields it appears in, so a query
+ * only visits the products that match it, never the whole catalog.
+ * <p>
+ * A query matches a product when every query term matches one of the product's terms, either exactly,
+ * as a prefix, or within a small edit distance for typos. Exact matches score highest, then prefix and
+ * then typo matches, each weighted by the field the term was found in and how rare the term is.
+ * Typo matching only considers terms that start with the same letter as the query term, which keeps
+ * the number of terms compared small.
+ * <p>
+ * Products are added, replaced and removed one at a time as the catalog changes. Queries and updates
+ * may run concurrently; updates wait for running queries.
+ */
+public final class ProductSearchIndex {
+
+    static final float NAME_WEIGHT = 3.0f;
+    static final float CATEGORY_WEIGHT = 2.0f;
+    static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    // Score factors for a query term that is a prefix of the matched term, or one or two edits away from it
+    private static final float PREFIX_FACTOR = 0.6f;
+    private static final float[] EDIT_FACTORS = {1.0f, 0.5f, 0.25f};
+
+    // Short query terms expand to too many terms to be useful, so prefix and typo matching start at these lengths
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MIN_ONE_EDIT_LENGTH = 4;
+    private static final int MIN_TWO_EDITS_LENGTH = 8;
+    private static final int MAX_PREFIX_EXPANSIONS = 128;
+
+    private static final ThreadLocal<Scratch> SCRATCH = new ThreadLocal<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> postingsByTerm = new TreeMap<>();
+    private final Map<String, Integer> docsByProductId = new HashMap<>();
+    private ProductSummary[] products = new ProductSummary[1024];
+    private String[][] termsByDoc = new String[1024][];
+    private int[] freeDocs = new int[64];
+    private int freeDocCount;
+    private int docCount;
+
+    /**
+     * Add a product, or replace the product with the same ID.
+     *
+     * @param product The product
+     */
+    public void put(ProductSummary product) {
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, product.getName(), NAME_WEIGHT);
+        addField(weights, product.getCategory(), CATEGORY_WEIGHT);
+        addField(weights, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        lock.writeLock().lock();
+        try {
+            Integer existing = docsByProductId.remove(product.getId());
+            if (existing != null) {
+                removeDoc(existing);
+            }
+            int doc = allocateDoc();
+            products[doc] = product;
+            termsByDoc[doc] = weights.keySet().toArray(new String[0]);
+            for (Map.Entry<String, Float> entry : weights.entrySet()) {
+                postingsByTerm.computeIfAbsent(entry.getKey(), term -> new Postings()).add(doc, entry.getValue());
+            }
+            docsByProductId.put(product.getId(), doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a product.
+     *
+     * @param productId The product ID
+     * @return true if the product was in the index
+     */
+    public boolean remove(String productId) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docsByProductId.remove(productId);
+            if (doc == null) {
+                return false;
+            }
+            removeDoc(doc);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the products matching a query, best match first.
+     *
+     * @param query The query, as free text
+     * @param limit The maximum number of products to return
+     * @return The matching products, by descending score and then by product ID
+     */
+    public List<ProductSummary> search(String query, int limit) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (queryTerms.isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        Scratch scratch = scratch(products.length);
+        try {
+            int liveDocs = docsByProductId.size();
+            for (int i = 0; i < queryTerms.size(); i++) {
+                String queryTerm = queryTerms.get(i);
+                scratch.beginTerm(i);
+                Postings exact = postingsByTerm.get(queryTerm);
+                if (exact != null) {
+                    scratch.collect(exact, idf(exact, liveDocs));
+                }
+                if (queryTerm.length() >= MIN_PREFIX_LENGTH) {
+                    collectPrefixMatches(scratch, queryTerm, liveDocs);
+                }
+                int maxEdits = maxEdits(queryTerm.length());
+                if (maxEdits > 0) {
+                    collectTypoMatches(scratch, queryTerm, maxEdits, liveDocs);
+                }
+                // A product missing any term cannot match, so the remaining terms need not be looked at
+                if (scratch.endTerm() == 0) {
+                    break;
+                }
+            }
+            return topMatches(scratch, queryTerms.size(), limit);
+        } finally {
+            scratch.reset();
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of products in the index.
+     *
+     * @return The number of products
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docsByProductId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of distinct terms in the index.
+     *
+     * @return The number of terms
+     */
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return postingsByTerm.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Split text into lower-case terms at every character that is not a letter or digit.
+     *
+     * @param text The text, or null
+     * @return The terms, in order and with repeats
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean termCharacter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (termCharacter && start < 0) {
+                start = i;
+            } else if (!termCharacter && start >= 0) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Compute the edit distance between two terms, counting insertions, deletions, substitutions and
+     * transpositions of adjacent characters, up to a bound.
+     *
+     * @param a The first term
+     * @param b The second term
+     * @param maxEdits The bound
+     * @param rows Three rows of at least b.length() + 1 elements, overwritten
+     * @return The distance, or maxEdits + 1 if it exceeds the bound
+     */
+    static int editDistance(String a, String b, int maxEdits, int[][] rows) {
+        if (Math.abs(a.length() - b.length()) > maxEdits) {
+            return maxEdits + 1;
+        }
+        int[] previousPrevious = rows[0];
+        int[] previous = rows[1];
+        int[] current = rows[2];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMinimum = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                char cb = b.charAt(j - 1);
+                int cost = ca == cb ? 0 : 1;
+                int distance = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+                    distance = Math.min(distance, previousPrevious[j - 2] + 1);
+                }
+                current[j] = distance;
+                rowMinimum = Math.min(rowMinimum, distance);
+            }
+            if (rowMinimum > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], maxEdits + 1);
+    }
+
+    private void collectPrefixMatches(Scratch scratch, String queryTerm, int liveDocs) {
+        int expansions = 0;
+        for (Map.Entry<String, Postings> entry
+                : postingsByTerm.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false).entrySet()) {
+            Postings postings = entry.getValue();
+            scratch.collect(postings, idf(postings, liveDocs) * PREFIX_FACTOR);
+            if (++expansions == MAX_PREFIX_EXPANSIONS) {
+                return;
+            }
+        }
+    }
+
+    private void collectTypoMatches(Scratch scratch, String queryTerm, int maxEdits, int liveDocs) {
+        char first = queryTerm.charAt(0);
+        String from = String.valueOf(first);
+        String to = String.valueOf((char) (first + 1));
+        int[][] rows = scratch.rows(queryTerm.length() + maxEdits + 1);
+        for (Map.Entry<String, Postings> entry : postingsByTerm.subMap(from, true, to, false).entrySet()) {
+            String term = entry.getKey();
+            // Exact and prefix matches were already collected at a higher score
+            if (Math.abs(term.length() - queryTerm.length()) > maxEdits || term.startsWith(queryTerm)) {
+                continue;
+            }
+            int edits = editDistance(queryTerm, term, maxEdits, rows);
+            if (edits <= maxEdits) {
+                Postings postings = entry.getValue();
+                scratch.collect(postings, idf(postings, liveDocs) * EDIT_FACTORS[edits]);
+            }
+        }
+    }
+
+    private List<ProductSummary> topMatches(Scratch scratch, int queryTermCount, int limit) {
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, (a, b) -> compareMatches(scratch, b, a));
+        for (int i = 0; i < scratch.matchedCount; i++) {
+            int doc = scratch.matched[i];
+            if (scratch.hits[doc] != queryTermCount) {
+                continue;
+            }
+            best.add(doc);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        ProductSummary[] results = new ProductSummary[best.size()];
+        for (int i = results.length - 1; i >= 0; i--) {
+            results[i] = products[best.poll()];
+        }
+        return Arrays.asList(results);
+    }
+
+    private int compareMatches(Scratch scratch, int a, int b) {
+        int byScore = Float.compare(scratch.scores[b], scratch.scores[a]);
+        return byScore != 0 ? byScore : products[a].getId().compareTo(products[b].getId());
+    }
+
+    private int allocateDoc() {
+        if (freeDocCount > 0) {
+            return freeDocs[--freeDocCount];
+        }
+        if (docCount == products.length) {
+            products = Arrays.copyOf(products, products.length * 2);
+            termsByDoc = Arrays.copyOf(termsByDoc, termsByDoc.length * 2);
+        }
+        return docCount++;
+    }
+
+    private void removeDoc(int doc) {
+        for (String term : termsByDoc[doc]) {
+            Postings postings = postingsByTerm.get(term);
+            postings.remove(doc);
+            if (postings.size == 0) {
+                postingsByTerm.remove(term);
+            }
+        }
+        products[doc] = null;
+        termsByDoc[doc] = null;
+        if (freeDocCount == freeDocs.length) {
+            freeDocs = Arrays.copyOf(freeDocs, freeDocs.length * 2);
+        }
+        freeDocs[freeDocCount++] = doc;
+    }
+
+    private static void addField(Map<String, Float> weights, String text, float weight) {
+        Set<String> seen = new HashSet<>();
+        for (String term : tokenize(text)) {
+            if (seen.add(term)) {
+                weights.merge(term, weight, Float::sum);
+            }
+        }
+    }
+
+    private static float idf(Postings postings, int liveDocs) {
+        return (float) Math.log(1.0 + (double) liveDocs / postings.size);
+    }
+
+    private static int maxEdits(int length) {
+        if (length >= MIN_TWO_EDITS_LENGTH) {
+            return 2;
+        }
+        return length >= MIN_ONE_EDIT_LENGTH ? 1 : 0;
+    }
+
+    private static Scratch scratch(int capacity) {
+        Scratch scratch = SCRATCH.get();
+        if (scratch == null || scratch.scores.length < capacity) {
+            scratch = new Scratch(capacity);
+            SCRATCH.set(scratch);
+        }
+        return scratch;
+    }
+
+    /**
+     * The products containing a term and the term's weight in each, in no particular order.
+     */
+    private static final class Postings {
+
+        private int[] docs = new int[4];
+        private float[] weights = new float[4];
+        private int size;
+
+        void add(int doc, float weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+        }
+
+        void remove(int doc) {
+            for (int i = 0; i < size; i++) {
+                if (docs[i] == doc) {
+                    size--;
+                    docs[i] = docs[size];
+                    weights[i] = weights[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Per-thread working arrays of a query, indexed by document and reused across queries, so a
+     * query allocates nothing in proportion to the catalog or to the number of matches.
+     */
+    private static final class Scratch {
+
+        // Sum of the best match of every query term so far, and the number of query terms matched
+        private final float[] scores;
+        private final int[] hits;
+        // Best match of the current query term
+        private final float[] termScores;
+        private final int[] matched;
+        private final int[] termMatched;
+        private int matchedCount;
+        private int termMatchedCount;
+        private int term;
+        private int[][] rows = new int[3][32];
+
+        Scratch(int capacity) {
+            scores = new float[capacity];
+            hits = new int[capacity];
+            termScores = new float[capacity];
+            matched = new int[capacity];
+            termMatched = new int[capacity];
+        }
+
+        void beginTerm(int term) {
+            this.term = term;
+            termMatchedCount = 0;
+        }
+
+        /**
+         * Record a match of the current query term in every product of a posting list. Products that
+         * missed an earlier query term are skipped.
+         */
+        void collect(Postings postings, float factor) {
+            int[] docs = postings.docs;
+            float[] weights = postings.weights;
+            for (int i = 0; i < postings.size; i++) {
+                int doc = docs[i];
+                if (hits[doc] != term) {
+                    continue;
+                }
+                float score = weights[i] * factor;
+                if (termScores[doc] == 0) {
+                    termMatched[termMatchedCount++] = doc;
+                }
+                if (score > termScores[doc]) {
+                    termScores[doc] = score;
+                }
+            }
+        }
+
+        /**
+         * Add the current query term's matches to the running scores.
+         *
+         * @return The number of products that matched the term
+         */
+        int endTerm() {
+            for (int i = 0; i < termMatchedCount; i++) {
+                int doc = termMatched[i];
+                scores[doc] += termScores[doc];
+                hits[doc]++;
+                termScores[doc] = 0;
+                if (term == 0) {
+                    matched[matchedCount++] = doc;
+                }
+            }
+            return termMatchedCount;
+        }
+
+        int[][] rows(int length) {
+            if (rows[0].length < length) {
+                rows = new int[3][length * 2];
+            }
+            return rows;
+        }
+
+        void reset() {
+            for (int i = 0; i < matchedCount; i++) {
+                scores[matched[i]] = 0;
+                hits[matched[i]] = 0;
+            }
+            for (int i = 0; i < termMatchedCount; i++) {
+                termScores[termMatched[i]] = 0;
+            }
+            matchedCount = 0;
+            termMatchedCount = 0;
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package com.unmannedstore.features.shopping_management.domain.service;
 
+import com.unmannedstore.features.shopping_management.domain.model.CatalogSnapshot;
 import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.domain.model.ProductSummary;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Service interface for product-related operations.
@@ -33,6 +38,36 @@ public interface ProductService {
      */
     List<Product> findByCategory(String category);
     
+    /**
+     * Get the number of products in every category that has any.
+     * 
+     * @return The product count per category, ordered by category
+     */
+    Map<String, Integer> getCategoryCounts();
+    
+    /**
+     * Get the published catalog snapshot.
+     * 
+     * @return The snapshot, or empty while the catalog is not loaded yet
+     */
+    Optional<CatalogSnapshot> getPublishedCatalog();
+    
+    /**
+     * Resolve many RFID tags at once, the way reads are resolved when they are scanned.
+     * 
+     * @param rfidTags The RFID tags
+     * @return Every distinct tag in request order, mapped to its product or to null if no product matches
+     */
+    Map<String, Product> resolveRfidTags(Collection<String> rfidTags);
+    
+    /**
+     * Resolve many product IDs at once.
+     * 
+     * @param productIds The product IDs
+     * @return Every distinct ID in request order, mapped to its product or to null if there is none
+     */
+    Map<String, Product> resolveProductIds(Collection<String> productIds);
+    
     /**
      * Save a product.
      * 
@@ -55,4 +90,31 @@ public interface ProductService {
      * @return A list of all products
      */
     List<Product> findAll();
-}
\ No newline at end of file
+    
+    /**
+     * Find one page of products in ID order.
+     * 
+     * @param category The category to list, or null for all categories
+     * @param afterId The ID of the last product of the previous page, or null for the first page
+     * @param limit The maximum number of products to return
+     * @return The products, ordered by ID
+     */
+    List<ProductSummary> findPage(String category, String afterId, int limit);
+    
+    /**
+     * Read every product in ID order, handing each to the consumer as it is read from the database.
+     * 
+     * @param category The category to list, or null for all categories
+     * @param consumer Receives each product
+     */
+    void forEachProduct(String category, Consumer<ProductSummary> consumer);
+    
+    /**
+     * Search the name, category and description of every product, tolerating prefixes and typos.
+     * 
+     * @param query The query, as free text
+     * @param limit The maximum number of products to return
+     * @return The matching products, best match first
+     */
+    List<ProductSummary> search(String query, int limit);
+}
@@ -1,11 +1,27 @@
 package com.unmannedstore.features.shopping_management.domain.service;
 
+import com.unmannedstore.features.shopping_management.domain.model.CatalogSnapshot;
 import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.domain.model.ProductSummary;
+import com.unmannedstore.features.shopping_management.domain.model.Sgtin96;
+import com.unmannedstore.features.shopping_management.domain.repository.ProductListingRepository;
 import com.unmannedstore.features.shopping_management.domain.repository.ProductRepository;
+import com.unmannedstore.features.shopping_management.events.ProductChangedEvent;
+import com.unmannedstore.features.shopping_management.events.ProductPriceChangedEvent;
+import com.unmannedstore.shared.events.EventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Implementation of ProductService.
@@ -14,14 +30,24 @@ import java.util.Optional;
 public class ProductServiceImpl implements ProductService {
     
     private final ProductRepository productRepository;
+    private final ProductListingRepository productListingRepository;
+    private final CatalogIndexService catalogIndexService;
+    private final EventPublisher eventPublisher;
     
     /**
      * Constructor for ProductServiceImpl.
      * 
      * @param productRepository The product repository
+     * @param productListingRepository The repository for paged and streamed catalog listings
+     * @param catalogIndexService The published catalog snapshot and search index
+     * @param eventPublisher The event publisher for catalog changes
      */
-    public ProductServiceImpl(ProductRepository productRepository) {
+    public ProductServiceImpl(ProductRepository productRepository, ProductListingRepository productListingRepository,
+                              CatalogIndexService catalogIndexService, EventPublisher eventPublisher) {
         this.productRepository = productRepository;
+        this.productListingRepository = productListingRepository;
+        this.catalogIndexService = catalogIndexService;
+        this.eventPublisher = eventPublisher;
     }
     
     /**
@@ -50,6 +76,8 @@ public class ProductServiceImpl implements ProductService {
     
     /**
      * Find all products in a specific category.
+     * Answered from the published catalog snapshot; the products are shared and in ID order.
+     * Falls back to a query while the catalog is not loaded yet.
      * 
      * @param category The product category
      * @return A list of products in the specified category
@@ -57,11 +85,104 @@ public class ProductServiceImpl implements ProductService {
     @Override
     @Transactional(readOnly = true)
     public List<Product> findByCategory(String category) {
-        return productRepository.findByCategory(category);
+        if (!catalogIndexService.isBuilt()) {
+            return productRepository.findByCategory(category);
+        }
+        return catalogIndexService.findByCategory(category);
+    }
+    
+    /**
+     * Get the number of products in every category that has any.
+     * Answered from the published catalog snapshot, which is kept current with every product change.
+     * 
+     * @return The product count per category, ordered by category
+     */
+    @Override
+    public Map<String, Integer> getCategoryCounts() {
+        return catalogIndexService.getCategoryCounts();
+    }
+    
+    /**
+     * Get the published catalog snapshot.
+     * 
+     * @return The snapshot, or empty while the catalog is not loaded yet
+     */
+    @Override
+    public Optional<CatalogSnapshot> getPublishedCatalog() {
+        CatalogSnapshot snapshot = catalogIndexService.getSnapshot();
+        return snapshot.getVersion() > 0 ? Optional.of(snapshot) : Optional.empty();
+    }
+    
+    /**
+     * Resolve many RFID tags at once, the way reads are resolved when they are scanned: SGTIN-96 tags by
+     * the GTIN they encode, other tags and EPCs whose GTIN is not in the catalog as they are.
+     * Answered with at most one query per kind, for the tags the catalog snapshot and cache do not hold.
+     * 
+     * @param rfidTags The RFID tags
+     * @return Every distinct tag in request order, mapped to its product or to null if no product matches
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Product> resolveRfidTags(Collection<String> rfidTags) {
+        Map<String, String> gtinsByTag = new HashMap<>();
+        for (String rfidTag : rfidTags) {
+            long gtin = Sgtin96.decodeGtin(rfidTag);
+            if (gtin != Sgtin96.NOT_SGTIN) {
+                gtinsByTag.put(rfidTag, Sgtin96.formatGtin(gtin));
+            }
+        }
+        Map<String, Product> productsByGtin = new HashMap<>();
+        if (!gtinsByTag.isEmpty()) {
+            for (Product product : productRepository.findByGtinIn(new LinkedHashSet<>(gtinsByTag.values()))) {
+                productsByGtin.put(product.getGtin(), product);
+            }
+        }
+        
+        Map<String, Product> resolved = new LinkedHashMap<>();
+        Set<String> plainTags = new LinkedHashSet<>();
+        for (String rfidTag : rfidTags) {
+            String gtin = gtinsByTag.get(rfidTag);
+            Product product = gtin != null ? productsByGtin.get(gtin) : null;
+            resolved.put(rfidTag, product);
+            if (product == null) {
+                plainTags.add(rfidTag);
+            }
+        }
+        if (!plainTags.isEmpty()) {
+            for (Product product : productRepository.findByRfidTagIn(plainTags)) {
+                if (plainTags.contains(product.getRfidTag())) {
+                    resolved.put(product.getRfidTag(), product);
+                }
+            }
+        }
+        return resolved;
+    }
+    
+    /**
+     * Resolve many product IDs at once, with at most one query for the IDs the catalog snapshot and cache do not hold.
+     * 
+     * @param productIds The product IDs
+     * @return Every distinct ID in request order, mapped to its product or to null if there is none
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Product> resolveProductIds(Collection<String> productIds) {
+        Map<String, Product> resolved = new LinkedHashMap<>();
+        for (String productId : productIds) {
+            resolved.put(productId, null);
+        }
+        if (!resolved.isEmpty()) {
+            for (Product product : productRepository.findByIdIn(new ArrayList<>(resolved.keySet()))) {
+                resolved.put(product.getId(), product);
+            }
+        }
+        return resolved;
     }
     
     /**
-     * Save a product.
+     * Save a product and publish the change.
+     * A change of an existing product's price is also published on its own, with the old and the new
+     * price, so active baskets holding the product can be repriced.
      * 
      * @param product The product to save
      * @return The saved product
@@ -69,11 +190,19 @@ public class ProductServiceImpl implements ProductService {
     @Override
     @Transactional
     public Product save(Product product) {
-        return productRepository.save(product);
+        // Read before saving: a managed entity found afterwards would already hold the new price
+        BigDecimal oldPrice = product.getId() == null ? null
+                : productRepository.findById(product.getId()).map(Product::getPrice).orElse(null);
+        Product savedProduct = productRepository.save(product);
+        eventPublisher.publish(new ProductChangedEvent(savedProduct.getId(), savedProduct.getRfidTag(), savedProduct.getGtin(), false));
+        if (oldPrice != null && savedProduct.getPrice() != null && oldPrice.compareTo(savedProduct.getPrice()) != 0) {
+            eventPublisher.publish(new ProductPriceChangedEvent(savedProduct.getId(), oldPrice, savedProduct.getPrice()));
+        }
+        return savedProduct;
     }
     
     /**
-     * Delete a product.
+     * Delete a product and publish the change.
      * 
      * @param id The ID of the product to delete
      * @return true if the product was deleted, false if it was not found
@@ -84,6 +213,7 @@ public class ProductServiceImpl implements ProductService {
         Optional<Product> product = productRepository.findById(id);
         if (product.isPresent()) {
             productRepository.delete(product.get());
+            eventPublisher.publish(new ProductChangedEvent(id, product.get().getRfidTag(), product.get().getGtin(), true));
             return true;
         }
         return false;
@@ -99,4 +229,41 @@ public class ProductServiceImpl implements ProductService {
     public List<Product> findAll() {
         return productRepository.findAll();
     }
-}
\ No newline at end of file
+    
+    /**
+     * Find one page of products in ID order.
+     * 
+     * @param category The category to list, or null for all categories
+     * @param afterId The ID of the last product of the previous page, or null for the first page
+     * @param limit The maximum number of products to return
+     * @return The products, ordered by ID
+     */
+    @Override
+    public List<ProductSummary> findPage(String category, String afterId, int limit) {
+        return productListingRepository.findPage(category, afterId, limit);
+    }
+    
+    /**
+     * Read every product in ID order, handing each to the consumer as it is read from the database.
+     * 
+     * @param category The category to list, or null for all categories
+     * @param consumer Receives each product
+     */
+    @Override
+    public void forEachProduct(String category, Consumer<ProductSummary> consumer) {
+        productListingRepository.forEach(category, consumer);
+    }
+    
+    /**
+     * Search the name, category and description of every product, tolerating prefixes and typos.
+     * Answered from the in-memory search index.
+     * 
+     * @param query The query, as free text
+     * @param limit The maximum number of products to return
+     * @return The matching products, best match first
+     */
+    @Override
+    public List<ProductSummary> search(String query, int limit) {
+        return catalogIndexService.search(query, limit);
+    }
+}
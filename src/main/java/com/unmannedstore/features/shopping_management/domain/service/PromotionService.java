@@ -0,0 +1,112 @@
+package com.unmannedstore.features.shopping_management.domain.service;
+
+import com.unmannedstore.features.shopping_management.domain.model.Promotion;
+import com.unmannedstore.features.shopping_management.domain.model.PromotionIndex;
+import com.unmannedstore.features.shopping_management.domain.repository.PromotionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps the active promotions compiled into a {@link PromotionIndex} that baskets are priced with.
+ * The index is compiled again whenever the promotions change and replaced with one volatile write,
+ * so pricing a scan never waits for a change. Baskets see the new index the next time they change
+ * and are then evaluated against it in full.
+ */
+@Service
+public class PromotionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PromotionService.class);
+
+    private final PromotionRepository promotionRepository;
+    private final Counter compiles;
+
+    private volatile PromotionIndex index = PromotionIndex.EMPTY;
+
+    /**
+     * Constructor for PromotionService.
+     *
+     * @param promotionRepository The repository of the active promotions
+     * @param meterRegistry The meter registry for promotion metrics
+     */
+    public PromotionService(PromotionRepository promotionRepository, MeterRegistry meterRegistry) {
+        this.promotionRepository = promotionRepository;
+        this.compiles = Counter.builder("promotion.index.compiles")
+                .description("Times the active promotions were compiled into a new index")
+                .register(meterRegistry);
+        Gauge.builder("promotion.index.promotions", this, service -> service.index.size())
+                .description("Promotions in the compiled index")
+                .register(meterRegistry);
+        compile();
+    }
+
+    /**
+     * Get the compiled index of the active promotions.
+     *
+     * @return The current index
+     */
+    public PromotionIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Find all active promotions.
+     *
+     * @return The promotions, ordered by ID
+     */
+    public List<Promotion> findAll() {
+        return promotionRepository.findAll();
+    }
+
+    /**
+     * Find a promotion by its ID.
+     *
+     * @param id The promotion ID
+     * @return An Optional containing the promotion if found, or empty if not found
+     */
+    public Optional<Promotion> findById(String id) {
+        return promotionRepository.findById(id);
+    }
+
+    /**
+     * Save promotions, replacing those with the same ID, and compile the index once for all of them.
+     *
+     * @param promotions The promotions to save
+     * @return The version of the compiled index
+     */
+    public synchronized long saveAll(Collection<Promotion> promotions) {
+        promotionRepository.saveAll(promotions);
+        return compile();
+    }
+
+    /**
+     * Delete a promotion and compile the index without it.
+     *
+     * @param id The promotion ID
+     * @return true if the promotion existed
+     */
+    public synchronized boolean delete(String id) {
+        if (!promotionRepository.deleteById(id)) {
+            return false;
+        }
+        compile();
+        return true;
+    }
+
+    private synchronized long compile() {
+        long start = System.nanoTime();
+        PromotionIndex compiled = PromotionIndex.of(index.getVersion() + 1, promotionRepository.findAll());
+        index = compiled;
+        compiles.increment();
+        logger.info("Compiled promotion index version {} with {} promotions in {} ms",
+                compiled.getVersion(), compiled.size(), (System.nanoTime() - start) / 1_000_000);
+        return compiled.getVersion();
+    }
+}
@@ -0,0 +1,115 @@
+package com.unmannedstore.features.shopping_management.domain.service;
+
+import com.unmannedstore.features.shopping_management.domain.model.RunningTotal;
+import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
+import com.unmannedstore.features.shopping_management.domain.repository.ShoppingSessionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Background check of the running totals basket changes are posted to.
+ * A sample of the most recently updated active sessions is priced in full from its lines, and any
+ * difference from the running total is reported as drift, so the request path never has to price
+ * a basket in full to be sure of its total. Drift is reported, not corrected.
+ */
+@Service
+public class RunningTotalVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunningTotalVerifier.class);
+
+    private final ShoppingSessionRepository shoppingSessionRepository;
+    private final int sampleSize;
+
+    private final Counter verifiedSessions;
+    private final Counter driftedSessions;
+    private final DistributionSummary drift;
+
+    /**
+     * Constructor for RunningTotalVerifier.
+     *
+     * @param shoppingSessionRepository The shopping session repository
+     * @param meterRegistry The meter registry for drift metrics
+     * @param sampleSize The maximum number of sessions verified per run
+     */
+    public RunningTotalVerifier(ShoppingSessionRepository shoppingSessionRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.pricing.verify.sample-size:50}") int sampleSize) {
+        this.shoppingSessionRepository = shoppingSessionRepository;
+        this.sampleSize = sampleSize;
+
+        this.verifiedSessions = Counter.builder("pricing.ledger.verified")
+                .description("Active sessions whose running total was checked against a full recompute")
+                .register(meterRegistry);
+        this.driftedSessions = Counter.builder("pricing.ledger.drifted")
+                .description("Active sessions whose running total differed from a full recompute")
+                .register(meterRegistry);
+        this.drift = DistributionSummary.builder("pricing.ledger.drift")
+                .description("Largest difference between a running total and its full recompute")
+                .baseUnit("cents")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Verify the running totals of a sample of the most recently updated active sessions.
+     */
+    @Scheduled(fixedDelayString = "${app.pricing.verify.interval-ms:60000}",
+            initialDelayString = "${app.pricing.verify.interval-ms:60000}")
+    public void verifySampledSessions() {
+        int drifted = verify(shoppingSessionRepository.findRecentlyUpdatedActiveSessions(sampleSize));
+        if (drifted > 0) {
+            logger.warn("{} of up to {} sampled shopping sessions drifted from a full recompute", drifted, sampleSize);
+        }
+    }
+
+    /**
+     * Price sessions in full and compare the result with their running totals.
+     * Sessions whose lines have not been taxed since they were loaded hold their stored total, with
+     * nothing posted to it yet, and are skipped.
+     *
+     * @param sessions The sessions to verify
+     * @return The number of sessions whose running total differed from the full recompute
+     */
+    public int verify(List<ShoppingSession> sessions) {
+        int drifted = 0;
+        for (ShoppingSession session : sessions) {
+            long difference;
+            String posted;
+            RunningTotal recomputed;
+            // The running total is updated in place as changes are posted, so it is compared and
+            // described while no change can be posted to it
+            synchronized (session) {
+                recomputed = session.recomputeRunningTotal();
+                if (recomputed == null) {
+                    continue;
+                }
+                difference = difference(session.getRunningTotal(), recomputed);
+                posted = difference > 0 ? session.getRunningTotal().toString() : null;
+            }
+            verifiedSessions.increment();
+            drift.record(difference);
+            if (difference > 0) {
+                drifted++;
+                driftedSessions.increment();
+                logger.warn("Running total of basket {} drifted: posted {}, recomputed {}",
+                        session.getBasketId(), posted, recomputed);
+            }
+        }
+        return drifted;
+    }
+
+    private static long difference(RunningTotal posted, RunningTotal recomputed) {
+        long subtotal = Math.abs(posted.getSubtotal().getMinorUnits() - recomputed.getSubtotal().getMinorUnits());
+        long discount = Math.abs(posted.getDiscount().getMinorUnits() - recomputed.getDiscount().getMinorUnits());
+        long tax = Math.abs(posted.getTax().getMinorUnits() - recomputed.getTax().getMinorUnits());
+        long total = Math.abs(posted.getTotal().getMinorUnits() - recomputed.getTotal().getMinorUnits());
+        return Math.max(Math.max(subtotal, discount), Math.max(tax, total));
+    }
+}
@@ -0,0 +1,150 @@
+package com.unmannedstore.features.shopping_management.domain.service;
+
+import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
+import com.unmannedstore.features.shopping_management.domain.repository.SessionArchiveRepository;
+import com.unmannedstore.features.shopping_management.domain.repository.ShoppingSessionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Background lifecycle jobs for shopping sessions.
+ * Active sessions that have not changed for the idle timeout are expired, and sessions that finished
+ * longer ago than the retention period are moved to the archive tables in bounded batches, so the live
+ * session tables only hold recent sessions however long the store has been running.
+ */
+@Service
+public class SessionLifecycleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionLifecycleService.class);
+
+    private static final String STATUS_ACTIVE = "ACTIVE";
+
+    private final ShoppingSessionRepository shoppingSessionRepository;
+    private final SessionArchiveRepository sessionArchiveRepository;
+    private final Duration idleTimeout;
+    private final int expiryBatchSize;
+    private final Duration archiveRetention;
+    private final int archiveBatchSize;
+    private final int maxArchiveBatchesPerRun;
+
+    private final Counter expiredSessions;
+    private final Counter archivedSessions;
+
+    /**
+     * Constructor for SessionLifecycleService.
+     *
+     * @param shoppingSessionRepository The shopping session repository
+     * @param sessionArchiveRepository The repository finished sessions are archived through
+     * @param meterRegistry The meter registry for lifecycle metrics
+     * @param idleTimeoutMillis How long an active session may go without changes before it is expired
+     * @param expiryBatchSize The maximum number of sessions expired per run
+     * @param archiveRetentionMillis How long a finished session stays in the live tables
+     * @param archiveBatchSize The maximum number of sessions archived per transaction
+     * @param maxArchiveBatchesPerRun The maximum number of archive transactions per run
+     */
+    public SessionLifecycleService(ShoppingSessionRepository shoppingSessionRepository,
+                                   SessionArchiveRepository sessionArchiveRepository,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.sessions.expiry.idle-timeout-ms:7200000}") long idleTimeoutMillis,
+                                   @Value("${app.sessions.expiry.batch-size:100}") int expiryBatchSize,
+                                   @Value("${app.sessions.archive.retention-ms:86400000}") long archiveRetentionMillis,
+                                   @Value("${app.sessions.archive.batch-size:500}") int archiveBatchSize,
+                                   @Value("${app.sessions.archive.max-batches-per-run:20}") int maxArchiveBatchesPerRun) {
+        this.shoppingSessionRepository = shoppingSessionRepository;
+        this.sessionArchiveRepository = sessionArchiveRepository;
+        this.idleTimeout = Duration.ofMillis(idleTimeoutMillis);
+        this.expiryBatchSize = expiryBatchSize;
+        this.archiveRetention = Duration.ofMillis(archiveRetentionMillis);
+        this.archiveBatchSize = archiveBatchSize;
+        this.maxArchiveBatchesPerRun = maxArchiveBatchesPerRun;
+
+        this.expiredSessions = Counter.builder("sessions.expired")
+                .description("Active shopping sessions expired after being idle")
+                .register(meterRegistry);
+        this.archivedSessions = Counter.builder("sessions.archived")
+                .description("Finished shopping sessions moved to the archive tables")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Expire active sessions that have been idle for longer than the idle timeout.
+     */
+    @Scheduled(fixedDelayString = "${app.sessions.expiry.interval-ms:60000}")
+    public void expireIdleSessions() {
+        int expired = expireIdleSessions(LocalDateTime.now());
+        if (expired > 0) {
+            logger.info("Expired {} idle shopping sessions", expired);
+        }
+    }
+
+    /**
+     * Expire one batch of active sessions that were idle for longer than the idle timeout at the given time.
+     * A session that changed after it was looked up is left active.
+     *
+     * @param now The current time
+     * @return The number of sessions expired
+     */
+    public int expireIdleSessions(LocalDateTime now) {
+        LocalDateTime cutoff = now.minus(idleTimeout);
+        List<ShoppingSession> idleSessions = shoppingSessionRepository.findIdleActiveSessions(cutoff, expiryBatchSize);
+
+        int expired = 0;
+        for (ShoppingSession session : idleSessions) {
+            // The repository returns the instance basket mutations lock, so a scan racing with the expiry
+            // either lands first or not at all
+            synchronized (session) {
+                if (!STATUS_ACTIVE.equals(session.getStatus()) || !session.getLastUpdatedAt().isBefore(cutoff)) {
+                    continue;
+                }
+                session.expire();
+                shoppingSessionRepository.save(session);
+            }
+            expired++;
+        }
+        expiredSessions.increment(expired);
+        return expired;
+    }
+
+    /**
+     * Archive sessions that finished longer ago than the retention period.
+     */
+    @Scheduled(fixedDelayString = "${app.sessions.archive.interval-ms:300000}",
+            initialDelayString = "${app.sessions.archive.interval-ms:300000}")
+    public void archiveFinishedSessions() {
+        int archived = archiveFinishedSessions(LocalDateTime.now());
+        if (archived > 0) {
+            logger.info("Archived {} finished shopping sessions", archived);
+        }
+    }
+
+    /**
+     * Archive sessions that had finished longer ago than the retention period at the given time.
+     * Works in batches of one transaction each and stops after the maximum number of batches per run,
+     * so a large backlog is worked off over several runs without long-running transactions.
+     *
+     * @param now The current time
+     * @return The number of sessions archived
+     */
+    public int archiveFinishedSessions(LocalDateTime now) {
+        LocalDateTime cutoff = now.minus(archiveRetention);
+        int archived = 0;
+        for (int batch = 0; batch < maxArchiveBatchesPerRun; batch++) {
+            int count = sessionArchiveRepository.archiveFinishedSessions(cutoff, archiveBatchSize);
+            archived += count;
+            if (count < archiveBatchSize) {
+                break;
+            }
+        }
+        archivedSessions.increment(archived);
+        return archived;
+    }
+}
@@ -0,0 +1,97 @@
+package com.unmannedstore.features.shopping_management.domain.service;
+
+import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
+import com.unmannedstore.features.shopping_management.domain.repository.ShoppingSessionRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Applies a change to many active sessions at once, such as a new tax table or a new product price.
+ * The sessions are split into batches that are changed in parallel on a pool of threads. Each session is
+ * changed under its monitor, so the change never interleaves with a scan, and saved only if it changed.
+ */
+@Component
+public class SessionRepricer {
+
+    private static final String STATUS_ACTIVE = "ACTIVE";
+
+    private final ShoppingSessionRepository shoppingSessionRepository;
+    private final int batchSize;
+    private final ExecutorService repricers;
+
+    /**
+     * Constructor for SessionRepricer.
+     *
+     * @param shoppingSessionRepository The shopping session repository the changed sessions are saved to
+     * @param threadCount The number of threads repricing sessions, or 0 to use one per available processor
+     * @param batchSize The number of sessions a thread reprices in one task
+     */
+    public SessionRepricer(ShoppingSessionRepository shoppingSessionRepository,
+                           @Value("${app.sessions.reprice.threads:0}") int threadCount,
+                           @Value("${app.sessions.reprice.batch-size:200}") int batchSize) {
+        this.shoppingSessionRepository = shoppingSessionRepository;
+        this.batchSize = Math.max(1, batchSize);
+
+        int threadsToStart = threadCount > 0 ? threadCount : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.repricers = new ThreadPoolExecutor(threadsToStart, threadsToStart, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "session-reprice-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Apply a change to sessions in parallel batches and save those it changed. A session finished
+     * since it was found is skipped. Returns once every session has been changed.
+     *
+     * @param sessions The sessions
+     * @param change The change, applied under the session's monitor; returns whether the session changed
+     * @return The number of sessions that changed
+     */
+    public int reprice(List<ShoppingSession> sessions, Predicate<ShoppingSession> change) {
+        List<CompletableFuture<Integer>> batches = new ArrayList<>();
+        for (int from = 0; from < sessions.size(); from += batchSize) {
+            List<ShoppingSession> batch = sessions.subList(from, Math.min(from + batchSize, sessions.size()));
+            batches.add(CompletableFuture.supplyAsync(() -> repriceBatch(batch, change), repricers));
+        }
+        int repriced = 0;
+        for (CompletableFuture<Integer> batch : batches) {
+            repriced += batch.join();
+        }
+        return repriced;
+    }
+
+    /**
+     * Stop the repricing threads.
+     */
+    @PreDestroy
+    public void shutdown() {
+        repricers.shutdownNow();
+    }
+
+    private int repriceBatch(List<ShoppingSession> sessions, Predicate<ShoppingSession> change) {
+        int repriced = 0;
+        for (ShoppingSession session : sessions) {
+            synchronized (session) {
+                if (STATUS_ACTIVE.equals(session.getStatus()) && change.test(session)) {
+                    shoppingSessionRepository.save(session);
+                    repriced++;
+                }
+            }
+        }
+        return repriced;
+    }
+}
@@ -1,6 +1,8 @@
 package com.unmannedstore.features.shopping_management.domain.service;
 
+import com.unmannedstore.features.shopping_management.domain.model.BasketBatchMutation;
 import com.unmannedstore.features.shopping_management.domain.model.BasketItem;
+import com.unmannedstore.features.shopping_management.domain.model.BasketMutation;
 import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
 import java.util.List;
 import java.util.Optional;
@@ -36,6 +38,14 @@ public interface ShoppingService {
      */
     Optional<ShoppingSession> findSessionByBasketId(String basketId);
     
+    /**
+     * Find the version of a basket's shopping session without loading the session.
+     * 
+     * @param basketId The basket ID
+     * @return An Optional containing the session version if found, or empty if not found
+     */
+    Optional<Long> findSessionVersionByBasketId(String basketId);
+    
     /**
      * Add an item to a shopping session.
      * 
@@ -51,10 +61,11 @@ public interface ShoppingService {
      * 
      * @param sessionId The shopping session ID
      * @param rfidTag The RFID tag of the product
-     * @return The updated shopping session
+     * @return The basket mutation holding the line that was added or incremented, or the unchanged line
+     *         if the tag is a serialized unit that is already in the session
      * @throws IllegalArgumentException if the session or product is not found
      */
-    ShoppingSession addItemToSessionByRfidTag(String sessionId, String rfidTag);
+    BasketMutation addItemToSessionByRfidTag(String sessionId, String rfidTag);
     
     /**
      * Remove an item from a shopping session.
@@ -66,6 +77,52 @@ public interface ShoppingService {
      */
     ShoppingSession removeItemFromSession(String sessionId, String itemId);
     
+    /**
+     * Add an item to the active shopping session of a basket, starting a session if the basket has none.
+     * 
+     * @param storeId The store ID
+     * @param basketId The basket ID
+     * @param productId The product ID
+     * @return The basket mutation holding the line that was added or incremented
+     * @throws IllegalArgumentException if the product is not found
+     */
+    BasketMutation addItemToBasket(String storeId, String basketId, String productId);
+    
+    /**
+     * Add an item to the active shopping session of a basket by RFID tag, starting a session if the basket has none.
+     * 
+     * @param storeId The store ID
+     * @param basketId The basket ID
+     * @param rfidTag The RFID tag of the product
+     * @return The basket mutation holding the line that was added or incremented
+     * @throws IllegalArgumentException if the product is not found
+     */
+    BasketMutation addItemToBasketByRfidTag(String storeId, String basketId, String rfidTag);
+    
+    /**
+     * Add a batch of reads to the active shopping session of a basket, starting a session if the basket has none.
+     * All reads are resolved in one catalog query per kind and applied in one step with one total recalculation.
+     * Reads that do not match a product are reported and skipped.
+     * 
+     * @param storeId The store ID
+     * @param basketId The basket ID
+     * @param rfidTags The RFID tags that were read, one entry per read
+     * @param productIds The product IDs that were read, one entry per read
+     * @return The batch mutation holding the outcome of every read
+     */
+    BasketBatchMutation addItemsToBasket(String storeId, String basketId, List<String> rfidTags, List<String> productIds);
+    
+    /**
+     * Remove an item from the active shopping session of a basket.
+     * 
+     * @param storeId The store ID
+     * @param basketId The basket ID
+     * @param itemId The basket item ID
+     * @return An Optional containing the basket mutation holding the line that was decremented or removed,
+     *         or empty if the basket has no active session or the item is not in it
+     */
+    Optional<BasketMutation> removeItemFromBasket(String storeId, String basketId, String itemId);
+    
     /**
      * Get all items in a shopping session.
      * 
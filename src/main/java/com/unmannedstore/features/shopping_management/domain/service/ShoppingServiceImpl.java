@@ -1,33 +1,55 @@
 package com.unmannedstore.features.shopping_management.domain.service;
 
+import com.unmannedstore.features.shopping_management.domain.model.BasketBatchMutation;
 import com.unmannedstore.features.shopping_management.domain.model.BasketItem;
+import com.unmannedstore.features.shopping_management.domain.model.BasketMutation;
 import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.domain.model.Sgtin96;
 import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
 import com.unmannedstore.features.shopping_management.domain.repository.ProductRepository;
 import com.unmannedstore.features.shopping_management.domain.repository.ShoppingSessionRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Implementation of ShoppingService.
+ * RFID tags that are SGTIN-96 EPCs of a GTIN in the catalog are resolved to that product and added
+ * as serialized units; other tags are looked up as they are.
+ * Every basket is priced with the active promotions and tax rates before it changes, so its running
+ * total carries the discount of the promotions the change touches and the tax of the lines it touches.
  */
 @Service
 public class ShoppingServiceImpl implements ShoppingService {
     
+    // Used for sessions started by a basket scan since we don't have authentication yet
+    private static final String DEFAULT_CUSTOMER_ID = "default-customer";
+    
     private final ShoppingSessionRepository shoppingSessionRepository;
     private final ProductRepository productRepository;
+    private final PromotionService promotionService;
+    private final TaxService taxService;
     
     /**
      * Constructor for ShoppingServiceImpl.
      * 
      * @param shoppingSessionRepository The shopping session repository
      * @param productRepository The product repository
+     * @param promotionService The service holding the compiled promotions baskets are priced with
+     * @param taxService The service holding the tax rates baskets are taxed with
      */
-    public ShoppingServiceImpl(ShoppingSessionRepository shoppingSessionRepository, ProductRepository productRepository) {
+    public ShoppingServiceImpl(ShoppingSessionRepository shoppingSessionRepository, ProductRepository productRepository,
+                               PromotionService promotionService, TaxService taxService) {
         this.shoppingSessionRepository = shoppingSessionRepository;
         this.productRepository = productRepository;
+        this.promotionService = promotionService;
+        this.taxService = taxService;
     }
     
     /**
@@ -48,7 +70,7 @@ public class ShoppingServiceImpl implements ShoppingService {
         }
         
         // Create a new session
-        ShoppingSession session = new ShoppingSession(customerId, storeId, basketId);
+        ShoppingSession session = newSession(customerId, storeId, basketId, existingSession);
         return shoppingSessionRepository.save(session);
     }
     
@@ -76,6 +98,18 @@ public class ShoppingServiceImpl implements ShoppingService {
         return shoppingSessionRepository.findByBasketId(basketId);
     }
     
+    /**
+     * Find the version of a basket's shopping session without loading the session.
+     * 
+     * @param basketId The basket ID
+     * @return An Optional containing the session version if found, or empty if not found
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> findSessionVersionByBasketId(String basketId) {
+        return shoppingSessionRepository.findVersionByBasketId(basketId);
+    }
+    
     /**
      * Add an item to a shopping session.
      * 
@@ -93,7 +127,10 @@ public class ShoppingServiceImpl implements ShoppingService {
         Product product = productRepository.findById(productId)
             .orElseThrow(() -> new IllegalArgumentException("Product not found: " + productId));
         
-        session.addItem(product);
+        synchronized (session) {
+            price(session);
+            session.addItem(product);
+        }
         return shoppingSessionRepository.save(session);
     }
     
@@ -102,20 +139,21 @@ public class ShoppingServiceImpl implements ShoppingService {
      * 
      * @param sessionId The shopping session ID
      * @param rfidTag The RFID tag of the product
-     * @return The updated shopping session
+     * @return The basket mutation holding the line that was added or incremented, or the unchanged line
+     *         if the tag is a serialized unit that is already in the session
      * @throws IllegalArgumentException if the session or product is not found
      */
     @Override
     @Transactional
-    public ShoppingSession addItemToSessionByRfidTag(String sessionId, String rfidTag) {
+    public BasketMutation addItemToSessionByRfidTag(String sessionId, String rfidTag) {
         ShoppingSession session = shoppingSessionRepository.findById(sessionId)
             .orElseThrow(() -> new IllegalArgumentException("Shopping session not found: " + sessionId));
         
-        Product product = productRepository.findByRfidTag(rfidTag)
-            .orElseThrow(() -> new IllegalArgumentException("Product not found with RFID tag: " + rfidTag));
-        
-        session.addItem(product);
-        return shoppingSessionRepository.save(session);
+        Optional<Product> serializedProduct = findProductByGtin(rfidTag);
+        if (serializedProduct.isPresent()) {
+            return addSerializedItem(session, serializedProduct.get(), serialOf(rfidTag));
+        }
+        return addItem(session, findProductByRfidTag(rfidTag));
     }
     
     /**
@@ -132,10 +170,197 @@ public class ShoppingServiceImpl implements ShoppingService {
         ShoppingSession session = shoppingSessionRepository.findById(sessionId)
             .orElseThrow(() -> new IllegalArgumentException("Shopping session not found: " + sessionId));
         
-        session.removeItem(itemId);
+        synchronized (session) {
+            price(session);
+            session.removeItem(itemId);
+        }
         return shoppingSessionRepository.save(session);
     }
     
+    /**
+     * Add an item to the active shopping session of a basket, starting a session if the basket has none.
+     * 
+     * @param storeId The store ID
+     * @param basketId The basket ID
+     * @param productId The product ID
+     * @return The basket mutation holding the line that was added or incremented
+     * @throws IllegalArgumentException if the product is not found
+     */
+    @Override
+    @Transactional
+    public BasketMutation addItemToBasket(String storeId, String basketId, String productId) {
+        Product product = productRepository.findById(productId)
+            .orElseThrow(() -> new IllegalArgumentException("Product not found: " + productId));
+        
+        return addItem(resolveActiveSession(storeId, basketId), product);
+    }
+    
+    /**
+     * Add an item to the active shopping session of a basket by RFID tag, starting a session if the basket has none.
+     * 
+     * @param storeId The store ID
+     * @param basketId The basket ID
+     * @param rfidTag The RFID tag of the product
+     * @return The basket mutation holding the line that was added or incremented, or the unchanged line
+     *         if the tag is a serialized unit that is already in the basket
+     * @throws IllegalArgumentException if the product is not found
+     */
+    @Override
+    @Transactional
+    public BasketMutation addItemToBasketByRfidTag(String storeId, String basketId, String rfidTag) {
+        Optional<Product> serializedProduct = findProductByGtin(rfidTag);
+        if (serializedProduct.isEmpty()) {
+            Product product = findProductByRfidTag(rfidTag);
+            return addItem(resolveActiveSession(storeId, basketId), product);
+        }
+        
+        return addSerializedItem(resolveActiveSession(storeId, basketId), serializedProduct.get(), serialOf(rfidTag));
+    }
+    
+    /**
+     * Add a batch of reads to the active shopping session of a basket, starting a session if the basket has none.
+     * All reads are resolved in one catalog query per kind and applied in one step with one total recalculation.
+     * Reads that do not match a product are reported and skipped, as are reads of serialized units
+     * that are already in the basket.
+     * 
+     * @param storeId The store ID
+     * @param basketId The basket ID
+     * @param rfidTags The RFID tags that were read, one entry per read
+     * @param productIds The product IDs that were read, one entry per read
+     * @return The batch mutation holding the outcome of every read
+     */
+    @Override
+    @Transactional
+    public BasketBatchMutation addItemsToBasket(String storeId, String basketId, List<String> rfidTags, List<String> productIds) {
+        // SGTIN-96 tags are looked up by the GTIN they encode; other tags, and EPCs whose GTIN is not
+        // in the catalog, are looked up as they are
+        Set<String> gtins = new HashSet<>();
+        for (String rfidTag : rfidTags) {
+            long gtin = Sgtin96.decodeGtin(rfidTag);
+            if (gtin != Sgtin96.NOT_SGTIN) {
+                gtins.add(Sgtin96.formatGtin(gtin));
+            }
+        }
+        Map<String, Product> productsByGtin = new HashMap<>();
+        if (!gtins.isEmpty()) {
+            for (Product product : productRepository.findByGtinIn(gtins)) {
+                productsByGtin.put(product.getGtin(), product);
+            }
+        }
+        List<Product> serializedProducts = new ArrayList<>(rfidTags.size());
+        Set<String> plainTags = new HashSet<>();
+        for (String rfidTag : rfidTags) {
+            long gtin = Sgtin96.decodeGtin(rfidTag);
+            Product product = gtin != Sgtin96.NOT_SGTIN ? productsByGtin.get(Sgtin96.formatGtin(gtin)) : null;
+            serializedProducts.add(product);
+            if (product == null) {
+                plainTags.add(rfidTag);
+            }
+        }
+        Map<String, Product> productsByTag = new HashMap<>();
+        if (!plainTags.isEmpty()) {
+            for (Product product : productRepository.findByRfidTagIn(plainTags)) {
+                productsByTag.put(product.getRfidTag(), product);
+            }
+        }
+        Map<String, Product> productsById = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            for (Product product : productRepository.findByIdIn(new HashSet<>(productIds))) {
+                productsById.put(product.getId(), product);
+            }
+        }
+        
+        // Keep request order: tag reads first, then product ID reads
+        List<Product> resolved = new ArrayList<>(rfidTags.size() + productIds.size());
+        List<String> serials = new ArrayList<>(rfidTags.size());
+        for (int i = 0; i < rfidTags.size(); i++) {
+            Product serializedProduct = serializedProducts.get(i);
+            resolved.add(serializedProduct != null ? serializedProduct : productsByTag.get(rfidTags.get(i)));
+            serials.add(serializedProduct != null ? serialOf(rfidTags.get(i)) : null);
+        }
+        for (String productId : productIds) {
+            resolved.add(productsById.get(productId));
+        }
+        List<Product> known = new ArrayList<>(resolved.size());
+        List<String> knownSerials = new ArrayList<>(resolved.size());
+        for (int i = 0; i < resolved.size(); i++) {
+            if (resolved.get(i) != null) {
+                known.add(resolved.get(i));
+                knownSerials.add(i < rfidTags.size() ? serials.get(i) : null);
+            }
+        }
+        
+        ShoppingSession session = resolveActiveSession(storeId, basketId);
+        synchronized (session) {
+            price(session);
+            List<BasketItem> addedItems = session.addItems(known, knownSerials);
+            
+            List<BasketBatchMutation.Outcome> outcomes = new ArrayList<>(resolved.size());
+            int next = 0;
+            int added = 0;
+            for (int i = 0; i < resolved.size(); i++) {
+                boolean isTag = i < rfidTags.size();
+                String rfidTag = isTag ? rfidTags.get(i) : null;
+                String productId = isTag ? null : productIds.get(i - rfidTags.size());
+                if (resolved.get(i) == null) {
+                    outcomes.add(new BasketBatchMutation.Outcome(rfidTag, productId,
+                        isTag ? BasketBatchMutation.OUTCOME_UNKNOWN_TAG : BasketBatchMutation.OUTCOME_UNKNOWN_PRODUCT, null, 0));
+                    continue;
+                }
+                BasketItem item = addedItems.get(next++);
+                if (item == null) {
+                    // A serialized unit that is already in the basket
+                    outcomes.add(new BasketBatchMutation.Outcome(rfidTag, productId,
+                        BasketBatchMutation.OUTCOME_DUPLICATE_READ, null, 0));
+                    continue;
+                }
+                added++;
+                outcomes.add(new BasketBatchMutation.Outcome(rfidTag, productId,
+                    BasketBatchMutation.OUTCOME_ADDED, item, item.getQuantity()));
+            }
+            
+            BasketBatchMutation mutation = new BasketBatchMutation(session, outcomes, added,
+                session.getRunningTotal().getTotal(), session.getItemCount());
+            if (added > 0) {
+                shoppingSessionRepository.save(session);
+            }
+            return mutation;
+        }
+    }
+    
+    /**
+     * Remove an item from the active shopping session of a basket.
+     * 
+     * @param storeId The store ID
+     * @param basketId The basket ID
+     * @param itemId The basket item ID
+     * @return An Optional containing the basket mutation holding the line that was decremented or removed,
+     *         or empty if the basket has no active session or the item is not in it
+     */
+    @Override
+    @Transactional
+    public Optional<BasketMutation> removeItemFromBasket(String storeId, String basketId, String itemId) {
+        Optional<ShoppingSession> sessionOpt = shoppingSessionRepository.findByBasketId(basketId)
+            .filter(session -> "ACTIVE".equals(session.getStatus()));
+        if (sessionOpt.isEmpty()) {
+            return Optional.empty();
+        }
+        
+        ShoppingSession session = sessionOpt.get();
+        BasketMutation mutation;
+        synchronized (session) {
+            BasketItem item = session.findItem(itemId);
+            if (item == null) {
+                return Optional.empty();
+            }
+            price(session);
+            session.removeItem(itemId);
+            mutation = BasketMutation.of(session, item);
+            shoppingSessionRepository.save(session);
+        }
+        return Optional.of(mutation);
+    }
+    
     /**
      * Get all items in a shopping session.
      * 
@@ -209,4 +434,125 @@ public class ShoppingServiceImpl implements ShoppingService {
     public List<ShoppingSession> findSessionsByCustomerId(String customerId) {
         return shoppingSessionRepository.findByCustomerId(customerId);
     }
+    
+    /**
+     * Find the product whose GTIN an RFID tag encodes.
+     * 
+     * @param rfidTag The RFID tag
+     * @return An Optional containing the product, or empty if the tag is not an SGTIN-96 EPC
+     *         or its GTIN is not in the catalog
+     */
+    private Optional<Product> findProductByGtin(String rfidTag) {
+        long gtin = Sgtin96.decodeGtin(rfidTag);
+        if (gtin == Sgtin96.NOT_SGTIN) {
+            return Optional.empty();
+        }
+        return productRepository.findByGtin(Sgtin96.formatGtin(gtin));
+    }
+    
+    /**
+     * Find the product that carries an RFID tag.
+     * 
+     * @param rfidTag The RFID tag
+     * @return The product
+     * @throws IllegalArgumentException if the product is not found
+     */
+    private Product findProductByRfidTag(String rfidTag) {
+        return productRepository.findByRfidTag(rfidTag)
+            .orElseThrow(() -> new IllegalArgumentException("Product not found with RFID tag: " + rfidTag));
+    }
+    
+    /**
+     * Get the serial number of the unit an RFID tag identifies.
+     * 
+     * @param rfidTag The RFID tag
+     * @return The serial number, or null if the tag is not an SGTIN-96 EPC
+     */
+    private static String serialOf(String rfidTag) {
+        long serial = Sgtin96.decodeSerial(rfidTag);
+        return serial == Sgtin96.NOT_SGTIN ? null : Long.toString(serial);
+    }
+    
+    /**
+     * Find the active shopping session of a basket, or start one if the basket has none.
+     * 
+     * @param storeId The store ID
+     * @param basketId The basket ID
+     * @return The active shopping session
+     */
+    private ShoppingSession resolveActiveSession(String storeId, String basketId) {
+        Optional<ShoppingSession> existingSession = shoppingSessionRepository.findByBasketId(basketId);
+        if (existingSession.isPresent() && "ACTIVE".equals(existingSession.get().getStatus())) {
+            return existingSession.get();
+        }
+        
+        return shoppingSessionRepository.save(newSession(DEFAULT_CUSTOMER_ID, storeId, basketId, existingSession));
+    }
+    
+    /**
+     * Create a shopping session for a basket. The version carries on from the basket's previous session,
+     * so a version a basket display already has never matches the new session.
+     * 
+     * @param customerId The customer ID
+     * @param storeId The store ID
+     * @param basketId The basket ID
+     * @param previousSession The basket's previous session, if any
+     * @return The new shopping session
+     */
+    private ShoppingSession newSession(String customerId, String storeId, String basketId, Optional<ShoppingSession> previousSession) {
+        ShoppingSession session = new ShoppingSession(customerId, storeId, basketId);
+        previousSession.ifPresent(previous -> session.setVersion(previous.getVersion() + 1));
+        return session;
+    }
+    
+    /**
+     * Add a product to a shopping session and capture the line that changed.
+     * 
+     * @param session The shopping session
+     * @param product The product
+     * @return The basket mutation
+     */
+    private BasketMutation addItem(ShoppingSession session, Product product) {
+        synchronized (session) {
+            price(session);
+            BasketItem item = session.addItem(product);
+            BasketMutation mutation = BasketMutation.of(session, item);
+            shoppingSessionRepository.save(session);
+            return mutation;
+        }
+    }
+    
+    /**
+     * Add a serialized unit to a shopping session and capture the line that changed.
+     * A unit that is already in the session is left as it is.
+     * 
+     * @param session The shopping session
+     * @param product The product
+     * @param serial The serial number of the unit
+     * @return The basket mutation, or the unchanged line if the unit is already in the session
+     */
+    private BasketMutation addSerializedItem(ShoppingSession session, Product product, String serial) {
+        synchronized (session) {
+            BasketItem existing = session.findItemBySerial(product.getId(), serial);
+            if (existing != null) {
+                return BasketMutation.unchanged(session, existing);
+            }
+            price(session);
+            BasketItem item = session.addSerializedItem(product, serial);
+            BasketMutation mutation = BasketMutation.of(session, item);
+            shoppingSessionRepository.save(session);
+            return mutation;
+        }
+    }
+    
+    /**
+     * Price a basket with the current tax rates and promotions before it changes.
+     * The caller must hold the session's monitor.
+     * 
+     * @param session The shopping session
+     */
+    private void price(ShoppingSession session) {
+        session.applyTaxTable(taxService.getTable());
+        session.applyPromotions(promotionService.getIndex());
+    }
 }
\ No newline at end of file
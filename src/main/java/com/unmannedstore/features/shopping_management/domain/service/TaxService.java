@@ -0,0 +1,124 @@
+package com.unmannedstore.features.shopping_management.domain.service;
+
+import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
+import com.unmannedstore.features.shopping_management.domain.model.TaxRate;
+import com.unmannedstore.features.shopping_management.domain.model.TaxTable;
+import com.unmannedstore.features.shopping_management.domain.repository.ShoppingSessionRepository;
+import com.unmannedstore.features.shopping_management.domain.repository.TaxRateRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the tax rates compiled into a {@link TaxTable} that baskets are taxed with.
+ * The table is compiled again whenever the rates change and replaced with one volatile write, so
+ * taxing a scan never waits for a change. The active sessions of the stores whose rates changed
+ * are then taxed again right away through the {@link SessionRepricer}, so their totals reflect the
+ * new rates without waiting for their next scan.
+ */
+@Service
+public class TaxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaxService.class);
+
+    private final TaxRateRepository taxRateRepository;
+    private final ShoppingSessionRepository shoppingSessionRepository;
+    private final SessionRepricer sessionRepricer;
+    private final Counter compiles;
+    private final Counter repricedSessions;
+    private final Timer repriceTimer;
+
+    private volatile TaxTable table;
+
+    /**
+     * Constructor for TaxService.
+     *
+     * @param taxRateRepository The repository of the tax rates
+     * @param shoppingSessionRepository The shopping session repository
+     * @param sessionRepricer The repricer the affected sessions are taxed again and saved with
+     * @param meterRegistry The meter registry for tax metrics
+     */
+    public TaxService(TaxRateRepository taxRateRepository,
+                      ShoppingSessionRepository shoppingSessionRepository,
+                      SessionRepricer sessionRepricer,
+                      MeterRegistry meterRegistry) {
+        this.taxRateRepository = taxRateRepository;
+        this.shoppingSessionRepository = shoppingSessionRepository;
+        this.sessionRepricer = sessionRepricer;
+
+        this.compiles = Counter.builder("tax.table.compiles")
+                .description("Times the tax rates were compiled into a new table")
+                .register(meterRegistry);
+        this.repricedSessions = Counter.builder("tax.sessions.repriced")
+                .description("Active sessions whose total changed when the tax rates changed")
+                .register(meterRegistry);
+        this.repriceTimer = Timer.builder("tax.reprice.duration")
+                .description("Time taken to tax the affected active sessions again after the rates changed")
+                .register(meterRegistry);
+        this.table = TaxTable.of(1, taxRateRepository.findAll());
+        compiles.increment();
+    }
+
+    /**
+     * Get the compiled table of the tax rates.
+     *
+     * @return The current table
+     */
+    public TaxTable getTable() {
+        return table;
+    }
+
+    /**
+     * Replace all tax rates, compile them into a new table and tax the active sessions of the stores
+     * whose rates changed again. Returns once every affected session is repriced.
+     *
+     * @param rates The new rates
+     * @return The number of active sessions whose total changed
+     */
+    public synchronized int replaceRates(Collection<TaxRate> rates) {
+        TaxTable previous = table;
+        TaxTable compiled = TaxTable.of(previous.getVersion() + 1, rates);
+        taxRateRepository.replaceAll(rates);
+        table = compiled;
+        compiles.increment();
+
+        long start = System.nanoTime();
+        List<ShoppingSession> sessions = findAffectedSessions(compiled.storesChangedFrom(previous));
+        int repriced = sessionRepricer.reprice(sessions, session -> {
+            long version = session.getVersion();
+            session.applyTaxTable(compiled);
+            return session.getVersion() != version;
+        });
+        repriceTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        repricedSessions.increment(repriced);
+        logger.info("Compiled tax table version {} with {} rates; repriced {} of {} active sessions in {} ms",
+                compiled.getVersion(), rates.size(), repriced, sessions.size(), (System.nanoTime() - start) / 1_000_000);
+        return repriced;
+    }
+
+    /**
+     * Find the active sessions taxed by rates that changed.
+     *
+     * @param storeIds The stores whose rates changed, or null if rates of every store changed
+     * @return The active sessions
+     */
+    private List<ShoppingSession> findAffectedSessions(Set<String> storeIds) {
+        if (storeIds == null) {
+            return shoppingSessionRepository.findActiveSessionsByStoreId(null);
+        }
+        List<ShoppingSession> sessions = new ArrayList<>();
+        for (String storeId : storeIds) {
+            sessions.addAll(shoppingSessionRepository.findActiveSessionsByStoreId(storeId));
+        }
+        return sessions;
+    }
+}
@@ -0,0 +1,73 @@
+package com.unmannedstore.features.shopping_management.events;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Event that is published once when a batch of reads adds items to a shopping basket.
+ */
+public class ItemsAddedEvent {
+    
+    private final String basketId;
+    private final List<String> productIds;
+    private final List<String> itemIds;
+    private final int quantityAdded;
+    private final BigDecimal runningTotal;
+    private final LocalDateTime timestamp;
+    
+    /**
+     * Constructor for ItemsAddedEvent.
+     * 
+     * @param basketId The basket ID
+     * @param productIds The IDs of the products that were added, one entry per changed basket line
+     * @param itemIds The IDs of the basket lines that were added or incremented
+     * @param quantityAdded The total number of units added by the batch
+     * @param runningTotal The running total after the batch
+     */
+    public ItemsAddedEvent(String basketId, List<String> productIds, List<String> itemIds, int quantityAdded, BigDecimal runningTotal) {
+        this.basketId = basketId;
+        this.productIds = productIds;
+        this.itemIds = itemIds;
+        this.quantityAdded = quantityAdded;
+        this.runningTotal = runningTotal;
+        this.timestamp = LocalDateTime.now();
+    }
+    
+    // Getters
+    public String getBasketId() {
+        return basketId;
+    }
+    
+    public List<String> getProductIds() {
+        return productIds;
+    }
+    
+    public List<String> getItemIds() {
+        return itemIds;
+    }
+    
+    public int getQuantityAdded() {
+        return quantityAdded;
+    }
+    
+    public BigDecimal getRunningTotal() {
+        return runningTotal;
+    }
+    
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+    
+    @Override
+    public String toString() {
+        return "ItemsAddedEvent{" +
+                "basketId='" + basketId + '\'' +
+                ", productIds=" + productIds +
+                ", itemIds=" + itemIds +
+                ", quantityAdded=" + quantityAdded +
+                ", runningTotal=" + runningTotal +
+                ", timestamp=" + timestamp +
+                '}';
+    }
+}
@@ -0,0 +1,63 @@
+package com.unmannedstore.features.shopping_management.events;
+
+import java.time.LocalDateTime;
+
+/**
+ * Event that is published when a product in the catalog is created, updated or deleted.
+ */
+public class ProductChangedEvent {
+    
+    private final String productId;
+    private final String rfidTag;
+    private final String gtin;
+    private final boolean deleted;
+    private final LocalDateTime timestamp;
+    
+    /**
+     * Constructor for ProductChangedEvent.
+     * 
+     * @param productId The product ID
+     * @param rfidTag The RFID tag of the product after the change, or of the deleted product
+     * @param gtin The GTIN-14 of the product after the change, or of the deleted product, if it has one
+     * @param deleted Whether the product was deleted
+     */
+    public ProductChangedEvent(String productId, String rfidTag, String gtin, boolean deleted) {
+        this.productId = productId;
+        this.rfidTag = rfidTag;
+        this.gtin = gtin;
+        this.deleted = deleted;
+        this.timestamp = LocalDateTime.now();
+    }
+    
+    // Getters
+    public String getProductId() {
+        return productId;
+    }
+    
+    public String getRfidTag() {
+        return rfidTag;
+    }
+    
+    public String getGtin() {
+        return gtin;
+    }
+    
+    public boolean isDeleted() {
+        return deleted;
+    }
+    
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+    
+    @Override
+    public String toString() {
+        return "ProductChangedEvent{" +
+                "productId='" + productId + '\'' +
+                ", rfidTag='" + rfidTag + '\'' +
+                ", gtin='" + gtin + '\'' +
+                ", deleted=" + deleted +
+                ", timestamp=" + timestamp +
+                '}';
+    }
+}
@@ -0,0 +1,56 @@
+package com.unmannedstore.features.shopping_management.events;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Event that is published when the price of a product in the catalog changes.
+ */
+public class ProductPriceChangedEvent {
+    
+    private final String productId;
+    private final BigDecimal oldPrice;
+    private final BigDecimal newPrice;
+    private final LocalDateTime timestamp;
+    
+    /**
+     * Constructor for ProductPriceChangedEvent.
+     * 
+     * @param productId The product ID
+     * @param oldPrice The price before the change
+     * @param newPrice The price after the change
+     */
+    public ProductPriceChangedEvent(String productId, BigDecimal oldPrice, BigDecimal newPrice) {
+        this.productId = productId;
+        this.oldPrice = oldPrice;
+        this.newPrice = newPrice;
+        this.timestamp = LocalDateTime.now();
+    }
+    
+    // Getters
+    public String getProductId() {
+        return productId;
+    }
+    
+    public BigDecimal getOldPrice() {
+        return oldPrice;
+    }
+    
+    public BigDecimal getNewPrice() {
+        return newPrice;
+    }
+    
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+    
+    @Override
+    public String toString() {
+        return "ProductPriceChangedEvent{" +
+                "productId='" + productId + '\'' +
+                ", oldPrice=" + oldPrice +
+                ", newPrice=" + newPrice +
+                ", timestamp=" + timestamp +
+                '}';
+    }
+}
@@ -0,0 +1,293 @@
+package com.unmannedstore.features.shopping_management.handlers;
+
+import com.unmannedstore.features.shopping_management.domain.model.BasketBatchMutation;
+import com.unmannedstore.features.shopping_management.domain.model.BasketMutation;
+import com.unmannedstore.features.shopping_management.handlers.commands.AddBasketItemCommand;
+import com.unmannedstore.features.shopping_management.handlers.commands.AddBasketItemsCommand;
+import com.unmannedstore.features.shopping_management.handlers.commands.RemoveBasketItemCommand;
+import com.unmannedstore.features.shopping_management.handlers.handlers.AddItemHandler;
+import com.unmannedstore.features.shopping_management.handlers.handlers.RemoveItemHandler;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Dispatches basket mutations to the add and remove item handlers through a mailbox per basket.
+ * Mutations for one basket run strictly in submission order, one at a time, while mailboxes of
+ * different baskets are drained in parallel on a bounded pool of carrier threads. This keeps
+ * concurrent RFID reads for the same basket from racing on the session without database row locks.
+ */
+@Component
+public class BasketMutationDispatcher {
+
+    private final AddItemHandler addItemHandler;
+    private final RemoveItemHandler removeItemHandler;
+    private final int mailboxCapacity;
+    private final int drainBatchSize;
+    private final ExecutorService carriers;
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingMutations = new AtomicInteger();
+
+    private final Timer waitTimer;
+    private final Timer mutationTimer;
+    private final DistributionSummary depthSummary;
+
+    /**
+     * Constructor for BasketMutationDispatcher.
+     *
+     * @param addItemHandler The add item handler
+     * @param removeItemHandler The remove item handler
+     * @param meterRegistry The meter registry for mailbox metrics
+     * @param carrierCount The number of carrier threads, or 0 to use one per available processor
+     * @param mailboxCapacity The maximum number of queued mutations per basket
+     * @param drainBatchSize The number of mutations a carrier runs for one basket before yielding to other baskets
+     */
+    public BasketMutationDispatcher(AddItemHandler addItemHandler,
+                                    RemoveItemHandler removeItemHandler,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.baskets.dispatcher.carriers:0}") int carrierCount,
+                                    @Value("${app.baskets.dispatcher.mailbox-capacity:256}") int mailboxCapacity,
+                                    @Value("${app.baskets.dispatcher.drain-batch-size:32}") int drainBatchSize) {
+        this.addItemHandler = addItemHandler;
+        this.removeItemHandler = removeItemHandler;
+        this.mailboxCapacity = mailboxCapacity;
+        this.drainBatchSize = Math.max(1, drainBatchSize);
+
+        int carriersToStart = carrierCount > 0 ? carrierCount : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        // At most one drain task per basket is ever queued, so the work queue is bounded by the number of busy baskets
+        this.carriers = new ThreadPoolExecutor(carriersToStart, carriersToStart, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "basket-mutation-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.waitTimer = Timer.builder("basket.mailbox.wait")
+                .description("Time a basket mutation waits in its mailbox before it runs")
+                .register(meterRegistry);
+        this.mutationTimer = Timer.builder("basket.mutation.duration")
+                .description("Time taken to apply a basket mutation")
+                .register(meterRegistry);
+        this.depthSummary = DistributionSummary.builder("basket.mailbox.depth")
+                .description("Depth of a basket mailbox when a mutation is queued")
+                .register(meterRegistry);
+        Gauge.builder("basket.mailbox.pending", pendingMutations, AtomicInteger::get)
+                .description("Basket mutations queued or running across all mailboxes")
+                .register(meterRegistry);
+        Gauge.builder("basket.mailbox.active", mailboxes, Map::size)
+                .description("Baskets with queued or running mutations")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Add an item to a basket through the basket's mailbox and wait for the result.
+     *
+     * @param command The add item command
+     * @return The basket mutation holding the line that was added or incremented
+     * @throws IllegalArgumentException if the product is not found
+     * @throws RejectedExecutionException if the basket's mailbox is full
+     */
+    public BasketMutation addItem(AddBasketItemCommand command) {
+        return execute(command.getBasketId(), () -> addItemHandler.handle(command));
+    }
+
+    /**
+     * Add a batch of reads to a basket through the basket's mailbox and wait for the result.
+     *
+     * @param command The add items command
+     * @return The batch mutation holding the outcome of every read
+     * @throws RejectedExecutionException if the basket's mailbox is full
+     */
+    public BasketBatchMutation addItems(AddBasketItemsCommand command) {
+        return execute(command.getBasketId(), () -> addItemHandler.handle(command));
+    }
+
+    /**
+     * Remove an item from a basket through the basket's mailbox and wait for the result.
+     *
+     * @param command The remove item command
+     * @return An Optional containing the basket mutation holding the line that was decremented or removed,
+     *         or empty if the basket has no active session or the item is not in it
+     * @throws RejectedExecutionException if the basket's mailbox is full
+     */
+    public Optional<BasketMutation> removeItem(RemoveBasketItemCommand command) {
+        return execute(command.getBasketId(), () -> removeItemHandler.handle(command));
+    }
+
+    /**
+     * Run a mutation in a basket's mailbox and wait for it to complete.
+     *
+     * @param basketId The basket ID
+     * @param mutation The mutation to run
+     * @param <T> The type of the mutation result
+     * @return The mutation result
+     * @throws RejectedExecutionException if the basket's mailbox is full
+     */
+    public <T> T execute(String basketId, Supplier<T> mutation) {
+        try {
+            return submit(basketId, mutation).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Queue a mutation in a basket's mailbox.
+     *
+     * @param basketId The basket ID
+     * @param mutation The mutation to run
+     * @param <T> The type of the mutation result
+     * @return A future completed with the mutation result once it has run
+     */
+    public <T> CompletableFuture<T> submit(String basketId, Supplier<T> mutation) {
+        Task<T> task = new Task<>(mutation);
+        boolean[] schedule = new boolean[1];
+        boolean[] rejected = new boolean[1];
+
+        Mailbox mailbox = mailboxes.compute(basketId, (id, existing) -> {
+            Mailbox box = existing != null ? existing : new Mailbox(id);
+            if (box.depth >= mailboxCapacity) {
+                rejected[0] = true;
+                return existing;
+            }
+            box.tasks.add(task);
+            box.depth++;
+            depthSummary.record(box.depth);
+            if (!box.scheduled) {
+                box.scheduled = true;
+                schedule[0] = true;
+            }
+            return box;
+        });
+
+        if (rejected[0]) {
+            task.future.completeExceptionally(
+                    new RejectedExecutionException("Mutation mailbox is full for basket: " + basketId));
+            return task.future;
+        }
+        pendingMutations.incrementAndGet();
+        if (schedule[0]) {
+            carriers.execute(() -> drain(mailbox));
+        }
+        return task.future;
+    }
+
+    /**
+     * Get the number of mutations queued or running across all mailboxes.
+     *
+     * @return The number of pending mutations
+     */
+    public int getPendingMutationCount() {
+        return pendingMutations.get();
+    }
+
+    /**
+     * Stop the carrier threads. Mutations still queued are not run.
+     */
+    @PreDestroy
+    public void shutdown() {
+        carriers.shutdownNow();
+    }
+
+    /**
+     * Run up to one batch of a mailbox's mutations, then either retire the mailbox or reschedule it
+     * behind the other busy baskets.
+     *
+     * @param mailbox The mailbox to drain
+     */
+    private void drain(Mailbox mailbox) {
+        for (int i = 0; i < drainBatchSize; i++) {
+            Task<?> task = mailbox.tasks.poll();
+            if (task == null) {
+                break;
+            }
+            run(task);
+            mailboxes.computeIfPresent(mailbox.basketId, (id, box) -> {
+                box.depth--;
+                return box;
+            });
+            pendingMutations.decrementAndGet();
+        }
+
+        boolean[] more = new boolean[1];
+        mailboxes.compute(mailbox.basketId, (id, box) -> {
+            if (mailbox.tasks.isEmpty()) {
+                mailbox.scheduled = false;
+                return null;
+            }
+            more[0] = true;
+            return box;
+        });
+        if (more[0]) {
+            carriers.execute(() -> drain(mailbox));
+        }
+    }
+
+    private <T> void run(Task<T> task) {
+        waitTimer.record(System.nanoTime() - task.queuedAt, TimeUnit.NANOSECONDS);
+        long start = System.nanoTime();
+        try {
+            task.future.complete(task.mutation.get());
+        } catch (Throwable e) {
+            task.future.completeExceptionally(e);
+        } finally {
+            mutationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Queued mutations of one basket. The depth and scheduled flag are only changed inside
+     * the mailbox map's compute functions, which serializes them per basket.
+     */
+    private static class Mailbox {
+
+        private final String basketId;
+        private final Queue<Task<?>> tasks = new ConcurrentLinkedQueue<>();
+        private int depth;
+        private boolean scheduled;
+
+        private Mailbox(String basketId) {
+            this.basketId = basketId;
+        }
+    }
+
+    /**
+     * A queued mutation and the future its result is delivered through.
+     */
+    private static class Task<T> {
+
+        private final Supplier<T> mutation;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final long queuedAt = System.nanoTime();
+
+        private Task(Supplier<T> mutation) {
+            this.mutation = mutation;
+        }
+    }
+}
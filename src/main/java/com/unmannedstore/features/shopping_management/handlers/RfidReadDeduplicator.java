@@ -0,0 +1,236 @@
+package com.unmannedstore.features.shopping_management.handlers;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Suppresses repeated reads of the same RFID tag in the same basket.
+ * A tag sitting in a basket is read many times a second; only the first read is accepted and
+ * every read within the suppression window after the latest read of that tag is suppressed.
+ * Once a tag has not been read for a full window it is forgotten and its next read is accepted.
+ * <p>
+ * Seen tags expire through a hashed timer wheel with one slot per tick, so expiry costs one
+ * slot sweep per tick instead of a scheduled task per tag. The number of tracked tags is bounded;
+ * reads that arrive while the table is full are accepted without being tracked.
+ */
+@Component
+public class RfidReadDeduplicator {
+
+    private final boolean enabled;
+    private final long tickMillis;
+    private final int windowTicks;
+    private final int maxEntries;
+
+    private final Map<String, SeenTag> seenTags = new ConcurrentHashMap<>();
+    private final Set<String>[] wheel;
+    private final AtomicInteger trackedCount = new AtomicInteger();
+    private long lastExpiredTick = -1;
+
+    private final Counter acceptedReads;
+    private final Counter suppressedReads;
+    private final Counter untrackedReads;
+
+    /**
+     * Constructor for RfidReadDeduplicator.
+     *
+     * @param meterRegistry The meter registry for read metrics
+     * @param enabled Whether duplicate reads are suppressed
+     * @param windowMillis How long after the latest read of a tag further reads are suppressed
+     * @param tickMillis The resolution of the timer wheel
+     * @param maxEntries The maximum number of tags tracked at once
+     */
+    public RfidReadDeduplicator(MeterRegistry meterRegistry,
+                                @Value("${app.rfid.dedup.enabled:true}") boolean enabled,
+                                @Value("${app.rfid.dedup.window-ms:2000}") long windowMillis,
+                                @Value("${app.rfid.dedup.tick-ms:100}") long tickMillis,
+                                @Value("${app.rfid.dedup.max-entries:100000}") int maxEntries) {
+        this.enabled = enabled;
+        this.tickMillis = Math.max(1, tickMillis);
+        this.windowTicks = (int) Math.max(1, (windowMillis + this.tickMillis - 1) / this.tickMillis);
+        this.maxEntries = maxEntries;
+
+        // One more slot than the window so a tag is never scheduled into the slot being swept
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Set<String>[] slots = new Set[windowTicks + 1];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.wheel = slots;
+
+        this.acceptedReads = Counter.builder("rfid.reads")
+                .tag("result", "accepted")
+                .description("RFID reads passed on to the basket")
+                .register(meterRegistry);
+        this.suppressedReads = Counter.builder("rfid.reads")
+                .tag("result", "suppressed")
+                .description("RFID reads suppressed as duplicates")
+                .register(meterRegistry);
+        this.untrackedReads = Counter.builder("rfid.reads")
+                .tag("result", "untracked")
+                .description("RFID reads accepted without de-duplication because the table was full")
+                .register(meterRegistry);
+        Gauge.builder("rfid.dedup.entries", trackedCount, AtomicInteger::get)
+                .description("RFID tags currently tracked for de-duplication")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record a read of a tag in a basket and decide whether it is a duplicate.
+     *
+     * @param basketId The basket ID
+     * @param rfidTag The RFID tag that was read
+     * @return true if the read should be suppressed, false if it should be applied
+     */
+    public boolean isDuplicate(String basketId, String rfidTag) {
+        return isDuplicate(basketId, rfidTag, System.currentTimeMillis());
+    }
+
+    /**
+     * Record a read of a tag in a basket at the given time and decide whether it is a duplicate.
+     *
+     * @param basketId The basket ID
+     * @param rfidTag The RFID tag that was read
+     * @param nowMillis The time of the read in milliseconds since the epoch
+     * @return true if the read should be suppressed, false if it should be applied
+     */
+    public boolean isDuplicate(String basketId, String rfidTag, long nowMillis) {
+        if (!enabled) {
+            acceptedReads.increment();
+            return false;
+        }
+        long tick = nowMillis / tickMillis;
+        String key = basketId + '|' + rfidTag;
+        boolean[] duplicate = new boolean[1];
+        boolean[] untracked = new boolean[1];
+
+        seenTags.compute(key, (k, seen) -> {
+            if (seen != null) {
+                duplicate[0] = tick - seen.lastReadTick < windowTicks;
+                seen.lastReadTick = Math.max(seen.lastReadTick, tick);
+                return seen;
+            }
+            if (trackedCount.get() >= maxEntries) {
+                untracked[0] = true;
+                return null;
+            }
+            trackedCount.incrementAndGet();
+            wheel[slot(tick + windowTicks)].add(k);
+            return new SeenTag(tick);
+        });
+
+        if (duplicate[0]) {
+            suppressedReads.increment();
+        } else if (untracked[0]) {
+            untrackedReads.increment();
+        } else {
+            acceptedReads.increment();
+        }
+        return duplicate[0];
+    }
+
+    /**
+     * Forget the latest read of a tag in a basket, so its next read is accepted.
+     * Called when an accepted read could not be applied, so that the reader's retry is not
+     * suppressed as a duplicate of a read that never reached the basket.
+     *
+     * @param basketId The basket ID
+     * @param rfidTag The RFID tag that was read
+     */
+    public void forget(String basketId, String rfidTag) {
+        if (!enabled) {
+            return;
+        }
+        // The key stays in its wheel slot until it is swept; the sweep skips keys no longer seen
+        seenTags.computeIfPresent(basketId + '|' + rfidTag, (k, seen) -> {
+            trackedCount.decrementAndGet();
+            return null;
+        });
+    }
+
+    /**
+     * Advance the timer wheel and forget tags whose window has passed.
+     */
+    @Scheduled(fixedRateString = "${app.rfid.dedup.tick-ms:100}")
+    public void expire() {
+        expire(System.currentTimeMillis());
+    }
+
+    /**
+     * Advance the timer wheel to the given time and forget tags whose window has passed.
+     *
+     * @param nowMillis The current time in milliseconds since the epoch
+     */
+    public synchronized void expire(long nowMillis) {
+        long tick = nowMillis / tickMillis;
+        if (lastExpiredTick < 0 || tick - lastExpiredTick > wheel.length) {
+            // First sweep or a long pause: every slot is due
+            lastExpiredTick = tick - wheel.length;
+        }
+        while (lastExpiredTick < tick) {
+            lastExpiredTick++;
+            sweep(wheel[slot(lastExpiredTick)], tick);
+        }
+    }
+
+    /**
+     * Get the number of tags currently tracked.
+     *
+     * @return The number of tracked tags
+     */
+    public int getTrackedCount() {
+        return trackedCount.get();
+    }
+
+    private void sweep(Set<String> slot, long tick) {
+        List<String> rescheduled = new ArrayList<>();
+        Iterator<String> keys = slot.iterator();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            keys.remove();
+            seenTags.computeIfPresent(key, (k, seen) -> {
+                if (seen.lastReadTick + windowTicks <= tick) {
+                    trackedCount.decrementAndGet();
+                    return null;
+                }
+                rescheduled.add(k);
+                return seen;
+            });
+        }
+        // Tags read again since they were scheduled move to the slot of their new expiry
+        for (String key : rescheduled) {
+            seenTags.computeIfPresent(key, (k, seen) -> {
+                wheel[slot(seen.lastReadTick + windowTicks)].add(k);
+                return seen;
+            });
+        }
+    }
+
+    private int slot(long tick) {
+        return (int) Math.floorMod(tick, (long) wheel.length);
+    }
+
+    /**
+     * The latest read of a tag in a basket, in timer wheel ticks.
+     * Only changed inside the seen-tags map's compute functions.
+     */
+    private static class SeenTag {
+
+        private long lastReadTick;
+
+        private SeenTag(long lastReadTick) {
+            this.lastReadTick = lastReadTick;
+        }
+    }
+}
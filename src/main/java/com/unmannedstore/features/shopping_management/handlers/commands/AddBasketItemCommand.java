@@ -0,0 +1,72 @@
+package com.unmannedstore.features.shopping_management.handlers.commands;
+
+/**
+ * Command for adding an item to the active shopping session of a basket.
+ */
+public class AddBasketItemCommand {
+    
+    private final String storeId;
+    private final String basketId;
+    private final String productId;
+    private final String rfidTag;
+    
+    /**
+     * Constructor for AddBasketItemCommand.
+     * 
+     * @param storeId The store ID
+     * @param basketId The basket ID
+     * @param productId The product ID, used when no RFID tag is given
+     * @param rfidTag The RFID tag, or null to add by product ID
+     */
+    public AddBasketItemCommand(String storeId, String basketId, String productId, String rfidTag) {
+        this.storeId = storeId;
+        this.basketId = basketId;
+        this.productId = productId;
+        this.rfidTag = rfidTag;
+    }
+    
+    /**
+     * Get the store ID.
+     * 
+     * @return The store ID
+     */
+    public String getStoreId() {
+        return storeId;
+    }
+    
+    /**
+     * Get the basket ID.
+     * 
+     * @return The basket ID
+     */
+    public String getBasketId() {
+        return basketId;
+    }
+    
+    /**
+     * Get the product ID.
+     * 
+     * @return The product ID
+     */
+    public String getProductId() {
+        return productId;
+    }
+    
+    /**
+     * Get the RFID tag.
+     * 
+     * @return The RFID tag
+     */
+    public String getRfidTag() {
+        return rfidTag;
+    }
+    
+    /**
+     * Check if this command uses RFID tag.
+     * 
+     * @return true if RFID tag is used, false otherwise
+     */
+    public boolean usesRfidTag() {
+        return rfidTag != null && !rfidTag.isEmpty();
+    }
+}
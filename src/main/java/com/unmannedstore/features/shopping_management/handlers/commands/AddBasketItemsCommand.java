@@ -0,0 +1,65 @@
+package com.unmannedstore.features.shopping_management.handlers.commands;
+
+import java.util.List;
+
+/**
+ * Command for adding a batch of reads to the active shopping session of a basket.
+ */
+public class AddBasketItemsCommand {
+    
+    private final String storeId;
+    private final String basketId;
+    private final List<String> rfidTags;
+    private final List<String> productIds;
+    
+    /**
+     * Constructor for AddBasketItemsCommand.
+     * 
+     * @param storeId The store ID
+     * @param basketId The basket ID
+     * @param rfidTags The RFID tags that were read, one entry per read
+     * @param productIds The product IDs that were read, one entry per read
+     */
+    public AddBasketItemsCommand(String storeId, String basketId, List<String> rfidTags, List<String> productIds) {
+        this.storeId = storeId;
+        this.basketId = basketId;
+        this.rfidTags = rfidTags;
+        this.productIds = productIds;
+    }
+    
+    /**
+     * Get the store ID.
+     * 
+     * @return The store ID
+     */
+    public String getStoreId() {
+        return storeId;
+    }
+    
+    /**
+     * Get the basket ID.
+     * 
+     * @return The basket ID
+     */
+    public String getBasketId() {
+        return basketId;
+    }
+    
+    /**
+     * Get the RFID tags.
+     * 
+     * @return The RFID tags
+     */
+    public List<String> getRfidTags() {
+        return rfidTags;
+    }
+    
+    /**
+     * Get the product IDs.
+     * 
+     * @return The product IDs
+     */
+    public List<String> getProductIds() {
+        return productIds;
+    }
+}
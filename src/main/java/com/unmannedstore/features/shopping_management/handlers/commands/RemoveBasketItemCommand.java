@@ -0,0 +1,51 @@
+package com.unmannedstore.features.shopping_management.handlers.commands;
+
+/**
+ * Command for removing an item from the active shopping session of a basket.
+ */
+public class RemoveBasketItemCommand {
+    
+    private final String storeId;
+    private final String basketId;
+    private final String itemId;
+    
+    /**
+     * Constructor for RemoveBasketItemCommand.
+     * 
+     * @param storeId The store ID
+     * @param basketId The basket ID
+     * @param itemId The basket item ID
+     */
+    public RemoveBasketItemCommand(String storeId, String basketId, String itemId) {
+        this.storeId = storeId;
+        this.basketId = basketId;
+        this.itemId = itemId;
+    }
+    
+    /**
+     * Get the store ID.
+     * 
+     * @return The store ID
+     */
+    public String getStoreId() {
+        return storeId;
+    }
+    
+    /**
+     * Get the basket ID.
+     * 
+     * @return The basket ID
+     */
+    public String getBasketId() {
+        return basketId;
+    }
+    
+    /**
+     * Get the basket item ID.
+     * 
+     * @return The basket item ID
+     */
+    public String getItemId() {
+        return itemId;
+    }
+}
@@ -1,13 +1,22 @@
 package com.unmannedstore.features.shopping_management.handlers.handlers;
 
+import com.unmannedstore.features.shopping_management.domain.model.BasketBatchMutation;
 import com.unmannedstore.features.shopping_management.domain.model.BasketItem;
+import com.unmannedstore.features.shopping_management.domain.model.BasketMutation;
 import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
 import com.unmannedstore.features.shopping_management.domain.service.ShoppingService;
 import com.unmannedstore.features.shopping_management.events.ItemAddedEvent;
+import com.unmannedstore.features.shopping_management.events.ItemsAddedEvent;
+import com.unmannedstore.features.shopping_management.handlers.commands.AddBasketItemCommand;
+import com.unmannedstore.features.shopping_management.handlers.commands.AddBasketItemsCommand;
 import com.unmannedstore.features.shopping_management.handlers.commands.AddItemCommand;
 import com.unmannedstore.shared.events.EventPublisher;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Handler for AddItemCommand.
  */
@@ -36,31 +45,109 @@ public class AddItemHandler {
      */
     public ShoppingSession handle(AddItemCommand command) {
         ShoppingSession updatedSession;
+        BasketItem addedItem;
 
-        // Add item by RFID tag or product ID
+        // Add item by RFID tag or product ID, and find the line that was added or incremented
         if (command.usesRfidTag()) {
-            updatedSession = shoppingService.addItemToSessionByRfidTag(
+            BasketMutation mutation = shoppingService.addItemToSessionByRfidTag(
                     command.getSessionId(),
                     command.getRfidTag()
             );
+            updatedSession = mutation.getSession();
+            addedItem = mutation.getItem();
         } else {
             updatedSession = shoppingService.addItemToSession(
                     command.getSessionId(),
                     command.getProductId()
             );
+            addedItem = updatedSession.findItemByProductId(command.getProductId());
         }
 
-        // Get the last added item
-        BasketItem lastAddedItem = updatedSession.getItems().get(updatedSession.getItems().size() - 1);
-
         // Publish event
-        eventPublisher.publish(new ItemAddedEvent(
-                updatedSession.getBasketId(),
-                lastAddedItem.getProduct().getId(),
-                lastAddedItem.getId(),
-                updatedSession.getRunningTotal().getTotal()
-        ));
+        if (addedItem != null) {
+            eventPublisher.publish(new ItemAddedEvent(
+                    updatedSession.getBasketId(),
+                    addedItem.getProduct().getId(),
+                    addedItem.getId(),
+                    updatedSession.getRunningTotal().getTotal().toBigDecimal()
+            ));
+        }
 
         return updatedSession;
     }
+
+    /**
+     * Handle the AddBasketItemCommand.
+     * 
+     * @param command The command to handle
+     * @return The basket mutation holding the line that was added or incremented
+     *         or, for a serialized unit that is already in the basket, the unchanged line
+     */
+    public BasketMutation handle(AddBasketItemCommand command) {
+        BasketMutation mutation;
+
+        // Add item by RFID tag or product ID
+        if (command.usesRfidTag()) {
+            mutation = shoppingService.addItemToBasketByRfidTag(
+                    command.getStoreId(),
+                    command.getBasketId(),
+                    command.getRfidTag()
+            );
+        } else {
+            mutation = shoppingService.addItemToBasket(
+                    command.getStoreId(),
+                    command.getBasketId(),
+                    command.getProductId()
+            );
+        }
+
+        // Publish event, unless the read was of a unit that is already in the basket
+        if (!mutation.isUnchanged()) {
+            eventPublisher.publish(new ItemAddedEvent(
+                    command.getBasketId(),
+                    mutation.getItem().getProduct().getId(),
+                    mutation.getItem().getId(),
+                    mutation.getTotal().toBigDecimal()
+            ));
+        }
+
+        return mutation;
+    }
+
+    /**
+     * Handle the AddBasketItemsCommand.
+     * Publishes one aggregated event for the whole batch.
+     * 
+     * @param command The command to handle
+     * @return The batch mutation holding the outcome of every read
+     */
+    public BasketBatchMutation handle(AddBasketItemsCommand command) {
+        BasketBatchMutation mutation = shoppingService.addItemsToBasket(
+                command.getStoreId(),
+                command.getBasketId(),
+                command.getRfidTags(),
+                command.getProductIds()
+        );
+
+        if (mutation.getAddedCount() > 0) {
+            // One entry per changed basket line
+            Map<String, String> productIdsByItemId = new LinkedHashMap<>();
+            for (BasketBatchMutation.Outcome outcome : mutation.getOutcomes()) {
+                if (outcome.isAdded()) {
+                    productIdsByItemId.putIfAbsent(outcome.getItem().getId(), outcome.getItem().getProduct().getId());
+                }
+            }
+
+            // Publish event
+            eventPublisher.publish(new ItemsAddedEvent(
+                    command.getBasketId(),
+                    new ArrayList<>(productIdsByItemId.values()),
+                    new ArrayList<>(productIdsByItemId.keySet()),
+                    mutation.getAddedCount(),
+                    mutation.getTotal().toBigDecimal()
+            ));
+        }
+
+        return mutation;
+    }
 }
@@ -1,13 +1,17 @@
 package com.unmannedstore.features.shopping_management.handlers.handlers;
 
 import com.unmannedstore.features.shopping_management.domain.model.BasketItem;
+import com.unmannedstore.features.shopping_management.domain.model.BasketMutation;
 import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
 import com.unmannedstore.features.shopping_management.domain.service.ShoppingService;
 import com.unmannedstore.features.shopping_management.events.ItemRemovedEvent;
+import com.unmannedstore.features.shopping_management.handlers.commands.RemoveBasketItemCommand;
 import com.unmannedstore.features.shopping_management.handlers.commands.RemoveItemCommand;
 import com.unmannedstore.shared.events.EventPublisher;
 import org.springframework.stereotype.Component;
 
+import java.util.Optional;
+
 /**
  * Handler for RemoveItemCommand.
  */
@@ -39,17 +43,11 @@ public class RemoveItemHandler {
         ShoppingSession session = shoppingService.findSessionById(command.getSessionId())
                 .orElseThrow(() -> new IllegalArgumentException("Shopping session not found: " + command.getSessionId()));
         
-        String productId = null;
-        for (BasketItem item : session.getItems()) {
-            if (item.getId().equals(command.getItemId())) {
-                productId = item.getProduct().getId();
-                break;
-            }
-        }
-        
-        if (productId == null) {
+        BasketItem item = session.findItem(command.getItemId());
+        if (item == null) {
             throw new IllegalArgumentException("Item not found in session: " + command.getItemId());
         }
+        String productId = item.getProduct().getId();
         
         // Remove the item
         ShoppingSession updatedSession = shoppingService.removeItemFromSession(
@@ -62,9 +60,34 @@ public class RemoveItemHandler {
                 updatedSession.getBasketId(),
                 productId,
                 command.getItemId(),
-                updatedSession.getRunningTotal().getTotal()
+                updatedSession.getRunningTotal().getTotal().toBigDecimal()
         ));
         
         return updatedSession;
     }
+    
+    /**
+     * Handle the RemoveBasketItemCommand.
+     * 
+     * @param command The command to handle
+     * @return An Optional containing the basket mutation holding the line that was decremented or removed,
+     *         or empty if the basket has no active session or the item is not in it
+     */
+    public Optional<BasketMutation> handle(RemoveBasketItemCommand command) {
+        Optional<BasketMutation> mutation = shoppingService.removeItemFromBasket(
+                command.getStoreId(),
+                command.getBasketId(),
+                command.getItemId()
+        );
+        
+        // Publish event
+        mutation.ifPresent(removed -> eventPublisher.publish(new ItemRemovedEvent(
+                command.getBasketId(),
+                removed.getItem().getProduct().getId(),
+                command.getItemId(),
+                removed.getTotal().toBigDecimal()
+        )));
+        
+        return mutation;
+    }
 }
\ No newline at end of file
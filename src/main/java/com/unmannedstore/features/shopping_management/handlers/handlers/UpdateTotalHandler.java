@@ -45,7 +45,7 @@ public class UpdateTotalHandler {
                 .orElseThrow(() -> new IllegalArgumentException("Shopping session not found: " + command.getSessionId()));
         
         // Store the old total for the event
-        BigDecimal oldTotal = session.getRunningTotal().getTotal();
+        BigDecimal oldTotal = session.getRunningTotal().getTotal().toBigDecimal();
         
         // Update the running total
         ShoppingSession updatedSession = pricingService.updateRunningTotal(session);
@@ -54,7 +54,7 @@ public class UpdateTotalHandler {
         eventPublisher.publish(new TotalUpdatedEvent(
                 updatedSession.getBasketId(),
                 oldTotal,
-                updatedSession.getRunningTotal().getTotal(),
+                updatedSession.getRunningTotal().getTotal().toBigDecimal(),
                 updatedSession.getItemCount()
         ));
         
@@ -0,0 +1,13 @@
+package com.unmannedstore.features.shopping_management.infrastructure.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class for the shopping management feature.
+ * Enables the scheduled background jobs of the feature, such as the write-behind session flush.
+ */
+@Configuration
+@EnableScheduling
+public class ShoppingManagementConfig {
+}
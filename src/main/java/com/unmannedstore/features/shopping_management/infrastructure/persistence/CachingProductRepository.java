@@ -0,0 +1,623 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import com.unmannedstore.features.shopping_management.domain.model.CatalogSnapshot;
+import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.domain.repository.CatalogSnapshotRepository;
+import com.unmannedstore.features.shopping_management.domain.repository.ProductRepository;
+import com.unmannedstore.features.shopping_management.events.ProductChangedEvent;
+import com.unmannedstore.shared.events.EventPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Caching implementation of ProductRepository.
+ * Lookups are answered from the published {@link CatalogSnapshot} first, which needs no lock and
+ * returns products stamped with the catalog version they were published in. Products the snapshot
+ * does not hold, such as those saved since it was published, fall back to the caches below.
+ * <p>
+ * Products looked up by ID, RFID tag or GTIN are kept in memory, so the catalog lookups on the scan path
+ * are answered without a database round trip once a product has been seen. Lookups that found no
+ * product are cached as well, so repeated reads of foreign tags do not reach the database either.
+ * <p>
+ * When an {@link RfidTagIndex} is loaded, tags are first resolved to product IDs through it, so a catalog
+ * with millions of tags only needs its products on the heap. Index hits allocate nothing, since
+ * cache entries are held as the Optional that is returned. Tags the index does not know fall back to
+ * the RFID tag cache.
+ * <p>
+ * Both caches are bounded and evict the least recently used entries. Entries are invalidated when
+ * a product is saved or deleted through this repository, and again when a {@link ProductChangedEvent}
+ * is published once the change has been committed. Saves and deletes publish that event themselves,
+ * so changes written straight to the repository also reach the published snapshot. Cached products are shared between callers and
+ * must not be modified; changes are made on a new instance and saved.
+ */
+@Repository
+@Primary
+@ConditionalOnProperty(name = "app.products.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CachingProductRepository implements ProductRepository {
+
+    // Cached for lookups that found no product
+    private static final Optional<Product> NO_PRODUCT = Optional.empty();
+
+    // Typed as the domain interface, which is all the cache needs of the JPA repository
+    private final ProductRepository jpaRepository;
+    private final CatalogSnapshotRepository catalogSnapshotRepository;
+    private final RfidTagIndex rfidTagIndex;
+    private final EventPublisher eventPublisher;
+    private final int maxEntries;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Optional<Product>> productsById;
+    // Tag and GTIN entries are only valid while the product they point to is still the one cached under its ID
+    private final Map<String, Optional<Product>> productsByRfidTag;
+    private final Map<String, Optional<Product>> productsByGtin;
+    // Incremented on every invalidation, so loads that raced with a change are not cached
+    private long generation;
+
+    private final Counter idHits;
+    private final Counter idMisses;
+    private final Counter rfidTagHits;
+    private final Counter rfidTagMisses;
+    private final Counter gtinHits;
+    private final Counter gtinMisses;
+    private final Counter evictions;
+    private final Counter rfidIndexHits;
+    private final Counter rfidIndexMisses;
+    private final Counter snapshotHits;
+    private final Counter snapshotMisses;
+
+    /**
+     * Constructor for CachingProductRepository.
+     *
+     * @param jpaRepository The JPA repository that products are loaded from and saved to
+     * @param catalogSnapshotRepository The repository of the published catalog snapshot, consulted first
+     * @param rfidTagIndex The RFID tag index consulted before the RFID tag cache
+     * @param eventPublisher The event publisher for saved and deleted products
+     * @param meterRegistry The meter registry for cache metrics
+     * @param maxEntries The maximum number of entries in each of the ID, RFID tag and GTIN indexes
+     */
+    public CachingProductRepository(JpaProductRepository jpaRepository,
+                                    CatalogSnapshotRepository catalogSnapshotRepository,
+                                    RfidTagIndex rfidTagIndex,
+                                    EventPublisher eventPublisher,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.products.cache.max-entries:10000}") int maxEntries) {
+        this.jpaRepository = jpaRepository;
+        this.catalogSnapshotRepository = catalogSnapshotRepository;
+        this.rfidTagIndex = rfidTagIndex;
+        this.eventPublisher = eventPublisher;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.productsById = newIndex();
+        this.productsByRfidTag = newIndex();
+        this.productsByGtin = newIndex();
+
+        this.idHits = cacheGets(meterRegistry, "id", "hit");
+        this.idMisses = cacheGets(meterRegistry, "id", "miss");
+        this.rfidTagHits = cacheGets(meterRegistry, "rfid_tag", "hit");
+        this.rfidTagMisses = cacheGets(meterRegistry, "rfid_tag", "miss");
+        this.gtinHits = cacheGets(meterRegistry, "gtin", "hit");
+        this.gtinMisses = cacheGets(meterRegistry, "gtin", "miss");
+        this.evictions = Counter.builder("product.cache.evictions")
+                .description("Product cache entries evicted to stay within the size limit")
+                .register(meterRegistry);
+        this.rfidIndexHits = Counter.builder("product.rfid_index.lookups")
+                .tag("result", "hit")
+                .description("RFID tag lookups answered through the RFID tag index")
+                .register(meterRegistry);
+        this.rfidIndexMisses = Counter.builder("product.rfid_index.lookups")
+                .tag("result", "miss")
+                .description("RFID tag lookups the RFID tag index did not answer, including stale entries")
+                .register(meterRegistry);
+        this.snapshotHits = Counter.builder("product.snapshot.lookups")
+                .tag("result", "hit")
+                .description("Product lookups answered from the published catalog snapshot")
+                .register(meterRegistry);
+        this.snapshotMisses = Counter.builder("product.snapshot.lookups")
+                .tag("result", "miss")
+                .description("Product lookups the published catalog snapshot did not answer")
+                .register(meterRegistry);
+        Gauge.builder("product.cache.size", this, CachingProductRepository::size)
+                .description("Entries in the product cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Find a product by its ID, loading it from the database if it is not cached.
+     *
+     * @param id The product ID
+     * @return An Optional containing the product if found, or empty if not found
+     */
+    @Override
+    public Optional<Product> findById(String id) {
+        Product published = catalogSnapshotRepository.current().findById(id);
+        if (published != null) {
+            snapshotHits.increment();
+            return Optional.of(published);
+        }
+        snapshotMisses.increment();
+        return findByIdInCache(id);
+    }
+
+    private Optional<Product> findByIdInCache(String id) {
+        long loadGeneration;
+        lock.lock();
+        try {
+            Optional<Product> cached = productsById.get(id);
+            if (cached != null) {
+                idHits.increment();
+                return cached;
+            }
+            loadGeneration = generation;
+        } finally {
+            lock.unlock();
+        }
+
+        idMisses.increment();
+        Optional<Product> product = jpaRepository.findById(id);
+        lock.lock();
+        try {
+            if (loadGeneration == generation) {
+                cacheById(id, product);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return product;
+    }
+
+    /**
+     * Find a product by its RFID tag, through the RFID tag index if it knows the tag,
+     * loading it from the database if it is not cached.
+     *
+     * @param rfidTag The RFID tag
+     * @return An Optional containing the product if found, or empty if not found
+     */
+    @Override
+    public Optional<Product> findByRfidTag(String rfidTag) {
+        Product published = catalogSnapshotRepository.current().findByRfidTag(rfidTag);
+        if (published != null) {
+            snapshotHits.increment();
+            return Optional.of(published);
+        }
+        snapshotMisses.increment();
+        if (rfidTagIndex.isLoaded()) {
+            String indexedProductId = rfidTagIndex.findProductId(rfidTag);
+            if (indexedProductId != null) {
+                Optional<Product> product = findByIdInCache(indexedProductId);
+                if (product.isPresent() && rfidTag.equals(product.get().getRfidTag())) {
+                    rfidIndexHits.increment();
+                    return product;
+                }
+            }
+            rfidIndexMisses.increment();
+        }
+        return findByKey(rfidTag, productsByRfidTag, jpaRepository::findByRfidTag, rfidTagHits, rfidTagMisses);
+    }
+
+    /**
+     * Find a product by its GTIN-14, loading it from the database if it is not cached.
+     *
+     * @param gtin The GTIN-14
+     * @return An Optional containing the product if found, or empty if not found
+     */
+    @Override
+    public Optional<Product> findByGtin(String gtin) {
+        Product published = catalogSnapshotRepository.current().findByGtin(gtin);
+        if (published != null) {
+            snapshotHits.increment();
+            return Optional.of(published);
+        }
+        snapshotMisses.increment();
+        return findByKey(gtin, productsByGtin, jpaRepository::findByGtin, gtinHits, gtinMisses);
+    }
+
+    private Optional<Product> findByKey(String key, Map<String, Optional<Product>> index,
+                                        Function<String, Optional<Product>> loader, Counter hits, Counter misses) {
+        long loadGeneration;
+        lock.lock();
+        try {
+            Optional<Product> cached = cachedByKey(index, key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            loadGeneration = generation;
+        } finally {
+            lock.unlock();
+        }
+
+        misses.increment();
+        Optional<Product> product = loader.apply(key);
+        lock.lock();
+        try {
+            if (loadGeneration == generation) {
+                cacheByKey(index, key, product);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return product;
+    }
+
+    /**
+     * Find the products with any of the given IDs, loading the ones that are not cached in a single query.
+     *
+     * @param ids The product IDs
+     * @return The products that were found, in no particular order
+     */
+    @Override
+    public List<Product> findByIdIn(Collection<String> ids) {
+        List<Product> found = new ArrayList<>(ids.size());
+        List<String> unpublished = findPublished(ids, CatalogSnapshot::findById, found);
+        if (!unpublished.isEmpty()) {
+            found.addAll(findByIdInCache(unpublished));
+        }
+        return found;
+    }
+
+    private List<Product> findByIdInCache(Collection<String> ids) {
+        List<Product> found = new ArrayList<>(ids.size());
+        Set<String> missing = new LinkedHashSet<>();
+        long loadGeneration;
+        lock.lock();
+        try {
+            for (String id : ids) {
+                Optional<Product> cached = productsById.get(id);
+                if (cached == null) {
+                    missing.add(id);
+                } else {
+                    cached.ifPresent(found::add);
+                }
+            }
+            loadGeneration = generation;
+        } finally {
+            lock.unlock();
+        }
+        idHits.increment(ids.size() - missing.size());
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        idMisses.increment(missing.size());
+        List<Product> loaded = jpaRepository.findByIdIn(missing);
+        found.addAll(loaded);
+        lock.lock();
+        try {
+            if (loadGeneration == generation) {
+                Set<String> loadedKeys = new HashSet<>();
+                for (Product product : loaded) {
+                    loadedKeys.add(product.getId());
+                    cacheById(product.getId(), Optional.of(product));
+                }
+                for (String id : missing) {
+                    if (!loadedKeys.contains(id)) {
+                        cacheById(id, NO_PRODUCT);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return found;
+    }
+
+    /**
+     * Find the products with any of the given RFID tags. Tags in the RFID tag index are resolved through
+     * their product IDs; the rest are loaded in a single query if they are not cached.
+     *
+     * @param rfidTags The RFID tags
+     * @return The products that were found, in no particular order
+     */
+    @Override
+    public List<Product> findByRfidTagIn(Collection<String> rfidTags) {
+        List<Product> found = new ArrayList<>(rfidTags.size());
+        List<String> unpublished = findPublished(rfidTags, CatalogSnapshot::findByRfidTag, found);
+        if (!unpublished.isEmpty()) {
+            found.addAll(findByRfidTagInCache(unpublished));
+        }
+        return found;
+    }
+
+    private List<Product> findByRfidTagInCache(Collection<String> rfidTags) {
+        if (!rfidTagIndex.isLoaded()) {
+            return findByKeysInCache(rfidTags, productsByRfidTag, jpaRepository::findByRfidTagIn, Product::getRfidTag,
+                    rfidTagHits, rfidTagMisses);
+        }
+
+        Map<String, List<String>> indexedTagsByProductId = new HashMap<>();
+        List<String> remaining = new ArrayList<>();
+        for (String rfidTag : rfidTags) {
+            String productId = rfidTagIndex.findProductId(rfidTag);
+            if (productId == null) {
+                remaining.add(rfidTag);
+            } else {
+                indexedTagsByProductId.computeIfAbsent(productId, id -> new ArrayList<>()).add(rfidTag);
+            }
+        }
+
+        List<Product> found = new ArrayList<>(rfidTags.size());
+        for (Product product : findByIdInCache(indexedTagsByProductId.keySet())) {
+            for (String rfidTag : indexedTagsByProductId.remove(product.getId())) {
+                if (rfidTag.equals(product.getRfidTag())) {
+                    found.add(product);
+                } else {
+                    remaining.add(rfidTag);
+                }
+            }
+        }
+        // Tags of products that no longer exist
+        indexedTagsByProductId.values().forEach(remaining::addAll);
+        rfidIndexHits.increment(found.size());
+        rfidIndexMisses.increment(remaining.size());
+
+        if (!remaining.isEmpty()) {
+            found.addAll(findByKeysInCache(remaining, productsByRfidTag, jpaRepository::findByRfidTagIn, Product::getRfidTag,
+                    rfidTagHits, rfidTagMisses));
+        }
+        return found;
+    }
+
+    /**
+     * Find the products with any of the given GTIN-14s, loading the ones that are not cached in a single query.
+     *
+     * @param gtins The GTIN-14s
+     * @return The products that were found, in no particular order
+     */
+    @Override
+    public List<Product> findByGtinIn(Collection<String> gtins) {
+        List<Product> found = new ArrayList<>(gtins.size());
+        List<String> unpublished = findPublished(gtins, CatalogSnapshot::findByGtin, found);
+        if (!unpublished.isEmpty()) {
+            found.addAll(findByKeysInCache(unpublished, productsByGtin, jpaRepository::findByGtinIn, Product::getGtin,
+                    gtinHits, gtinMisses));
+        }
+        return found;
+    }
+
+    private List<String> findPublished(Collection<String> keys, BiFunction<CatalogSnapshot, String, Product> lookup,
+                                       List<Product> found) {
+        // Read once, so the whole batch is answered from the same version
+        CatalogSnapshot snapshot = catalogSnapshotRepository.current();
+        List<String> unpublished = new ArrayList<>();
+        for (String key : keys) {
+            Product published = lookup.apply(snapshot, key);
+            if (published == null) {
+                unpublished.add(key);
+            } else {
+                found.add(published);
+            }
+        }
+        snapshotHits.increment(keys.size() - unpublished.size());
+        snapshotMisses.increment(unpublished.size());
+        return unpublished;
+    }
+
+    private List<Product> findByKeysInCache(Collection<String> keys, Map<String, Optional<Product>> index,
+                                            Function<Collection<String>, List<Product>> loader,
+                                            Function<Product, String> keyOf, Counter hits, Counter misses) {
+        List<Product> found = new ArrayList<>(keys.size());
+        Set<String> missing = new LinkedHashSet<>();
+        long loadGeneration;
+        lock.lock();
+        try {
+            for (String key : keys) {
+                Optional<Product> cached = cachedByKey(index, key);
+                if (cached == null) {
+                    missing.add(key);
+                } else {
+                    cached.ifPresent(found::add);
+                }
+            }
+            loadGeneration = generation;
+        } finally {
+            lock.unlock();
+        }
+        hits.increment(keys.size() - missing.size());
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        misses.increment(missing.size());
+        List<Product> loaded = loader.apply(missing);
+        found.addAll(loaded);
+        lock.lock();
+        try {
+            if (loadGeneration == generation) {
+                Set<String> loadedKeys = new HashSet<>();
+                for (Product product : loaded) {
+                    String key = keyOf.apply(product);
+                    loadedKeys.add(key);
+                    cacheByKey(index, key, Optional.of(product));
+                }
+                for (String key : missing) {
+                    if (!loadedKeys.contains(key)) {
+                        cacheByKey(index, key, NO_PRODUCT);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return found;
+    }
+
+    /**
+     * Find all products in a specific category. Not cached.
+     *
+     * @param category The product category
+     * @return A list of products in the specified category
+     */
+    @Override
+    public List<Product> findByCategory(String category) {
+        return jpaRepository.findByCategory(category);
+    }
+
+    /**
+     * Save a product, invalidate its cache entries and publish the change.
+     *
+     * @param product The product to save
+     * @return The saved product
+     */
+    @Override
+    public Product save(Product product) {
+        Product saved = jpaRepository.save(product);
+        invalidate(saved.getId(), saved.getRfidTag(), saved.getGtin());
+        eventPublisher.publish(new ProductChangedEvent(saved.getId(), saved.getRfidTag(), saved.getGtin(), false));
+        return saved;
+    }
+
+    /**
+     * Delete a product, invalidate its cache entries and publish the change.
+     *
+     * @param product The product to delete
+     */
+    @Override
+    public void delete(Product product) {
+        jpaRepository.delete(product);
+        invalidate(product.getId(), product.getRfidTag(), product.getGtin());
+        eventPublisher.publish(new ProductChangedEvent(product.getId(), product.getRfidTag(), product.getGtin(), true));
+    }
+
+    /**
+     * Find all products. Not cached.
+     *
+     * @return A list of all products
+     */
+    @Override
+    public List<Product> findAll() {
+        return jpaRepository.findAll();
+    }
+
+    /**
+     * Invalidate the cache entries of a changed product once the change is committed.
+     * Lookups that ran while the change was in flight may have cached the old state.
+     *
+     * @param event The event, with no product ID if the whole catalog may have changed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getProductId() == null) {
+            invalidateAll();
+        } else {
+            invalidate(event.getProductId(), event.getRfidTag(), event.getGtin());
+        }
+    }
+
+    /**
+     * Remove the entries for a product ID, an RFID tag and a GTIN. The entries of the product's previous
+     * tag and GTIN, if it had them, are left behind but are no longer valid once its ID entry is gone.
+     *
+     * @param productId The product ID
+     * @param rfidTag The RFID tag, or null
+     * @param gtin The GTIN-14, or null
+     */
+    public void invalidate(String productId, String rfidTag, String gtin) {
+        lock.lock();
+        try {
+            generation++;
+            productsById.remove(productId);
+            if (rfidTag != null) {
+                productsByRfidTag.remove(rfidTag);
+            }
+            if (gtin != null) {
+                productsByGtin.remove(gtin);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            generation++;
+            productsById.clear();
+            productsByRfidTag.clear();
+            productsByGtin.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of entries in the cache.
+     *
+     * @return The number of ID, RFID tag and GTIN entries
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return productsById.size() + productsByRfidTag.size() + productsByGtin.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Optional<Product> cachedByKey(Map<String, Optional<Product>> index, String key) {
+        Optional<Product> cached = index.get(key);
+        if (cached == null || cached.isEmpty()) {
+            return cached;
+        }
+        // Only valid if the product has not been changed or evicted since
+        return productsById.get(cached.get().getId()) == cached ? cached : null;
+    }
+
+    private void cacheById(String id, Optional<Product> product) {
+        Optional<Product> cached = productsById.get(id);
+        if (cached == null || cached.isEmpty() || product.isEmpty()) {
+            productsById.put(id, product);
+        }
+    }
+
+    private void cacheByKey(Map<String, Optional<Product>> index, String key, Optional<Product> product) {
+        if (product.isPresent()) {
+            // Share the entry cached under the ID, so the tag or GTIN entry stays valid
+            String id = product.get().getId();
+            cacheById(id, product);
+            product = productsById.get(id);
+        }
+        index.put(key, product);
+    }
+
+    private Map<String, Optional<Product>> newIndex() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Optional<Product>> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private static Counter cacheGets(MeterRegistry meterRegistry, String index, String result) {
+        return Counter.builder("product.cache.gets")
+                .tag("index", index)
+                .tag("result", result)
+                .description("Product cache lookups")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,56 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import com.unmannedstore.features.shopping_management.domain.model.CatalogSnapshot;
+import com.unmannedstore.features.shopping_management.domain.repository.CatalogSnapshotRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Repository;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory implementation of CatalogSnapshotRepository.
+ * The published snapshot is a single atomic reference: readers get it with one volatile read and
+ * a publish is one compare-and-set, so readers never wait for writers or each other.
+ */
+@Repository
+public class InMemoryCatalogSnapshotRepository implements CatalogSnapshotRepository {
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>(CatalogSnapshot.EMPTY);
+
+    /**
+     * Constructor for InMemoryCatalogSnapshotRepository.
+     *
+     * @param meterRegistry The meter registry for snapshot metrics
+     */
+    public InMemoryCatalogSnapshotRepository(MeterRegistry meterRegistry) {
+        Gauge.builder("catalog.snapshot.version", snapshot, reference -> reference.get().getVersion())
+                .description("Version of the published catalog snapshot")
+                .register(meterRegistry);
+        Gauge.builder("catalog.snapshot.products", snapshot, reference -> reference.get().size())
+                .description("Products in the published catalog snapshot")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get the snapshot that is published now.
+     *
+     * @return The current snapshot
+     */
+    @Override
+    public CatalogSnapshot current() {
+        return snapshot.get();
+    }
+
+    /**
+     * Publish a new snapshot in place of the one it was built from.
+     *
+     * @param expected The snapshot the new one was built from
+     * @param next The new snapshot
+     * @return true if it was published
+     */
+    @Override
+    public boolean publish(CatalogSnapshot expected, CatalogSnapshot next) {
+        return snapshot.compareAndSet(expected, next);
+    }
+}
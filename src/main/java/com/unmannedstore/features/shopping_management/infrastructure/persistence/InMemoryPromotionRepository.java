@@ -0,0 +1,65 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import com.unmannedstore.features.shopping_management.domain.model.Promotion;
+import com.unmannedstore.features.shopping_management.domain.repository.PromotionRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory implementation of PromotionRepository.
+ * Promotions are immutable, so they are stored as they are and handed out without copying.
+ */
+@Repository
+public class InMemoryPromotionRepository implements PromotionRepository {
+
+    private final ConcurrentSkipListMap<String, Promotion> promotions = new ConcurrentSkipListMap<>();
+
+    /**
+     * Find all active promotions.
+     *
+     * @return The promotions, ordered by ID
+     */
+    @Override
+    public List<Promotion> findAll() {
+        return new ArrayList<>(promotions.values());
+    }
+
+    /**
+     * Find a promotion by its ID.
+     *
+     * @param id The promotion ID
+     * @return An Optional containing the promotion if found, or empty if not found
+     */
+    @Override
+    public Optional<Promotion> findById(String id) {
+        return Optional.ofNullable(promotions.get(id));
+    }
+
+    /**
+     * Save promotions, replacing those with the same ID.
+     *
+     * @param promotions The promotions to save
+     */
+    @Override
+    public void saveAll(Collection<Promotion> promotions) {
+        for (Promotion promotion : promotions) {
+            this.promotions.put(promotion.getId(), promotion);
+        }
+    }
+
+    /**
+     * Delete a promotion by its ID.
+     *
+     * @param id The promotion ID
+     * @return true if the promotion existed
+     */
+    @Override
+    public boolean deleteById(String id) {
+        return promotions.remove(id) != null;
+    }
+}
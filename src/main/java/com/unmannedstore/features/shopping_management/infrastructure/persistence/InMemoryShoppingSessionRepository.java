@@ -0,0 +1,564 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
+import com.unmannedstore.features.shopping_management.domain.repository.ProductRepository;
+import com.unmannedstore.features.shopping_management.domain.repository.ShoppingSessionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind implementation of ShoppingSessionRepository.
+ * Active sessions are held in memory, keyed by session ID and basket ID, and are the source of truth
+ * for reads and writes. A reverse index from product ID to the active sessions holding the product
+ * is kept as they are saved, so the baskets a price change affects are found without a scan. Saves
+ * are appended to the session journal and flushed to the database asynchronously in batches.
+ * Sessions that are not in memory are loaded through the JPA repository.
+ * <p>
+ * Once a session is stored, flushes write only what changed since its last flush, as quantity and
+ * running-total deltas applied with SQL arithmetic, so a scan touches one line row and one session row.
+ */
+@Repository
+@Primary
+@ConditionalOnProperty(name = "app.sessions.write-behind.enabled", havingValue = "true", matchIfMissing = true)
+public class InMemoryShoppingSessionRepository implements ShoppingSessionRepository, SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryShoppingSessionRepository.class);
+
+    private static final String STATUS_ACTIVE = "ACTIVE";
+
+    private final JpaShoppingSessionRepository jpaRepository;
+    private final ProductRepository productRepository;
+    private final SessionJournal journal;
+    private final JdbcBasketDeltaWriter deltaWriter;
+    private final TransactionTemplate flushTransaction;
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Map<String, ShoppingSession> sessionsById = new ConcurrentHashMap<>();
+    private final Map<String, String> activeSessionIdsByBasketId = new ConcurrentHashMap<>();
+    // Reverse index of the active sessions held in memory: product ID -> IDs of the sessions with a line of it
+    private final Map<String, Set<String>> activeSessionIdsByProductId = new ConcurrentHashMap<>();
+    // The product IDs each session is indexed under
+    private final Map<String, Set<String>> indexedProductIdsBySessionId = new ConcurrentHashMap<>();
+    private final Map<String, ShoppingSessionSnapshot> pendingWrites = new ConcurrentHashMap<>();
+    // The state of each session as it is stored in the database, used as the base for deltas
+    private final Map<String, ShoppingSessionSnapshot> storedSnapshots = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Constructor for InMemoryShoppingSessionRepository.
+     *
+     * @param jpaRepository The JPA repository that sessions are flushed to
+     * @param productRepository The product repository, used to resolve products when replaying the journal
+     * @param journal The session journal
+     * @param deltaWriter The writer that applies session deltas to stored sessions
+     * @param transactionManager The transaction manager used for flushes
+     * @param batchSize The maximum number of sessions written per flush transaction
+     */
+    public InMemoryShoppingSessionRepository(JpaShoppingSessionRepository jpaRepository,
+                                             ProductRepository productRepository,
+                                             SessionJournal journal,
+                                             JdbcBasketDeltaWriter deltaWriter,
+                                             PlatformTransactionManager transactionManager,
+                                             @Value("${app.sessions.write-behind.batch-size:100}") int batchSize) {
+        this.jpaRepository = jpaRepository;
+        this.productRepository = productRepository;
+        this.journal = journal;
+        this.deltaWriter = deltaWriter;
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Replay the session journal once all beans, including the database initializers, are ready.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        int replayed = 0;
+        for (ShoppingSessionSnapshot snapshot : journal.replay()) {
+            ShoppingSession session = snapshot.toSession(productId -> productRepository.findById(productId).orElse(null));
+            if (session == null) {
+                logger.warn("Skipping journaled session {}: a basket item references an unknown product", snapshot.getId());
+                continue;
+            }
+            cache(session, snapshot);
+            pendingWrites.put(session.getId(), snapshot);
+            replayed++;
+        }
+        if (replayed > 0) {
+            logger.info("Replayed {} shopping sessions from the session journal", replayed);
+        }
+    }
+
+    /**
+     * Find a shopping session by its ID.
+     *
+     * @param id The shopping session ID
+     * @return An Optional containing the shopping session if found, or empty if not found
+     */
+    @Override
+    public Optional<ShoppingSession> findById(String id) {
+        ShoppingSession session = sessionsById.get(id);
+        if (session != null) {
+            return Optional.of(session);
+        }
+        return jpaRepository.findById(id).map(this::loaded);
+    }
+
+    /**
+     * Find active shopping sessions for a customer.
+     *
+     * @param customerId The customer ID
+     * @return A list of active shopping sessions for the customer
+     */
+    @Override
+    public List<ShoppingSession> findActiveSessionsByCustomerId(String customerId) {
+        flush();
+        return resolve(jpaRepository.findActiveSessionsByCustomerId(customerId));
+    }
+
+    /**
+     * Find a shopping session by basket ID.
+     *
+     * @param basketId The basket ID
+     * @return An Optional containing the shopping session if found, or empty if not found
+     */
+    @Override
+    public Optional<ShoppingSession> findByBasketId(String basketId) {
+        String sessionId = activeSessionIdsByBasketId.get(basketId);
+        if (sessionId != null) {
+            ShoppingSession session = sessionsById.get(sessionId);
+            if (session != null) {
+                return Optional.of(session);
+            }
+        }
+        return jpaRepository.findByBasketId(basketId).map(this::loaded);
+    }
+
+    /**
+     * Find the version of the shopping session of a basket without loading its items.
+     * Active sessions held in memory answer directly; others are looked up with a single column query.
+     *
+     * @param basketId The basket ID
+     * @return An Optional containing the session version if the basket has a session, or empty if not
+     */
+    @Override
+    public Optional<Long> findVersionByBasketId(String basketId) {
+        String sessionId = activeSessionIdsByBasketId.get(basketId);
+        if (sessionId != null) {
+            ShoppingSession session = sessionsById.get(sessionId);
+            if (session != null) {
+                return Optional.of(session.getVersion());
+            }
+        }
+        return jpaRepository.findVersionByBasketId(basketId);
+    }
+
+    /**
+     * Find active shopping sessions that have not been updated since a cutoff, least recently updated first.
+     * Pending writes are flushed first, so sessions changed in memory since their last flush are not reported idle.
+     * The sessions are the instances held in memory, stored sessions being taken into memory, so expiring one
+     * under its monitor cannot race with a scan of another instance of the same session.
+     *
+     * @param cutoff The time before which a session counts as idle
+     * @param limit The maximum number of sessions to return
+     * @return The idle active sessions
+     */
+    @Override
+    public List<ShoppingSession> findIdleActiveSessions(LocalDateTime cutoff, int limit) {
+        flush();
+        List<ShoppingSession> sessions = new ArrayList<>();
+        for (ShoppingSession stored : jpaRepository.findIdleActiveSessions(cutoff, limit)) {
+            ShoppingSession session = loaded(stored);
+            if (STATUS_ACTIVE.equals(session.getStatus())) {
+                sessions.add(session);
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * Find the most recently updated active shopping sessions.
+     * Pending writes are flushed first, and sessions held in memory are returned as they are in memory.
+     *
+     * @param limit The maximum number of sessions to return
+     * @return The active sessions, most recently updated first
+     */
+    @Override
+    public List<ShoppingSession> findRecentlyUpdatedActiveSessions(int limit) {
+        flush();
+        return resolve(jpaRepository.findRecentlyUpdatedActiveSessions(limit));
+    }
+
+    /**
+     * Find all shopping sessions for a customer.
+     *
+     * @param customerId The customer ID
+     * @return A list of all shopping sessions for the customer
+     */
+    @Override
+    public List<ShoppingSession> findByCustomerId(String customerId) {
+        flush();
+        return resolve(jpaRepository.findByCustomerId(customerId));
+    }
+
+    /**
+     * Find all shopping sessions for a store.
+     *
+     * @param storeId The store ID
+     * @return A list of all shopping sessions for the store
+     */
+    @Override
+    public List<ShoppingSession> findByStoreId(String storeId) {
+        flush();
+        return resolve(jpaRepository.findByStoreId(storeId));
+    }
+
+    /**
+     * Find active shopping sessions for a store, or for all stores.
+     * The sessions are the instances held in memory: active sessions that are not held in memory yet
+     * are taken into memory, so a caller changing them under their monitor changes the session every
+     * other reader sees rather than a copy loaded from the database.
+     *
+     * @param storeId The store ID, or null for every store
+     * @return The active shopping sessions
+     */
+    @Override
+    public List<ShoppingSession> findActiveSessionsByStoreId(String storeId) {
+        // Flushed first so sessions finished or deleted in memory are no longer stored as active
+        flush();
+        Map<String, ShoppingSession> sessions = new LinkedHashMap<>();
+        for (String sessionId : activeSessionIdsByBasketId.values()) {
+            ShoppingSession session = sessionsById.get(sessionId);
+            if (session != null && (storeId == null || storeId.equals(session.getStoreId()))) {
+                sessions.put(sessionId, session);
+            }
+        }
+        for (ShoppingSession stored : jpaRepository.findActiveSessionsByStoreId(storeId)) {
+            ShoppingSession session = loaded(stored);
+            if (STATUS_ACTIVE.equals(session.getStatus())) {
+                sessions.putIfAbsent(session.getId(), session);
+            }
+        }
+        return new ArrayList<>(sessions.values());
+    }
+
+    /**
+     * Find the active shopping sessions whose basket holds a product.
+     * Sessions held in memory are found through the reverse index; active sessions that are not held in
+     * memory yet are found through the index on the stored basket lines and taken into memory.
+     *
+     * @param productId The product ID
+     * @return The active shopping sessions with a line of the product
+     */
+    @Override
+    public List<ShoppingSession> findActiveSessionsByProductId(String productId) {
+        Map<String, ShoppingSession> sessions = new LinkedHashMap<>();
+        for (String sessionId : activeSessionIdsByProductId.getOrDefault(productId, Set.of())) {
+            ShoppingSession session = sessionsById.get(sessionId);
+            if (session != null) {
+                sessions.put(sessionId, session);
+            }
+        }
+        for (ShoppingSession stored : jpaRepository.findActiveSessionsByProductId(productId)) {
+            if (!sessionsById.containsKey(stored.getId())) {
+                sessions.putIfAbsent(stored.getId(), loaded(stored));
+            }
+        }
+        return new ArrayList<>(sessions.values());
+    }
+
+    /**
+     * Save a shopping session.
+     * The session becomes the in-memory source of truth; the write is journaled and flushed asynchronously.
+     *
+     * @param shoppingSession The shopping session to save
+     * @return The saved shopping session
+     */
+    @Override
+    public ShoppingSession save(ShoppingSession shoppingSession) {
+        // Capture, queue and journal under the session's monitor so writes for one session stay in order.
+        // The write is queued before it is journaled: the journal is only truncated once no write is pending
+        synchronized (shoppingSession) {
+            ShoppingSessionSnapshot snapshot = ShoppingSessionSnapshot.of(shoppingSession);
+            pendingWrites.put(snapshot.getId(), snapshot);
+            journal.appendSave(snapshot);
+            cache(shoppingSession, snapshot);
+        }
+        return shoppingSession;
+    }
+
+    /**
+     * Delete a shopping session.
+     *
+     * @param shoppingSession The shopping session to delete
+     */
+    @Override
+    public void delete(ShoppingSession shoppingSession) {
+        String id = shoppingSession.getId();
+        pendingWrites.remove(id);
+        journal.appendDelete(id);
+        sessionsById.remove(id);
+        storedSnapshots.remove(id);
+        activeSessionIdsByBasketId.remove(shoppingSession.getBasketId(), id);
+        indexProducts(id, Set.of());
+        flushTransaction.executeWithoutResult(status -> jpaRepository.findById(id).ifPresent(jpaRepository::delete));
+    }
+
+    /**
+     * Find all shopping sessions.
+     *
+     * @return A list of all shopping sessions
+     */
+    @Override
+    public List<ShoppingSession> findAll() {
+        flush();
+        return resolve(jpaRepository.findAll());
+    }
+
+    /**
+     * Write pending session changes to the database in batches.
+     * Runs on a fixed delay and before queries that have to see every session.
+     */
+    @Scheduled(fixedDelayString = "${app.sessions.write-behind.flush-interval-ms:200}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            while (!pendingWrites.isEmpty()) {
+                List<ShoppingSessionSnapshot> batch = drainBatch();
+                List<ShoppingSessionSnapshot> failed = write(batch);
+                batch.removeAll(failed);
+                evictFinished(batch);
+                if (!failed.isEmpty()) {
+                    // Requeue failed writes unless a newer write for the same session arrived meanwhile
+                    for (ShoppingSessionSnapshot snapshot : failed) {
+                        pendingWrites.putIfAbsent(snapshot.getId(), snapshot);
+                    }
+                    return;
+                }
+            }
+            // Checked by the journal writer once the entries appended so far are written. Writes are
+            // queued before they are journaled and drained only here under the flush lock, so no pending
+            // write then means every journaled write is in the database
+            journal.truncateIf(pendingWrites::isEmpty);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of session writes waiting to be flushed.
+     *
+     * @return The number of pending session writes
+     */
+    public int getPendingWriteCount() {
+        return pendingWrites.size();
+    }
+
+    /**
+     * Write a batch in one transaction. If the batch fails, write its sessions one by one
+     * so a single bad session does not hold back the others.
+     *
+     * @return The snapshots that could not be written
+     */
+    private List<ShoppingSessionSnapshot> write(List<ShoppingSessionSnapshot> batch) {
+        try {
+            flushTransaction.executeWithoutResult(status -> writeBatch(batch));
+            markStored(batch);
+            return List.of();
+        } catch (RuntimeException batchFailure) {
+            List<ShoppingSessionSnapshot> failed = new ArrayList<>();
+            for (ShoppingSessionSnapshot snapshot : batch) {
+                try {
+                    flushTransaction.executeWithoutResult(status -> writeBatch(List.of(snapshot)));
+                    markStored(List.of(snapshot));
+                } catch (RuntimeException e) {
+                    logger.error("Failed to flush shopping session {}; will retry", snapshot.getId(), e);
+                    // The stored state is unknown now, so the retry writes the whole session
+                    storedSnapshots.remove(snapshot.getId());
+                    failed.add(snapshot);
+                }
+            }
+            return failed;
+        }
+    }
+
+    /**
+     * Write sessions that are already stored as deltas and merge the others as whole entities.
+     */
+    private void writeBatch(List<ShoppingSessionSnapshot> batch) {
+        List<ShoppingSessionSnapshot> unstored = new ArrayList<>();
+        List<SessionDelta> deltas = new ArrayList<>();
+        for (ShoppingSessionSnapshot snapshot : batch) {
+            ShoppingSessionSnapshot stored = storedSnapshots.get(snapshot.getId());
+            if (stored == null) {
+                unstored.add(snapshot);
+                continue;
+            }
+            SessionDelta delta = SessionDelta.between(stored, snapshot);
+            if (!delta.isEmpty()) {
+                deltas.add(delta);
+            }
+        }
+        if (!deltas.isEmpty()) {
+            deltaWriter.apply(deltas);
+        }
+        if (!unstored.isEmpty()) {
+            jpaRepository.saveAll(toEntities(unstored));
+        }
+    }
+
+    private void markStored(List<ShoppingSessionSnapshot> batch) {
+        for (ShoppingSessionSnapshot snapshot : batch) {
+            storedSnapshots.put(snapshot.getId(), snapshot);
+        }
+    }
+
+    private List<ShoppingSessionSnapshot> drainBatch() {
+        List<ShoppingSessionSnapshot> batch = new ArrayList<>(Math.min(batchSize, pendingWrites.size()));
+        Iterator<Map.Entry<String, ShoppingSessionSnapshot>> iterator = pendingWrites.entrySet().iterator();
+        while (iterator.hasNext() && batch.size() < batchSize) {
+            Map.Entry<String, ShoppingSessionSnapshot> entry = iterator.next();
+            if (pendingWrites.remove(entry.getKey(), entry.getValue())) {
+                batch.add(entry.getValue());
+            }
+        }
+        return batch;
+    }
+
+    private List<ShoppingSession> toEntities(Collection<ShoppingSessionSnapshot> batch) {
+        List<ShoppingSession> entities = new ArrayList<>(batch.size());
+        for (ShoppingSessionSnapshot snapshot : batch) {
+            entities.add(snapshot.toSession(productId -> entityManager.getReference(Product.class, productId)));
+        }
+        return entities;
+    }
+
+    /**
+     * Drop sessions that are no longer active from memory once their final state is flushed.
+     */
+    private void evictFinished(List<ShoppingSessionSnapshot> batch) {
+        for (ShoppingSessionSnapshot snapshot : batch) {
+            if (!STATUS_ACTIVE.equals(snapshot.getStatus()) && !pendingWrites.containsKey(snapshot.getId())) {
+                sessionsById.remove(snapshot.getId());
+                storedSnapshots.remove(snapshot.getId());
+                activeSessionIdsByBasketId.remove(snapshot.getBasketId(), snapshot.getId());
+                indexProducts(snapshot.getId(), Set.of());
+            }
+        }
+    }
+
+    /**
+     * Take a session loaded from the database into memory if it is active.
+     * A session already held in memory wins over the loaded copy.
+     */
+    private ShoppingSession loaded(ShoppingSession session) {
+        ShoppingSession cached = sessionsById.get(session.getId());
+        if (cached != null) {
+            return cached;
+        }
+        if (!STATUS_ACTIVE.equals(session.getStatus())) {
+            return session;
+        }
+        if (entityManager.contains(session)) {
+            entityManager.detach(session);
+        }
+        ShoppingSessionSnapshot stored = ShoppingSessionSnapshot.of(session);
+        ShoppingSession winner = sessionsById.putIfAbsent(session.getId(), session);
+        if (winner != null) {
+            return winner;
+        }
+        // A flush that already recorded the stored state is at least as recent as this load
+        storedSnapshots.putIfAbsent(session.getId(), stored);
+        activeSessionIdsByBasketId.put(session.getBasketId(), session.getId());
+        indexProducts(session.getId(), productIds(stored));
+        return session;
+    }
+
+    private void cache(ShoppingSession session, ShoppingSessionSnapshot snapshot) {
+        sessionsById.put(session.getId(), session);
+        if (STATUS_ACTIVE.equals(session.getStatus())) {
+            activeSessionIdsByBasketId.put(session.getBasketId(), session.getId());
+            indexProducts(session.getId(), productIds(snapshot));
+        } else {
+            activeSessionIdsByBasketId.remove(session.getBasketId(), session.getId());
+            indexProducts(session.getId(), Set.of());
+        }
+    }
+
+    /**
+     * Index a session under the products its basket holds now, dropping it from the products it no
+     * longer holds. Changes for one session are serialized on its entry in the index.
+     *
+     * @param sessionId The session ID
+     * @param productIds The IDs of the products in the basket, empty to drop the session from the index
+     */
+    private void indexProducts(String sessionId, Set<String> productIds) {
+        indexedProductIdsBySessionId.compute(sessionId, (id, previous) -> {
+            if (previous != null) {
+                for (String productId : previous) {
+                    if (!productIds.contains(productId)) {
+                        activeSessionIdsByProductId.computeIfPresent(productId, (key, sessionIds) -> {
+                            sessionIds.remove(id);
+                            return sessionIds.isEmpty() ? null : sessionIds;
+                        });
+                    }
+                }
+            }
+            for (String productId : productIds) {
+                if (previous == null || !previous.contains(productId)) {
+                    activeSessionIdsByProductId.compute(productId, (key, sessionIds) -> {
+                        Set<String> indexed = sessionIds != null ? sessionIds : ConcurrentHashMap.newKeySet();
+                        indexed.add(id);
+                        return indexed;
+                    });
+                }
+            }
+            return productIds.isEmpty() ? null : productIds;
+        });
+    }
+
+    private static Set<String> productIds(ShoppingSessionSnapshot snapshot) {
+        Set<String> productIds = new HashSet<>();
+        for (ShoppingSessionSnapshot.Line line : snapshot.getItems()) {
+            productIds.add(line.getProductId());
+        }
+        return productIds;
+    }
+
+    private List<ShoppingSession> resolve(List<ShoppingSession> stored) {
+        List<ShoppingSession> sessions = new ArrayList<>(stored.size());
+        for (ShoppingSession session : stored) {
+            sessions.add(sessionsById.getOrDefault(session.getId(), session));
+        }
+        return sessions;
+    }
+}
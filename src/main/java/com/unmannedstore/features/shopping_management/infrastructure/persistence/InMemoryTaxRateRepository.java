@@ -0,0 +1,38 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import com.unmannedstore.features.shopping_management.domain.model.TaxRate;
+import com.unmannedstore.features.shopping_management.domain.repository.TaxRateRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * In-memory implementation of TaxRateRepository.
+ * Rates are immutable and always replaced together, so they are held as one immutable list.
+ */
+@Repository
+public class InMemoryTaxRateRepository implements TaxRateRepository {
+
+    private volatile List<TaxRate> rates = List.of();
+
+    /**
+     * Find all tax rates.
+     *
+     * @return The rates, in the order they were saved
+     */
+    @Override
+    public List<TaxRate> findAll() {
+        return rates;
+    }
+
+    /**
+     * Replace all tax rates.
+     *
+     * @param rates The new rates
+     */
+    @Override
+    public void replaceAll(Collection<TaxRate> rates) {
+        this.rates = List.copyOf(rates);
+    }
+}
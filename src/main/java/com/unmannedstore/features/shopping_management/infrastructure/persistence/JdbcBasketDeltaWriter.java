@@ -0,0 +1,190 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Applies shopping session deltas to the database with plain JDBC.
+ * Basket line quantities and the running total columns are adjusted with arithmetic in SQL,
+ * so no entity is loaded or dirty-checked and concurrent deltas for one session commute.
+ * Repriced lines have their price and catalog version set along with the quantity.
+ * An update count other than 1 is not taken as an answer: drivers may report batched statements as
+ * {@link java.sql.Statement#SUCCESS_NO_INFO}, so the rows behind such counts are looked up before a
+ * line is inserted or a session reported missing.
+ * Must run inside the caller's transaction.
+ */
+@Component
+public class JdbcBasketDeltaWriter {
+
+    private static final String UPDATE_LINE =
+            "UPDATE basket_items SET quantity = quantity + ?, changed_version = GREATEST(changed_version, ?), "
+                    + "price = COALESCE(?, price), catalog_version = COALESCE(?, catalog_version) WHERE id = ?";
+
+    private static final String INSERT_LINE =
+            "INSERT INTO basket_items (id, product_id, quantity, price, added_at, shopping_session_id, changed_version, serial, "
+                    + "catalog_version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE_EMPTY_LINE =
+            "DELETE FROM basket_items WHERE id = ? AND quantity <= 0";
+
+    // Mirrors RunningTotal: the subtotal, discount and tax never drop below zero. Tax depends on the rate of
+    // every line, so the session works it out and it is applied as a delta like the subtotal
+    private static final String UPDATE_SESSION =
+            "UPDATE shopping_sessions SET "
+                    + "subtotal = GREATEST(subtotal + ?, 0), "
+                    + "discount = GREATEST(discount + ?, 0), "
+                    + "tax = GREATEST(tax + ?, 0), "
+                    + "total = GREATEST(GREATEST(subtotal + ?, 0) - GREATEST(discount + ?, 0), 0) + GREATEST(tax + ?, 0), "
+                    + "status = COALESCE(?, status), "
+                    + "version = GREATEST(version, ?), "
+                    + "last_updated_at = GREATEST(last_updated_at, ?) "
+                    + "WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructor for JdbcBasketDeltaWriter.
+     *
+     * @param jdbcTemplate The JDBC template
+     */
+    public JdbcBasketDeltaWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Apply session deltas to the stored sessions and their basket lines.
+     * Statements of the same kind are sent as one JDBC batch across all sessions.
+     *
+     * @param deltas The session deltas to apply
+     * @return The number of rows changed
+     * @throws IllegalStateException if a session is not stored in the database
+     */
+    public int apply(Collection<SessionDelta> deltas) {
+        List<Object[]> lineUpdates = new ArrayList<>();
+        List<Object[]> lineInserts = new ArrayList<>();
+        List<Object[]> lineDeletes = new ArrayList<>();
+        List<Object[]> sessionUpdates = new ArrayList<>(deltas.size());
+        List<SessionDelta.LineDelta> updatedLines = new ArrayList<>();
+        List<String> updatedLineSessionIds = new ArrayList<>();
+
+        for (SessionDelta delta : deltas) {
+            for (SessionDelta.LineDelta line : delta.getLines()) {
+                lineUpdates.add(new Object[] {line.getQuantityDelta(), line.getChangedVersion(),
+                        line.isRepriced() ? line.getPrice() : null,
+                        line.isRepriced() ? line.getCatalogVersion() : null,
+                        line.getItemId()});
+                updatedLines.add(line);
+                updatedLineSessionIds.add(delta.getSessionId());
+                if (line.getQuantityDelta() < 0) {
+                    lineDeletes.add(new Object[] {line.getItemId()});
+                }
+            }
+            sessionUpdates.add(new Object[] {
+                    delta.getSubtotalDelta(),
+                    delta.getDiscountDelta(),
+                    delta.getTaxDelta(),
+                    delta.getSubtotalDelta(), delta.getDiscountDelta(), delta.getTaxDelta(),
+                    delta.getStatus(),
+                    delta.getVersion(),
+                    Timestamp.valueOf(delta.getLastUpdatedAt()),
+                    delta.getSessionId()
+            });
+        }
+
+        int rows = 0;
+        if (!lineUpdates.isEmpty()) {
+            int[] updated = jdbcTemplate.batchUpdate(UPDATE_LINE, lineUpdates);
+            List<Integer> unconfirmed = new ArrayList<>();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 1) {
+                    rows++;
+                } else if (updatedLines.get(i).getQuantityDelta() > 0) {
+                    unconfirmed.add(i);
+                }
+            }
+            List<String> unconfirmedIds = new ArrayList<>(unconfirmed.size());
+            unconfirmed.forEach(i -> unconfirmedIds.add(updatedLines.get(i).getItemId()));
+            Set<String> storedIds = findStoredIds("basket_items", unconfirmedIds);
+            for (int i : unconfirmed) {
+                SessionDelta.LineDelta line = updatedLines.get(i);
+                if (storedIds.contains(line.getItemId())) {
+                    // Updated, though the driver did not say so
+                    rows++;
+                } else {
+                    // The line is new: insert it with the delta as its quantity
+                    lineInserts.add(new Object[] {
+                            line.getItemId(),
+                            line.getProductId(),
+                            line.getQuantityDelta(),
+                            line.getPrice(),
+                            Timestamp.valueOf(line.getAddedAt()),
+                            updatedLineSessionIds.get(i),
+                            line.getChangedVersion(),
+                            line.getSerial(),
+                            line.getCatalogVersion()
+                    });
+                }
+            }
+        }
+        if (!lineInserts.isEmpty()) {
+            rows += sum(jdbcTemplate.batchUpdate(INSERT_LINE, lineInserts));
+        }
+        if (!lineDeletes.isEmpty()) {
+            rows += sum(jdbcTemplate.batchUpdate(DELETE_EMPTY_LINE, lineDeletes));
+        }
+        if (!sessionUpdates.isEmpty()) {
+            int[] updated = jdbcTemplate.batchUpdate(UPDATE_SESSION, sessionUpdates);
+            List<String> unconfirmedIds = new ArrayList<>();
+            int i = 0;
+            for (SessionDelta delta : deltas) {
+                if (updated[i++] == 1) {
+                    rows++;
+                } else {
+                    unconfirmedIds.add(delta.getSessionId());
+                }
+            }
+            Set<String> storedIds = findStoredIds("shopping_sessions", unconfirmedIds);
+            for (String sessionId : unconfirmedIds) {
+                if (!storedIds.contains(sessionId)) {
+                    throw new IllegalStateException("Shopping session not stored: " + sessionId);
+                }
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Find which of the given IDs are stored in a table.
+     *
+     * @param table The table, keyed by an id column
+     * @param ids The IDs to look up
+     * @return The IDs that are stored
+     */
+    private Set<String> findStoredIds(String table, List<String> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM " + table + " WHERE id IN (" + placeholders + ")", String.class, ids.toArray()));
+    }
+
+    private static int sum(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                total += count;
+            }
+        }
+        return total;
+    }
+}
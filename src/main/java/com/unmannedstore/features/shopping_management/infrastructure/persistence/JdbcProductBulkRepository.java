@@ -0,0 +1,63 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.domain.repository.ProductBulkRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC implementation of ProductBulkRepository.
+ * Writes each chunk as one JDBC batch of MERGE statements keyed on the product ID in a single transaction,
+ * so loading a catalog costs one round trip per chunk instead of a select and an insert per product.
+ */
+@Repository
+public class JdbcProductBulkRepository implements ProductBulkRepository {
+
+    private static final String UPSERT_PRODUCT =
+            "MERGE INTO products (id, name, price, rfidtag, gtin, description, category, imageurl) KEY (id) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructor for JdbcProductBulkRepository.
+     *
+     * @param jdbcTemplate The JDBC template
+     */
+    public JdbcProductBulkRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert or update a chunk of products by ID in one batch.
+     *
+     * @param products The products to write
+     * @return The number of products written
+     */
+    @Override
+    @Transactional
+    public int upsert(List<Product> products) {
+        if (products.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> rows = new ArrayList<>(products.size());
+        for (Product product : products) {
+            rows.add(new Object[] {
+                    product.getId(),
+                    product.getName(),
+                    product.getPrice(),
+                    product.getRfidTag(),
+                    product.getGtin(),
+                    product.getDescription(),
+                    product.getCategory(),
+                    product.getImageUrl()
+            });
+        }
+        jdbcTemplate.batchUpdate(UPSERT_PRODUCT, rows);
+        return products.size();
+    }
+}
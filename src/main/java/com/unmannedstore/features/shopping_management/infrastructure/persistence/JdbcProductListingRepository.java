@@ -0,0 +1,108 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import com.unmannedstore.features.shopping_management.domain.model.ProductSummary;
+import com.unmannedstore.features.shopping_management.domain.repository.ProductListingRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * JDBC implementation of ProductListingRepository.
+ * Reads the listing columns into {@link ProductSummary} projections with keyset queries on the product ID,
+ * which the primary key and the category index answer without sorting or skipping rows.
+ */
+@Repository
+public class JdbcProductListingRepository implements ProductListingRepository {
+
+    private static final String SELECT_COLUMNS =
+            "SELECT id, name, price, rfidtag, gtin, description, category, imageurl FROM products";
+
+    private static final RowMapper<ProductSummary> ROW_MAPPER = (resultSet, rowNum) -> new ProductSummary(
+            resultSet.getString(1),
+            resultSet.getString(2),
+            resultSet.getBigDecimal(3),
+            resultSet.getString(4),
+            resultSet.getString(5),
+            resultSet.getString(6),
+            resultSet.getString(7),
+            resultSet.getString(8)
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    // Separate template so only the cursor reads use the larger fetch size
+    private final JdbcTemplate cursorTemplate;
+
+    /**
+     * Constructor for JdbcProductListingRepository.
+     *
+     * @param jdbcTemplate The JDBC template
+     * @param fetchSize The number of rows fetched per round trip when reading the catalog from a cursor
+     */
+    public JdbcProductListingRepository(JdbcTemplate jdbcTemplate,
+                                        @Value("${app.products.listing.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cursorTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.cursorTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Find the next page of products after a product ID.
+     *
+     * @param category The category to list, or null for all categories
+     * @param afterId The ID of the last product of the previous page, or null for the first page
+     * @param limit The maximum number of products to return
+     * @return The products, ordered by ID
+     */
+    @Override
+    public List<ProductSummary> findPage(String category, String afterId, int limit) {
+        List<Object> args = new ArrayList<>(3);
+        String sql = SELECT_COLUMNS + where(category, afterId, args) + " ORDER BY id FETCH FIRST ? ROWS ONLY";
+        args.add(limit);
+        return jdbcTemplate.query(sql, ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * Read every product in ID order from a database cursor.
+     *
+     * @param category The category to list, or null for all categories
+     * @param consumer Receives each product
+     */
+    @Override
+    public void forEach(String category, Consumer<ProductSummary> consumer) {
+        List<Object> args = new ArrayList<>(1);
+        String sql = SELECT_COLUMNS + where(category, null, args) + " ORDER BY id";
+        RowCallbackHandler handler = resultSet -> consumer.accept(ROW_MAPPER.mapRow(resultSet, resultSet.getRow()));
+        cursorTemplate.query(sql, handler, args.toArray());
+    }
+
+    /**
+     * Read a single product from the products table.
+     *
+     * @param id The product ID
+     * @return The product, or empty if there is none with this ID
+     */
+    @Override
+    public Optional<ProductSummary> findById(String id) {
+        return jdbcTemplate.query(SELECT_COLUMNS + " WHERE id = ?", ROW_MAPPER, id).stream().findFirst();
+    }
+
+    private static String where(String category, String afterId, List<Object> args) {
+        StringBuilder where = new StringBuilder();
+        if (category != null) {
+            where.append(" WHERE category = ?");
+            args.add(category);
+        }
+        if (afterId != null) {
+            where.append(category != null ? " AND" : " WHERE").append(" id > ?");
+            args.add(afterId);
+        }
+        return where.toString();
+    }
+}
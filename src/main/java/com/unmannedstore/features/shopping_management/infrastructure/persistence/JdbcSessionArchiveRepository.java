@@ -0,0 +1,72 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import com.unmannedstore.features.shopping_management.domain.repository.SessionArchiveRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JDBC implementation of SessionArchiveRepository.
+ * Moves finished shopping sessions and their basket lines from the live tables into the archive tables. Each batch is copied and deleted in one transaction with set-based statements,
+ * so no session is loaded as an entity and the live tables only ever hold recent sessions.
+ */
+@Repository
+public class JdbcSessionArchiveRepository implements SessionArchiveRepository {
+
+    private static final String SESSION_COLUMNS =
+            "id, customer_id, store_id, basket_id, started_at, last_updated_at, status, version, subtotal, discount, tax, total";
+
+    private static final String ITEM_COLUMNS =
+            "id, product_id, quantity, price, added_at, shopping_session_id, changed_version, serial, catalog_version";
+
+    private static final String SELECT_FINISHED =
+            "SELECT id FROM shopping_sessions WHERE status <> 'ACTIVE' AND last_updated_at < ? "
+                    + "ORDER BY last_updated_at FETCH FIRST ? ROWS ONLY";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructor for JdbcSessionArchiveRepository.
+     *
+     * @param jdbcTemplate The JDBC template
+     */
+    public JdbcSessionArchiveRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Archive one batch of sessions that finished before a cutoff, oldest first.
+     *
+     * @param finishedBefore The time before which a finished session was last updated to be archived
+     * @param batchSize The maximum number of sessions to archive
+     * @return The number of sessions archived
+     */
+    @Override
+    @Transactional
+    public int archiveFinishedSessions(LocalDateTime finishedBefore, int batchSize) {
+        List<String> sessionIds = jdbcTemplate.queryForList(SELECT_FINISHED, String.class,
+                Timestamp.valueOf(finishedBefore), batchSize);
+        if (sessionIds.isEmpty()) {
+            return 0;
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(sessionIds.size(), "?"));
+        Object[] ids = sessionIds.toArray();
+        List<Object> sessionArgs = new ArrayList<>(sessionIds.size() + 1);
+        sessionArgs.add(Timestamp.valueOf(LocalDateTime.now()));
+        sessionArgs.addAll(sessionIds);
+
+        jdbcTemplate.update("INSERT INTO basket_items_archive (" + ITEM_COLUMNS + ") SELECT " + ITEM_COLUMNS
+                + " FROM basket_items WHERE shopping_session_id IN (" + placeholders + ")", ids);
+        jdbcTemplate.update("INSERT INTO shopping_sessions_archive (" + SESSION_COLUMNS + ", archived_at) SELECT "
+                + SESSION_COLUMNS + ", ? FROM shopping_sessions WHERE id IN (" + placeholders + ")", sessionArgs.toArray());
+        jdbcTemplate.update("DELETE FROM basket_items WHERE shopping_session_id IN (" + placeholders + ")", ids);
+        return jdbcTemplate.update("DELETE FROM shopping_sessions WHERE id IN (" + placeholders + ")", ids);
+    }
+}
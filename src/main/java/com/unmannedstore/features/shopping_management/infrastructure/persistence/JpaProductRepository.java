@@ -4,6 +4,7 @@ import com.unmannedstore.features.shopping_management.domain.model.Product;
 import com.unmannedstore.features.shopping_management.domain.repository.ProductRepository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +23,42 @@ public interface JpaProductRepository extends JpaRepository<Product, String>, Pr
     @Override
     Optional<Product> findByRfidTag(String rfidTag);
     
+    /**
+     * Find a product by its GTIN-14.
+     * 
+     * @param gtin The GTIN-14, as 14 digits
+     * @return An Optional containing the product if found, or empty if not found
+     */
+    @Override
+    Optional<Product> findByGtin(String gtin);
+    
+    /**
+     * Find the products with any of the given GTIN-14s in a single query.
+     * 
+     * @param gtins The GTIN-14s
+     * @return The products that were found, in no particular order
+     */
+    @Override
+    List<Product> findByGtinIn(Collection<String> gtins);
+    
+    /**
+     * Find the products with any of the given IDs in a single query.
+     * 
+     * @param ids The product IDs
+     * @return The products that were found, in no particular order
+     */
+    @Override
+    List<Product> findByIdIn(Collection<String> ids);
+    
+    /**
+     * Find the products with any of the given RFID tags in a single query.
+     * 
+     * @param rfidTags The RFID tags
+     * @return The products that were found, in no particular order
+     */
+    @Override
+    List<Product> findByRfidTagIn(Collection<String> rfidTags);
+    
     /**
      * Find all products in a specific category.
      * 
@@ -2,10 +2,13 @@ package com.unmannedstore.features.shopping_management.infrastructure.persistenc
 
 import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
 import com.unmannedstore.features.shopping_management.domain.repository.ShoppingSessionRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +18,15 @@ import java.util.Optional;
 @Repository
 public interface JpaShoppingSessionRepository extends JpaRepository<ShoppingSession, String>, ShoppingSessionRepository {
     
+    /**
+     * Find a shopping session by its ID.
+     * 
+     * @param id The shopping session ID
+     * @return An Optional containing the shopping session if found, or empty if not found
+     */
+    @Override
+    Optional<ShoppingSession> findById(String id);
+    
     /**
      * Find active shopping sessions for a customer.
      * 
@@ -26,12 +38,92 @@ public interface JpaShoppingSessionRepository extends JpaRepository<ShoppingSess
     
     /**
      * Find a shopping session by basket ID.
+     * Baskets are reused, so a basket can have several sessions; the active one is returned if there
+     * is one, otherwise the most recently updated one.
      * 
      * @param basketId The basket ID
      * @return An Optional containing the shopping session if found, or empty if not found
      */
     @Override
-    Optional<ShoppingSession> findByBasketId(String basketId);
+    default Optional<ShoppingSession> findByBasketId(String basketId) {
+        return findLatestByBasketId(basketId, PageRequest.of(0, 1)).stream().findFirst();
+    }
+    
+    /**
+     * Find the shopping sessions of a basket, the active one first and then the most recently updated.
+     * 
+     * @param basketId The basket ID
+     * @param pageable The page of sessions to return
+     * @return The shopping sessions
+     */
+    @Query("SELECT s FROM ShoppingSession s WHERE s.basketId = :basketId "
+            + "ORDER BY CASE WHEN s.status = 'ACTIVE' THEN 0 ELSE 1 END, s.lastUpdatedAt DESC")
+    List<ShoppingSession> findLatestByBasketId(@Param("basketId") String basketId, Pageable pageable);
+    
+    /**
+     * Find the version of the shopping session of a basket without loading its items.
+     * The session is chosen as in findByBasketId.
+     * 
+     * @param basketId The basket ID
+     * @return An Optional containing the session version if the basket has a session, or empty if not
+     */
+    @Override
+    default Optional<Long> findVersionByBasketId(String basketId) {
+        return findVersionsByBasketId(basketId, PageRequest.of(0, 1)).stream().findFirst();
+    }
+    
+    /**
+     * Find the versions of the shopping sessions of a basket, the active one first and then the most recently updated.
+     * 
+     * @param basketId The basket ID
+     * @param pageable The page of versions to return
+     * @return The session versions
+     */
+    @Query("SELECT s.version FROM ShoppingSession s WHERE s.basketId = :basketId "
+            + "ORDER BY CASE WHEN s.status = 'ACTIVE' THEN 0 ELSE 1 END, s.lastUpdatedAt DESC")
+    List<Long> findVersionsByBasketId(@Param("basketId") String basketId, Pageable pageable);
+    
+    /**
+     * Find active shopping sessions that have not been updated since a cutoff, least recently updated first.
+     * 
+     * @param cutoff The time before which a session counts as idle
+     * @param limit The maximum number of sessions to return
+     * @return The idle active sessions
+     */
+    @Override
+    default List<ShoppingSession> findIdleActiveSessions(LocalDateTime cutoff, int limit) {
+        return findIdleActiveSessions(cutoff, PageRequest.of(0, limit));
+    }
+    
+    /**
+     * Find active shopping sessions that have not been updated since a cutoff, least recently updated first.
+     * 
+     * @param cutoff The time before which a session counts as idle
+     * @param pageable The page of sessions to return
+     * @return The idle active sessions
+     */
+    @Query("SELECT s FROM ShoppingSession s WHERE s.status = 'ACTIVE' AND s.lastUpdatedAt < :cutoff ORDER BY s.lastUpdatedAt")
+    List<ShoppingSession> findIdleActiveSessions(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+    
+    /**
+     * Find the most recently updated active shopping sessions.
+     * 
+     * @param limit The maximum number of sessions to return
+     * @return The active sessions, most recently updated first
+     */
+    @Override
+    default List<ShoppingSession> findRecentlyUpdatedActiveSessions(int limit) {
+        return findRecentlyUpdatedActiveSessions(PageRequest.of(0, limit));
+    }
+    
+    /**
+     * Find the most recently updated active shopping sessions.
+     * 
+     * @param pageable The page of sessions to return
+     * @return The active sessions, most recently updated first
+     */
+    @Query("SELECT s FROM ShoppingSession s WHERE s.status = 'ACTIVE' ORDER BY s.lastUpdatedAt DESC")
+    List<ShoppingSession> findRecentlyUpdatedActiveSessions(Pageable pageable);
     
     /**
      * Find all shopping sessions for a customer.
@@ -50,4 +142,33 @@ public interface JpaShoppingSessionRepository extends JpaRepository<ShoppingSess
      */
     @Override
     List<ShoppingSession> findByStoreId(String storeId);
+    
+    /**
+     * Find active shopping sessions for a store, or for all stores.
+     * 
+     * @param storeId The store ID, or null for every store
+     * @return The active shopping sessions
+     */
+    @Query("SELECT s FROM ShoppingSession s WHERE s.status = 'ACTIVE' AND (:storeId IS NULL OR s.storeId = :storeId)")
+    List<ShoppingSession> findActiveSessionsByStoreId(@Param("storeId") String storeId);
+    
+    /**
+     * Find the active shopping sessions whose basket holds a product, through the index on the
+     * basket lines' product ID.
+     * 
+     * @param productId The product ID
+     * @return The active shopping sessions with a line of the product
+     */
+    @Override
+    @Query("SELECT s FROM ShoppingSession s WHERE s.status = 'ACTIVE' AND s.id IN "
+            + "(SELECT i.shoppingSessionId FROM BasketItem i WHERE i.product.id = :productId)")
+    List<ShoppingSession> findActiveSessionsByProductId(@Param("productId") String productId);
+    
+    /**
+     * Delete a shopping session.
+     * 
+     * @param shoppingSession The shopping session to delete
+     */
+    @Override
+    void delete(ShoppingSession shoppingSession);
 }
\ No newline at end of file
@@ -0,0 +1,335 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only RFID tag index held in a memory-mapped file.
+ * Maps the bytes of a tag to the ordinal of its product with an open-addressing hash table, so
+ * millions of tags take no heap beyond the product ID table and are paged in by the operating
+ * system as they are read. Lookups hash and compare the tag's characters against the mapped bytes
+ * directly and do not allocate.
+ * <p>
+ * File layout, all integers big-endian:
+ * <ul>
+ *   <li>Header: magic, format version, slot count, tag count, product count, key area offset,
+ *       product ID area offset, reserved</li>
+ *   <li>Slots: hash, key offset and product ordinal per slot; a hash of 0 marks an empty slot</li>
+ *   <li>Key area: length-prefixed tag bytes</li>
+ *   <li>Product ID area: length-prefixed UTF-8 product IDs in ordinal order</li>
+ * </ul>
+ * Only ASCII tags are indexed; lookups of other tags miss. The file is limited to 2 GB.
+ */
+public final class MappedRfidTagIndex {
+
+    /**
+     * Returned by {@link #findOrdinal(String)} for a tag that is not in the index.
+     */
+    public static final int NOT_FOUND = -1;
+
+    private static final int MAGIC = 0x52464958;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int SLOT_SIZE = 12;
+
+    private final ByteBuffer buffer;
+    private final int slotMask;
+    private final int tagCount;
+    private final int keysOffset;
+    private final String[] productIds;
+
+    private MappedRfidTagIndex(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not an RFID tag index");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported RFID tag index version: " + buffer.getInt(4));
+        }
+        int slotCount = buffer.getInt(8);
+        this.buffer = buffer;
+        this.slotMask = slotCount - 1;
+        this.tagCount = buffer.getInt(12);
+        this.keysOffset = buffer.getInt(20);
+
+        // Product IDs are few compared to tags and are handed out on every hit, so they live on the heap
+        int productCount = buffer.getInt(16);
+        this.productIds = new String[productCount];
+        int position = buffer.getInt(24);
+        for (int i = 0; i < productCount; i++) {
+            int length = Short.toUnsignedInt(buffer.getShort(position));
+            byte[] bytes = new byte[length];
+            buffer.get(position + 2, bytes);
+            productIds[i] = new String(bytes, StandardCharsets.UTF_8);
+            position += 2 + length;
+        }
+    }
+
+    /**
+     * Map an index file.
+     *
+     * @param file The index file
+     * @return The index
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not an RFID tag index
+     */
+    public static MappedRfidTagIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedRfidTagIndex(buffer);
+        }
+    }
+
+    /**
+     * Find the ordinal of the product a tag belongs to.
+     *
+     * @param rfidTag The RFID tag
+     * @return The product ordinal, or {@link #NOT_FOUND}
+     */
+    public int findOrdinal(String rfidTag) {
+        int hash = hash(rfidTag);
+        if (hash == 0) {
+            return NOT_FOUND;
+        }
+        for (int slot = hash & slotMask; ; slot = (slot + 1) & slotMask) {
+            int position = HEADER_SIZE + slot * SLOT_SIZE;
+            int slotHash = buffer.getInt(position);
+            if (slotHash == 0) {
+                return NOT_FOUND;
+            }
+            if (slotHash == hash && keyEquals(keysOffset + buffer.getInt(position + 4), rfidTag)) {
+                return buffer.getInt(position + 8);
+            }
+        }
+    }
+
+    /**
+     * Find the ID of the product a tag belongs to.
+     *
+     * @param rfidTag The RFID tag
+     * @return The product ID, or null if the tag is not in the index
+     */
+    public String findProductId(String rfidTag) {
+        int ordinal = findOrdinal(rfidTag);
+        return ordinal == NOT_FOUND ? null : productIds[ordinal];
+    }
+
+    /**
+     * Get the ID of the product with an ordinal.
+     *
+     * @param ordinal The product ordinal
+     * @return The product ID
+     */
+    public String getProductId(int ordinal) {
+        return productIds[ordinal];
+    }
+
+    /**
+     * Get the number of tags in the index.
+     *
+     * @return The number of tags
+     */
+    public int getTagCount() {
+        return tagCount;
+    }
+
+    /**
+     * Get the number of products in the index.
+     *
+     * @return The number of products
+     */
+    public int getProductCount() {
+        return productIds.length;
+    }
+
+    private boolean keyEquals(int position, String rfidTag) {
+        int length = Short.toUnsignedInt(buffer.getShort(position));
+        if (length != rfidTag.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(position + 2 + i) != (byte) rfidTag.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hash a tag's characters with FNV-1a and a final mix, so sequential tags spread over the table.
+     *
+     * @param rfidTag The RFID tag
+     * @return The non-zero hash, or 0 if the tag is empty, too long or not ASCII
+     */
+    static int hash(CharSequence rfidTag) {
+        int length = rfidTag.length();
+        if (length == 0 || length > 0xFFFF) {
+            return 0;
+        }
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < length; i++) {
+            char c = rfidTag.charAt(i);
+            if (c > 0x7F) {
+                return 0;
+            }
+            hash = (hash ^ c) * 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        return hash != 0 ? hash : 1;
+    }
+
+    /**
+     * Collects tags and their products and writes them as an index file.
+     */
+    public static final class Builder {
+
+        private final Map<String, Integer> ordinalsByProductId = new HashMap<>();
+        private final List<String> productIds = new ArrayList<>();
+        private final List<String> tags = new ArrayList<>();
+        private int[] tagOrdinals = new int[1024];
+        private int skipped;
+
+        /**
+         * Add a tag. Tags that cannot be indexed are skipped and counted.
+         *
+         * @param rfidTag The RFID tag
+         * @param productId The ID of the product the tag belongs to
+         * @return This builder
+         */
+        public Builder add(String rfidTag, String productId) {
+            if (rfidTag == null || hash(rfidTag) == 0) {
+                skipped++;
+                return this;
+            }
+            Integer ordinal = ordinalsByProductId.get(productId);
+            if (ordinal == null) {
+                ordinal = productIds.size();
+                ordinalsByProductId.put(productId, ordinal);
+                productIds.add(productId);
+            }
+            if (tags.size() == tagOrdinals.length) {
+                tagOrdinals = Arrays.copyOf(tagOrdinals, tagOrdinals.length * 2);
+            }
+            tagOrdinals[tags.size()] = ordinal;
+            tags.add(rfidTag);
+            return this;
+        }
+
+        /**
+         * Get the number of tags that were skipped because they cannot be indexed.
+         *
+         * @return The number of skipped tags
+         */
+        public int getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * Write the index. The file is written next to the target and moved into place,
+         * so a running reader never sees a partly written index.
+         *
+         * @param file The index file
+         * @return The number of tags written
+         * @throws IOException if the file cannot be written
+         * @throws IllegalArgumentException if a tag is added twice or the index would exceed 2 GB
+         */
+        public int write(Path file) throws IOException {
+            // Load factor of at most one half keeps probe sequences short
+            int slotCount = Integer.highestOneBit(Math.max(2, tags.size() * 2 - 1)) << 1;
+            long keysSize = 0;
+            for (String tag : tags) {
+                keysSize += 2 + tag.length();
+            }
+            List<byte[]> encodedProductIds = new ArrayList<>(productIds.size());
+            long productIdsSize = 0;
+            for (String productId : productIds) {
+                byte[] bytes = productId.getBytes(StandardCharsets.UTF_8);
+                encodedProductIds.add(bytes);
+                productIdsSize += 2 + bytes.length;
+            }
+            long keysOffset = HEADER_SIZE + (long) slotCount * SLOT_SIZE;
+            long productIdsOffset = keysOffset + keysSize;
+            long size = productIdsOffset + productIdsSize;
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("RFID tag index would exceed 2 GB: " + tags.size() + " tags");
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT_VERSION);
+            buffer.putInt(8, slotCount);
+            buffer.putInt(12, tags.size());
+            buffer.putInt(16, productIds.size());
+            buffer.putInt(20, (int) keysOffset);
+            buffer.putInt(24, (int) productIdsOffset);
+
+            int mask = slotCount - 1;
+            int keyPosition = 0;
+            for (int i = 0; i < tags.size(); i++) {
+                String tag = tags.get(i);
+                int hash = hash(tag);
+                int slot = hash & mask;
+                while (buffer.getInt(HEADER_SIZE + slot * SLOT_SIZE) != 0) {
+                    int existing = HEADER_SIZE + slot * SLOT_SIZE;
+                    if (buffer.getInt(existing) == hash && tag.equals(readKey(buffer, (int) keysOffset + buffer.getInt(existing + 4)))) {
+                        throw new IllegalArgumentException("Duplicate RFID tag: " + tag);
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                int position = HEADER_SIZE + slot * SLOT_SIZE;
+                buffer.putInt(position, hash);
+                buffer.putInt(position + 4, keyPosition);
+                buffer.putInt(position + 8, tagOrdinals[i]);
+
+                int keyStart = (int) keysOffset + keyPosition;
+                buffer.putShort(keyStart, (short) tag.length());
+                for (int c = 0; c < tag.length(); c++) {
+                    buffer.put(keyStart + 2 + c, (byte) tag.charAt(c));
+                }
+                keyPosition += 2 + tag.length();
+            }
+
+            int position = (int) productIdsOffset;
+            for (byte[] bytes : encodedProductIds) {
+                buffer.putShort(position, (short) bytes.length);
+                buffer.put(position + 2, bytes);
+                position += 2 + bytes.length;
+            }
+
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return tags.size();
+        }
+
+        private static String readKey(ByteBuffer buffer, int position) {
+            int length = Short.toUnsignedInt(buffer.getShort(position));
+            byte[] bytes = new byte[length];
+            buffer.get(position + 2, bytes);
+            return new String(bytes, StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import com.unmannedstore.features.shopping_management.domain.model.Money;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Stores {@link Money} attributes in the existing NUMERIC(38,2) columns, so the schema is unchanged.
+ * Applied to every Money attribute of the entities.
+ */
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+    /**
+     * Convert an amount to its column value.
+     *
+     * @param amount The amount
+     * @return The amount with two decimal places, or null
+     */
+    @Override
+    public BigDecimal convertToDatabaseColumn(Money amount) {
+        return amount != null ? amount.toBigDecimal() : null;
+    }
+
+    /**
+     * Convert a column value to an amount, rounding half-up to cents.
+     *
+     * @param amount The column value
+     * @return The amount, or null
+     */
+    @Override
+    public Money convertToEntityAttribute(BigDecimal amount) {
+        return Money.of(amount);
+    }
+}
@@ -0,0 +1,146 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import com.unmannedstore.features.shopping_management.events.ProductChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The catalog's RFID tag index, mapped from a file next to the catalog.
+ * The file is built from the products table: offline with --rfid-index.build, after every catalog import,
+ * or at startup when it does not exist yet. It is mapped into memory rather than read, so even a
+ * multi-million-tag index is ready in milliseconds.
+ * <p>
+ * The index is a snapshot of the catalog when it was built. Products that were added or retagged since
+ * are not in it or point to a product that no longer carries the tag, so callers must check the product
+ * they resolve and fall back to the database for tags the index does not know.
+ */
+@Component
+public class RfidTagIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RfidTagIndex.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final Path path;
+    private final boolean buildIfMissing;
+
+    private volatile MappedRfidTagIndex index;
+
+    /**
+     * Constructor for RfidTagIndex.
+     *
+     * @param jdbcTemplate The JDBC template the index is built with
+     * @param enabled Whether the index is used
+     * @param path The location of the index file
+     * @param buildIfMissing Whether to build the index at startup if the file does not exist
+     */
+    public RfidTagIndex(JdbcTemplate jdbcTemplate,
+                        @Value("${app.products.rfid-index.enabled:true}") boolean enabled,
+                        @Value("${app.products.rfid-index.path:data/rfid-tag-index.bin}") String path,
+                        @Value("${app.products.rfid-index.build-if-missing:false}") boolean buildIfMissing) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.path = Paths.get(path);
+        this.buildIfMissing = buildIfMissing;
+    }
+
+    /**
+     * Map the index file, or build it first if it is missing and building at startup is enabled.
+     * Runs once the application is ready, so the catalog has been loaded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        if (!Files.exists(path)) {
+            if (!buildIfMissing) {
+                logger.info("No RFID tag index at {}, tags are resolved through the product cache", path);
+                return;
+            }
+            rebuild();
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            index = MappedRfidTagIndex.open(path);
+            logger.info("Mapped RFID tag index with {} tags for {} products in {} ms",
+                    index.getTagCount(), index.getProductCount(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Ignoring unreadable RFID tag index {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Build the index again once a change of the whole catalog, such as an import, is committed, so the
+     * imported tags are not all index misses. Changes of single products are left to the fallback.
+     *
+     * @param event The event, with no product ID if the whole catalog may have changed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled || event.getProductId() != null) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to rebuild RFID tag index {} after a catalog change: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Build the index file from the products table and map the new file.
+     *
+     * @return The number of tags in the index
+     */
+    public synchronized int rebuild() {
+        MappedRfidTagIndex.Builder builder = new MappedRfidTagIndex.Builder();
+        jdbcTemplate.query("SELECT rfidtag, id FROM products",
+                resultSet -> {
+                    builder.add(resultSet.getString(1), resultSet.getString(2));
+                });
+        try {
+            long start = System.nanoTime();
+            int tags = builder.write(path);
+            index = MappedRfidTagIndex.open(path);
+            logger.info("Built RFID tag index with {} tags in {} ms ({} tags skipped)",
+                    tags, (System.nanoTime() - start) / 1_000_000, builder.getSkipped());
+            return tags;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to build RFID tag index " + path, e);
+        }
+    }
+
+    /**
+     * Find the ID of the product a tag belonged to when the index was built. Does not allocate.
+     *
+     * @param rfidTag The RFID tag
+     * @return The product ID, or null if the index is not loaded or does not contain the tag
+     */
+    public String findProductId(String rfidTag) {
+        MappedRfidTagIndex current = index;
+        return current != null ? current.findProductId(rfidTag) : null;
+    }
+
+    /**
+     * Check whether an index is loaded.
+     *
+     * @return true if lookups are answered from an index file
+     */
+    public boolean isLoaded() {
+        return index != null;
+    }
+}
@@ -0,0 +1,228 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The change between two snapshots of a shopping session, expressed as deltas that can be
+ * applied to the stored rows with arithmetic in SQL: a quantity delta per basket line and
+ * subtotal, discount and tax deltas for the running total. Deltas for the same session commute,
+ * except that a repriced line carries its new price, which replaces the stored one.
+ */
+public class SessionDelta {
+
+    private final String sessionId;
+    private final BigDecimal subtotalDelta;
+    private final BigDecimal discountDelta;
+    private final BigDecimal taxDelta;
+    private final String status;
+    private final long version;
+    private final LocalDateTime lastUpdatedAt;
+    private final List<LineDelta> lines;
+
+    /**
+     * Constructor for SessionDelta, for a change that leaves the discount alone.
+     *
+     * @param sessionId The shopping session ID
+     * @param subtotalDelta The amount to add to the stored subtotal
+     * @param taxDelta The amount to add to the stored tax
+     * @param status The new status, or null if the status did not change
+     * @param version The session version after the change
+     * @param lastUpdatedAt The time of the latest change
+     * @param lines The quantity deltas of the changed basket lines
+     */
+    public SessionDelta(String sessionId, BigDecimal subtotalDelta, BigDecimal taxDelta, String status, long version,
+                        LocalDateTime lastUpdatedAt, List<LineDelta> lines) {
+        this(sessionId, subtotalDelta, BigDecimal.ZERO, taxDelta, status, version, lastUpdatedAt, lines);
+    }
+
+    /**
+     * Constructor for SessionDelta.
+     *
+     * @param sessionId The shopping session ID
+     * @param subtotalDelta The amount to add to the stored subtotal
+     * @param discountDelta The amount to add to the stored discount
+     * @param taxDelta The amount to add to the stored tax
+     * @param status The new status, or null if the status did not change
+     * @param version The session version after the change
+     * @param lastUpdatedAt The time of the latest change
+     * @param lines The quantity deltas of the changed basket lines
+     */
+    public SessionDelta(String sessionId, BigDecimal subtotalDelta, BigDecimal discountDelta, BigDecimal taxDelta,
+                        String status, long version, LocalDateTime lastUpdatedAt, List<LineDelta> lines) {
+        this.sessionId = sessionId;
+        this.subtotalDelta = subtotalDelta;
+        this.discountDelta = discountDelta;
+        this.taxDelta = taxDelta;
+        this.status = status;
+        this.version = version;
+        this.lastUpdatedAt = lastUpdatedAt;
+        this.lines = lines;
+    }
+
+    /**
+     * Compute the delta that turns the stored state of a session into its current state.
+     *
+     * @param stored The snapshot of the session as it is stored in the database
+     * @param current The snapshot of the session as it is now
+     * @return The session delta
+     */
+    public static SessionDelta between(ShoppingSessionSnapshot stored, ShoppingSessionSnapshot current) {
+        Map<String, ShoppingSessionSnapshot.Line> storedLines = new HashMap<>();
+        for (ShoppingSessionSnapshot.Line line : stored.getItems()) {
+            storedLines.put(line.getId(), line);
+        }
+
+        List<LineDelta> lines = new ArrayList<>();
+        for (ShoppingSessionSnapshot.Line line : current.getItems()) {
+            ShoppingSessionSnapshot.Line storedLine = storedLines.remove(line.getId());
+            int quantityDelta = line.getQuantity() - (storedLine != null ? storedLine.getQuantity() : 0);
+            boolean repriced = storedLine != null && line.getPrice().compareTo(storedLine.getPrice()) != 0;
+            if (quantityDelta != 0 || repriced) {
+                lines.add(new LineDelta(line.getId(), line.getProductId(), line.getPrice(), line.getAddedAt(),
+                        quantityDelta, line.getChangedVersion(), line.getSerial(), line.getCatalogVersion(), repriced));
+            }
+        }
+        // Lines that are gone from the basket are decremented to zero and deleted
+        for (ShoppingSessionSnapshot.Line line : storedLines.values()) {
+            lines.add(new LineDelta(line.getId(), line.getProductId(), line.getPrice(), line.getAddedAt(),
+                    -line.getQuantity(), current.getVersion(), line.getSerial(), line.getCatalogVersion()));
+        }
+
+        return new SessionDelta(
+                current.getId(),
+                current.getSubtotal().subtract(stored.getSubtotal()),
+                current.getDiscount().subtract(stored.getDiscount()),
+                current.getTax().subtract(stored.getTax()),
+                Objects.equals(stored.getStatus(), current.getStatus()) ? null : current.getStatus(),
+                current.getVersion(),
+                current.getLastUpdatedAt(),
+                lines
+        );
+    }
+
+    /**
+     * Check whether applying this delta would change anything but the last-updated time and version.
+     *
+     * @return true if the delta has no line, subtotal, discount, tax or status change
+     */
+    public boolean isEmpty() {
+        return lines.isEmpty() && subtotalDelta.signum() == 0 && discountDelta.signum() == 0 && taxDelta.signum() == 0
+                && status == null;
+    }
+
+    // Getters
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public BigDecimal getSubtotalDelta() {
+        return subtotalDelta;
+    }
+
+    public BigDecimal getDiscountDelta() {
+        return discountDelta;
+    }
+
+    public BigDecimal getTaxDelta() {
+        return taxDelta;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getLastUpdatedAt() {
+        return lastUpdatedAt;
+    }
+
+    public List<LineDelta> getLines() {
+        return lines;
+    }
+
+    /**
+     * The quantity change of a single basket line. The product, price, added time, serial and catalog version
+     * are carried so the line can be inserted if it is not stored yet. A stored line that was repriced
+     * also has its price replaced.
+     */
+    public static class LineDelta {
+
+        private final String itemId;
+        private final String productId;
+        private final BigDecimal price;
+        private final LocalDateTime addedAt;
+        private final int quantityDelta;
+        private final long changedVersion;
+        private final String serial;
+        private final long catalogVersion;
+        private final boolean repriced;
+
+        public LineDelta(String itemId, String productId, BigDecimal price, LocalDateTime addedAt, int quantityDelta, long changedVersion) {
+            this(itemId, productId, price, addedAt, quantityDelta, changedVersion, null, 0);
+        }
+
+        public LineDelta(String itemId, String productId, BigDecimal price, LocalDateTime addedAt, int quantityDelta,
+                         long changedVersion, String serial, long catalogVersion) {
+            this(itemId, productId, price, addedAt, quantityDelta, changedVersion, serial, catalogVersion, false);
+        }
+
+        public LineDelta(String itemId, String productId, BigDecimal price, LocalDateTime addedAt, int quantityDelta,
+                         long changedVersion, String serial, long catalogVersion, boolean repriced) {
+            this.itemId = itemId;
+            this.productId = productId;
+            this.price = price;
+            this.addedAt = addedAt;
+            this.quantityDelta = quantityDelta;
+            this.changedVersion = changedVersion;
+            this.serial = serial;
+            this.catalogVersion = catalogVersion;
+            this.repriced = repriced;
+        }
+
+        // Getters
+        public String getItemId() {
+            return itemId;
+        }
+
+        public String getProductId() {
+            return productId;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public LocalDateTime getAddedAt() {
+            return addedAt;
+        }
+
+        public int getQuantityDelta() {
+            return quantityDelta;
+        }
+
+        public long getChangedVersion() {
+            return changedVersion;
+        }
+
+        public String getSerial() {
+            return serial;
+        }
+
+        public long getCatalogVersion() {
+            return catalogVersion;
+        }
+
+        public boolean isRepriced() {
+            return repriced;
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Append-only local journal of shopping session writes that have not been flushed to the database yet.
+ * Every save is appended as one JSON line; on startup the journal is replayed so sessions survive a crash
+ * between a write and its asynchronous flush. The journal is truncated once all writes are flushed.
+ * <p>
+ * Entries are serialized on the calling thread and handed to a single writer thread, which writes
+ * everything queued so far with one write, and one force when fsync is on. A caller waits until its
+ * entry is written, so an append is as durable as before, but no lock is shared between baskets while
+ * entries are serialized or written. Truncation is queued behind the entries appended before it.
+ */
+@Component
+public class SessionJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionJournal.class);
+
+    private static final String OP_SAVE = "SAVE";
+    private static final String OP_DELETE = "DELETE";
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path path;
+    private final boolean fsync;
+    private final BlockingQueue<Command> queue;
+    private final Thread writer;
+
+    // Only used by the writer thread once it is started
+    private FileChannel channel;
+    private volatile boolean closed;
+
+    /**
+     * Constructor for SessionJournal.
+     *
+     * @param objectMapper The object mapper used to serialize journal entries
+     * @param enabled Whether the journal is enabled
+     * @param path The location of the journal file
+     * @param fsync Whether to force every append to disk
+     * @param queueCapacity The maximum number of entries waiting for the writer; appends wait while it is full
+     */
+    public SessionJournal(ObjectMapper objectMapper,
+                          @Value("${app.sessions.journal.enabled:true}") boolean enabled,
+                          @Value("${app.sessions.journal.path:data/session-journal.log}") String path,
+                          @Value("${app.sessions.journal.fsync:false}") boolean fsync,
+                          @Value("${app.sessions.journal.queue-capacity:10000}") int queueCapacity) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.path = Paths.get(path);
+        this.fsync = fsync;
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, queueCapacity));
+        this.writer = new Thread(this::writeQueued, "session-journal-writer");
+        this.writer.setDaemon(true);
+        if (enabled) {
+            writer.start();
+        }
+    }
+
+    /**
+     * Append a saved session to the journal. Returns once the entry is written.
+     *
+     * @param snapshot The snapshot of the saved session
+     */
+    public void appendSave(ShoppingSessionSnapshot snapshot) {
+        append(new Entry(OP_SAVE, snapshot.getId(), snapshot));
+    }
+
+    /**
+     * Append a deleted session to the journal. Returns once the entry is written.
+     *
+     * @param sessionId The ID of the deleted session
+     */
+    public void appendDelete(String sessionId) {
+        append(new Entry(OP_DELETE, sessionId, null));
+    }
+
+    /**
+     * Read the journal and return the latest snapshot of every session it contains.
+     * Sessions whose last entry is a delete are left out. A torn last line is skipped.
+     *
+     * @return The latest snapshot of each journaled session
+     */
+    public Collection<ShoppingSessionSnapshot> replay() {
+        Map<String, ShoppingSessionSnapshot> latest = new LinkedHashMap<>();
+        if (!enabled || !Files.exists(path)) {
+            return latest.values();
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Entry entry;
+                try {
+                    entry = objectMapper.readValue(line, Entry.class);
+                } catch (IOException e) {
+                    logger.warn("Skipping unreadable session journal entry: {}", e.getMessage());
+                    continue;
+                }
+                if (OP_DELETE.equals(entry.getOp())) {
+                    latest.remove(entry.getSessionId());
+                } else {
+                    latest.remove(entry.getSessionId());
+                    latest.put(entry.getSessionId(), entry.getSession());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay session journal " + path, e);
+        }
+        return latest.values();
+    }
+
+    /**
+     * Discard all journal entries. Called once every journaled write has been flushed.
+     * Equivalent to {@code truncateIf(() -> true)}.
+     */
+    public void truncate() {
+        truncateIf(() -> true);
+    }
+
+    /**
+     * Discard all journal entries if a condition holds once every entry appended before this call
+     * is written. Returns once the journal is truncated, or the condition did not hold.
+     * The file is opened if nothing was appended since startup, so entries that were replayed and
+     * then flushed are not replayed again over newer database state on the next start.
+     *
+     * @param condition Checked on the writer thread right before truncating
+     */
+    public void truncateIf(BooleanSupplier condition) {
+        if (!enabled || closed) {
+            return;
+        }
+        await(submit(new Command(null, condition)));
+    }
+
+    /**
+     * Write the entries still queued, stop the writer thread and close the journal file.
+     */
+    @PreDestroy
+    public void close() {
+        if (!enabled || closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(Command.STOP);
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void append(Entry entry) {
+        if (!enabled) {
+            return;
+        }
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(entry);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize session journal entry for " + entry.getSessionId(), e);
+        }
+        ByteBuffer line = ByteBuffer.allocate(json.length + 1);
+        line.put(json).put((byte) '\n').flip();
+        await(submit(new Command(line, null)));
+    }
+
+    private CompletableFuture<Void> submit(Command command) {
+        if (closed) {
+            throw new IllegalStateException("Session journal is closed: " + path);
+        }
+        try {
+            queue.put(command);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing a session journal entry", e);
+        }
+        return command.done;
+    }
+
+    private static void await(CompletableFuture<Void> done) {
+        try {
+            done.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The writer thread: takes everything queued, writes the entries with one gathering write and one
+     * force, then completes them. The entries queued before a truncation are written before it.
+     */
+    private void writeQueued() {
+        List<Command> batch = new ArrayList<>();
+        List<Command> lines = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                for (Command command : batch) {
+                    if (command == Command.STOP) {
+                        writeLines(lines);
+                        closeChannel();
+                        failQueued();
+                        return;
+                    }
+                    if (command.line != null) {
+                        lines.add(command);
+                        continue;
+                    }
+                    writeLines(lines);
+                    try {
+                        if (command.condition.getAsBoolean()) {
+                            truncateChannel();
+                        }
+                        command.done.complete(null);
+                    } catch (RuntimeException e) {
+                        command.done.completeExceptionally(e);
+                    }
+                }
+                writeLines(lines);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            failQueued();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Write the lines of the given entries and complete them.
+     */
+    private void writeLines(List<Command> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        ByteBuffer[] buffers = new ByteBuffer[lines.size()];
+        long remaining = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = lines.get(i).line;
+            remaining += buffers[i].remaining();
+        }
+        RuntimeException failure = null;
+        try {
+            FileChannel out = channel();
+            while (remaining > 0) {
+                remaining -= out.write(buffers);
+            }
+            if (fsync) {
+                out.force(false);
+            }
+        } catch (IOException e) {
+            failure = new UncheckedIOException("Failed to append to session journal " + path, e);
+        }
+        for (Command command : lines) {
+            if (failure == null) {
+                command.done.complete(null);
+            } else {
+                command.done.completeExceptionally(failure);
+            }
+        }
+        lines.clear();
+    }
+
+    /**
+     * Fail the entries queued after the writer stopped, so no caller waits for them forever.
+     */
+    private void failQueued() {
+        List<Command> left = new ArrayList<>();
+        queue.drainTo(left);
+        for (Command command : left) {
+            command.done.completeExceptionally(new IllegalStateException("Session journal is closed: " + path));
+        }
+    }
+
+    private void truncateChannel() {
+        if (channel == null && !Files.exists(path)) {
+            return;
+        }
+        try {
+            channel().truncate(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to truncate session journal " + path, e);
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close session journal {}", path, e);
+        }
+        channel = null;
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    /**
+     * A line to append, or a truncation to apply in queue order.
+     */
+    private static final class Command {
+
+        private static final Command STOP = new Command(null, null);
+
+        private final ByteBuffer line;
+        private final BooleanSupplier condition;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Command(ByteBuffer line, BooleanSupplier condition) {
+            this.line = line;
+            this.condition = condition;
+        }
+    }
+
+    /**
+     * A single journal line.
+     */
+    public static class Entry {
+
+        private String op;
+        private String sessionId;
+        private ShoppingSessionSnapshot session;
+
+        // Default constructor required by Jackson
+        public Entry() {
+        }
+
+        public Entry(String op, String sessionId, ShoppingSessionSnapshot session) {
+            this.op = op;
+            this.sessionId = sessionId;
+            this.session = session;
+        }
+
+        // Getters and setters
+        public String getOp() {
+            return op;
+        }
+
+        public void setOp(String op) {
+            this.op = op;
+        }
+
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        public void setSessionId(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        public ShoppingSessionSnapshot getSession() {
+            return session;
+        }
+
+        public void setSession(ShoppingSessionSnapshot session) {
+            this.session = session;
+        }
+    }
+}
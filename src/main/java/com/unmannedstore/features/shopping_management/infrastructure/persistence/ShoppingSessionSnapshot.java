@@ -0,0 +1,306 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import com.unmannedstore.features.shopping_management.domain.model.BasketItem;
+import com.unmannedstore.features.shopping_management.domain.model.Money;
+import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.domain.model.RunningTotal;
+import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
+import com.unmannedstore.features.shopping_management.domain.model.TaxTable;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Point-in-time copy of a shopping session, used for the session journal and for write-behind flushes.
+ * Basket lines reference products by ID only, so a snapshot can be written to disk and replayed.
+ */
+public class ShoppingSessionSnapshot {
+
+    private String id;
+    private String customerId;
+    private String storeId;
+    private String basketId;
+    private LocalDateTime startedAt;
+    private LocalDateTime lastUpdatedAt;
+    private String status;
+    private long version;
+    private BigDecimal subtotal;
+    private BigDecimal discount;
+    private BigDecimal tax;
+    private List<Line> items;
+
+    // Default constructor required by Jackson
+    public ShoppingSessionSnapshot() {
+    }
+
+    /**
+     * Capture the current state of a shopping session.
+     * The caller must hold the session's monitor so the copy is consistent.
+     *
+     * @param session The shopping session
+     * @return The snapshot
+     */
+    public static ShoppingSessionSnapshot of(ShoppingSession session) {
+        ShoppingSessionSnapshot snapshot = new ShoppingSessionSnapshot();
+        snapshot.id = session.getId();
+        snapshot.customerId = session.getCustomerId();
+        snapshot.storeId = session.getStoreId();
+        snapshot.basketId = session.getBasketId();
+        snapshot.startedAt = session.getStartedAt();
+        snapshot.lastUpdatedAt = session.getLastUpdatedAt();
+        snapshot.status = session.getStatus();
+        snapshot.version = session.getVersion();
+        snapshot.subtotal = session.getRunningTotal().getSubtotal().toBigDecimal();
+        snapshot.discount = session.getRunningTotal().getDiscount().toBigDecimal();
+        snapshot.tax = session.getRunningTotal().getTax().toBigDecimal();
+        snapshot.items = new ArrayList<>(session.getItems().size());
+        for (BasketItem item : session.getItems()) {
+            Line line = new Line();
+            line.id = item.getId();
+            line.productId = item.getProduct().getId();
+            line.quantity = item.getQuantity();
+            line.price = item.getPrice().toBigDecimal();
+            line.addedAt = item.getAddedAt();
+            line.changedVersion = item.getChangedVersion();
+            line.serial = item.getSerial();
+            line.catalogVersion = item.getCatalogVersion();
+            snapshot.items.add(line);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Build a shopping session from this snapshot.
+     *
+     * @param productResolver Resolves a product ID to the product the basket line should reference
+     * @return The shopping session, or null if a referenced product could not be resolved
+     */
+    public ShoppingSession toSession(Function<String, Product> productResolver) {
+        List<BasketItem> basketItems = new ArrayList<>(items.size());
+        for (Line line : items) {
+            Product product = productResolver.apply(line.productId);
+            if (product == null) {
+                return null;
+            }
+            BasketItem item = new BasketItem();
+            item.setId(line.id);
+            item.setProduct(product);
+            item.setPrice(Money.of(line.price));
+            item.setQuantity(line.quantity);
+            item.setAddedAt(line.addedAt);
+            item.setChangedVersion(line.changedVersion);
+            item.setSerial(line.serial);
+            item.setCatalogVersion(line.catalogVersion);
+            item.setShoppingSessionId(id);
+            basketItems.add(item);
+        }
+
+        ShoppingSession session = new ShoppingSession();
+        session.setId(id);
+        session.setCustomerId(customerId);
+        session.setStoreId(storeId);
+        session.setBasketId(basketId);
+        session.setStartedAt(startedAt);
+        session.setLastUpdatedAt(lastUpdatedAt);
+        session.setStatus(status);
+        session.setVersion(version);
+        session.setRunningTotal(new RunningTotal(Money.of(subtotal), Money.of(getDiscount()), Money.of(getTax())));
+        session.setItems(basketItems);
+        return session;
+    }
+
+    // Getters and setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(String customerId) {
+        this.customerId = customerId;
+    }
+
+    public String getStoreId() {
+        return storeId;
+    }
+
+    public void setStoreId(String storeId) {
+        this.storeId = storeId;
+    }
+
+    public String getBasketId() {
+        return basketId;
+    }
+
+    public void setBasketId(String basketId) {
+        this.basketId = basketId;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getLastUpdatedAt() {
+        return lastUpdatedAt;
+    }
+
+    public void setLastUpdatedAt(LocalDateTime lastUpdatedAt) {
+        this.lastUpdatedAt = lastUpdatedAt;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public BigDecimal getSubtotal() {
+        return subtotal;
+    }
+
+    public void setSubtotal(BigDecimal subtotal) {
+        this.subtotal = subtotal;
+    }
+
+    /**
+     * Get the discount. Snapshots journalled before discounts were stored have none.
+     *
+     * @return The discount
+     */
+    public BigDecimal getDiscount() {
+        return discount != null ? discount : BigDecimal.ZERO;
+    }
+
+    public void setDiscount(BigDecimal discount) {
+        this.discount = discount;
+    }
+
+    /**
+     * Get the tax. Snapshots journalled before tax was stored were taxed at the default rate.
+     *
+     * @return The tax
+     */
+    public BigDecimal getTax() {
+        if (tax != null) {
+            return tax;
+        }
+        BigDecimal taxable = subtotal.subtract(getDiscount()).max(BigDecimal.ZERO);
+        return taxable.multiply(TaxTable.DEFAULT_RATE).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    public void setTax(BigDecimal tax) {
+        this.tax = tax;
+    }
+
+    public List<Line> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Line> items) {
+        this.items = items;
+    }
+
+    /**
+     * Copy of a single basket line.
+     */
+    public static class Line {
+
+        private String id;
+        private String productId;
+        private Integer quantity;
+        private BigDecimal price;
+        private LocalDateTime addedAt;
+        private long changedVersion;
+        private String serial;
+        private long catalogVersion;
+
+        // Getters and setters
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getProductId() {
+            return productId;
+        }
+
+        public void setProductId(String productId) {
+            this.productId = productId;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public void setPrice(BigDecimal price) {
+            this.price = price;
+        }
+
+        public LocalDateTime getAddedAt() {
+            return addedAt;
+        }
+
+        public void setAddedAt(LocalDateTime addedAt) {
+            this.addedAt = addedAt;
+        }
+
+        public long getChangedVersion() {
+            return changedVersion;
+        }
+
+        public void setChangedVersion(long changedVersion) {
+            this.changedVersion = changedVersion;
+        }
+
+        public String getSerial() {
+            return serial;
+        }
+
+        public void setSerial(String serial) {
+            this.serial = serial;
+        }
+
+        public long getCatalogVersion() {
+            return catalogVersion;
+        }
+
+        public void setCatalogVersion(long catalogVersion) {
+            this.catalogVersion = catalogVersion;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+-- Archive tables for finished shopping sessions
+-- The live tables are created by Hibernate; finished sessions are moved here by the session archiver
+
+CREATE TABLE IF NOT EXISTS shopping_sessions_archive (
+    id VARCHAR(255) PRIMARY KEY,
+    customer_id VARCHAR(255) NOT NULL,
+    store_id VARCHAR(255) NOT NULL,
+    basket_id VARCHAR(255) NOT NULL,
+    started_at TIMESTAMP(6) NOT NULL,
+    last_updated_at TIMESTAMP(6) NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    version BIGINT NOT NULL,
+    subtotal NUMERIC(38,2) NOT NULL,
+    discount NUMERIC(38,2) NOT NULL,
+    tax NUMERIC(38,2) NOT NULL,
+    total NUMERIC(38,2) NOT NULL,
+    archived_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_shopping_sessions_archive_basket_id ON shopping_sessions_archive (basket_id);
+
+CREATE TABLE IF NOT EXISTS basket_items_archive (
+    id VARCHAR(255) PRIMARY KEY,
+    product_id VARCHAR(255) NOT NULL,
+    quantity INTEGER NOT NULL,
+    price NUMERIC(38,2) NOT NULL,
+    added_at TIMESTAMP(6) NOT NULL,
+    shopping_session_id VARCHAR(255) NOT NULL,
+    changed_version BIGINT NOT NULL,
+    serial VARCHAR(255),
+    catalog_version BIGINT NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_basket_items_archive_session ON basket_items_archive (shopping_session_id);
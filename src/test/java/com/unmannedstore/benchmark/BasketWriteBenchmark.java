@@ -0,0 +1,190 @@
+package com.unmannedstore.benchmark;
+
+import com.unmannedstore.features.shopping_management.infrastructure.persistence.JdbcBasketDeltaWriter;
+import com.unmannedstore.features.shopping_management.infrastructure.persistence.SessionDelta;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for writing one RFID scan to the database against an in-memory H2 database.
+ * Compares loading the whole session graph and rewriting it, which is what a JPA merge of
+ * the session does, with applying the scan as a quantity and running-total delta.
+ * The statements and rows counters report the database work per scan.
+ *
+ * Run with: mvn test-compile, then run the main method of this class with the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BasketWriteBenchmark {
+
+    private static final String SESSION_ID = "bench-session";
+    private static final String ITEM_ID = "bench-item-0";
+
+    @Param({"1", "10", "100"})
+    private int lines;
+
+    private CountingJdbcTemplate jdbcTemplate;
+    private JdbcBasketDeltaWriter deltaWriter;
+    private SessionDelta scan;
+    private SessionDelta unscan;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new CountingJdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE products (id VARCHAR(255) PRIMARY KEY, name VARCHAR(255) NOT NULL, "
+                + "price NUMERIC(38,2) NOT NULL, rfidtag VARCHAR(255) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE shopping_sessions (id VARCHAR(255) PRIMARY KEY, customer_id VARCHAR(255) NOT NULL, "
+                + "store_id VARCHAR(255) NOT NULL, basket_id VARCHAR(255) NOT NULL, started_at TIMESTAMP(6) NOT NULL, "
+                + "last_updated_at TIMESTAMP(6) NOT NULL, status VARCHAR(255) NOT NULL, version BIGINT NOT NULL, subtotal NUMERIC(38,2) NOT NULL, discount NUMERIC(38,2) NOT NULL, "
+                + "tax NUMERIC(38,2) NOT NULL, total NUMERIC(38,2) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE basket_items (id VARCHAR(255) PRIMARY KEY, product_id VARCHAR(255) NOT NULL, "
+                + "quantity INTEGER NOT NULL, price NUMERIC(38,2) NOT NULL, added_at TIMESTAMP(6) NOT NULL, "
+                + "shopping_session_id VARCHAR(255) NOT NULL, changed_version BIGINT NOT NULL, serial VARCHAR(255), "
+                + "catalog_version BIGINT NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX basket_items_session ON basket_items (shopping_session_id)");
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO shopping_sessions VALUES (?, 'bench-customer', 'bench-store', 'bench-basket', ?, ?, 'ACTIVE', 0, 0, 0, 0, 0)",
+                SESSION_ID, now, now);
+        for (int i = 0; i < lines; i++) {
+            jdbcTemplate.update("INSERT INTO products VALUES (?, ?, 1.99, ?)", "p" + i, "Product " + i, "rfid-" + i);
+            jdbcTemplate.update("INSERT INTO basket_items VALUES (?, ?, 1, 1.99, ?, ?, 0, NULL, 0)", "bench-item-" + i, "p" + i, now, SESSION_ID);
+        }
+
+        deltaWriter = new JdbcBasketDeltaWriter(jdbcTemplate);
+        LocalDateTime addedAt = now.toLocalDateTime();
+        scan = new SessionDelta(SESSION_ID, new BigDecimal("1.99"), new BigDecimal("0.16"), null, 1, addedAt,
+                List.of(new SessionDelta.LineDelta(ITEM_ID, "p0", new BigDecimal("1.99"), addedAt, 1, 1)));
+        unscan = new SessionDelta(SESSION_ID, new BigDecimal("-1.99"), new BigDecimal("-0.16"), null, 2, addedAt,
+                List.of(new SessionDelta.LineDelta(ITEM_ID, "p0", new BigDecimal("1.99"), addedAt, -1, 2)));
+    }
+
+    /**
+     * Write a scan and its undo the way a JPA merge does: load the session with all lines and
+     * their products, then update the session row and the changed line.
+     */
+    @Benchmark
+    public int loadAndRewriteScan(Counters counters) {
+        jdbcTemplate.counters = counters;
+        return loadAndRewrite(1) + loadAndRewrite(-1);
+    }
+
+    /**
+     * Write a scan and its undo as deltas with arithmetic in SQL.
+     */
+    @Benchmark
+    public int deltaScan(Counters counters) {
+        jdbcTemplate.counters = counters;
+        return deltaWriter.apply(List.of(scan)) + deltaWriter.apply(List.of(unscan));
+    }
+
+    private int loadAndRewrite(int quantityDelta) {
+        Map<String, Object> session = jdbcTemplate.queryForMap(
+                "SELECT * FROM shopping_sessions WHERE id = ?", SESSION_ID);
+        List<Map<String, Object>> items = jdbcTemplate.queryForList(
+                "SELECT i.id, i.quantity, i.price, i.added_at, p.id AS product_id, p.name, p.price AS product_price, p.rfidtag "
+                        + "FROM basket_items i JOIN products p ON p.id = i.product_id WHERE i.shopping_session_id = ?",
+                SESSION_ID);
+        int quantity = 0;
+        for (Map<String, Object> item : items) {
+            if (ITEM_ID.equals(item.get("ID"))) {
+                quantity = ((Number) item.get("QUANTITY")).intValue();
+            }
+        }
+        BigDecimal subtotal = ((BigDecimal) session.get("SUBTOTAL")).add(new BigDecimal("1.99").multiply(BigDecimal.valueOf(quantityDelta)));
+        BigDecimal tax = subtotal.multiply(new BigDecimal("0.0825")).setScale(2, RoundingMode.HALF_UP);
+        return jdbcTemplate.update("UPDATE shopping_sessions SET subtotal = ?, tax = ?, total = ?, last_updated_at = ? WHERE id = ?",
+                subtotal, tax, subtotal.add(tax), Timestamp.valueOf(LocalDateTime.now()), SESSION_ID)
+                + jdbcTemplate.update("UPDATE basket_items SET quantity = ? WHERE id = ?", quantity + quantityDelta, ITEM_ID);
+    }
+
+    /**
+     * Statements executed and rows read or written, reported per benchmark operation.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+
+        public long statements;
+        public long rows;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            statements = 0;
+            rows = 0;
+        }
+    }
+
+    /**
+     * JDBC template that counts the statements it executes and the rows they touch.
+     */
+    private static class CountingJdbcTemplate extends JdbcTemplate {
+
+        private Counters counters = new Counters();
+
+        private CountingJdbcTemplate(DriverManagerDataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            int updated = super.update(sql, args);
+            counters.statements++;
+            counters.rows += updated;
+            return updated;
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            int[] updated = super.batchUpdate(sql, batchArgs);
+            counters.statements += batchArgs.size();
+            for (int count : updated) {
+                counters.rows += Math.max(count, 0);
+            }
+            return updated;
+        }
+
+        @Override
+        public Map<String, Object> queryForMap(String sql, Object... args) {
+            Map<String, Object> row = super.queryForMap(sql, args);
+            counters.statements++;
+            counters.rows++;
+            return row;
+        }
+
+        @Override
+        public List<Map<String, Object>> queryForList(String sql, Object... args) {
+            List<Map<String, Object>> result = super.queryForList(sql, args);
+            counters.statements++;
+            counters.rows += result.size();
+            return result;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BasketWriteBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
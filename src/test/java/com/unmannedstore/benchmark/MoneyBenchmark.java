@@ -0,0 +1,91 @@
+package com.unmannedstore.benchmark;
+
+import com.unmannedstore.features.shopping_management.domain.model.LedgerEntry;
+import com.unmannedstore.features.shopping_management.domain.model.Money;
+import com.unmannedstore.features.shopping_management.domain.model.RunningTotal;
+import com.unmannedstore.features.shopping_management.domain.model.TaxTable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmark comparing the running total arithmetic of a scan in {@link BigDecimal}, as baskets
+ * were priced before, with the {@link Money} long arithmetic they are priced in now.
+ * Each operation adds a unit to the running total and takes it off again, recalculating tax and total.
+ * Run with -prof gc to compare the allocation per scan (gc.alloc.rate.norm) next to the throughput.
+ *
+ * Run with: mvn test-compile, then run the main method of this class with the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    @Param({"1.99", "249.95"})
+    private String price;
+
+    private BigDecimal decimalPrice;
+    private BigDecimal decimalSubtotal;
+    private BigDecimal decimalTax;
+    private BigDecimal decimalTotal;
+
+    private LedgerEntry scan;
+    private LedgerEntry unscan;
+    private RunningTotal runningTotal;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        decimalPrice = new BigDecimal(price);
+        decimalSubtotal = decimalPrice.multiply(BigDecimal.TEN);
+        decimalTax = BigDecimal.ZERO;
+        decimalTotal = decimalSubtotal;
+
+        Money unitPrice = Money.of(decimalPrice);
+        long lineTax = unitPrice.taxAt(TaxTable.DEFAULT_RATE_MILLIONTHS);
+        scan = LedgerEntry.of(unitPrice.getMinorUnits(), lineTax, 0);
+        unscan = LedgerEntry.of(-unitPrice.getMinorUnits(), -lineTax, 0);
+        runningTotal = new RunningTotal(unitPrice.times(10));
+    }
+
+    /**
+     * Scan and unscan a unit with BigDecimal amounts, rescaling the tax on every change.
+     */
+    @Benchmark
+    public BigDecimal scanBigDecimal() {
+        recalculate(decimalSubtotal.add(decimalPrice));
+        recalculate(decimalSubtotal.subtract(decimalPrice).max(BigDecimal.ZERO));
+        return decimalTotal;
+    }
+
+    /**
+     * Scan and unscan a unit with Money amounts, posting a ledger entry for each change.
+     */
+    @Benchmark
+    public Money scanMoney() {
+        runningTotal.post(scan);
+        runningTotal.post(unscan);
+        return runningTotal.getTotal();
+    }
+
+    private void recalculate(BigDecimal subtotal) {
+        decimalSubtotal = subtotal;
+        decimalTax = subtotal.multiply(TaxTable.DEFAULT_RATE).setScale(2, RoundingMode.HALF_UP);
+        decimalTotal = subtotal.add(decimalTax);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MoneyBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,109 @@
+package com.unmannedstore.benchmark;
+
+import com.unmannedstore.features.shopping_management.domain.model.ProductSummary;
+import com.unmannedstore.features.shopping_management.domain.service.ProductSearchIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for product search against the in-memory index, on a synthetic catalog whose names and
+ * descriptions are drawn from a vocabulary of made-up words. Queries are exact words, three-letter
+ * prefixes, words with a typo and a word plus a category, in equal parts.
+ * <p>
+ * Run with -prof gc to see the allocation per search, and in SampleTime mode for the latency percentiles.
+ *
+ * Run with: mvn test-compile, then run the main method of this class with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class ProductSearchBenchmark {
+
+    private static final String[] CATEGORIES = {"dairy", "bakery", "snacks", "drinks", "produce", "frozen", "household", "beauty"};
+
+    @Param({"10000", "100000"})
+    private int products;
+
+    private ProductSearchIndex index;
+    private String[] queries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        String[] words = new String[5000];
+        for (int i = 0; i < words.length; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 4 + random.nextInt(7);
+            for (int j = 0; j < length; j++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            words[i] = word.toString();
+        }
+
+        index = new ProductSearchIndex();
+        for (int i = 0; i < products; i++) {
+            String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+            StringBuilder description = new StringBuilder();
+            for (int j = 0; j < 12; j++) {
+                description.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            index.put(new ProductSummary("p" + i, name, new BigDecimal("1.99"), "tag-" + i, null,
+                    description.toString(), CATEGORIES[i % CATEGORIES.length], null));
+        }
+
+        queries = new String[1024];
+        for (int i = 0; i < queries.length; i++) {
+            String word = words[random.nextInt(words.length)];
+            int kind = i % 4;
+            if (kind == 0) {
+                queries[i] = word;
+            } else if (kind == 1) {
+                queries[i] = word.substring(0, 3);
+            } else if (kind == 2) {
+                queries[i] = word.charAt(0) + word.substring(2) + "e";
+            } else {
+                queries[i] = word + " " + CATEGORIES[i % CATEGORIES.length];
+            }
+        }
+    }
+
+    /**
+     * Search for the top 20 matches of a query.
+     */
+    @Benchmark
+    public List<ProductSummary> search(Cursor cursor) {
+        return index.search(queries[cursor.next()], 20);
+    }
+
+    /**
+     * Position in the query table, so every operation runs a different query.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int position;
+
+        int next() {
+            position = (position + 1) & 1023;
+            return position;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ProductSearchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,121 @@
+package com.unmannedstore.benchmark;
+
+import com.unmannedstore.features.shopping_management.domain.model.BasketItem;
+import com.unmannedstore.features.shopping_management.domain.model.Money;
+import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.domain.model.Promotion;
+import com.unmannedstore.features.shopping_management.domain.model.PromotionIndex;
+import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmark for pricing a basket with promotions on every RFID read.
+ * A scan re-evaluates only the promotions of the scanned product, so its latency should stay
+ * in the microseconds and flat as the number of lines and active promotions grows.
+ *
+ * Run with: mvn test-compile, then run the main method of this class with the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromotionBenchmark {
+
+    private static final int CATEGORIES = 50;
+
+    @Param({"20", "200"})
+    private int lines;
+
+    @Param({"500", "5000"})
+    private int promotions;
+
+    private ShoppingSession session;
+    private PromotionIndex index;
+    private PromotionIndex otherIndex;
+    private Product lastProduct;
+    private String lastItemId;
+    private long evaluations;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        List<Product> products = new ArrayList<>(promotions);
+        for (int i = 0; i < promotions; i++) {
+            Product product = new Product("p" + i, "Product " + i, new BigDecimal("1.99"), "rfid-" + i);
+            product.setCategory("category-" + (i % CATEGORIES));
+            products.add(product);
+        }
+        index = PromotionIndex.of(1, promotions(products));
+        otherIndex = PromotionIndex.of(2, promotions(products));
+
+        session = new ShoppingSession("bench-customer", "bench-store", "bench-basket");
+        session.applyPromotions(index);
+        BasketItem lastItem = null;
+        for (int i = 0; i < lines; i++) {
+            lastProduct = products.get(i);
+            session.addItem(lastProduct);
+            lastItem = session.addItem(lastProduct);
+        }
+        lastItemId = lastItem.getId();
+    }
+
+    /**
+     * Scan a product that is already in the basket, then undo the scan, repricing the basket each time.
+     */
+    @Benchmark
+    public Money scanWithPromotions() {
+        session.addItem(lastProduct);
+        session.removeItem(lastItemId);
+        return session.getRunningTotal().getTotal();
+    }
+
+    /**
+     * Evaluate the whole basket again, as happens once after the promotions change.
+     */
+    @Benchmark
+    public Money evaluateBasket() {
+        session.applyPromotions((evaluations++ & 1) == 0 ? otherIndex : index);
+        return session.getRunningTotal().getTotal();
+    }
+
+    /**
+     * A mix of promotion types: multi-buys on single products, bundles of neighbouring products,
+     * category percentages, and thresholds.
+     */
+    private List<Promotion> promotions(List<Product> products) {
+        List<Promotion> rules = new ArrayList<>(promotions);
+        for (int i = 0; i < promotions; i++) {
+            String id = "promo-" + i;
+            String productId = products.get(i).getId();
+            String nextProductId = products.get((i + 1) % products.size()).getId();
+            int kind = i % 10;
+            if (kind < 4) {
+                rules.add(Promotion.multiBuy(id, id, List.of(productId), 2, Money.of("3.50")));
+            } else if (kind < 7) {
+                rules.add(Promotion.bundle(id, id, List.of(productId, nextProductId), Money.of("3.00")));
+            } else if (kind < 8) {
+                rules.add(Promotion.categoryPercentage(id, id, "category-" + (i % CATEGORIES), BigDecimal.ONE));
+            } else {
+                rules.add(Promotion.threshold(id, id, Money.ofMinor(i * 100L), Money.ofMinor((i / 100 + 1) * 100L)));
+            }
+        }
+        return rules;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PromotionBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
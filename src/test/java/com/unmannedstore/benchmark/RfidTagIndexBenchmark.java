@@ -0,0 +1,168 @@
+package com.unmannedstore.benchmark;
+
+import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.infrastructure.persistence.MappedRfidTagIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for resolving an RFID tag to its product in a catalog of serialized tags.
+ * Compares the memory-mapped tag index with a heap map holding a product per tag and with a
+ * query per read, which is what the JPA repository does. Each product carries 100 tags.
+ * <p>
+ * The heap each structure retains is printed during setup. Run with -prof gc to see the
+ * allocation per lookup, which is zero for the index.
+ *
+ * Run with: mvn test-compile, then run the main method of this class with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class RfidTagIndexBenchmark {
+
+    private static final int TAGS_PER_PRODUCT = 100;
+
+    @Param({"100000", "1000000"})
+    private int tags;
+
+    private String[] lookups;
+    private MappedRfidTagIndex index;
+    private Map<String, Product> productsByTag;
+    private JdbcTemplate jdbcTemplate;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("rfid-tag-index-benchmark");
+        Path file = directory.resolve("rfid-tag-index.bin");
+        MappedRfidTagIndex.Builder builder = new MappedRfidTagIndex.Builder();
+        for (int i = 0; i < tags; i++) {
+            builder.add(tag(i), "p" + (i / TAGS_PER_PRODUCT));
+        }
+        builder.write(file);
+
+        long before = usedHeap();
+        index = MappedRfidTagIndex.open(file);
+        long indexHeap = usedHeap() - before;
+
+        before = usedHeap();
+        productsByTag = new HashMap<>();
+        for (int i = 0; i < tags; i++) {
+            productsByTag.put(tag(i), new Product("p" + (i / TAGS_PER_PRODUCT), "Product " + i, new BigDecimal("1.99"), tag(i)));
+        }
+        long mapHeap = usedHeap() - before;
+        System.out.printf("%n%d tags: index file %d bytes, index heap %d bytes, product map heap %d bytes%n",
+                tags, Files.size(file), indexHeap, mapHeap);
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE products (id VARCHAR(255) PRIMARY KEY, name VARCHAR(255) NOT NULL, "
+                + "price NUMERIC(38,2) NOT NULL, rfidtag VARCHAR(255) NOT NULL UNIQUE)");
+        List<Object[]> rows = new ArrayList<>(10_000);
+        for (int i = 0; i < tags; i++) {
+            rows.add(new Object[] {"p" + i, "Product " + i, new BigDecimal("1.99"), tag(i)});
+            if (rows.size() == 10_000) {
+                jdbcTemplate.batchUpdate("INSERT INTO products VALUES (?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO products VALUES (?, ?, ?, ?)", rows);
+        }
+
+        lookups = new String[1024];
+        for (int i = 0; i < lookups.length; i++) {
+            lookups[i] = tag((int) ((i * 2_654_435_761L) % tags));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        jdbcTemplate.execute("SHUTDOWN");
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Resolve a tag to its product ID through the memory-mapped index.
+     */
+    @Benchmark
+    public String indexLookup(Cursor cursor) {
+        return index.findProductId(lookups[cursor.next()]);
+    }
+
+    /**
+     * Resolve a tag through a heap map holding a product per tag.
+     */
+    @Benchmark
+    public Product heapMapLookup(Cursor cursor) {
+        return productsByTag.get(lookups[cursor.next()]);
+    }
+
+    /**
+     * Resolve a tag with a query per read, the way the JPA repository does.
+     */
+    @Benchmark
+    public Optional<String> queryLookup(Cursor cursor) {
+        return jdbcTemplate.queryForList("SELECT id FROM products WHERE rfidtag = ?", String.class, lookups[cursor.next()])
+                .stream().findFirst();
+    }
+
+    private static String tag(int i) {
+        return String.format("3034257BF7194E4%09d", i);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Position in the lookup table, so every operation reads a different tag.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int position;
+
+        int next() {
+            position = (position + 1) & 1023;
+            return position;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RfidTagIndexBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
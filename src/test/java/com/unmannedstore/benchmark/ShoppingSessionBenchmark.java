@@ -0,0 +1,83 @@
+package com.unmannedstore.benchmark;
+
+import com.unmannedstore.features.shopping_management.domain.model.BasketItem;
+import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmark for the basket operations run on every RFID read.
+ * Latency should stay flat as the number of lines in the basket grows.
+ *
+ * Run with: mvn test-compile, then run the main method of this class with the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShoppingSessionBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    private int lines;
+
+    private ShoppingSession session;
+    private Product lastProduct;
+    private Product newProduct;
+    private String lastItemId;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        session = new ShoppingSession("bench-customer", "bench-store", "bench-basket");
+        BasketItem lastItem = null;
+        for (int i = 0; i < lines; i++) {
+            lastProduct = new Product("p" + i, "Product " + i, new BigDecimal("1.99"), "rfid-" + i);
+            lastItem = session.addItem(lastProduct);
+        }
+        lastItemId = lastItem.getId();
+        newProduct = new Product("p-new", "New Product", new BigDecimal("2.49"), "rfid-new");
+    }
+
+    /**
+     * Scan a product that is already in the basket, then undo the scan.
+     */
+    @Benchmark
+    public int scanExistingLine() {
+        session.addItem(lastProduct);
+        session.removeItem(lastItemId);
+        return session.getItemCount();
+    }
+
+    /**
+     * Scan a product that opens a new line, then remove that line again.
+     */
+    @Benchmark
+    public int scanNewLine() {
+        BasketItem item = session.addItem(newProduct);
+        session.removeItem(item.getId());
+        return session.getItemCount();
+    }
+
+    /**
+     * Read the item count, as every basket response does.
+     */
+    @Benchmark
+    public int itemCount() {
+        return session.getItemCount();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ShoppingSessionBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
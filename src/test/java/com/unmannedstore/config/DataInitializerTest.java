@@ -2,6 +2,7 @@ package com.unmannedstore.config;
 
 import com.unmannedstore.features.shopping_management.domain.model.Product;
 import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
+import com.unmannedstore.features.shopping_management.domain.repository.ProductBulkRepository;
 import com.unmannedstore.features.shopping_management.domain.repository.ProductRepository;
 import com.unmannedstore.features.shopping_management.domain.repository.ShoppingSessionRepository;
 import org.junit.jupiter.api.Test;
@@ -13,6 +14,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 /**
@@ -27,6 +29,7 @@ public class DataInitializerTest {
     public void testProductsAreLoadedWhenDatabaseIsEmpty() throws Exception {
         // Mock the repositories
         ProductRepository mockProductRepository = Mockito.mock(ProductRepository.class);
+        ProductBulkRepository mockProductBulkRepository = Mockito.mock(ProductBulkRepository.class);
         ShoppingSessionRepository mockSessionRepository = Mockito.mock(ShoppingSessionRepository.class);
 
         // Configure the mocks to return empty lists when findAll() is called
@@ -35,19 +38,20 @@ public class DataInitializerTest {
 
         // Configure the save method to return the same object that was passed to it
         when(mockSessionRepository.save(any(ShoppingSession.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(mockProductRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(mockProductBulkRepository.upsert(anyList())).thenReturn(4);
 
         // Create the DataInitializer
         DataInitializer dataInitializer = new DataInitializer();
 
         // Get the CommandLineRunner bean
-        CommandLineRunner runner = dataInitializer.initDatabase(mockProductRepository, mockSessionRepository);
+        CommandLineRunner runner = dataInitializer.initDatabase(mockProductRepository, mockProductBulkRepository, mockSessionRepository);
 
         // Run the CommandLineRunner
         runner.run();
 
-        // Verify that save() was called 4 times (once for each sample product)
-        verify(mockProductRepository, times(4)).save(any(Product.class));
+        // Verify that the sample products were written in one batch rather than saved one at a time
+        verify(mockProductBulkRepository, times(1)).upsert(anyList());
+        verify(mockProductRepository, never()).save(any(Product.class));
 
         // Verify that a shopping session was created and saved
         verify(mockSessionRepository, times(1)).save(any(ShoppingSession.class));
@@ -60,6 +64,7 @@ public class DataInitializerTest {
     public void testProductsAreNotLoadedWhenDatabaseHasProducts() throws Exception {
         // Mock the repositories
         ProductRepository mockProductRepository = Mockito.mock(ProductRepository.class);
+        ProductBulkRepository mockProductBulkRepository = Mockito.mock(ProductBulkRepository.class);
         ShoppingSessionRepository mockSessionRepository = Mockito.mock(ShoppingSessionRepository.class);
 
         // Create a list with one product
@@ -79,13 +84,14 @@ public class DataInitializerTest {
         DataInitializer dataInitializer = new DataInitializer();
 
         // Get the CommandLineRunner bean
-        CommandLineRunner runner = dataInitializer.initDatabase(mockProductRepository, mockSessionRepository);
+        CommandLineRunner runner = dataInitializer.initDatabase(mockProductRepository, mockProductBulkRepository, mockSessionRepository);
 
         // Run the CommandLineRunner
         runner.run();
 
-        // Verify that save() was never called for products
+        // Verify that no products were written
         verify(mockProductRepository, never()).save(any(Product.class));
+        verify(mockProductBulkRepository, never()).upsert(anyList());
 
         // Verify that save() was never called for sessions
         verify(mockSessionRepository, never()).save(any(ShoppingSession.class));
@@ -0,0 +1,147 @@
+package com.unmannedstore.features.shopping_management.api;
+
+import com.unmannedstore.features.shopping_management.events.ItemAddedEvent;
+import com.unmannedstore.features.shopping_management.events.ItemRemovedEvent;
+import com.unmannedstore.features.shopping_management.events.TotalUpdatedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for the basket update streams.
+ */
+class BasketUpdateBroadcasterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BasketUpdateBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        broadcaster = new BasketUpdateBroadcaster(meterRegistry, 4, 2, 0, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void eventsShouldReachOnlySubscribersOfTheirBasketInOrder() throws Exception {
+        RecordingEmitter basket1 = new RecordingEmitter(3);
+        RecordingEmitter basket2 = new RecordingEmitter(1);
+        broadcaster.subscribe("basket-1", basket1);
+        broadcaster.subscribe("basket-2", basket2);
+
+        broadcaster.onItemAdded(new ItemAddedEvent("basket-1", "p1", "i1", new BigDecimal("2.70")));
+        broadcaster.onTotalUpdated(new TotalUpdatedEvent("basket-1", BigDecimal.ZERO, new BigDecimal("2.70"), 1));
+        broadcaster.onItemRemoved(new ItemRemovedEvent("basket-1", "p1", "i1", BigDecimal.ZERO));
+        broadcaster.onItemAdded(new ItemAddedEvent("basket-2", "p2", "i2", new BigDecimal("1.00")));
+
+        basket1.await();
+        basket2.await();
+        assertEquals(List.of("item_added", "total_updated", "item_removed"), basket1.names);
+        assertEquals(List.of("item_added"), basket2.names);
+    }
+
+    @Test
+    void slowSubscriberShouldGetAResyncInsteadOfTheDroppedEvents() throws Exception {
+        RecordingEmitter slow = new RecordingEmitter(3);
+        slow.blocked = new CountDownLatch(1);
+        broadcaster.subscribe("basket-1", slow);
+
+        // The first event is taken by the sender, which then blocks on the client
+        broadcaster.onItemAdded(new ItemAddedEvent("basket-1", "p1", "i0", BigDecimal.ONE));
+        assertTrue(slow.sending.await(5, TimeUnit.SECONDS));
+        // Four more fill the buffer, the fifth overflows it and drops everything buffered
+        for (int i = 1; i <= 5; i++) {
+            broadcaster.onItemAdded(new ItemAddedEvent("basket-1", "p1", "i" + i, BigDecimal.ONE));
+        }
+        broadcaster.onTotalUpdated(new TotalUpdatedEvent("basket-1", BigDecimal.ONE, BigDecimal.TEN, 6));
+        slow.blocked.countDown();
+
+        slow.await();
+        assertEquals(List.of("item_added", "resync", "total_updated"), slow.names);
+        assertEquals(5.0, meterRegistry.get("basket.stream.events").tag("result", "dropped").counter().count());
+        assertEquals(1.0, meterRegistry.get("basket.stream.resyncs").counter().count());
+    }
+
+    @Test
+    void subscribersShouldBeRemovedWhenTheClientGoesAway() throws Exception {
+        RecordingEmitter broken = new RecordingEmitter(1);
+        broken.failure = new IOException("Broken pipe");
+        broadcaster.subscribe("basket-1", broken);
+
+        broadcaster.onItemAdded(new ItemAddedEvent("basket-1", "p1", "i1", BigDecimal.ONE));
+
+        broken.await();
+        for (int i = 0; i < 100 && broadcaster.getSubscriberCount("basket-1") > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, broadcaster.getSubscriberCount("basket-1"));
+        assertEquals(0.0, meterRegistry.get("basket.stream.subscribers").gauge().value());
+    }
+
+    @Test
+    void subscribeShouldBeRejectedOverTheLimit() {
+        broadcaster.subscribe("basket-1", new RecordingEmitter(0));
+        broadcaster.subscribe("basket-2", new RecordingEmitter(0));
+
+        assertThrows(RejectedExecutionException.class, () -> broadcaster.subscribe("basket-3", new RecordingEmitter(0)));
+    }
+
+    /**
+     * Emitter that records the names of the events sent to it instead of writing them to a response.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<String> names = new CopyOnWriteArrayList<>();
+        private final CountDownLatch sent;
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private CountDownLatch blocked;
+        private IOException failure;
+
+        private RecordingEmitter(int expectedEvents) {
+            this.sent = new CountDownLatch(expectedEvents);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            try {
+                if (blocked != null && !blocked.await(5, TimeUnit.SECONDS)) {
+                    throw new IOException("Timed out");
+                }
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            if (failure != null) {
+                sent.countDown();
+                throw failure;
+            }
+            for (DataWithMediaType data : builder.build()) {
+                String text = String.valueOf(data.getData());
+                if (text.startsWith("event:")) {
+                    names.add(text.substring("event:".length(), text.indexOf('\n')));
+                }
+            }
+            sent.countDown();
+        }
+
+        private void await() throws InterruptedException {
+            assertTrue(sent.await(5, TimeUnit.SECONDS));
+        }
+    }
+}
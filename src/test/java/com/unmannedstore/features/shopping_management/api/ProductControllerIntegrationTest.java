@@ -2,19 +2,27 @@ package com.unmannedstore.features.shopping_management.api;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.unmannedstore.features.shopping_management.api.dto.ProductDto;
+import com.unmannedstore.features.shopping_management.api.dto.ProductResolveRequest;
+import com.unmannedstore.features.shopping_management.domain.model.CatalogSnapshot;
 import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.domain.model.ProductSummary;
 import com.unmannedstore.features.shopping_management.domain.service.ProductService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -23,6 +31,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ProductController.class)
+@Import(SimpleMeterRegistry.class)
 public class ProductControllerIntegrationTest {
 
     @Autowired
@@ -64,6 +73,61 @@ public class ProductControllerIntegrationTest {
                 .andExpect(jsonPath("$[1].itemId").value("product-2"));  // Check that itemId is set correctly
     }
 
+    @Test
+    public void testGetAllProductsFromPublishedCatalog() throws Exception {
+        // Arrange
+        Product product1 = new Product("product-1", "Test Product 1", new BigDecimal("10.00"), "rfid-1");
+        Product product2 = new Product("product-2", "Test Product 2", new BigDecimal("20.00"), "rfid-2");
+        CatalogSnapshot catalog = CatalogSnapshot.of(1, Arrays.asList(product2, product1));
+
+        when(productService.getPublishedCatalog()).thenReturn(Optional.of(catalog));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].productId").value("product-1"))
+                .andExpect(jsonPath("$[0].price").value(10.00))
+                .andExpect(jsonPath("$[1].productId").value("product-2"))
+                .andExpect(jsonPath("$[1].rfidTag").value("rfid-2"));
+    }
+
+    @Test
+    public void testResolveProducts() throws Exception {
+        // Arrange
+        Product product = new Product("product-1", "Test Product", new BigDecimal("10.00"), "rfid-1");
+        Map<String, Product> byRfidTag = new LinkedHashMap<>();
+        byRfidTag.put("rfid-1", product);
+        byRfidTag.put("foreign", null);
+        Map<String, Product> byProductId = new LinkedHashMap<>();
+        byProductId.put("missing", null);
+
+        when(productService.resolveRfidTags(List.of("rfid-1", "foreign"))).thenReturn(byRfidTag);
+        when(productService.resolveProductIds(List.of("missing"))).thenReturn(byProductId);
+
+        ProductResolveRequest request = new ProductResolveRequest(List.of("rfid-1", "foreign"), List.of("missing"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/products/resolve")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rfidTags['rfid-1'].productId").value("product-1"))
+                .andExpect(jsonPath("$.rfidTags.foreign").doesNotExist())
+                .andExpect(jsonPath("$.rfidTags.length()").value(2))
+                .andExpect(jsonPath("$.productIds.length()").value(1))
+                .andExpect(jsonPath("$.resolved").value(1))
+                .andExpect(jsonPath("$.missed").value(2));
+    }
+
+    @Test
+    public void testResolveProductsRejectsEmptyRequests() throws Exception {
+        mockMvc.perform(post("/api/products/resolve")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void testGetProductById() throws Exception {
         // Arrange
@@ -194,4 +258,62 @@ public class ProductControllerIntegrationTest {
                 .andExpect(jsonPath("$[1].category").value(category))
                 .andExpect(jsonPath("$[1].itemId").value("product-2"));  // Check that itemId is set correctly
     }
+
+    @Test
+    public void testGetProductPage() throws Exception {
+        // Arrange: one row more than the page size means there is a next page
+        List<ProductSummary> products = Arrays.asList(
+                new ProductSummary("product-1", "Test Product 1", new BigDecimal("10.00"), "rfid-1", null, null, "Snacks", null),
+                new ProductSummary("product-2", "Test Product 2", new BigDecimal("20.00"), "rfid-2", null, null, "Snacks", null),
+                new ProductSummary("product-3", "Test Product 3", new BigDecimal("30.00"), "rfid-3", null, null, "Snacks", null));
+
+        when(productService.findPage("Snacks", "product-0", 3)).thenReturn(products);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products/page")
+                        .param("category", "Snacks")
+                        .param("after", "product-0")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].productId").value("product-1"))
+                .andExpect(jsonPath("$.items[1].productId").value("product-2"))
+                .andExpect(jsonPath("$.nextCursor").value("product-2"))
+                .andExpect(jsonPath("$.limit").value(2));
+    }
+
+    @Test
+    public void testSearchProducts() throws Exception {
+        // Arrange
+        List<ProductSummary> products = Arrays.asList(
+                new ProductSummary("product-2", "Whole Milk", new BigDecimal("1.99"), "rfid-2", null, null, "Dairy", null),
+                new ProductSummary("product-1", "Milk Chocolate", new BigDecimal("2.49"), "rfid-1", null, null, "Snacks", null));
+
+        when(productService.search("milk", 5)).thenReturn(products);
+
+        // Act & Assert: results keep the ranking of the search
+        mockMvc.perform(get("/api/products/search")
+                        .param("q", "milk")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].productId").value("product-2"))
+                .andExpect(jsonPath("$[1].productId").value("product-1"));
+    }
+
+    @Test
+    public void testGetCategoryCounts() throws Exception {
+        // Arrange
+        Map<String, Integer> counts = new TreeMap<>();
+        counts.put("Dairy", 12);
+        counts.put("Snacks", 3);
+
+        when(productService.getCategoryCounts()).thenReturn(counts);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products/categories"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.Dairy").value(12))
+                .andExpect(jsonPath("$.Snacks").value(3));
+    }
 }
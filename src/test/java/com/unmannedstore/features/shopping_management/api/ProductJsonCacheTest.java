@@ -0,0 +1,100 @@
+package com.unmannedstore.features.shopping_management.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unmannedstore.features.shopping_management.api.dto.ProductDto;
+import com.unmannedstore.features.shopping_management.domain.model.CatalogSnapshot;
+import com.unmannedstore.features.shopping_management.domain.model.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for the pre-encoded product JSON cache.
+ */
+class ProductJsonCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger conversions = new AtomicInteger();
+    private ProductJsonCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProductJsonCache(objectMapper, product -> {
+            conversions.incrementAndGet();
+            ProductDto dto = new ProductDto();
+            dto.setProductId(product.getId());
+            dto.setProductName(product.getName());
+            dto.setPrice(product.getPrice());
+            return dto;
+        }, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void unchangedProductsShouldOnlyBeEncodedOnce() throws Exception {
+        CatalogSnapshot first = CatalogSnapshot.of(1, List.of(product("p2", "2.00"), product("p1", "1.00")));
+
+        byte[] catalog = cache.catalog(first);
+        assertSame(catalog, cache.catalog(first));
+        assertSame(cache.product(first.findById("p1")), cache.product(first.findById("p1")));
+        assertEquals(2, conversions.get());
+
+        JsonNode json = objectMapper.readTree(catalog);
+        assertEquals("p1", json.get(0).get("productId").asText());
+        assertEquals("p2", json.get(1).get("productId").asText());
+
+        // Only the repriced product is encoded again for the next version
+        CatalogSnapshot second = first.withChanges(List.of(product("p2", "2.50")), List.of());
+        json = objectMapper.readTree(cache.catalog(second));
+        assertEquals(3, conversions.get());
+        assertEquals(2.50, json.get(1).get("price").asDouble());
+    }
+
+    @Test
+    void productsOutsideASnapshotShouldBeEncodedEveryTime() {
+        Product product = product("p1", "1.00");
+
+        cache.product(product);
+        cache.product(product);
+
+        assertEquals(2, conversions.get());
+        assertEquals("[]", new String(cache.array(List.of()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void objectShouldMapMissesToNull() throws Exception {
+        Map<String, Product> products = new LinkedHashMap<>();
+        products.put("tag-\"1\"", product("p1", "1.00"));
+        products.put("foreign", null);
+
+        JsonNode json = objectMapper.readTree(cache.object(products));
+
+        assertEquals("p1", json.get("tag-\"1\"").get("productId").asText());
+        assertTrue(json.get("foreign").isNull());
+        assertEquals(2, json.size());
+    }
+
+    @Test
+    void olderVersionShouldNotReplaceANewerEntry() {
+        CatalogSnapshot first = CatalogSnapshot.of(1, List.of(product("p1", "1.00")));
+        CatalogSnapshot second = first.withChanges(List.of(product("p1", "1.50")), List.of());
+
+        byte[] current = cache.product(second.findById("p1"));
+        cache.product(first.findById("p1"));
+
+        assertSame(current, cache.product(second.findById("p1")));
+    }
+
+    private static Product product(String id, String price) {
+        return new Product(id, "Product " + id, new BigDecimal(price), "tag-" + id);
+    }
+}
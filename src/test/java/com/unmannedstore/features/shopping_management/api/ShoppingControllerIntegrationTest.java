@@ -2,15 +2,27 @@ package com.unmannedstore.features.shopping_management.api;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.unmannedstore.features.shopping_management.api.dto.BatchItemAddRequest;
 import com.unmannedstore.features.shopping_management.api.dto.ItemAddRequest;
+import com.unmannedstore.features.shopping_management.domain.model.BasketBatchMutation;
 import com.unmannedstore.features.shopping_management.domain.model.BasketItem;
+import com.unmannedstore.features.shopping_management.domain.model.BasketMutation;
+import com.unmannedstore.features.shopping_management.domain.model.Money;
 import com.unmannedstore.features.shopping_management.domain.model.Product;
 import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
 import com.unmannedstore.features.shopping_management.domain.service.ShoppingService;
+import com.unmannedstore.features.shopping_management.events.ItemsAddedEvent;
+import com.unmannedstore.features.shopping_management.handlers.BasketMutationDispatcher;
+import com.unmannedstore.features.shopping_management.handlers.RfidReadDeduplicator;
+import com.unmannedstore.features.shopping_management.handlers.handlers.AddItemHandler;
+import com.unmannedstore.features.shopping_management.handlers.handlers.RemoveItemHandler;
+import com.unmannedstore.shared.events.EventPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -19,14 +31,19 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ShoppingController.class)
+@Import({BasketMutationDispatcher.class, AddItemHandler.class, RemoveItemHandler.class, RfidReadDeduplicator.class,
+        BasketUpdateBroadcaster.class, SimpleMeterRegistry.class})
 public class ShoppingControllerIntegrationTest {
 
     @Autowired
@@ -38,6 +55,9 @@ public class ShoppingControllerIntegrationTest {
     @MockBean
     private ShoppingService shoppingService;
 
+    @MockBean
+    private EventPublisher eventPublisher;
+
     @Test
     public void testGetBasketContents() throws Exception {
         // Arrange
@@ -73,6 +93,40 @@ public class ShoppingControllerIntegrationTest {
                 .andExpect(jsonPath("$.items[0].productName").value("Test Product"));
     }
 
+    @Test
+    public void testGetBasketContentsNotModified() throws Exception {
+        when(shoppingService.findSessionVersionByBasketId("1")).thenReturn(Optional.of(7L));
+
+        mockMvc.perform(get("/api/stores/{storeId}/baskets/{basketId}/items", "1", "1")
+                .header("If-None-Match", "\"7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"7\""));
+
+        verify(shoppingService, times(0)).findSessionByBasketId("1");
+    }
+
+    @Test
+    public void testGetBasketChangesSinceVersion() throws Exception {
+        // Arrange
+        String basketId = "changes-basket";
+        ShoppingSession session = new ShoppingSession("customer-1", "1", basketId);
+        BasketItem cola = session.addItem(new Product("product-1", "Cola", new BigDecimal("2.49"), "rfid-1"));
+        BasketItem chips = session.addItem(new Product("product-2", "Chips", new BigDecimal("2.99"), "rfid-2"));
+        session.removeItem(cola.getId());
+
+        when(shoppingService.findSessionByBasketId(basketId)).thenReturn(Optional.of(session));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/stores/{storeId}/baskets/{basketId}/items", "1", basketId)
+                .param("sinceVersion", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.version").value(3))
+                .andExpect(jsonPath("$.full").value(false))
+                .andExpect(jsonPath("$.items[0].itemId").value(chips.getId()))
+                .andExpect(jsonPath("$.removedItemIds[0]").value(cola.getId()));
+    }
+
     @Test
     public void testAddItemToBasket() throws Exception {
         // Arrange
@@ -102,8 +156,8 @@ public class ShoppingControllerIntegrationTest {
         request.setProductId("product-1");
         request.setDetectedAt(LocalDateTime.now());
 
-        when(shoppingService.findSessionByBasketId(basketId)).thenReturn(Optional.of(session));
-        when(shoppingService.addItemToSession(anyString(), anyString())).thenReturn(session);
+        when(shoppingService.addItemToBasket(storeId, basketId, "product-1"))
+                .thenReturn(new BasketMutation(session, basketItem, 1, false, Money.of("10.00"), 1));
 
         // Act & Assert
         mockMvc.perform(post("/api/stores/{storeId}/baskets/{basketId}/items", storeId, basketId)
@@ -112,7 +166,161 @@ public class ShoppingControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.basketId").value(basketId))
                 .andExpect(jsonPath("$.action").value("item_added"))
-                .andExpect(jsonPath("$.item.productId").value("product-1"));
+                .andExpect(jsonPath("$.item.productId").value("product-1"))
+                .andExpect(jsonPath("$.item.quantity").value(1))
+                .andExpect(jsonPath("$.itemCount").value(1));
+    }
+
+    @Test
+    public void testAddItemsToBasketInBatch() throws Exception {
+        // Arrange
+        String storeId = "1";
+        String basketId = "1";
+
+        Product product = new Product();
+        product.setId("product-1");
+        product.setName("Test Product");
+        product.setPrice(new BigDecimal("10.00"));
+        product.setRfidTag("rfid-1");
+
+        BasketItem basketItem = new BasketItem();
+        basketItem.setId("item-1");
+        basketItem.setProduct(product);
+        basketItem.setQuantity(1);
+
+        ShoppingSession session = new ShoppingSession();
+        session.setId("session-1");
+        session.setBasketId(basketId);
+
+        // The second read of rfid-1 is a duplicate and never reaches the service
+        List<BasketBatchMutation.Outcome> outcomes = List.of(
+                new BasketBatchMutation.Outcome("rfid-1", null, BasketBatchMutation.OUTCOME_ADDED, basketItem, 1),
+                new BasketBatchMutation.Outcome("rfid-x", null, BasketBatchMutation.OUTCOME_UNKNOWN_TAG, null, 0));
+
+        BatchItemAddRequest request = new BatchItemAddRequest(List.of("rfid-1", "rfid-1", "rfid-x"), List.of(), LocalDateTime.now());
+
+        when(shoppingService.addItemsToBasket(storeId, basketId, List.of("rfid-1", "rfid-x"), List.of()))
+                .thenReturn(new BasketBatchMutation(session, outcomes, 1, Money.of("10.83"), 1));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/stores/{storeId}/baskets/{basketId}/items/batch", storeId, basketId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.action").value("items_added"))
+                .andExpect(jsonPath("$.addedCount").value(1))
+                .andExpect(jsonPath("$.results[0].outcome").value("added"))
+                .andExpect(jsonPath("$.results[0].item.quantity").value(1))
+                .andExpect(jsonPath("$.results[1].outcome").value("duplicate_read"))
+                .andExpect(jsonPath("$.results[2].rfidTag").value("rfid-x"))
+                .andExpect(jsonPath("$.results[2].outcome").value("unknown_tag"));
+
+        verify(eventPublisher, times(1)).publish(any(ItemsAddedEvent.class));
+    }
+
+    @Test
+    public void testAddItemToBasketSuppressesDuplicateRead() throws Exception {
+        // Arrange
+        String storeId = "1";
+        String basketId = "dedup-basket";
+
+        Product product = new Product();
+        product.setId("product-1");
+        product.setName("Test Product");
+        product.setPrice(new BigDecimal("10.00"));
+        product.setRfidTag("rfid-dedup");
+
+        BasketItem basketItem = new BasketItem();
+        basketItem.setId("item-1");
+        basketItem.setProduct(product);
+        basketItem.setQuantity(1);
+
+        ShoppingSession session = new ShoppingSession();
+        session.setId("session-1");
+        session.setBasketId(basketId);
+
+        ItemAddRequest request = new ItemAddRequest();
+        request.setRfidTag("rfid-dedup");
+        request.setDetectedAt(LocalDateTime.now());
+
+        when(shoppingService.addItemToBasketByRfidTag(storeId, basketId, "rfid-dedup"))
+                .thenReturn(new BasketMutation(session, basketItem, 1, false, Money.of("10.83"), 1));
+        when(shoppingService.findSessionByBasketId(basketId)).thenReturn(Optional.of(session));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/stores/{storeId}/baskets/{basketId}/items", storeId, basketId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.action").value("item_added"));
+
+        mockMvc.perform(post("/api/stores/{storeId}/baskets/{basketId}/items", storeId, basketId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.action").value("read_suppressed"));
+
+        verify(shoppingService, times(1)).addItemToBasketByRfidTag(storeId, basketId, "rfid-dedup");
+    }
+
+    @Test
+    public void testAddItemToBasketAppliesRetryOfRejectedRead() throws Exception {
+        // Arrange
+        String storeId = "1";
+        String basketId = "retry-basket";
+
+        Product product = new Product();
+        product.setId("product-1");
+        product.setName("Test Product");
+        product.setPrice(new BigDecimal("10.00"));
+        product.setRfidTag("rfid-retry");
+
+        BasketItem basketItem = new BasketItem();
+        basketItem.setId("item-1");
+        basketItem.setProduct(product);
+        basketItem.setQuantity(1);
+
+        ShoppingSession session = new ShoppingSession();
+        session.setId("session-1");
+        session.setBasketId(basketId);
+
+        ItemAddRequest request = new ItemAddRequest();
+        request.setRfidTag("rfid-retry");
+        request.setDetectedAt(LocalDateTime.now());
+
+        when(shoppingService.addItemToBasketByRfidTag(storeId, basketId, "rfid-retry"))
+                .thenThrow(new RejectedExecutionException("Mutation mailbox is full for basket: " + basketId))
+                .thenReturn(new BasketMutation(session, basketItem, 1, false, Money.of("10.83"), 1));
+
+        // Act & Assert: the rejected read does not count as seen, so the retry within the window is applied
+        mockMvc.perform(post("/api/stores/{storeId}/baskets/{basketId}/items", storeId, basketId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isServiceUnavailable());
+
+        mockMvc.perform(post("/api/stores/{storeId}/baskets/{basketId}/items", storeId, basketId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.action").value("item_added"));
+
+        verify(shoppingService, times(2)).addItemToBasketByRfidTag(storeId, basketId, "rfid-retry");
+    }
+
+    @Test
+    public void testStreamBasketUpdates() throws Exception {
+        mockMvc.perform(get("/api/stores/{storeId}/baskets/{basketId}/items/stream", "1", "1")
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    public void testAddItemsToBasketRejectsEmptyBatch() throws Exception {
+        mockMvc.perform(post("/api/stores/{storeId}/baskets/{basketId}/items/batch", "1", "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BatchItemAddRequest())))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -141,15 +349,29 @@ public class ShoppingControllerIntegrationTest {
         session.setBasketId(basketId);
         session.setItems(items);
 
-        when(shoppingService.findSessionByBasketId(basketId)).thenReturn(Optional.of(session));
-        when(shoppingService.removeItemFromSession(anyString(), anyString())).thenReturn(session);
+        when(shoppingService.removeItemFromBasket(storeId, basketId, itemId))
+                .thenReturn(Optional.of(new BasketMutation(session, basketItem, 0, true, Money.ZERO, 0)));
 
         // Act & Assert
         mockMvc.perform(delete("/api/stores/{storeId}/baskets/{basketId}/items/{itemId}", storeId, basketId, itemId))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.basketId").value(basketId))
                 .andExpect(jsonPath("$.action").value("item_removed"))
-                .andExpect(jsonPath("$.item.productId").value("product-1"));
+                .andExpect(jsonPath("$.item.productId").value("product-1"))
+                .andExpect(jsonPath("$.item.quantity").value(0));
+    }
+
+    @Test
+    public void testRemoveItemNotInBasket() throws Exception {
+        // Arrange
+        String storeId = "1";
+        String basketId = "1";
+
+        when(shoppingService.removeItemFromBasket(anyString(), anyString(), anyString())).thenReturn(Optional.empty());
+
+        // Act & Assert
+        mockMvc.perform(delete("/api/stores/{storeId}/baskets/{basketId}/items/{itemId}", storeId, basketId, "missing"))
+                .andExpect(status().isNotFound());
     }
 
     @Test
@@ -0,0 +1,137 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for the promotions applied to a basket as its lines change.
+ */
+class BasketPromotionsTest {
+
+    private final Product cola = product("p1", "Beverages", "2.49");
+    private final Product chips = product("p2", "Snacks", "2.99");
+    private final Product pretzels = product("p3", "Snacks", "1.99");
+
+    @Test
+    void multiBuyShouldDiscountEveryFullGroup() {
+        ShoppingSession session = session(Promotion.multiBuy("m1", "3 for 6", List.of("p1"), 3, Money.of("6.00")));
+
+        session.addItem(cola);
+        session.addItem(cola);
+        assertEquals(0, session.getRunningTotal().getDiscount().signum());
+
+        BasketItem item = session.addItem(cola);
+        assertEquals(Money.of("7.47"), session.getRunningTotal().getSubtotal());
+        assertEquals(Money.of("1.47"), session.getRunningTotal().getDiscount());
+        assertEquals(Money.of("0.50"), session.getRunningTotal().getTax());
+        assertEquals(Money.of("6.50"), session.getRunningTotal().getTotal());
+        assertEquals("m1", session.getDiscountLines().get(0).getPromotionId());
+
+        session.removeItem(item.getId());
+        assertEquals(0, session.getRunningTotal().getDiscount().signum());
+        assertTrue(session.getDiscountLines().isEmpty());
+    }
+
+    @Test
+    void bundleShouldDiscountCompleteSetsOnly() {
+        ShoppingSession session = session(Promotion.bundle("b1", "Snack deal", List.of("p1", "p2"), Money.of("4.50")));
+
+        session.addItem(cola);
+        session.addItem(cola);
+        assertEquals(0, session.getRunningTotal().getDiscount().signum());
+
+        session.addItem(chips);
+        assertEquals(Money.of("0.98"), session.getRunningTotal().getDiscount());
+    }
+
+    @Test
+    void categoryPercentageShouldStackWithTheBestThresholdReached() {
+        ShoppingSession session = session(
+                Promotion.categoryPercentage("c1", "10% off snacks", "Snacks", new BigDecimal("10")),
+                Promotion.threshold("t1", "Spend 5, save 1", Money.of("5.00"), Money.of("1.00")),
+                Promotion.threshold("t2", "Spend 10, save 3", Money.of("10.00"), Money.of("3.00")));
+
+        session.addItem(chips);
+        session.addItem(chips);
+        session.addItem(cola);
+
+        assertEquals(Money.of("8.47"), session.getRunningTotal().getSubtotal());
+        assertEquals(Money.of("1.60"), session.getRunningTotal().getDiscount());
+        List<DiscountLine> lines = session.getDiscountLines();
+        assertEquals(2, lines.size());
+        assertEquals(Money.of("0.60"), lines.get(0).getAmount());
+        assertEquals("t1", lines.get(1).getPromotionId());
+
+        session.addItem(pretzels);
+        assertEquals("t2", session.getDiscountLines().get(1).getPromotionId());
+        assertEquals(Money.of("3.80"), session.getRunningTotal().getDiscount());
+    }
+
+    @Test
+    void incrementalPricingShouldMatchAFullEvaluation() {
+        PromotionIndex index = PromotionIndex.of(1, List.of(
+                Promotion.multiBuy("m1", "2 for 4", List.of("p1", "p3"), 2, Money.of("4.00")),
+                Promotion.bundle("b1", "Snack deal", List.of("p1", "p2", "p3"), Money.of("6.00")),
+                Promotion.categoryPercentage("c1", "5% off snacks", "Snacks", new BigDecimal("5")),
+                Promotion.threshold("t1", "Spend 20, save 2", Money.of("20.00"), Money.of("2.00"))));
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        session.applyPromotions(index);
+        List<Product> products = List.of(cola, chips, pretzels);
+        Random random = new Random(42);
+
+        for (int i = 0; i < 500; i++) {
+            List<BasketItem> items = new ArrayList<>(session.getItems());
+            if (items.isEmpty() || random.nextInt(3) > 0) {
+                session.addItem(products.get(random.nextInt(products.size())));
+            } else {
+                session.removeItem(items.get(random.nextInt(items.size())).getId());
+            }
+            Money expected = BasketPromotions.evaluate(index, session.getItems()).getDiscount();
+            assertEquals(expected, session.getRunningTotal().getDiscount(), "after change " + i);
+        }
+    }
+
+    @Test
+    void newPromotionsShouldRepriceTheBasketAsAChange() {
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        session.applyPromotions(PromotionIndex.EMPTY);
+        session.addItem(chips);
+        long version = session.getVersion();
+
+        session.applyPromotions(PromotionIndex.EMPTY);
+        assertEquals(version, session.getVersion());
+
+        session.applyPromotions(PromotionIndex.of(1, List.of(
+                Promotion.categoryPercentage("c1", "50% off snacks", "Snacks", new BigDecimal("50")))));
+        assertEquals(version + 1, session.getVersion());
+        assertEquals(Money.of("1.50"), session.getRunningTotal().getDiscount());
+    }
+
+    @Test
+    void promotionsShouldRejectMissingFields() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Promotion.multiBuy("m1", "Buy one", List.of("p1"), 1, Money.of("1.00")));
+        assertThrows(IllegalArgumentException.class,
+                () -> Promotion.bundle("b1", "Empty", List.of(), Money.of("1.00")));
+        assertThrows(IllegalArgumentException.class,
+                () -> Promotion.categoryPercentage("c1", "Too much", "Snacks", new BigDecimal("150")));
+    }
+
+    private static ShoppingSession session(Promotion... promotions) {
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        session.applyPromotions(PromotionIndex.of(1, List.of(promotions)));
+        return session;
+    }
+
+    private static Product product(String id, String category, String price) {
+        Product product = new Product(id, "Product " + id, new BigDecimal(price), "tag-" + id);
+        product.setCategory(category);
+        return product;
+    }
+}
@@ -0,0 +1,86 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for the copy-on-write catalog snapshot.
+ */
+class CatalogSnapshotTest {
+
+    @Test
+    void snapshotShouldIndexAndStampEveryProduct() {
+        Product milk = product("p1", "Dairy", "tag-1", "00614141000011");
+        Product bread = product("p2", "Bakery", "tag-2", null);
+
+        CatalogSnapshot snapshot = CatalogSnapshot.of(3, List.of(milk, bread));
+
+        assertEquals(3, snapshot.getVersion());
+        assertEquals(2, snapshot.size());
+        assertSame(milk, snapshot.findById("p1"));
+        assertSame(milk, snapshot.findByRfidTag("tag-1"));
+        assertSame(milk, snapshot.findByGtin("00614141000011"));
+        assertSame(bread, snapshot.findByRfidTag("tag-2"));
+        assertNull(snapshot.findByRfidTag("foreign"));
+        assertEquals(3, milk.getCatalogVersion());
+        assertEquals(Map.of("Bakery", 1, "Dairy", 1), snapshot.getCategoryCounts());
+        assertNotNull(snapshot.getPublishedAt());
+    }
+
+    @Test
+    void changesShouldProduceTheNextVersionAndLeaveThePreviousOneIntact() {
+        Product milk = product("p1", "Dairy", "tag-1", null);
+        Product yogurt = product("p2", "Dairy", "tag-2", null);
+        Product bread = product("p3", "Bakery", "tag-3", null);
+        CatalogSnapshot first = CatalogSnapshot.of(1, List.of(milk, yogurt, bread));
+
+        Product oatMilk = product("p1", "Plant Based", "tag-1", null);
+        CatalogSnapshot second = first.withChanges(List.of(oatMilk), List.of("p2"));
+
+        assertEquals(2, second.getVersion());
+        assertSame(oatMilk, second.findByRfidTag("tag-1"));
+        assertNull(second.findById("p2"));
+        assertNull(second.findByRfidTag("tag-2"));
+        assertEquals(List.of(), second.findByCategory("Dairy"));
+        assertEquals(List.of(oatMilk), second.findByCategory("Plant Based"));
+        assertEquals(Map.of("Bakery", 1, "Plant Based", 1), second.getCategoryCounts());
+        // Untouched products and categories are shared
+        assertSame(bread, second.findById("p3"));
+        assertSame(first.findByCategory("Bakery"), second.findByCategory("Bakery"));
+        assertEquals(1, bread.getCatalogVersion());
+        assertEquals(2, oatMilk.getCatalogVersion());
+
+        assertSame(milk, first.findByRfidTag("tag-1"));
+        assertEquals(List.of(milk, yogurt), first.findByCategory("Dairy"));
+        assertEquals(Map.of("Bakery", 1, "Dairy", 2), first.getCategoryCounts());
+    }
+
+    @Test
+    void tagMovedBetweenProductsShouldResolveToItsNewOwner() {
+        Product cola = product("p1", "Beverages", "tag-1", null);
+        Product water = product("p2", "Beverages", "tag-2", null);
+        CatalogSnapshot first = CatalogSnapshot.of(1, List.of(cola, water));
+
+        // Water takes over the tag that cola gives up in the same publish
+        Product relabelledCola = product("p1", "Beverages", "tag-9", null);
+        Product relabelledWater = product("p2", "Beverages", "tag-1", null);
+        CatalogSnapshot second = first.withChanges(List.of(relabelledWater, relabelledCola), List.of());
+
+        assertSame(relabelledWater, second.findByRfidTag("tag-1"));
+        assertSame(relabelledCola, second.findByRfidTag("tag-9"));
+        assertNull(second.findByRfidTag("tag-2"));
+        assertEquals(List.of(relabelledCola, relabelledWater), second.findByCategory("Beverages"));
+    }
+
+    private static Product product(String id, String category, String rfidTag, String gtin) {
+        Product product = new Product(id, "Product " + id, new BigDecimal("1.00"), rfidTag);
+        product.setCategory(category);
+        product.setGtin(gtin);
+        return product;
+    }
+}
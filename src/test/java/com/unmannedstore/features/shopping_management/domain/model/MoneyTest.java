@@ -0,0 +1,76 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for the fixed-point amounts baskets are priced in.
+ */
+class MoneyTest {
+
+    @Test
+    void decimalsShouldBeRoundedHalfUpToCents() {
+        assertEquals(201, Money.of("2.005").getMinorUnits());
+        assertEquals(200, Money.of("2.0049").getMinorUnits());
+        assertEquals(-201, Money.of("-2.005").getMinorUnits());
+        assertEquals(new BigDecimal("0.05"), Money.ofMinor(5).toBigDecimal());
+        assertEquals("2.49", Money.of("2.49").toString());
+        assertNull(Money.of((BigDecimal) null));
+    }
+
+    @Test
+    void arithmeticShouldBeExact() {
+        Money price = Money.of("2.49");
+
+        assertEquals(Money.of("7.47"), price.times(3));
+        assertEquals(Money.of("4.98"), price.plus(price));
+        assertEquals(Money.ZERO, price.minus(price));
+        assertEquals(Money.ZERO, price.minus(Money.of("3.00")).max(Money.ZERO));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE).plus(Money.ofMinor(1)));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1E30")));
+    }
+
+    @Test
+    void divisionShouldRoundHalfUpAwayFromZero() {
+        assertEquals(1, Money.divideHalfUp(5, 10));
+        assertEquals(0, Money.divideHalfUp(4, 10));
+        assertEquals(-1, Money.divideHalfUp(-5, 10));
+        assertEquals(0, Money.divideHalfUp(-4, 10));
+        assertEquals(Money.of("2.00"), Money.of("6.00").multiplyDivide(1, 3));
+        assertEquals(Money.of("0.67"), Money.of("2.00").multiplyDivide(1, 3));
+    }
+
+    @Test
+    void multiplyDivideShouldMatchBigDecimalHalfUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            // Large values take the big integer path once the product no longer fits in a long
+            long value = i % 2 == 0 ? random.nextInt() : random.nextLong() >> 8;
+            long numerator = random.nextInt(2_000_000) - 1_000_000;
+            long denominator = random.nextInt(1_000_000) + 1_000_000;
+            long expected = new BigDecimal(value).multiply(BigDecimal.valueOf(numerator))
+                    .divide(BigDecimal.valueOf(denominator), 0, RoundingMode.HALF_UP)
+                    .longValueExact();
+            assertEquals(expected, Money.multiplyDivide(value, numerator, denominator),
+                    value + " * " + numerator + " / " + denominator);
+        }
+    }
+
+    @Test
+    void taxShouldBeRoundedOnceFromMillionthsOfACent() {
+        long rate = Money.toRateMillionths(new BigDecimal("0.0825"));
+
+        assertEquals(82_500, rate);
+        assertEquals(new BigDecimal("0.0825"), Money.fromRateMillionths(rate));
+        // 2.49 at 8.25% is 0.205425
+        assertEquals(20_542_500L, Money.of("2.49").taxAt(rate));
+        assertEquals(21, Money.divideHalfUp(Money.of("2.49").taxAt(rate), Money.RATE_SCALE));
+        // Taxing three units together rounds once: 0.616275, not three times 0.21
+        assertEquals(62, Money.divideHalfUp(Money.of("2.49").taxAt(rate) * 3, Money.RATE_SCALE));
+    }
+}
@@ -0,0 +1,54 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for the SGTIN-96 EPC decoder.
+ */
+class Sgtin96Test {
+
+    // Example from the GS1 EPC Tag Data Standard: urn:epc:id:sgtin:0614141.812345.6789
+    private static final String EPC = "3074257BF7194E4000001A85";
+
+    @Test
+    void shouldDecodeGtinAndSerialOfHexEpc() {
+        assertEquals(80614141123458L, Sgtin96.decodeGtin(EPC));
+        assertEquals(6789L, Sgtin96.decodeSerial(EPC));
+        assertEquals(80614141123458L, Sgtin96.decodeGtin(EPC.toLowerCase()));
+        assertTrue(Sgtin96.isSgtin96(EPC));
+    }
+
+    @Test
+    void shouldDecodeBinaryEpc() {
+        byte[] epc = new byte[12];
+        for (int i = 0; i < epc.length; i++) {
+            epc[i] = (byte) Integer.parseInt(EPC.substring(i * 2, i * 2 + 2), 16);
+        }
+
+        assertEquals(80614141123458L, Sgtin96.decodeGtin(epc));
+        assertEquals(6789L, Sgtin96.decodeSerial(epc));
+    }
+
+    @Test
+    void shouldRejectTagsThatAreNotSgtin96() {
+        assertEquals(Sgtin96.NOT_SGTIN, Sgtin96.decodeGtin("rfid-1"));
+        assertEquals(Sgtin96.NOT_SGTIN, Sgtin96.decodeGtin((String) null));
+        // SSCC-96 header
+        assertEquals(Sgtin96.NOT_SGTIN, Sgtin96.decodeGtin("3174257BF7194E4000001A85"));
+        // Not hex
+        assertEquals(Sgtin96.NOT_SGTIN, Sgtin96.decodeGtin("3074257BF7194E4000001AZ5"));
+        // Partition 7 is not defined
+        assertEquals(Sgtin96.NOT_SGTIN, Sgtin96.decodeGtin("307C257BF7194E4000001A85"));
+        assertEquals(Sgtin96.NOT_SGTIN, Sgtin96.decodeSerial("3174257BF7194E4000001A85"));
+        assertFalse(Sgtin96.isSgtin96("3074257BF7194E4000001A8"));
+    }
+
+    @Test
+    void shouldFormatGtinWithLeadingZeros() {
+        assertEquals("80614141123458", Sgtin96.formatGtin(80614141123458L));
+        assertEquals("00614141123452", Sgtin96.formatGtin(614141123452L));
+        assertEquals(8, Sgtin96.checkDigit(8061414112345L));
+    }
+}
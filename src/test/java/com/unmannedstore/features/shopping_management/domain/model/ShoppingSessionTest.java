@@ -0,0 +1,268 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for the item indexes, item count and versions kept inside ShoppingSession.
+ */
+class ShoppingSessionTest {
+
+    @Test
+    void addItemShouldIncrementExistingLineAndCount() {
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        Product cola = new Product("p1", "Cola", new BigDecimal("2.49"), "rfid-1");
+        Product chips = new Product("p2", "Chips", new BigDecimal("2.99"), "rfid-2");
+
+        BasketItem first = session.addItem(cola);
+        BasketItem second = session.addItem(cola);
+        session.addItem(chips);
+
+        assertSame(first, second);
+        assertEquals(2, first.getQuantity());
+        assertEquals(2, session.getItems().size());
+        assertEquals(3, session.getItemCount());
+        assertSame(first, session.findItemByProductId("p1"));
+        assertSame(first, session.findItem(first.getId()));
+    }
+
+    @Test
+    void addItemsShouldApplyTheBatchWithOneTotal() {
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        Product cola = new Product("p1", "Cola", new BigDecimal("2.49"), "rfid-1");
+        Product chips = new Product("p2", "Chips", new BigDecimal("2.99"), "rfid-2");
+
+        List<BasketItem> added = session.addItems(List.of(cola, chips, cola));
+
+        assertEquals(3, added.size());
+        assertSame(added.get(0), added.get(2));
+        assertEquals(2, added.get(0).getQuantity());
+        assertEquals(3, session.getItemCount());
+        assertEquals(Money.of("7.97"), session.getRunningTotal().getSubtotal());
+        assertEquals(Money.of("8.63"), session.getRunningTotal().getTotal());
+    }
+
+    @Test
+    void postedTotalShouldMatchAFullRecompute() {
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        Product cola = new Product("p1", "Cola", new BigDecimal("2.49"), "rfid-1");
+        Product chips = new Product("p2", "Chips", new BigDecimal("2.99"), "rfid-2");
+        chips.setCategory("Snacks");
+        session.applyTaxTable(TaxTable.of(1, List.of(new TaxRate(null, "Snacks", new BigDecimal("0.05")))));
+        session.applyPromotions(PromotionIndex.of(1, List.of(
+                Promotion.multiBuy("m1", "2 for 4", List.of("p1"), 2, Money.of("4.00")))));
+        List<Product> products = List.of(cola, chips);
+        Random random = new Random(7);
+
+        for (int i = 0; i < 200; i++) {
+            List<BasketItem> items = new ArrayList<>(session.getItems());
+            if (items.isEmpty() || random.nextInt(3) > 0) {
+                session.addItems(List.of(products.get(random.nextInt(2)), products.get(random.nextInt(2))));
+            } else {
+                session.removeItem(items.get(random.nextInt(items.size())).getId());
+            }
+            RunningTotal recomputed = session.recomputeRunningTotal();
+            assertEquals(recomputed.getSubtotal(), session.getRunningTotal().getSubtotal(), "after change " + i);
+            assertEquals(recomputed.getDiscount(), session.getRunningTotal().getDiscount(), "after change " + i);
+            assertEquals(recomputed.getTax(), session.getRunningTotal().getTax(), "after change " + i);
+            assertEquals(recomputed.getTotal(), session.getRunningTotal().getTotal(), "after change " + i);
+        }
+    }
+
+    @Test
+    void recomputeShouldSkipSessionsNotTaxedSinceLoad() {
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        session.setItems(new ArrayList<>());
+
+        assertNull(session.recomputeRunningTotal());
+    }
+
+    @Test
+    void removeItemShouldKeepIndexesInSync() {
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        Product cola = new Product("p1", "Cola", new BigDecimal("2.49"), "rfid-1");
+
+        BasketItem item = session.addItem(cola);
+        session.addItem(cola);
+
+        assertSame(item, session.removeItem(item.getId()));
+        assertEquals(1, session.getItemCount());
+
+        assertNull(session.removeItem(item.getId()));
+        assertEquals(0, session.getItemCount());
+        assertTrue(session.getItems().isEmpty());
+        assertNull(session.findItem(item.getId()));
+        assertNull(session.findItemByProductId("p1"));
+
+        // A new scan of the same product opens a new line
+        BasketItem newItem = session.addItem(cola);
+        assertNotEquals(item.getId(), newItem.getId());
+        assertEquals(1, session.getItemCount());
+    }
+
+    @Test
+    void removingAMiddleLineShouldKeepTheOtherLinesRemovable() {
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        BasketItem cola = session.addItem(new Product("p1", "Cola", new BigDecimal("2.49"), "rfid-1"));
+        BasketItem chips = session.addItem(new Product("p2", "Chips", new BigDecimal("2.99"), "rfid-2"));
+        BasketItem water = session.addItem(new Product("p3", "Water", new BigDecimal("0.99"), "rfid-3"));
+
+        assertNull(session.removeItem(cola.getId()));
+        assertEquals(2, session.getItems().size());
+        assertTrue(session.getItems().containsAll(List.of(chips, water)));
+
+        // The line moved into the removed line's place is still found and removed
+        assertNull(session.removeItem(water.getId()));
+        assertEquals(List.of(chips), session.getItems());
+        assertNull(session.removeItem(chips.getId()));
+        assertTrue(session.getItems().isEmpty());
+        assertEquals(0, session.getItemCount());
+    }
+
+    @Test
+    void setItemsShouldRebuildIndexes() {
+        Product cola = new Product("p1", "Cola", new BigDecimal("2.49"), "rfid-1");
+        BasketItem item = new BasketItem("item-1", cola, 3, "session-1");
+        List<BasketItem> items = new ArrayList<>();
+        items.add(item);
+
+        ShoppingSession session = new ShoppingSession();
+        session.setId("session-1");
+        assertEquals(0, session.getItemCount());
+
+        session.setItems(items);
+
+        assertEquals(3, session.getItemCount());
+        assertSame(item, session.findItem("item-1"));
+        assertSame(item, session.findItemByProductId("p1"));
+    }
+
+    @Test
+    void everyChangeShouldAdvanceTheVersion() {
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        Product cola = new Product("p1", "Cola", new BigDecimal("2.49"), "rfid-1");
+
+        BasketItem item = session.addItem(cola);
+        session.addItems(List.of(cola, cola));
+        session.addItems(List.of());
+        session.removeItem(item.getId());
+
+        assertEquals(3, session.getVersion());
+        assertEquals(3, item.getChangedVersion());
+    }
+
+    @Test
+    void getChangesSinceShouldReturnChangedAndRemovedLines() {
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        Product cola = new Product("p1", "Cola", new BigDecimal("2.49"), "rfid-1");
+        Product chips = new Product("p2", "Chips", new BigDecimal("2.99"), "rfid-2");
+        Product water = new Product("p3", "Water", new BigDecimal("0.99"), "rfid-3");
+        session.addItem(cola);
+        BasketItem chipsItem = session.addItem(chips);
+        long seen = session.getVersion();
+
+        session.addItem(water);
+        session.removeItem(chipsItem.getId());
+        BasketChanges changes = session.getChangesSince(seen);
+
+        assertFalse(changes.isFull());
+        assertEquals(4, changes.getVersion());
+        assertEquals(1, changes.getChanges().size());
+        assertEquals("p3", changes.getChanges().get(0).getItem().getProduct().getId());
+        assertEquals(List.of(chipsItem.getId()), changes.getRemovedItemIds());
+        assertEquals(2, changes.getItemCount());
+        assertEquals(session.getRunningTotal().getTotal(), changes.getTotal());
+
+        BasketChanges none = session.getChangesSince(changes.getVersion());
+        assertTrue(none.getChanges().isEmpty());
+        assertTrue(none.getRemovedItemIds().isEmpty());
+    }
+
+    @Test
+    void getChangesSinceShouldBeFullForVersionsOutsideTheHistory() {
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        Product cola = new Product("p1", "Cola", new BigDecimal("2.49"), "rfid-1");
+        session.setVersion(10);
+        session.addItem(cola);
+
+        assertTrue(session.getChangesSince(5).isFull());
+        assertTrue(session.getChangesSince(12).isFull());
+        assertFalse(session.getChangesSince(10).isFull());
+        assertEquals(1, session.getChangesSince(5).getChanges().size());
+    }
+
+    @Test
+    void serializedUnitsShouldGetOneLineEachAndBeAddedOnce() {
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        Product cola = new Product("p1", "Cola", new BigDecimal("2.49"), "rfid-1");
+
+        BasketItem first = session.addSerializedItem(cola, "1");
+        BasketItem second = session.addSerializedItem(cola, "2");
+        long version = session.getVersion();
+        Money total = session.getRunningTotal().getTotal();
+
+        assertNull(session.addSerializedItem(cola, "1"));
+        assertNotSame(first, second);
+        assertEquals(2, session.getItems().size());
+        assertEquals(2, session.getItemCount());
+        assertEquals(version, session.getVersion());
+        assertEquals(total, session.getRunningTotal().getTotal());
+        assertSame(first, session.findItemBySerial("p1", "1"));
+        assertNull(session.findItemByProductId("p1"));
+
+        session.removeItem(first.getId());
+        assertNull(session.findItemBySerial("p1", "1"));
+        assertNotNull(session.addSerializedItem(cola, "1"));
+    }
+
+    @Test
+    void addItemsShouldSkipSerializedUnitsAlreadyInTheBasket() {
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        Product cola = new Product("p1", "Cola", new BigDecimal("2.49"), "rfid-1");
+        session.addSerializedItem(cola, "1");
+
+        List<BasketItem> added = session.addItems(List.of(cola, cola, cola), Arrays.asList("1", "2", null));
+
+        assertNull(added.get(0));
+        assertEquals("2", added.get(1).getSerial());
+        assertNull(added.get(2).getSerial());
+        assertEquals(3, session.getItems().size());
+        assertEquals(3, session.getItemCount());
+    }
+
+    @Test
+    void repriceProductShouldRepriceEveryLineOfTheProductAsOneChange() {
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        Product cola = new Product("p1", "Cola", new BigDecimal("2.49"), "rfid-1");
+        Product chips = new Product("p2", "Chips", new BigDecimal("2.99"), "rfid-2");
+        BasketItem line = session.addItem(cola);
+        session.addItem(cola);
+        BasketItem unit = session.addSerializedItem(cola, "1");
+        BasketItem other = session.addItem(chips);
+        long version = session.getVersion();
+
+        assertTrue(session.repriceProduct("p1", Money.of("1.99"), 5));
+
+        assertEquals(version + 1, session.getVersion());
+        assertEquals(Money.of("1.99"), line.getPrice());
+        assertEquals(Money.of("1.99"), unit.getPrice());
+        assertEquals(Money.of("2.99"), other.getPrice());
+        assertEquals(5, line.getCatalogVersion());
+        assertEquals(5, unit.getCatalogVersion());
+        assertEquals(0, other.getCatalogVersion());
+        assertEquals(Money.of("8.96"), session.getRunningTotal().getSubtotal());
+        assertEquals(session.recomputeRunningTotal().getTotal(), session.getRunningTotal().getTotal());
+        assertEquals(2, session.getChangesSince(version).getChanges().size());
+        // Already at the new price, or not in the basket
+        assertFalse(session.repriceProduct("p1", Money.of("1.99"), 6));
+        assertFalse(session.repriceProduct("p3", Money.of("1.99"), 6));
+        assertEquals(version + 1, session.getVersion());
+    }
+}
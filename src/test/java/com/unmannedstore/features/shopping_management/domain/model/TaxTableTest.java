@@ -0,0 +1,109 @@
+package com.unmannedstore.features.shopping_management.domain.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for the tax rates baskets are taxed with.
+ */
+class TaxTableTest {
+
+    private final Product cola = product("p1", "Beverages", "2.49");
+    private final Product chips = product("p2", "Snacks", "2.99");
+
+    @Test
+    void rateForShouldPreferTheMostSpecificRate() {
+        TaxTable table = TaxTable.of(1, List.of(
+                new TaxRate(null, null, new BigDecimal("0.07")),
+                new TaxRate("store-1", null, new BigDecimal("0.06")),
+                new TaxRate(null, "Snacks", new BigDecimal("0.05")),
+                new TaxRate("store-1", "Snacks", new BigDecimal("0.04"))));
+
+        assertEquals(40_000L, table.rateFor("store-1", "Snacks"));
+        assertEquals(50_000L, table.rateFor("store-2", "Snacks"));
+        assertEquals(60_000L, table.rateFor("store-1", "Beverages"));
+        assertEquals(70_000L, table.rateFor("store-2", null));
+        assertEquals(TaxTable.DEFAULT_RATE_MILLIONTHS, TaxTable.DEFAULT.rateFor("store-1", "Snacks"));
+    }
+
+    @Test
+    void storesChangedFromShouldNameOnlyTheStoresWhoseRatesDiffer() {
+        TaxTable before = TaxTable.of(1, List.of(
+                new TaxRate("store-1", null, new BigDecimal("0.06")),
+                new TaxRate("store-2", "Snacks", new BigDecimal("0.04"))));
+        TaxTable after = TaxTable.of(2, List.of(
+                new TaxRate("store-1", null, new BigDecimal("0.060")),
+                new TaxRate("store-3", "Snacks", new BigDecimal("0.04"))));
+
+        assertEquals(Set.of("store-2", "store-3"), after.storesChangedFrom(before));
+        assertNull(TaxTable.of(3, List.of(new TaxRate(null, "Snacks", new BigDecimal("0.04")))).storesChangedFrom(after));
+    }
+
+    @Test
+    void linesShouldBeTaxedAtTheRateOfTheirCategory() {
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        session.applyTaxTable(TaxTable.of(1, List.of(new TaxRate("store-1", "Snacks", new BigDecimal("0.10")))));
+
+        session.addItem(cola);
+        BasketItem item = session.addItem(chips);
+        assertEquals(Money.of("5.48"), session.getRunningTotal().getSubtotal());
+        assertEquals(Money.of("0.50"), session.getRunningTotal().getTax());
+        assertEquals(Money.of("5.98"), session.getRunningTotal().getTotal());
+
+        session.removeItem(item.getId());
+        assertEquals(Money.of("0.21"), session.getRunningTotal().getTax());
+        assertEquals(Money.of("2.70"), session.getRunningTotal().getTotal());
+    }
+
+    @Test
+    void discountShouldReduceTheTaxAtTheBasketsRate() {
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        session.applyTaxTable(TaxTable.of(1, List.of(new TaxRate("store-1", "Snacks", new BigDecimal("0.10")))));
+        session.applyPromotions(PromotionIndex.of(1, List.of(
+                Promotion.categoryPercentage("c1", "50% off snacks", "Snacks", new BigDecimal("50")))));
+
+        session.addItem(cola);
+        session.addItem(chips);
+
+        assertEquals(Money.of("1.50"), session.getRunningTotal().getDiscount());
+        assertEquals(Money.of("0.37"), session.getRunningTotal().getTax());
+        assertEquals(Money.of("4.35"), session.getRunningTotal().getTotal());
+    }
+
+    @Test
+    void newRatesShouldRepriceTheBasketAsAChange() {
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        session.addItem(chips);
+        assertEquals(Money.of("3.24"), session.getRunningTotal().getTotal());
+        long version = session.getVersion();
+
+        TaxTable snacks = TaxTable.of(1, List.of(new TaxRate(null, "Snacks", new BigDecimal("0.10"))));
+        session.applyTaxTable(snacks);
+        assertEquals(version + 1, session.getVersion());
+        assertEquals(Money.of("3.29"), session.getRunningTotal().getTotal());
+
+        session.applyTaxTable(snacks);
+        session.applyTaxTable(TaxTable.of(2, List.of(
+                new TaxRate(null, "Snacks", new BigDecimal("0.10")),
+                new TaxRate(null, "Beverages", new BigDecimal("0.05")))));
+        assertEquals(version + 1, session.getVersion());
+    }
+
+    @Test
+    void ratesShouldBeFractionsBelowOne() {
+        assertThrows(IllegalArgumentException.class, () -> new TaxRate(null, null, new BigDecimal("8.25")));
+        assertThrows(IllegalArgumentException.class, () -> new TaxRate("store-1", null, new BigDecimal("-0.01")));
+        assertThrows(IllegalArgumentException.class, () -> new TaxRate("store-1", "Snacks", null));
+    }
+
+    private static Product product(String id, String category, String price) {
+        Product product = new Product(id, "Product " + id, new BigDecimal(price), "tag-" + id);
+        product.setCategory(category);
+        return product;
+    }
+}
@@ -0,0 +1,189 @@
+package com.unmannedstore.features.shopping_management.domain.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unmannedstore.features.shopping_management.domain.model.CatalogImportResult;
+import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.domain.model.ProductSummary;
+import com.unmannedstore.features.shopping_management.domain.repository.ProductListingRepository;
+import com.unmannedstore.features.shopping_management.events.ProductChangedEvent;
+import com.unmannedstore.shared.events.EventPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for the bulk catalog import and export.
+ */
+class CatalogImportServiceTest {
+
+    private final List<List<Product>> chunks = new ArrayList<>();
+    private final List<ProductSummary> stored = new ArrayList<>();
+    private final List<Object> events = new ArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+    private CatalogImportService service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ProductListingRepository listingRepository = new ProductListingRepository() {
+            @Override
+            public List<ProductSummary> findPage(String category, String afterId, int limit) {
+                return stored;
+            }
+
+            @Override
+            public void forEach(String category, Consumer<ProductSummary> consumer) {
+                stored.forEach(consumer);
+            }
+
+            @Override
+            public Optional<ProductSummary> findById(String id) {
+                return stored.stream().filter(product -> product.getId().equals(id)).findFirst();
+            }
+        };
+        EventPublisher eventPublisher = new EventPublisher() {
+            @Override
+            public <T> void publish(T event) {
+                events.add(event);
+            }
+        };
+        // Chunks of two, so a handful of rows spans several batches
+        service = new CatalogImportService(products -> {
+            chunks.add(new ArrayList<>(products));
+            return products.size();
+        }, listingRepository, eventPublisher, new ObjectMapper(), meterRegistry, 2);
+    }
+
+    @Test
+    void importCsvShouldUpsertValidRowsInChunks() throws IOException {
+        String csv = "ID,Name,Price,RfidTag,Category,Description\n"
+                + "p1,Milk,1.99,tag1,Dairy,\"Whole milk, 1 l\"\n"
+                + "p2,\"Bread \"\"Rye\"\"\",2.49,tag2,Bakery,\"Baked\r\ndaily\"\r\n"
+                + "p3,Eggs,3.10,tag3,Dairy,\n";
+
+        CatalogImportResult result = service.importCatalog(input(csv), CatalogFormat.CSV);
+
+        assertEquals(3, result.getRowsRead());
+        assertEquals(3, result.getImported());
+        assertEquals(0, result.getRejected());
+        assertEquals(2, chunks.size());
+        assertEquals(2, chunks.get(0).size());
+        Product bread = chunks.get(0).get(1);
+        assertEquals("Bread \"Rye\"", bread.getName());
+        assertEquals("Baked\r\ndaily", bread.getDescription());
+        assertEquals(new BigDecimal("2.49"), bread.getPrice());
+        assertEquals("Whole milk, 1 l", chunks.get(0).get(0).getDescription());
+        assertNull(chunks.get(1).get(0).getDescription());
+        assertEquals(3.0, meterRegistry.counter("product.import.rows", "result", "imported").count());
+    }
+
+    @Test
+    void importShouldRejectInvalidAndDuplicateRows() throws IOException {
+        String csv = "id,name,price,rfidTag,gtin\n"
+                + "p1,Milk,1.99,tag1,00012345678905\n"
+                + "p2,Bread,,tag2,\n"
+                + "p3,Eggs,abc,tag3,\n"
+                + "p4,Tea,-1,tag4,\n"
+                + "p5,Rice,1.00,tag1,\n"
+                + "p1,Milk again,1.99,tag6,\n"
+                + "p7,Salt,0.50,tag7,00012345678905\n"
+                + "p8,Sugar,0.90,tag8,1234\n"
+                + "p9,Oil,4.20,tag9,\n";
+
+        CatalogImportResult result = service.importCatalog(input(csv), CatalogFormat.CSV);
+
+        assertEquals(9, result.getRowsRead());
+        assertEquals(2, result.getImported());
+        assertEquals(7, result.getRejected());
+        assertEquals(7, result.getErrors().size());
+        assertTrue(result.getErrors().get(0).startsWith("line 3: "));
+        assertTrue(result.getErrors().get(3).contains("duplicate rfidTag tag1"));
+        assertTrue(result.getErrors().get(4).contains("duplicate id p1"));
+        assertTrue(result.getErrors().get(5).contains("duplicate gtin 00012345678905"));
+        assertEquals(7.0, meterRegistry.counter("product.import.rows", "result", "rejected").count());
+    }
+
+    @Test
+    void importCsvWithoutRequiredColumnShouldFail() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.importCatalog(input("id,name,price\np1,Milk,1.99\n"), CatalogFormat.CSV));
+        assertTrue(chunks.isEmpty());
+    }
+
+    @Test
+    void importJsonLinesShouldReadOneProductPerLine() throws IOException {
+        String jsonLines = "{\"id\":\"p1\",\"name\":\"Milk\",\"price\":1.99,\"rfidTag\":\"tag1\",\"gtin\":\"00012345678905\"}\n"
+                + "\n"
+                + "not json\n"
+                + "{\"id\":\"p2\",\"name\":\"Bread\",\"price\":\"2.49\",\"rfidTag\":\"tag2\",\"category\":null}\n";
+
+        CatalogImportResult result = service.importCatalog(input(jsonLines), CatalogFormat.JSONL);
+
+        assertEquals(3, result.getRowsRead());
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getRejected());
+        assertEquals("line 3: not valid JSON", result.getErrors().get(0));
+        assertEquals("00012345678905", chunks.get(0).get(0).getGtin());
+        assertNull(chunks.get(0).get(1).getCategory());
+    }
+
+    @Test
+    void importShouldInvalidateCachedProductsOnlyWhenProductsWereWritten() throws IOException {
+        service.importCatalog(input("id,name,price,rfidTag\n"), CatalogFormat.CSV);
+        assertTrue(events.isEmpty());
+
+        service.importCatalog(input("id,name,price,rfidTag\np1,Milk,1.99,tag1\n"), CatalogFormat.CSV);
+        assertEquals(1, events.size());
+        ProductChangedEvent event = (ProductChangedEvent) events.get(0);
+        assertNull(event.getProductId());
+    }
+
+    @Test
+    void exportedCsvShouldImportAgain() throws IOException {
+        stored.add(new ProductSummary("p1", "Bread \"Rye\", sliced", new BigDecimal("2.49"), "tag1",
+                "00012345678905", "Line one\nline two", "Bakery", null));
+        stored.add(new ProductSummary("p2", "Milk", new BigDecimal("1.99"), "tag2", null, null, null, null));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        assertEquals(2, service.exportCatalog(output, CatalogFormat.CSV));
+        CatalogImportResult result = service.importCatalog(new ByteArrayInputStream(output.toByteArray()), CatalogFormat.CSV);
+
+        assertEquals(2, result.getImported());
+        Product bread = chunks.get(0).get(0);
+        assertEquals("Bread \"Rye\", sliced", bread.getName());
+        assertEquals("Line one\nline two", bread.getDescription());
+        assertEquals("00012345678905", bread.getGtin());
+        assertNull(chunks.get(0).get(1).getGtin());
+    }
+
+    @Test
+    void exportedJsonLinesShouldImportAgain() throws IOException {
+        stored.add(new ProductSummary("p1", "Milk", new BigDecimal("1.99"), "tag1", null, "Fresh", "Dairy", null));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        service.exportCatalog(output, CatalogFormat.JSONL);
+        String exported = output.toString(StandardCharsets.UTF_8);
+        CatalogImportResult result = service.importCatalog(input(exported), CatalogFormat.JSONL);
+
+        assertTrue(exported.endsWith("}\n"));
+        assertEquals(1, result.getImported());
+        assertEquals("Dairy", chunks.get(0).get(0).getCategory());
+        assertEquals(new BigDecimal("1.99"), chunks.get(0).get(0).getPrice());
+    }
+
+    private static ByteArrayInputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
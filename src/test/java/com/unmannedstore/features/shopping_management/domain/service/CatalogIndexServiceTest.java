@@ -0,0 +1,185 @@
+package com.unmannedstore.features.shopping_management.domain.service;
+
+import com.unmannedstore.features.shopping_management.domain.model.BasketItem;
+import com.unmannedstore.features.shopping_management.domain.model.CatalogSnapshot;
+import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.domain.model.ProductSummary;
+import com.unmannedstore.features.shopping_management.domain.repository.ProductListingRepository;
+import com.unmannedstore.features.shopping_management.events.ProductChangedEvent;
+import com.unmannedstore.features.shopping_management.infrastructure.persistence.InMemoryCatalogSnapshotRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for publishing catalog snapshots and keeping the search index current with the catalog.
+ */
+class CatalogIndexServiceTest {
+
+    private final Map<String, ProductSummary> table = new TreeMap<>();
+    private CatalogIndexService service;
+
+    @BeforeEach
+    void setUp() {
+        ProductListingRepository listingRepository = new ProductListingRepository() {
+            @Override
+            public List<ProductSummary> findPage(String category, String afterId, int limit) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void forEach(String category, Consumer<ProductSummary> consumer) {
+                table.values().forEach(consumer);
+            }
+
+            @Override
+            public Optional<ProductSummary> findById(String id) {
+                return Optional.ofNullable(table.get(id));
+            }
+        };
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        service = new CatalogIndexService(listingRepository, new InMemoryCatalogSnapshotRepository(meterRegistry),
+                meterRegistry, 10);
+
+        store(product("p1", "Whole Milk", "Dairy"));
+        store(product("p2", "Greek Yogurt", "Dairy"));
+        store(product("p3", "Sourdough Bread", "Bakery"));
+        assertFalse(service.isBuilt());
+        assertEquals(3, service.rebuild());
+    }
+
+    @Test
+    void rebuildShouldIndexTheWholeCatalog() {
+        assertTrue(service.isBuilt());
+        assertEquals(List.of("p1"), ids(service.search("milk", 10)));
+        assertEquals(List.of("p1", "p2"), productIds(service.findByCategory("Dairy")));
+        assertEquals(1, service.getSnapshot().getVersion());
+        assertEquals(Map.of("Bakery", 1, "Dairy", 2), service.getCategoryCounts());
+    }
+
+    @Test
+    void productChangesShouldUpdateBothIndexes() {
+        // Created
+        store(product("p4", "Butter", "Dairy"));
+        service.onProductChanged(new ProductChangedEvent("p4", "tag-p4", null, false));
+        // Moved to another category and renamed
+        store(product("p1", "Oat Milk", "Plant Based"));
+        service.onProductChanged(new ProductChangedEvent("p1", "tag-p1", null, false));
+        // Deleted
+        table.remove("p3");
+        service.onProductChanged(new ProductChangedEvent("p3", "tag-p3", null, true));
+
+        assertEquals(List.of("p2", "p4"), productIds(service.findByCategory("Dairy")));
+        assertEquals(List.of("p1"), productIds(service.findByCategory("Plant Based")));
+        assertEquals(List.of(), productIds(service.findByCategory("Bakery")));
+        assertEquals(4, service.getSnapshot().getVersion());
+        assertEquals(Map.of("Dairy", 2, "Plant Based", 1), service.getCategoryCounts());
+        assertEquals(List.of("p1"), ids(service.search("oat", 10)));
+        assertEquals(List.of(), ids(service.search("whole", 10)));
+        assertEquals(List.of(), ids(service.search("sourdough", 10)));
+    }
+
+    @Test
+    void changeWithoutProductIdShouldRebuild() {
+        table.clear();
+        store(product("p9", "Rye Bread", "Bakery"));
+
+        service.onProductChanged(new ProductChangedEvent(null, null, null, false));
+
+        assertEquals(Map.of("Bakery", 1), service.getCategoryCounts());
+        assertEquals(List.of(), ids(service.search("milk", 10)));
+        assertEquals(2, service.getSnapshot().getVersion());
+    }
+
+    @Test
+    void stagedChangesShouldBePublishedAsOneVersion() {
+        CatalogSnapshot before = service.getSnapshot();
+        store(product("p1", "Skimmed Milk", "Dairy"));
+        store(product("p5", "Croissant", "Bakery"));
+        service.stage("p1");
+        service.stage("p5");
+        service.stage("p1");
+
+        // Readers see the published version until the staged changes are published
+        assertEquals("Whole Milk", service.getSnapshot().findById("p1").getName());
+        assertEquals(2, service.publishStaged());
+        assertEquals(2, service.publishStaged());
+
+        CatalogSnapshot after = service.getSnapshot();
+        assertEquals("Skimmed Milk", after.findById("p1").getName());
+        assertEquals(2, after.findById("p5").getCatalogVersion());
+        assertEquals(1, after.findById("p2").getCatalogVersion());
+        // The previous version is left as it was
+        assertEquals("Whole Milk", before.findById("p1").getName());
+        assertNull(before.findById("p5"));
+    }
+
+    @Test
+    void basketItemsShouldRecordTheVersionTheyWerePricedFrom() {
+        Product milk = service.getSnapshot().findByRfidTag("tag-p1");
+        BasketItem item = new BasketItem("i1", milk, 1, "s1");
+
+        store(product("p1", "Whole Milk", "Dairy", "1.20"));
+        service.onProductChanged(new ProductChangedEvent("p1", "tag-p1", null, false));
+
+        assertEquals(1, item.getCatalogVersion());
+        assertEquals(2, service.getSnapshot().findByRfidTag("tag-p1").getCatalogVersion());
+    }
+
+    @Test
+    void unchangedProductsShouldKeepTheirPublishedVersion() {
+        Product milk = service.getSnapshot().findById("p1");
+
+        // A repeated event and a reload of an unchanged catalog publish nothing
+        service.onProductChanged(new ProductChangedEvent("p1", "tag-p1", null, false));
+        service.rebuild();
+        assertEquals(1, service.getSnapshot().getVersion());
+
+        store(product("p2", "Greek Yogurt", "Dairy", "0.90"));
+        service.rebuild();
+
+        assertEquals(2, service.getSnapshot().getVersion());
+        assertSame(milk, service.getSnapshot().findById("p1"));
+        assertEquals(2, service.getSnapshot().findById("p2").getCatalogVersion());
+    }
+
+    @Test
+    void searchShouldBeCappedAtTheMaximumResults() {
+        for (int i = 0; i < 20; i++) {
+            store(product("m" + i, "Milk " + i, "Dairy"));
+        }
+        service.rebuild();
+
+        assertEquals(10, service.search("milk", 50).size());
+    }
+
+    private void store(ProductSummary product) {
+        table.put(product.getId(), product);
+    }
+
+    private static ProductSummary product(String id, String name, String category) {
+        return product(id, name, category, "1.00");
+    }
+
+    private static ProductSummary product(String id, String name, String category, String price) {
+        return new ProductSummary(id, name, new BigDecimal(price), "tag-" + id, null, null, category, null);
+    }
+
+    private static List<String> ids(List<ProductSummary> products) {
+        return products.stream().map(ProductSummary::getId).collect(Collectors.toList());
+    }
+
+    private static List<String> productIds(List<Product> products) {
+        return products.stream().map(Product::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,118 @@
+package com.unmannedstore.features.shopping_management.domain.service;
+
+import com.unmannedstore.features.shopping_management.domain.model.BasketItem;
+import com.unmannedstore.features.shopping_management.domain.model.CatalogSnapshot;
+import com.unmannedstore.features.shopping_management.domain.model.Money;
+import com.unmannedstore.features.shopping_management.domain.model.PriceChangePolicy;
+import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
+import com.unmannedstore.features.shopping_management.domain.repository.CatalogSnapshotRepository;
+import com.unmannedstore.features.shopping_management.domain.repository.ShoppingSessionRepository;
+import com.unmannedstore.features.shopping_management.events.ProductPriceChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for repricing the active sessions holding a product when its price changes.
+ */
+class PriceChangeServiceTest {
+
+    private static final Product COLA = new Product("p1", "Cola", new BigDecimal("2.49"), "rfid-1");
+
+    private ShoppingSessionRepository shoppingSessionRepository;
+    private CatalogSnapshotRepository catalogSnapshotRepository;
+    private SessionRepricer sessionRepricer;
+    private PriceChangeService service;
+
+    @BeforeEach
+    void setUp() {
+        shoppingSessionRepository = mock(ShoppingSessionRepository.class);
+        catalogSnapshotRepository = mock(CatalogSnapshotRepository.class);
+        when(catalogSnapshotRepository.current()).thenReturn(CatalogSnapshot.EMPTY);
+        // Two repricing threads, two sessions per task
+        sessionRepricer = new SessionRepricer(shoppingSessionRepository, 2, 2);
+        service = service(PriceChangePolicy.TAKE_NEW_PRICE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionRepricer.shutdown();
+    }
+
+    @Test
+    void priceChangeShouldRepriceTheSessionsHoldingTheProductInBatches() {
+        List<ShoppingSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            sessions.add(basketWithTwoColas("basket-" + i));
+        }
+        sessions.get(4).complete();
+        when(shoppingSessionRepository.findActiveSessionsByProductId("p1")).thenReturn(sessions);
+
+        service.onProductPriceChanged(new ProductPriceChangedEvent("p1", new BigDecimal("2.49"), new BigDecimal("1.99")));
+
+        for (ShoppingSession session : sessions.subList(0, 4)) {
+            assertEquals(Money.of("3.98"), session.getRunningTotal().getSubtotal());
+            verify(shoppingSessionRepository, times(1)).save(session);
+        }
+        // Finished after it was found
+        assertEquals(Money.of("4.98"), sessions.get(4).getRunningTotal().getSubtotal());
+        verify(shoppingSessionRepository, never()).save(sessions.get(4));
+        verify(shoppingSessionRepository, never()).findActiveSessionsByStoreId(any());
+    }
+
+    @Test
+    void priceChangeShouldRecordTheCatalogVersionOfTheNewPrice() {
+        ShoppingSession session = basketWithTwoColas("basket-1");
+        when(shoppingSessionRepository.findActiveSessionsByProductId("p1")).thenReturn(List.of(session));
+        Product repriced = new Product("p1", "Cola", new BigDecimal("1.99"), "rfid-1");
+        Product other = new Product("p2", "Chips", new BigDecimal("2.99"), "rfid-2");
+        CatalogSnapshot snapshot = CatalogSnapshot.of(3, List.of(repriced, other))
+                .withChanges(List.of(other), List.of());
+        when(catalogSnapshotRepository.current()).thenReturn(snapshot);
+
+        service.onProductPriceChanged(new ProductPriceChangedEvent("p1", new BigDecimal("2.49"), new BigDecimal("1.99")));
+
+        BasketItem line = session.findItemByProductId("p1");
+        assertEquals(Money.of("1.99"), line.getPrice());
+        // The version the product was published in, not a later one
+        assertEquals(3, line.getCatalogVersion());
+    }
+
+    @Test
+    void repriceProductShouldSkipSessionsAlreadyAtThePrice() {
+        ShoppingSession session = basketWithTwoColas("basket-1");
+        when(shoppingSessionRepository.findActiveSessionsByProductId("p1")).thenReturn(List.of(session));
+
+        assertEquals(0, service.repriceProduct("p1", Money.of("2.49"), 1));
+        verify(shoppingSessionRepository, never()).save(session);
+    }
+
+    @Test
+    void honouringOldPricesShouldLeaveBasketsUnchanged() {
+        service = service(PriceChangePolicy.HONOUR_OLD_PRICE);
+
+        service.onProductPriceChanged(new ProductPriceChangedEvent("p1", new BigDecimal("2.49"), new BigDecimal("1.99")));
+
+        verify(shoppingSessionRepository, never()).findActiveSessionsByProductId("p1");
+    }
+
+    private PriceChangeService service(PriceChangePolicy policy) {
+        return new PriceChangeService(shoppingSessionRepository, catalogSnapshotRepository, sessionRepricer,
+                new SimpleMeterRegistry(), policy);
+    }
+
+    private static ShoppingSession basketWithTwoColas(String basketId) {
+        ShoppingSession session = new ShoppingSession("customer-" + basketId, "store-1", basketId);
+        session.addItems(List.of(COLA, COLA));
+        return session;
+    }
+}
@@ -0,0 +1,109 @@
+package com.unmannedstore.features.shopping_management.domain.service;
+
+import com.unmannedstore.features.shopping_management.domain.model.ProductSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for the in-memory product search index.
+ */
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.put(product("p1", "Whole Milk", "Dairy", "Fresh whole milk, 1 litre"));
+        index.put(product("p2", "Chocolate Bar", "Snacks", "Milk chocolate with hazelnuts"));
+        index.put(product("p3", "Sourdough Bread", "Bakery", "Baked daily"));
+        index.put(product("p4", "Oat Drink", "Dairy", "Plant based alternative to milk"));
+    }
+
+    @Test
+    void searchShouldRankNameMatchesAboveDescriptionMatches() {
+        assertEquals(List.of("p1", "p2", "p4"), ids(index.search("milk", 10)));
+    }
+
+    @Test
+    void searchShouldRequireEveryQueryTerm() {
+        assertEquals(List.of("p2"), ids(index.search("milk chocolate", 10)));
+        assertEquals(List.of(), ids(index.search("milk bread", 10)));
+    }
+
+    @Test
+    void searchShouldMatchPrefixes() {
+        assertEquals(List.of("p3"), ids(index.search("sourd", 10)));
+        assertEquals(List.of("p2"), ids(index.search("choc haz", 10)));
+    }
+
+    @Test
+    void searchShouldTolerateTypos() {
+        assertEquals(List.of("p3"), ids(index.search("sourdoguh", 10)));
+        assertEquals(List.of("p2"), ids(index.search("chocolaet", 10)));
+        assertEquals(List.of("p3"), ids(index.search("bakrey", 10)));
+        // Short terms must match exactly or as a prefix
+        assertEquals(List.of(), ids(index.search("oay", 10)));
+    }
+
+    @Test
+    void exactMatchesShouldRankAboveTypoMatches() {
+        index.put(product("p5", "Milo Powder", "Drinks", null));
+
+        List<String> ids = ids(index.search("milo", 10));
+
+        assertEquals("p5", ids.get(0));
+        assertTrue(ids.contains("p1"));
+    }
+
+    @Test
+    void putShouldReplaceAProductAndRemoveShouldDropIt() {
+        index.put(product("p3", "Rye Bread", "Bakery", null));
+
+        assertEquals(List.of(), ids(index.search("sourdough", 10)));
+        assertEquals(List.of("p3"), ids(index.search("rye", 10)));
+        assertEquals(4, index.size());
+
+        assertTrue(index.remove("p3"));
+        assertFalse(index.remove("p3"));
+        assertEquals(List.of(), ids(index.search("bread", 10)));
+        assertEquals(3, index.size());
+
+        // The freed slot is reused without leaking the removed product's terms
+        index.put(product("p6", "Butter", "Dairy", null));
+        assertEquals(List.of("p6"), ids(index.search("butter", 10)));
+        assertEquals(List.of(), ids(index.search("rye", 10)));
+    }
+
+    @Test
+    void searchShouldHonourTheLimit() {
+        assertEquals(List.of("p1"), ids(index.search("milk", 1)));
+        assertEquals(List.of(), ids(index.search("milk", 0)));
+        assertEquals(List.of(), ids(index.search(" ,. ", 10)));
+    }
+
+    @Test
+    void editDistanceShouldCountTranspositionsAsOneEdit() {
+        int[][] rows = new int[3][16];
+
+        assertEquals(0, ProductSearchIndex.editDistance("milk", "milk", 2, rows));
+        assertEquals(1, ProductSearchIndex.editDistance("milk", "mlik", 2, rows));
+        assertEquals(1, ProductSearchIndex.editDistance("milk", "milks", 2, rows));
+        assertEquals(2, ProductSearchIndex.editDistance("milk", "mole", 2, rows));
+        assertEquals(2, ProductSearchIndex.editDistance("milk", "bread", 1, rows));
+    }
+
+    private static ProductSummary product(String id, String name, String category, String description) {
+        return new ProductSummary(id, name, new BigDecimal("1.00"), "tag-" + id, null, description, category, null);
+    }
+
+    private static List<String> ids(List<ProductSummary> products) {
+        return products.stream().map(ProductSummary::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,65 @@
+package com.unmannedstore.features.shopping_management.domain.service;
+
+import com.unmannedstore.features.shopping_management.domain.model.LedgerEntry;
+import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
+import com.unmannedstore.features.shopping_management.domain.repository.ShoppingSessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for checking posted running totals against a full recompute.
+ */
+class RunningTotalVerifierTest {
+
+    private ShoppingSessionRepository shoppingSessionRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private RunningTotalVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        shoppingSessionRepository = mock(ShoppingSessionRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        verifier = new RunningTotalVerifier(shoppingSessionRepository, meterRegistry, 10);
+    }
+
+    @Test
+    void verifySampledSessionsShouldReportDriftedSessions() {
+        ShoppingSession intact = session("basket-1");
+        ShoppingSession drifted = session("basket-2");
+        // A change posted twice leaves the running total 2.49 over its lines
+        drifted.getRunningTotal().post(LedgerEntry.of(249, 249 * 82_500L, 0));
+        ShoppingSession loaded = new ShoppingSession("customer-1", "store-1", "basket-3");
+        when(shoppingSessionRepository.findRecentlyUpdatedActiveSessions(10)).thenReturn(List.of(intact, drifted, loaded));
+
+        verifier.verifySampledSessions();
+
+        assertEquals(2.0, meterRegistry.get("pricing.ledger.verified").counter().count());
+        assertEquals(1.0, meterRegistry.get("pricing.ledger.drifted").counter().count());
+        assertEquals(270.0, meterRegistry.get("pricing.ledger.drift").summary().max());
+    }
+
+    @Test
+    void verifyShouldLeaveTheSessionUnchanged() {
+        ShoppingSession session = session("basket-1");
+        long version = session.getVersion();
+
+        assertEquals(0, verifier.verify(List.of(session)));
+        assertEquals(version, session.getVersion());
+    }
+
+    private static ShoppingSession session(String basketId) {
+        Product cola = new Product("p1", "Cola", new BigDecimal("2.49"), "rfid-1");
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", basketId);
+        session.addItem(cola);
+        session.addItem(cola);
+        return session;
+    }
+}
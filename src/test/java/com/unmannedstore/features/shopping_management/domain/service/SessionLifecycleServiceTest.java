@@ -0,0 +1,75 @@
+package com.unmannedstore.features.shopping_management.domain.service;
+
+import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
+import com.unmannedstore.features.shopping_management.domain.repository.SessionArchiveRepository;
+import com.unmannedstore.features.shopping_management.domain.repository.ShoppingSessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for the session expiry and archival jobs.
+ */
+class SessionLifecycleServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private ShoppingSessionRepository shoppingSessionRepository;
+    private SessionArchiveRepository sessionArchiveRepository;
+    private SessionLifecycleService service;
+
+    @BeforeEach
+    void setUp() {
+        shoppingSessionRepository = mock(ShoppingSessionRepository.class);
+        sessionArchiveRepository = mock(SessionArchiveRepository.class);
+        // Two hour idle timeout, one day retention, archive batches of 10 and at most 3 batches per run
+        service = new SessionLifecycleService(shoppingSessionRepository, sessionArchiveRepository, new SimpleMeterRegistry(),
+                7_200_000, 100, 86_400_000, 10, 3);
+    }
+
+    @Test
+    void expireIdleSessionsShouldExpireSessionsIdleLongerThanTheTimeout() {
+        ShoppingSession idle = session(NOW.minusHours(3));
+        ShoppingSession touched = session(NOW.minusMinutes(5));
+        when(shoppingSessionRepository.findIdleActiveSessions(NOW.minusHours(2), 100)).thenReturn(List.of(idle, touched));
+
+        int expired = service.expireIdleSessions(NOW);
+
+        assertEquals(1, expired);
+        assertEquals("EXPIRED", idle.getStatus());
+        assertEquals(1, idle.getVersion());
+        assertEquals("ACTIVE", touched.getStatus());
+        verify(shoppingSessionRepository, times(1)).save(idle);
+        verify(shoppingSessionRepository, never()).save(touched);
+    }
+
+    @Test
+    void archiveFinishedSessionsShouldStopAtTheFirstShortBatch() {
+        when(sessionArchiveRepository.archiveFinishedSessions(any(), anyInt())).thenReturn(10, 4);
+
+        assertEquals(14, service.archiveFinishedSessions(NOW));
+        verify(sessionArchiveRepository, times(2)).archiveFinishedSessions(NOW.minusDays(1), 10);
+    }
+
+    @Test
+    void archiveFinishedSessionsShouldBoundTheBatchesPerRun() {
+        when(sessionArchiveRepository.archiveFinishedSessions(any(), anyInt())).thenReturn(10);
+
+        assertEquals(30, service.archiveFinishedSessions(NOW));
+        verify(sessionArchiveRepository, times(3)).archiveFinishedSessions(NOW.minusDays(1), 10);
+    }
+
+    private static ShoppingSession session(LocalDateTime lastUpdatedAt) {
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-" + lastUpdatedAt);
+        session.setLastUpdatedAt(lastUpdatedAt);
+        return session;
+    }
+}
@@ -0,0 +1,92 @@
+package com.unmannedstore.features.shopping_management.domain.service;
+
+import com.unmannedstore.features.shopping_management.domain.model.Money;
+import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
+import com.unmannedstore.features.shopping_management.domain.model.TaxRate;
+import com.unmannedstore.features.shopping_management.domain.repository.ShoppingSessionRepository;
+import com.unmannedstore.features.shopping_management.domain.repository.TaxRateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for replacing the tax rates and repricing the active sessions they tax.
+ */
+class TaxServiceTest {
+
+    private ShoppingSessionRepository shoppingSessionRepository;
+    private SessionRepricer sessionRepricer;
+    private TaxService service;
+
+    @BeforeEach
+    void setUp() {
+        shoppingSessionRepository = mock(ShoppingSessionRepository.class);
+        TaxRateRepository taxRateRepository = mock(TaxRateRepository.class);
+        when(taxRateRepository.findAll()).thenReturn(List.of());
+        // Two repricing threads, two sessions per task
+        sessionRepricer = new SessionRepricer(shoppingSessionRepository, 2, 2);
+        service = new TaxService(taxRateRepository, shoppingSessionRepository, sessionRepricer, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionRepricer.shutdown();
+    }
+
+    @Test
+    void replaceRatesShouldRepriceOnlyTheStoresThatChanged() {
+        ShoppingSession session = session("store-2");
+        when(shoppingSessionRepository.findActiveSessionsByStoreId("store-2")).thenReturn(List.of(session));
+
+        int repriced = service.replaceRates(List.of(new TaxRate("store-2", null, new BigDecimal("0.05"))));
+
+        assertEquals(1, repriced);
+        assertEquals(2, service.getTable().getVersion());
+        assertEquals(Money.of("3.14"), session.getRunningTotal().getTotal());
+        verify(shoppingSessionRepository, times(1)).save(session);
+        verify(shoppingSessionRepository, never()).findActiveSessionsByStoreId(null);
+    }
+
+    @Test
+    void replaceRatesShouldRepriceEverySessionInBatchesWhenTheDefaultRateChanges() {
+        List<ShoppingSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            sessions.add(session("store-" + i));
+        }
+        ShoppingSession empty = new ShoppingSession("customer-1", "store-1", "basket-empty");
+        // Finished after it was found
+        ShoppingSession finished = session("store-9");
+        finished.complete();
+        List<ShoppingSession> active = new ArrayList<>(sessions);
+        active.add(empty);
+        active.add(finished);
+        when(shoppingSessionRepository.findActiveSessionsByStoreId(null)).thenReturn(active);
+
+        int repriced = service.replaceRates(List.of(new TaxRate(null, null, new BigDecimal("0.10"))));
+
+        assertEquals(5, repriced);
+        for (ShoppingSession session : sessions) {
+            assertEquals(Money.of("3.29"), session.getRunningTotal().getTotal());
+            verify(shoppingSessionRepository, times(1)).save(session);
+        }
+        verify(shoppingSessionRepository, never()).save(empty);
+        verify(shoppingSessionRepository, never()).save(finished);
+    }
+
+    private static ShoppingSession session(String storeId) {
+        Product chips = new Product("p2", "Chips", new BigDecimal("2.99"), "tag-p2");
+        chips.setCategory("Snacks");
+        ShoppingSession session = new ShoppingSession("customer-1", storeId, "basket-" + storeId);
+        session.addItem(chips);
+        return session;
+    }
+}
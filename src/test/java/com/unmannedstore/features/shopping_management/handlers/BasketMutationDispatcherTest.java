@@ -0,0 +1,121 @@
+package com.unmannedstore.features.shopping_management.handlers;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for the per-basket mutation mailboxes.
+ */
+class BasketMutationDispatcherTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BasketMutationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new BasketMutationDispatcher(null, null, meterRegistry, 4, 10_000, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void mutationsForOneBasketShouldRunInOrderOneAtATime() throws Exception {
+        List<Integer> applied = new ArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 500; i++) {
+            int sequence = i;
+            futures.add(dispatcher.submit("basket-1", () -> {
+                if (running.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                applied.add(sequence);
+                running.decrementAndGet();
+                return sequence;
+            }));
+        }
+        futures.get(futures.size() - 1).get(10, TimeUnit.SECONDS);
+
+        assertEquals(0, overlaps.get());
+        assertEquals(500, applied.size());
+        for (int i = 0; i < applied.size(); i++) {
+            assertEquals(i, applied.get(i));
+        }
+    }
+
+    @Test
+    void concurrentSubmittersShouldNotLoseUpdates() throws Exception {
+        int[] quantity = new int[1];
+        int threads = 8;
+        int updatesPerThread = 250;
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < updatesPerThread; i++) {
+                    dispatcher.execute("basket-1", () -> ++quantity[0]);
+                }
+                done.countDown();
+            }).start();
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(threads * updatesPerThread, dispatcher.execute("basket-1", () -> quantity[0]));
+        assertEquals(0, dispatcher.getPendingMutationCount());
+    }
+
+    @Test
+    void fullMailboxShouldRejectWhileOtherBasketsKeepRunning() throws Exception {
+        BasketMutationDispatcher bounded = new BasketMutationDispatcher(null, null, meterRegistry, 2, 1, 8);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<Boolean> blocked = bounded.submit("basket-1", () -> awaitQuietly(release));
+            CompletableFuture<Boolean> rejected = bounded.submit("basket-1", () -> true);
+
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof RejectedExecutionException);
+            assertEquals("other", bounded.submit("basket-2", () -> "other").get(5, TimeUnit.SECONDS));
+
+            release.countDown();
+            assertTrue(blocked.get(5, TimeUnit.SECONDS));
+        } finally {
+            bounded.shutdown();
+        }
+    }
+
+    @Test
+    void executeShouldRethrowMutationFailures() {
+        assertThrows(IllegalArgumentException.class, () -> dispatcher.execute("basket-1", () -> {
+            throw new IllegalArgumentException("Product not found: missing");
+        }));
+        assertEquals(1L, meterRegistry.get("basket.mailbox.wait").timer().count());
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.unmannedstore.features.shopping_management.handlers;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for the time-windowed RFID read filter.
+ */
+class RfidReadDeduplicatorTest {
+
+    private static final long START = 1_000_000L;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RfidReadDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // A one second window on a 100 ms wheel, tracking at most 3 tags
+        deduplicator = new RfidReadDeduplicator(meterRegistry, true, 1000, 100, 3);
+    }
+
+    @Test
+    void repeatedReadsWithinTheWindowShouldBeSuppressed() {
+        assertFalse(deduplicator.isDuplicate("basket-1", "rfid-1", START));
+        assertTrue(deduplicator.isDuplicate("basket-1", "rfid-1", START + 50));
+        assertTrue(deduplicator.isDuplicate("basket-1", "rfid-1", START + 900));
+
+        // The same tag in another basket is a different read
+        assertFalse(deduplicator.isDuplicate("basket-2", "rfid-1", START + 900));
+    }
+
+    @Test
+    void tagShouldBeAcceptedAgainOnceItHasNotBeenReadForAWindow() {
+        deduplicator.isDuplicate("basket-1", "rfid-1", START);
+        deduplicator.expire(START + 1100);
+
+        assertEquals(0, deduplicator.getTrackedCount());
+        assertFalse(deduplicator.isDuplicate("basket-1", "rfid-1", START + 1100));
+    }
+
+    @Test
+    void everyReadShouldExtendTheWindow() {
+        deduplicator.isDuplicate("basket-1", "rfid-1", START);
+        for (long now = START + 500; now <= START + 3000; now += 500) {
+            deduplicator.expire(now);
+            assertTrue(deduplicator.isDuplicate("basket-1", "rfid-1", now));
+        }
+        assertEquals(1, deduplicator.getTrackedCount());
+
+        deduplicator.expire(START + 4100);
+        assertEquals(0, deduplicator.getTrackedCount());
+    }
+
+    @Test
+    void forgottenReadShouldLetTheNextReadThrough() {
+        assertFalse(deduplicator.isDuplicate("basket-1", "rfid-1", START));
+        deduplicator.forget("basket-1", "rfid-1");
+
+        assertEquals(0, deduplicator.getTrackedCount());
+        assertFalse(deduplicator.isDuplicate("basket-1", "rfid-1", START + 50));
+        assertTrue(deduplicator.isDuplicate("basket-1", "rfid-1", START + 100));
+
+        // The key left in its first slot is swept without dropping the tag early
+        deduplicator.expire(START + 1000);
+        assertEquals(1, deduplicator.getTrackedCount());
+        deduplicator.expire(START + 1200);
+        assertEquals(0, deduplicator.getTrackedCount());
+    }
+
+    @Test
+    void readsShouldBeAcceptedUntrackedWhenTheTableIsFull() {
+        for (int i = 0; i < 3; i++) {
+            assertFalse(deduplicator.isDuplicate("basket-1", "rfid-" + i, START));
+        }
+        assertFalse(deduplicator.isDuplicate("basket-1", "rfid-3", START));
+        assertFalse(deduplicator.isDuplicate("basket-1", "rfid-3", START + 10));
+
+        assertEquals(3, deduplicator.getTrackedCount());
+        assertEquals(2.0, meterRegistry.get("rfid.reads").tag("result", "untracked").counter().count());
+    }
+
+    @Test
+    void countersShouldReportAcceptedAndSuppressedReads() {
+        deduplicator.isDuplicate("basket-1", "rfid-1", START);
+        deduplicator.isDuplicate("basket-1", "rfid-1", START + 100);
+        deduplicator.isDuplicate("basket-1", "rfid-1", START + 200);
+        deduplicator.isDuplicate("basket-1", "rfid-2", START + 200);
+
+        assertEquals(2.0, meterRegistry.get("rfid.reads").tag("result", "accepted").counter().count());
+        assertEquals(2.0, meterRegistry.get("rfid.reads").tag("result", "suppressed").counter().count());
+        assertEquals(2.0, meterRegistry.get("rfid.dedup.entries").gauge().value());
+    }
+
+    @Test
+    void disabledFilterShouldAcceptEveryRead() {
+        RfidReadDeduplicator disabled = new RfidReadDeduplicator(new SimpleMeterRegistry(), false, 1000, 100, 3);
+
+        assertFalse(disabled.isDuplicate("basket-1", "rfid-1", START));
+        assertFalse(disabled.isDuplicate("basket-1", "rfid-1", START + 10));
+        assertEquals(0, disabled.getTrackedCount());
+    }
+}
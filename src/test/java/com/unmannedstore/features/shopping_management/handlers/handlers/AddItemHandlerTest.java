@@ -1,6 +1,8 @@
 package com.unmannedstore.features.shopping_management.handlers.handlers;
 
 import com.unmannedstore.features.shopping_management.domain.model.BasketItem;
+import com.unmannedstore.features.shopping_management.domain.model.BasketMutation;
+import com.unmannedstore.features.shopping_management.domain.model.Money;
 import com.unmannedstore.features.shopping_management.domain.model.Product;
 import com.unmannedstore.features.shopping_management.domain.model.RunningTotal;
 import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
@@ -18,6 +20,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -61,7 +64,7 @@ class AddItemHandlerTest {
         session.setId(sessionId);
         session.setBasketId(basketId);
         session.setItems(items);
-        session.setRunningTotal(new RunningTotal(new BigDecimal("10.00")));
+        session.setRunningTotal(new RunningTotal(Money.of("10.00")));
         
         AddItemCommand command = new AddItemCommand(sessionId, productId);
         
@@ -78,4 +81,29 @@ class AddItemHandlerTest {
         verify(shoppingService).addItemToSession(sessionId, productId);
         verify(eventPublisher).publish(any(ItemAddedEvent.class));
     }
+
+    @Test
+    void handleByRfidTagShouldPublishTheLineOfTheMutation() {
+        // Arrange
+        String sessionId = "session-123";
+        String rfidTag = "rfid-456";
+        Product product = new Product("product-456", "Test Product", new BigDecimal("10.00"), rfidTag);
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-789");
+        session.setId(sessionId);
+        session.addItem(new Product("product-789", "Other Product", new BigDecimal("5.00"), "rfid-789"));
+        BasketItem basketItem = session.addItem(product);
+        
+        AddItemCommand command = new AddItemCommand(sessionId, rfidTag, true);
+        
+        when(shoppingService.addItemToSessionByRfidTag(sessionId, rfidTag))
+                .thenReturn(BasketMutation.of(session, basketItem));
+        
+        // Act
+        ShoppingSession result = addItemHandler.handle(command);
+        
+        // Assert
+        assertSame(session, result);
+        verify(eventPublisher).publish(argThat((ItemAddedEvent event) ->
+                basketItem.getId().equals(event.getItemId()) && "product-456".equals(event.getProductId())));
+    }
 }
\ No newline at end of file
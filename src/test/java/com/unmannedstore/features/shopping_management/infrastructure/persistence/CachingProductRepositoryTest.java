@@ -0,0 +1,189 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import com.unmannedstore.features.shopping_management.domain.model.CatalogSnapshot;
+import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.domain.repository.ProductRepository;
+import com.unmannedstore.features.shopping_management.events.ProductChangedEvent;
+import com.unmannedstore.shared.events.EventPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for the product cache.
+ */
+class CachingProductRepositoryTest {
+
+    // Stubbed through the domain interface, whose methods overlap with the Spring Data ones
+    private ProductRepository jpaRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private InMemoryCatalogSnapshotRepository snapshots;
+    private EventPublisher eventPublisher;
+    private CachingProductRepository repository;
+    private Product cola;
+
+    @BeforeEach
+    void setUp() {
+        JpaProductRepository jpaProductRepository = mock(JpaProductRepository.class);
+        jpaRepository = jpaProductRepository;
+        meterRegistry = new SimpleMeterRegistry();
+        snapshots = new InMemoryCatalogSnapshotRepository(meterRegistry);
+        eventPublisher = mock(EventPublisher.class);
+        repository = new CachingProductRepository(jpaProductRepository, snapshots, noIndex(), eventPublisher, meterRegistry, 2);
+        cola = new Product("p1", "Cola Drink", new BigDecimal("2.49"), "rfid-1");
+        when(jpaRepository.findById("p1")).thenReturn(Optional.of(cola));
+        when(jpaRepository.findByRfidTag("rfid-1")).thenReturn(Optional.of(cola));
+    }
+
+    @Test
+    void repeatedLookupsShouldBeServedFromTheCache() {
+        assertSame(cola, repository.findByRfidTag("rfid-1").orElseThrow());
+        assertSame(cola, repository.findByRfidTag("rfid-1").orElseThrow());
+        // The tag lookup also cached the product under its ID
+        assertSame(cola, repository.findById("p1").orElseThrow());
+
+        verify(jpaRepository, times(1)).findByRfidTag("rfid-1");
+        verify(jpaRepository, never()).findById("p1");
+        assertEquals(1.0, meterRegistry.get("product.cache.gets").tag("index", "rfid_tag").tag("result", "miss").counter().count());
+        assertEquals(1.0, meterRegistry.get("product.cache.gets").tag("index", "rfid_tag").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("product.cache.gets").tag("index", "id").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void unknownTagsShouldBeCachedAsMissing() {
+        assertTrue(repository.findByRfidTag("foreign").isEmpty());
+        assertTrue(repository.findByRfidTag("foreign").isEmpty());
+
+        verify(jpaRepository, times(1)).findByRfidTag("foreign");
+    }
+
+    @Test
+    void saveShouldInvalidateTheOldEntries() {
+        repository.findByRfidTag("rfid-1");
+        Product retagged = new Product("p1", "Cola Drink", new BigDecimal("2.29"), "rfid-2");
+        when(jpaRepository.save(retagged)).thenReturn(retagged);
+        when(jpaRepository.findById("p1")).thenReturn(Optional.of(retagged));
+        when(jpaRepository.findByRfidTag("rfid-1")).thenReturn(Optional.empty());
+
+        repository.save(retagged);
+
+        assertSame(retagged, repository.findById("p1").orElseThrow());
+        assertTrue(repository.findByRfidTag("rfid-1").isEmpty());
+        verify(eventPublisher, times(1)).publish(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void changeEventShouldInvalidateTheProduct() {
+        repository.findById("p1");
+        Product repriced = new Product("p1", "Cola Drink", new BigDecimal("1.99"), "rfid-1");
+        when(jpaRepository.findById("p1")).thenReturn(Optional.of(repriced));
+
+        repository.onProductChanged(new ProductChangedEvent("p1", "rfid-1", null, false));
+
+        assertSame(repriced, repository.findById("p1").orElseThrow());
+    }
+
+    @Test
+    void batchLookupShouldOnlyLoadTheMisses() {
+        repository = new CachingProductRepository((JpaProductRepository) jpaRepository, snapshots, noIndex(), eventPublisher,
+                meterRegistry, 10);
+        Product water = new Product("p2", "Still Water", new BigDecimal("0.99"), "rfid-2");
+        repository.findByRfidTag("rfid-1");
+        when(jpaRepository.findByRfidTagIn(Set.of("rfid-2", "foreign"))).thenReturn(List.of(water));
+
+        List<Product> found = repository.findByRfidTagIn(List.of("rfid-1", "rfid-2", "foreign"));
+
+        assertEquals(Set.of(cola, water), Set.copyOf(found));
+        assertEquals(Set.of(cola, water), Set.copyOf(repository.findByRfidTagIn(List.of("rfid-1", "rfid-2", "foreign"))));
+        verify(jpaRepository, times(1)).findByRfidTagIn(Set.of("rfid-2", "foreign"));
+    }
+
+    @Test
+    void gtinLookupsShouldBeCachedAndInvalidatedOnSave() {
+        cola.setGtin("00614141123452");
+        when(jpaRepository.findByGtin("00614141123452")).thenReturn(Optional.of(cola));
+        when(jpaRepository.save(cola)).thenReturn(cola);
+
+        assertSame(cola, repository.findByGtin("00614141123452").orElseThrow());
+        assertSame(cola, repository.findByGtin("00614141123452").orElseThrow());
+        verify(jpaRepository, times(1)).findByGtin("00614141123452");
+
+        repository.save(cola);
+        repository.findByGtin("00614141123452");
+        verify(jpaRepository, times(2)).findByGtin("00614141123452");
+        assertEquals(1.0, meterRegistry.get("product.cache.gets").tag("index", "gtin").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesShouldBeEvicted() {
+        when(jpaRepository.findById("p2")).thenReturn(Optional.empty());
+        when(jpaRepository.findById("p3")).thenReturn(Optional.empty());
+
+        repository.findById("p1");
+        repository.findById("p2");
+        repository.findById("p1");
+        repository.findById("p3");
+        repository.findById("p1");
+
+        verify(jpaRepository, times(1)).findById("p1");
+        assertEquals(1.0, meterRegistry.get("product.cache.evictions").counter().count());
+        assertEquals(2.0, meterRegistry.get("product.cache.size").gauge().value());
+    }
+
+    @Test
+    void indexedTagsShouldResolveThroughTheirProductIds() throws IOException {
+        Path file = Files.createTempDirectory("rfid-tag-index").resolve("rfid-tag-index.bin");
+        new MappedRfidTagIndex.Builder().add("rfid-1", "p1").add("rfid-old", "p1").write(file);
+        RfidTagIndex rfidTagIndex = new RfidTagIndex(null, true, file.toString(), false);
+        rfidTagIndex.load();
+        repository = new CachingProductRepository((JpaProductRepository) jpaRepository, snapshots, rfidTagIndex, eventPublisher,
+                meterRegistry, 10);
+
+        assertSame(cola, repository.findByRfidTag("rfid-1").orElseThrow());
+        assertSame(repository.findByRfidTag("rfid-1"), repository.findByRfidTag("rfid-1"));
+        // A tag the product no longer carries falls back to the tag lookup
+        assertTrue(repository.findByRfidTag("rfid-old").isEmpty());
+        assertEquals(List.of(cola), repository.findByRfidTagIn(List.of("rfid-1", "rfid-old")));
+
+        verify(jpaRepository, times(1)).findById("p1");
+        verify(jpaRepository, never()).findByRfidTag("rfid-1");
+        verify(jpaRepository, times(1)).findByRfidTag("rfid-old");
+        assertEquals(4.0, meterRegistry.get("product.rfid_index.lookups").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void publishedProductsShouldBeServedFromTheSnapshot() {
+        Product published = new Product("p1", "Cola Drink", new BigDecimal("2.29"), "rfid-1");
+        published.setGtin("00614141123452");
+        snapshots.publish(CatalogSnapshot.EMPTY, CatalogSnapshot.of(7, List.of(published)));
+
+        assertSame(published, repository.findById("p1").orElseThrow());
+        assertSame(published, repository.findByRfidTag("rfid-1").orElseThrow());
+        assertSame(published, repository.findByGtin("00614141123452").orElseThrow());
+        assertEquals(7, repository.findByRfidTag("rfid-1").orElseThrow().getCatalogVersion());
+        // Only the tag the snapshot does not hold reaches the database
+        when(jpaRepository.findByRfidTagIn(Set.of("foreign"))).thenReturn(List.of());
+        assertEquals(List.of(published), repository.findByRfidTagIn(List.of("rfid-1", "foreign")));
+
+        verify(jpaRepository, never()).findById("p1");
+        verify(jpaRepository, never()).findByRfidTag("rfid-1");
+        verify(jpaRepository, times(1)).findByRfidTagIn(Set.of("foreign"));
+        assertEquals(5.0, meterRegistry.get("product.snapshot.lookups").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("product.snapshot.lookups").tag("result", "miss").counter().count());
+    }
+
+    private static RfidTagIndex noIndex() {
+        return new RfidTagIndex(null, false, "rfid-tag-index.bin", false);
+    }
+}
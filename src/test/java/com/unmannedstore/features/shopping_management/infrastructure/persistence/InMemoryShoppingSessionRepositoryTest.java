@@ -0,0 +1,252 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unmannedstore.features.shopping_management.domain.model.Money;
+import com.unmannedstore.features.shopping_management.domain.model.Product;
+import com.unmannedstore.features.shopping_management.domain.model.ShoppingSession;
+import com.unmannedstore.features.shopping_management.domain.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test for the write-behind session store and its journal.
+ */
+class InMemoryShoppingSessionRepositoryTest {
+
+    private JpaShoppingSessionRepository jpaRepository;
+    private ProductRepository productRepository;
+    private PlatformTransactionManager transactionManager;
+    private EntityManager entityManager;
+    private JdbcTemplate jdbcTemplate;
+    private Path journalPath;
+    private Product product;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        jpaRepository = mock(JpaShoppingSessionRepository.class);
+        productRepository = mock(ProductRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        entityManager = mock(EntityManager.class);
+        jdbcTemplate = JdbcBasketDeltaWriterTest.newDatabase();
+        journalPath = Files.createTempDirectory("session-journal").resolve("journal.log");
+        product = new Product("p1", "Cola Drink", new BigDecimal("2.49"), "rfid-1");
+    }
+
+    @Test
+    void saveShouldServeReadsFromMemory() {
+        InMemoryShoppingSessionRepository repository = newRepository();
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        session.addItem(product);
+
+        repository.save(session);
+
+        assertSame(session, repository.findByBasketId("basket-1").orElseThrow());
+        assertSame(session, repository.findById(session.getId()).orElseThrow());
+        assertEquals(1, repository.getPendingWriteCount());
+        verify(jpaRepository, never()).findByBasketId(anyString());
+        verify(jpaRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void flushShouldWritePendingSessionsAndTruncateJournal() throws IOException {
+        InMemoryShoppingSessionRepository repository = newRepository();
+        when(entityManager.getReference(Product.class, "p1")).thenReturn(product);
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        session.addItem(product);
+        repository.save(session);
+        assertTrue(Files.size(journalPath) > 0);
+
+        repository.flush();
+
+        verify(jpaRepository).saveAll(anyList());
+        assertEquals(0, repository.getPendingWriteCount());
+        assertEquals(0, Files.size(journalPath));
+    }
+
+    @Test
+    void flushShouldWriteStoredSessionsAsDeltas() {
+        ShoppingSession stored = new ShoppingSession("customer-1", "store-1", "basket-1");
+        stored.addItem(product);
+        jdbcTemplate.update("INSERT INTO shopping_sessions VALUES (?, 'customer-1', 'store-1', 'basket-1', ?, ?, 'ACTIVE', 1, 2.49, 0, 0.21, 2.70)",
+                stored.getId(), Timestamp.valueOf(stored.getStartedAt()), Timestamp.valueOf(stored.getLastUpdatedAt()));
+        jdbcTemplate.update("INSERT INTO basket_items VALUES (?, 'p1', 1, 2.49, ?, ?, 1, NULL, 0)",
+                stored.getItems().get(0).getId(), Timestamp.valueOf(stored.getItems().get(0).getAddedAt()), stored.getId());
+        when(jpaRepository.findByBasketId("basket-1")).thenReturn(Optional.of(stored));
+
+        InMemoryShoppingSessionRepository repository = newRepository();
+        ShoppingSession session = repository.findByBasketId("basket-1").orElseThrow();
+        session.addItem(product);
+        repository.save(session);
+        repository.flush();
+
+        verify(jpaRepository, never()).saveAll(anyList());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT quantity FROM basket_items", Integer.class));
+        assertEquals(new BigDecimal("4.98"), jdbcTemplate.queryForObject("SELECT subtotal FROM shopping_sessions", BigDecimal.class));
+        assertEquals(0, repository.getPendingWriteCount());
+    }
+
+    @Test
+    void findActiveSessionsByStoreIdShouldReturnTheInstancesHeldInMemory() {
+        InMemoryShoppingSessionRepository repository = newRepository();
+        when(entityManager.getReference(Product.class, "p1")).thenReturn(product);
+        ShoppingSession held = new ShoppingSession("customer-1", "store-1", "basket-1");
+        held.addItem(product);
+        repository.save(held);
+        ShoppingSession stored = new ShoppingSession("customer-2", "store-1", "basket-2");
+        stored.addItem(product);
+        // The database returns copies, including one of the session held in memory
+        ShoppingSession copy = new ShoppingSession("customer-1", "store-1", "basket-1");
+        copy.setId(held.getId());
+        when(jpaRepository.findActiveSessionsByStoreId("store-1")).thenReturn(List.of(copy, stored));
+
+        List<ShoppingSession> sessions = repository.findActiveSessionsByStoreId("store-1");
+
+        assertEquals(2, sessions.size());
+        assertSame(held, sessions.get(0));
+        assertSame(stored, sessions.get(1));
+        // The stored session is taken into memory, so later reads see the same instance
+        assertSame(stored, repository.findByBasketId("basket-2").orElseThrow());
+        assertSame(stored, repository.findActiveSessionsByStoreId("store-1").get(1));
+    }
+
+    @Test
+    void expiryShouldLockTheSameInstanceAsAScanOfASessionNotHeldInMemory() throws Exception {
+        LocalDateTime idleSince = LocalDateTime.now().minusHours(2);
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(1);
+        // The database returns a new copy of the stored session to each lookup
+        ShoppingSession forExpiry = storedSession(idleSince);
+        ShoppingSession forScan = storedSession(idleSince);
+        forScan.setId(forExpiry.getId());
+        jdbcTemplate.update("INSERT INTO shopping_sessions VALUES (?, 'customer-1', 'store-1', 'basket-1', ?, ?, 'ACTIVE', 1, 0, 0, 0, 0)",
+                forExpiry.getId(), Timestamp.valueOf(idleSince), Timestamp.valueOf(idleSince));
+        when(jpaRepository.findIdleActiveSessions(cutoff, 10)).thenReturn(List.of(forExpiry));
+        when(jpaRepository.findByBasketId("basket-1")).thenReturn(Optional.of(forScan));
+        InMemoryShoppingSessionRepository repository = newRepository();
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<ShoppingSession> expiry = pool.submit(() -> {
+                ShoppingSession session = repository.findIdleActiveSessions(cutoff, 10).get(0);
+                synchronized (session) {
+                    if ("ACTIVE".equals(session.getStatus()) && session.getLastUpdatedAt().isBefore(cutoff)) {
+                        session.expire();
+                        repository.save(session);
+                    }
+                }
+                return session;
+            });
+            Future<ShoppingSession> scan = pool.submit(() -> {
+                ShoppingSession session = repository.findByBasketId("basket-1").orElseThrow();
+                synchronized (session) {
+                    if ("ACTIVE".equals(session.getStatus())) {
+                        session.addItem(product);
+                        repository.save(session);
+                    }
+                }
+                return session;
+            });
+
+            ShoppingSession held = repository.findById(forExpiry.getId()).orElseThrow();
+            assertSame(held, expiry.get());
+            assertSame(held, scan.get());
+            // Either the scan landed first and the session is no longer idle, or it was expired before the scan
+            assertTrue("ACTIVE".equals(held.getStatus()) ? held.getItemCount() == 1 : held.getItemCount() == 0);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void journalShouldReplayUnflushedSessionsOnStartup() {
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        session.addItem(product);
+        session.addItem(product);
+        newRepository().save(session);
+
+        when(productRepository.findById("p1")).thenReturn(Optional.of(product));
+        InMemoryShoppingSessionRepository restarted = newRepository();
+        restarted.afterSingletonsInstantiated();
+
+        ShoppingSession replayed = restarted.findByBasketId("basket-1").orElseThrow();
+        assertEquals(session.getId(), replayed.getId());
+        assertEquals(2, replayed.getItemCount());
+        assertEquals(Money.of("4.98"), replayed.getRunningTotal().getSubtotal());
+        assertEquals(1, restarted.getPendingWriteCount());
+    }
+
+    @Test
+    void flushAfterReplayShouldTruncateTheReplayedEntries() throws IOException {
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        session.addItem(product);
+        newRepository().save(session);
+
+        when(productRepository.findById("p1")).thenReturn(Optional.of(product));
+        when(entityManager.getReference(Product.class, "p1")).thenReturn(product);
+        InMemoryShoppingSessionRepository restarted = newRepository();
+        restarted.afterSingletonsInstantiated();
+        restarted.flush();
+
+        // Nothing was appended since the restart, yet the flushed entries are gone
+        assertEquals(0, Files.size(journalPath));
+        InMemoryShoppingSessionRepository again = newRepository();
+        again.afterSingletonsInstantiated();
+        assertEquals(0, again.getPendingWriteCount());
+    }
+
+    @Test
+    void concurrentSavesOfDifferentBasketsShouldAllBeJournaled() throws Exception {
+        InMemoryShoppingSessionRepository repository = newRepository();
+        ExecutorService savers = Executors.newFixedThreadPool(8);
+        List<Future<?>> saves = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ShoppingSession session = new ShoppingSession("customer-" + i, "store-1", "basket-" + i);
+            session.addItem(product);
+            saves.add(savers.submit(() -> repository.save(session)));
+        }
+        for (Future<?> save : saves) {
+            save.get();
+        }
+        savers.shutdown();
+
+        when(productRepository.findById("p1")).thenReturn(Optional.of(product));
+        InMemoryShoppingSessionRepository restarted = newRepository();
+        restarted.afterSingletonsInstantiated();
+        assertEquals(200, restarted.getPendingWriteCount());
+    }
+
+    private static ShoppingSession storedSession(LocalDateTime lastUpdatedAt) {
+        ShoppingSession session = new ShoppingSession("customer-1", "store-1", "basket-1");
+        session.setLastUpdatedAt(lastUpdatedAt);
+        return session;
+    }
+
+    private InMemoryShoppingSessionRepository newRepository() {
+        SessionJournal journal = new SessionJournal(new ObjectMapper().findAndRegisterModules(), true, journalPath.toString(), false, 100);
+        InMemoryShoppingSessionRepository repository = new InMemoryShoppingSessionRepository(
+                jpaRepository, productRepository, journal, new JdbcBasketDeltaWriter(jdbcTemplate), transactionManager, 10);
+        ReflectionTestUtils.setField(repository, "entityManager", entityManager);
+        return repository;
+    }
+}
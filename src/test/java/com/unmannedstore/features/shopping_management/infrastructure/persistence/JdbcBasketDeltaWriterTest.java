@@ -0,0 +1,161 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for the delta writer against an in-memory H2 database.
+ */
+class JdbcBasketDeltaWriterTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private JdbcBasketDeltaWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = newDatabase();
+        writer = new JdbcBasketDeltaWriter(jdbcTemplate);
+        jdbcTemplate.update("INSERT INTO shopping_sessions VALUES ('s1', 'c1', 'store-1', 'basket-1', ?, ?, 'ACTIVE', 1, 2.49, 0, 0.21, 2.70)",
+                Timestamp.valueOf(NOW), Timestamp.valueOf(NOW));
+        jdbcTemplate.update("INSERT INTO basket_items VALUES ('i1', 'p1', 1, 2.49, ?, 's1', 1, NULL, 0)", Timestamp.valueOf(NOW));
+    }
+
+    @Test
+    void applyShouldIncrementExistingLineAndTotals() {
+        int rows = writer.apply(List.of(delta("2.49", "0.20", line("i1", 1))));
+
+        assertEquals(2, rows);
+        assertEquals(2, quantity("i1"));
+        Map<String, Object> session = jdbcTemplate.queryForMap("SELECT subtotal, tax, total FROM shopping_sessions WHERE id = 's1'");
+        assertEquals(new BigDecimal("4.98"), session.get("SUBTOTAL"));
+        assertEquals(new BigDecimal("0.41"), session.get("TAX"));
+        assertEquals(new BigDecimal("5.39"), session.get("TOTAL"));
+    }
+
+    @Test
+    void applyShouldTotalTheSubtotalLessTheDiscountAndTheTax() {
+        writer.apply(List.of(new SessionDelta("s1", new BigDecimal("2.49"), new BigDecimal("1.00"), new BigDecimal("0.12"), null, 2, NOW,
+                List.of(line("i1", 1)))));
+
+        Map<String, Object> session = jdbcTemplate.queryForMap("SELECT subtotal, discount, tax, total FROM shopping_sessions WHERE id = 's1'");
+        assertEquals(new BigDecimal("4.98"), session.get("SUBTOTAL"));
+        assertEquals(new BigDecimal("1.00"), session.get("DISCOUNT"));
+        assertEquals(new BigDecimal("0.33"), session.get("TAX"));
+        assertEquals(new BigDecimal("4.31"), session.get("TOTAL"));
+    }
+
+    @Test
+    void applyShouldAdvanceSessionAndLineVersions() {
+        writer.apply(List.of(delta("2.49", "0.20", line("i1", 1))));
+
+        assertEquals(2L, jdbcTemplate.queryForObject("SELECT version FROM shopping_sessions WHERE id = 's1'", Long.class));
+        assertEquals(2L, jdbcTemplate.queryForObject("SELECT changed_version FROM basket_items WHERE id = 'i1'", Long.class));
+    }
+
+    @Test
+    void concurrentDeltasShouldCommute() {
+        writer.apply(List.of(delta("2.49", "0.20", line("i1", 1))));
+        writer.apply(List.of(delta("-2.49", "-0.20", line("i1", -1))));
+        writer.apply(List.of(delta("2.49", "0.20", line("i1", 1))));
+
+        assertEquals(2, quantity("i1"));
+        assertEquals(new BigDecimal("4.98"),
+                jdbcTemplate.queryForObject("SELECT subtotal FROM shopping_sessions WHERE id = 's1'", BigDecimal.class));
+    }
+
+    @Test
+    void applyShouldInsertNewLinesAndDeleteEmptyOnes() {
+        writer.apply(List.of(delta("1.50", "0.12", line("i2", 1), line("i1", -1))));
+
+        assertEquals(1, quantity("i2"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM basket_items WHERE id = 'i1'", Integer.class));
+        assertEquals(new BigDecimal("1.50"),
+                jdbcTemplate.queryForObject("SELECT subtotal FROM shopping_sessions WHERE id = 's1'", BigDecimal.class));
+    }
+
+    @Test
+    void applyShouldSetThePriceAndCatalogVersionOfRepricedLines() {
+        writer.apply(List.of(delta("-0.50", "-0.04",
+                new SessionDelta.LineDelta("i1", "p1", new BigDecimal("1.99"), NOW, 0, 2, null, 7, true))));
+
+        Map<String, Object> line = jdbcTemplate.queryForMap("SELECT quantity, price, catalog_version FROM basket_items WHERE id = 'i1'");
+        assertEquals(1, line.get("QUANTITY"));
+        assertEquals(new BigDecimal("1.99"), line.get("PRICE"));
+        assertEquals(7L, line.get("CATALOG_VERSION"));
+    }
+
+    @Test
+    void applyShouldFailForSessionsThatAreNotStored() {
+        SessionDelta unknown = new SessionDelta("missing", new BigDecimal("1.00"), new BigDecimal("0.08"), null, 1, NOW, List.of());
+
+        assertThrows(IllegalStateException.class, () -> writer.apply(List.of(unknown)));
+    }
+
+    @Test
+    void applyShouldResolveBatchesReportedWithoutUpdateCounts() {
+        // Drivers may answer a batch with SUCCESS_NO_INFO instead of the number of rows each statement changed
+        JdbcTemplate noInfo = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+                int[] counts = super.batchUpdate(sql, batchArgs);
+                Arrays.fill(counts, Statement.SUCCESS_NO_INFO);
+                return counts;
+            }
+        };
+        JdbcBasketDeltaWriter noInfoWriter = new JdbcBasketDeltaWriter(noInfo);
+
+        noInfoWriter.apply(List.of(delta("3.99", "0.32", line("i1", 1), line("i2", 1))));
+
+        assertEquals(2, quantity("i1"));
+        assertEquals(1, quantity("i2"));
+        SessionDelta unknown = new SessionDelta("missing", new BigDecimal("1.00"), new BigDecimal("0.08"), null, 1, NOW, List.of());
+        assertThrows(IllegalStateException.class, () -> noInfoWriter.apply(List.of(unknown)));
+    }
+
+    /**
+     * Create an in-memory database with the shopping session tables.
+     *
+     * @return A JDBC template for the database
+     */
+    static JdbcTemplate newDatabase() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE shopping_sessions (id VARCHAR(255) PRIMARY KEY, customer_id VARCHAR(255) NOT NULL, "
+                + "store_id VARCHAR(255) NOT NULL, basket_id VARCHAR(255) NOT NULL, started_at TIMESTAMP(6) NOT NULL, "
+                + "last_updated_at TIMESTAMP(6) NOT NULL, status VARCHAR(255) NOT NULL, version BIGINT NOT NULL, subtotal NUMERIC(38,2) NOT NULL, discount NUMERIC(38,2) NOT NULL, "
+                + "tax NUMERIC(38,2) NOT NULL, total NUMERIC(38,2) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE basket_items (id VARCHAR(255) PRIMARY KEY, product_id VARCHAR(255) NOT NULL, "
+                + "quantity INTEGER NOT NULL, price NUMERIC(38,2) NOT NULL, added_at TIMESTAMP(6) NOT NULL, "
+                + "shopping_session_id VARCHAR(255) NOT NULL, changed_version BIGINT NOT NULL, serial VARCHAR(255), "
+                + "catalog_version BIGINT NOT NULL)");
+        return jdbcTemplate;
+    }
+
+    private int quantity(String itemId) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM basket_items WHERE id = ?", Integer.class, itemId);
+    }
+
+    private static SessionDelta delta(String subtotalDelta, String taxDelta, SessionDelta.LineDelta... lines) {
+        return new SessionDelta("s1", new BigDecimal(subtotalDelta), new BigDecimal(taxDelta), null, 2, NOW, List.of(lines));
+    }
+
+    private static SessionDelta.LineDelta line(String itemId, int quantityDelta) {
+        return new SessionDelta.LineDelta(itemId, "p1", new BigDecimal("1.50"), NOW, quantityDelta, 2);
+    }
+}
@@ -0,0 +1,71 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import com.unmannedstore.features.shopping_management.domain.model.ProductSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for keyset-paged and cursor-streamed catalog listings against an in-memory H2 database.
+ */
+class JdbcProductListingRepositoryTest {
+
+    private JdbcProductListingRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = JdbcBasketDeltaWriterTest.newDatabase();
+        jdbcTemplate.execute("CREATE TABLE products (id VARCHAR(255) PRIMARY KEY, name VARCHAR(255) NOT NULL, "
+                + "price NUMERIC(38,2) NOT NULL, rfidtag VARCHAR(255) NOT NULL UNIQUE, gtin VARCHAR(14), "
+                + "description VARCHAR(255), category VARCHAR(255), imageurl VARCHAR(255))");
+        for (int i = 1; i <= 5; i++) {
+            jdbcTemplate.update("INSERT INTO products VALUES (?, ?, 1.99, ?, NULL, NULL, ?, NULL)",
+                    "p00" + i, "Product " + i, "rfid-" + i, i % 2 == 0 ? "Snacks" : "Beverages");
+        }
+        repository = new JdbcProductListingRepository(jdbcTemplate, 2);
+    }
+
+    @Test
+    void pagesShouldContinueAfterTheLastId() {
+        List<ProductSummary> first = repository.findPage(null, null, 2);
+        List<ProductSummary> second = repository.findPage(null, "p002", 2);
+        List<ProductSummary> last = repository.findPage(null, "p004", 2);
+
+        assertEquals(List.of("p001", "p002"), ids(first));
+        assertEquals(List.of("p003", "p004"), ids(second));
+        assertEquals(List.of("p005"), ids(last));
+        assertEquals("Product 1", first.get(0).getName());
+    }
+
+    @Test
+    void pagesShouldBeFilteredByCategory() {
+        assertEquals(List.of("p001", "p003"), ids(repository.findPage("Beverages", null, 2)));
+        assertEquals(List.of("p005"), ids(repository.findPage("Beverages", "p003", 2)));
+        assertEquals(List.of("p004"), ids(repository.findPage("Snacks", "p002", 10)));
+    }
+
+    @Test
+    void forEachShouldReadEveryProductInIdOrder() {
+        List<ProductSummary> products = new ArrayList<>();
+        repository.forEach(null, products::add);
+
+        assertEquals(List.of("p001", "p002", "p003", "p004", "p005"), ids(products));
+
+        List<ProductSummary> snacks = new ArrayList<>();
+        repository.forEach("Snacks", snacks::add);
+        assertEquals(List.of("p002", "p004"), ids(snacks));
+    }
+
+    private static List<String> ids(List<ProductSummary> products) {
+        List<String> ids = new ArrayList<>(products.size());
+        for (ProductSummary product : products) {
+            ids.add(product.getId());
+        }
+        return ids;
+    }
+}
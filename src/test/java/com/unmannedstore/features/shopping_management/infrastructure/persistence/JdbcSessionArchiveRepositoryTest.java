@@ -0,0 +1,68 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for archiving finished sessions against an in-memory H2 database.
+ */
+class JdbcSessionArchiveRepositoryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 2, 12, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private JdbcSessionArchiveRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = JdbcBasketDeltaWriterTest.newDatabase();
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(jdbcTemplate.getDataSource());
+        repository = new JdbcSessionArchiveRepository(jdbcTemplate);
+
+        insertSession("old-completed", "COMPLETED", NOW.minusDays(3));
+        insertSession("old-cancelled", "CANCELLED", NOW.minusDays(2));
+        insertSession("recent-completed", "COMPLETED", NOW.minusHours(1));
+        insertSession("old-active", "ACTIVE", NOW.minusDays(3));
+    }
+
+    @Test
+    void archiveShouldMoveFinishedSessionsAndTheirItems() {
+        int archived = repository.archiveFinishedSessions(NOW.minusDays(1), 10);
+
+        assertEquals(2, archived);
+        assertEquals(2, count("shopping_sessions"));
+        assertEquals(2, count("basket_items"));
+        assertEquals(2, count("shopping_sessions_archive"));
+        assertEquals(2, count("basket_items_archive"));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM shopping_sessions WHERE id IN ('old-completed', 'old-cancelled')", Integer.class));
+    }
+
+    @Test
+    void archiveShouldTakeTheOldestSessionsFirstInBoundedBatches() {
+        assertEquals(1, repository.archiveFinishedSessions(NOW.minusDays(1), 1));
+        assertEquals("old-completed", jdbcTemplate.queryForObject("SELECT id FROM shopping_sessions_archive", String.class));
+
+        assertEquals(1, repository.archiveFinishedSessions(NOW.minusDays(1), 1));
+        assertEquals(0, repository.archiveFinishedSessions(NOW.minusDays(1), 1));
+    }
+
+    private void insertSession(String id, String status, LocalDateTime lastUpdatedAt) {
+        Timestamp timestamp = Timestamp.valueOf(lastUpdatedAt);
+        jdbcTemplate.update("INSERT INTO shopping_sessions VALUES (?, 'c1', 'store-1', 'basket-1', ?, ?, ?, 3, 2.49, 0, 0.21, 2.70)",
+                id, timestamp, timestamp, status);
+        jdbcTemplate.update("INSERT INTO basket_items VALUES (?, 'p1', 1, 2.49, ?, ?, 1, NULL, 0)", id + "-item", timestamp, id);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,82 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test for the memory-mapped RFID tag index file.
+ */
+class MappedRfidTagIndexTest {
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("rfid-tag-index");
+    }
+
+    @Test
+    void lookupsShouldFindEveryTagWrittenToTheIndex() throws IOException {
+        MappedRfidTagIndex.Builder builder = new MappedRfidTagIndex.Builder();
+        for (int i = 0; i < 10_000; i++) {
+            builder.add(String.format("3034257BF7194E4%09d", i), "p" + (i % 100));
+        }
+        Path file = directory.resolve("index.bin");
+        assertEquals(10_000, builder.write(file));
+
+        MappedRfidTagIndex index = MappedRfidTagIndex.open(file);
+
+        assertEquals(10_000, index.getTagCount());
+        assertEquals(100, index.getProductCount());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals("p" + (i % 100), index.findProductId(String.format("3034257BF7194E4%09d", i)));
+        }
+        assertNull(index.findProductId("3034257BF7194E4999999999"));
+        assertNull(index.findProductId("3034257BF7194E4"));
+    }
+
+    @Test
+    void tagsThatCannotBeIndexedShouldBeSkipped() throws IOException {
+        MappedRfidTagIndex.Builder builder = new MappedRfidTagIndex.Builder()
+                .add("rfid-1", "p1")
+                .add("rfid-\u00e9", "p2")
+                .add("", "p3")
+                .add(null, "p4");
+        Path file = directory.resolve("index.bin");
+
+        assertEquals(1, builder.write(file));
+        assertEquals(3, builder.getSkipped());
+
+        MappedRfidTagIndex index = MappedRfidTagIndex.open(file);
+        assertEquals("p1", index.findProductId("rfid-1"));
+        assertNull(index.findProductId("rfid-\u00e9"));
+        assertEquals(1, index.getProductCount());
+    }
+
+    @Test
+    void duplicateTagsShouldBeRejected() {
+        MappedRfidTagIndex.Builder builder = new MappedRfidTagIndex.Builder()
+                .add("rfid-1", "p1")
+                .add("rfid-1", "p2");
+
+        assertThrows(IllegalArgumentException.class, () -> builder.write(directory.resolve("index.bin")));
+    }
+
+    @Test
+    void rewritingShouldReplaceTheFile() throws IOException {
+        Path file = directory.resolve("index.bin");
+        new MappedRfidTagIndex.Builder().add("rfid-1", "p1").write(file);
+        new MappedRfidTagIndex.Builder().add("rfid-2", "p2").write(file);
+
+        MappedRfidTagIndex index = MappedRfidTagIndex.open(file);
+
+        assertNull(index.findProductId("rfid-1"));
+        assertEquals("p2", index.findProductId("rfid-2"));
+    }
+}
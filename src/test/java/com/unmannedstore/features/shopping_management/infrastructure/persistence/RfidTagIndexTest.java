@@ -0,0 +1,55 @@
+package com.unmannedstore.features.shopping_management.infrastructure.persistence;
+
+import com.unmannedstore.features.shopping_management.events.ProductChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for building the RFID tag index file from the products table of an in-memory H2 database.
+ */
+class RfidTagIndexTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        jdbcTemplate = JdbcBasketDeltaWriterTest.newDatabase();
+        jdbcTemplate.execute("CREATE TABLE products (id VARCHAR(255) PRIMARY KEY, rfidtag VARCHAR(255) NOT NULL UNIQUE)");
+        jdbcTemplate.update("INSERT INTO products VALUES ('p1', 'rfid-1')");
+        file = Files.createTempDirectory("rfid-tag-index").resolve("rfid-tag-index.bin");
+    }
+
+    @Test
+    void catalogImportShouldBuildTheIndexFile() {
+        RfidTagIndex index = new RfidTagIndex(jdbcTemplate, true, file.toString(), false);
+        index.load();
+        assertFalse(index.isLoaded());
+
+        jdbcTemplate.update("INSERT INTO products VALUES ('p2', 'rfid-2')");
+        index.onProductChanged(new ProductChangedEvent(null, null, null, false));
+
+        assertTrue(Files.exists(file));
+        assertEquals("p1", index.findProductId("rfid-1"));
+        assertEquals("p2", index.findProductId("rfid-2"));
+    }
+
+    @Test
+    void changesOfSingleProductsShouldLeaveTheIndexToTheFallback() {
+        RfidTagIndex index = new RfidTagIndex(jdbcTemplate, true, file.toString(), false);
+        index.rebuild();
+
+        jdbcTemplate.update("INSERT INTO products VALUES ('p2', 'rfid-2')");
+        index.onProductChanged(new ProductChangedEvent("p2", "rfid-2", null, false));
+
+        assertEquals("p1", index.findProductId("rfid-1"));
+        assertNull(index.findProductId("rfid-2"));
+    }
+}